@@ -0,0 +1,33 @@
+package com.assignment.carstore.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once for every thread count of the {@code jmh.threads} property, the other
+ * arguments are the usual JMH command line, e.g. a regular expression selecting the benchmarks.
+ * Results are written to {@code target/jmh-<threads>-threads.json}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    for (String threads : System.getProperty("jmh.threads", "1").split(",")) {
+      Options options = new OptionsBuilder()
+              .parent(commandLine)
+              .threads(Integer.parseInt(threads.trim()))
+              .resultFormat(ResultFormatType.JSON)
+              .result("target/jmh-" + threads.trim() + "-threads.json")
+              .build();
+      new Runner(options).run();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.CachedSessionClock;
+import com.assignment.carstore.components.clock.MonotonicSessionClock;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.clock.SystemSessionClock;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of reading the time on the hot path with the monotonic, the system and the cached clock,
+ * alone and as part of submitting a session and reading the summary.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClockBenchmark {
+
+  @Param({"monotonic", "system", "cached"})
+  public String clock;
+
+  @Param({"locking", "concurrent"})
+  public String storage;
+
+  private SessionClock sessionClock;
+
+  private SessionDataStorage dataStorage;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    if ("cached".equals(clock)) {
+      sessionClock = new CachedSessionClock(ZoneId.systemDefault(), Duration.ofMillis(1));
+    } else if ("monotonic".equals(clock)) {
+      sessionClock = new MonotonicSessionClock(ZoneId.systemDefault());
+    } else {
+      sessionClock = new SystemSessionClock(ZoneId.systemDefault());
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void fill() {
+    dataStorage = Storages.create(storage, sessionClock);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (sessionClock instanceof CachedSessionClock) {
+      ((CachedSessionClock) sessionClock).close();
+    }
+  }
+
+  @Benchmark
+  public LocalDateTime now() {
+    return sessionClock.now();
+  }
+
+  @Benchmark
+  public ChargeSession submitSession() {
+    long startedAtMillis = sessionClock.millis();
+    return dataStorage.submitSession(new ChargeSession(UUID.randomUUID(), "ABC-1",
+            sessionClock.toLocalDateTime(startedAtMillis), startedAtMillis));
+  }
+
+  @Benchmark
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    return dataStorage.retrieveSummarySubmittedSessions();
+  }
+}
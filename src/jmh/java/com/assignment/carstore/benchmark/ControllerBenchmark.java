@@ -0,0 +1,93 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.controller.ChargeController;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the request path of the controller, from the request body to the serialized response body,
+ * without the servlet container.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ControllerBenchmark {
+
+  private static final byte[] SUBMIT_REQUEST = "{\"stationId\": \"ABC-12345\"}".getBytes(StandardCharsets.UTF_8);
+
+  @Param({"locking", "concurrent", "packed"})
+  public String storage;
+
+  @Param({"10000"})
+  public int sessions;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+          .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+
+  private ChargeController controller;
+
+  private ChargeController cachingController;
+
+  @Setup(Level.Iteration)
+  public void fill() throws ChargingSessionException {
+    SessionDataStorage dataStorage = Storages.create(storage, sessions);
+    controller = new ChargeController(dataStorage, objectMapper, null, SessionClock.SYSTEM, null,
+            SessionIdGenerator.RANDOM);
+    cachingController = new ChargeController(dataStorage, objectMapper,
+            new SummaryCache(dataStorage, objectMapper, Duration.ofMillis(100)), SessionClock.SYSTEM, null,
+            SessionIdGenerator.RANDOM);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = StorageBenchmark.BATCH_SIZE)
+  @Measurement(iterations = 5, batchSize = StorageBenchmark.BATCH_SIZE)
+  public byte[] submitRequest() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(controller.submitSession(new ByteArrayInputStream(SUBMIT_REQUEST), null).getBody());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] summaryRequest() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(controller.retrieveSummarySubmittedSessions(null, null).getBody());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Object cachedSummaryRequest() {
+    return cachingController.retrieveSummarySubmittedSessions(null, null).getBody();
+  }
+}
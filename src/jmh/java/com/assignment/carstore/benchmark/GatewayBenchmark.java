@@ -0,0 +1,178 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.CarChargingStoreApplication;
+import com.assignment.carstore.components.gateway.GatewayClient;
+import com.assignment.carstore.components.gateway.GatewayServer;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the binary gateway endpoint against the JSON API over HTTP, both served by the same
+ * application and storage. Every benchmark thread is a gateway with its own connections, an operation
+ * is a session submitted and stopped.
+ *
+ * The single benchmarks wait for every response, the batch ones send {@link #BATCH_SIZE} sessions at once,
+ * as pipelined frames or as the JSON batch requests.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dhttp.maxConnections=256"})
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GatewayBenchmark {
+
+  static final int BATCH_SIZE = 100;
+
+  private static final byte[] SUBMIT_REQUEST = "{\"stationId\": \"ABC-12345\"}".getBytes(StandardCharsets.UTF_8);
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Param({"locking", "concurrent"})
+  public String storage;
+
+  private ConfigurableApplicationContext context;
+
+  private String sessionsUrl;
+
+  private InetSocketAddress gatewayAddress;
+
+  /**
+   * The settings are passed as arguments, the default properties of the builder would not override
+   * the ones of {@code application.properties}.
+   */
+  @Setup(Level.Trial)
+  public void start() {
+    context = new SpringApplicationBuilder(CarChargingStoreApplication.class)
+            .run("--carstore.storage.type=" + storage,
+                    "--carstore.gateway.enabled=true",
+                    "--carstore.gateway.port=0",
+                    "--server.port=0",
+                    "--logging.level.root=WARN");
+    sessionsUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/chargingSessions";
+    gatewayAddress = new InetSocketAddress("127.0.0.1", context.getBean(GatewayServer.class).getPort());
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+  }
+
+  /**
+   * Connection of a benchmark thread to the gateway endpoint.
+   */
+  @State(Scope.Thread)
+  public static class Gateway {
+
+    private GatewayClient client;
+
+    private List<String> stationIds;
+
+    @Setup(Level.Trial)
+    public void connect(GatewayBenchmark benchmark) throws IOException {
+      client = new GatewayClient(benchmark.gatewayAddress);
+      stationIds = Collections.nCopies(BATCH_SIZE, "ABC-12345");
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() throws IOException {
+      client.close();
+    }
+  }
+
+  @Benchmark
+  public JsonNode jsonSubmitAndStop() throws IOException {
+    JsonNode submitted = exchange("POST", sessionsUrl, SUBMIT_REQUEST);
+    return exchange("PUT", sessionsUrl + "/" + submitted.get("id").asText(), null);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public JsonNode jsonBatchSubmitAndStop() throws IOException {
+    StringBuilder stations = new StringBuilder("[");
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      stations.append(i == 0 ? "" : ",").append("{\"stationId\": \"ABC-12345\"}");
+    }
+    ArrayNode submitted = (ArrayNode) exchange("POST", sessionsUrl + "/batch",
+            stations.append("]").toString().getBytes(StandardCharsets.UTF_8));
+    ArrayNode ids = OBJECT_MAPPER.createArrayNode();
+    for (JsonNode item : submitted) {
+      ids.add(item.get("session").get("id").asText());
+    }
+    return exchange("PUT", sessionsUrl + "/batch/stop", OBJECT_MAPPER.writeValueAsBytes(ids));
+  }
+
+  @Benchmark
+  public ChargeSession binarySubmitAndStop(Gateway gateway) throws ChargingSessionException, IOException {
+    return gateway.client.stopSession(gateway.client.submitSession("ABC-12345").getId());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<BatchItemResult> binaryPipelinedSubmitAndStop(Gateway gateway) throws IOException {
+    List<BatchItemResult> submitted = gateway.client.submitSessions(gateway.stationIds);
+    List<UUID> ids = new ArrayList<>(submitted.size());
+    for (BatchItemResult result : submitted) {
+      ids.add(result.getSession().getId());
+    }
+    return gateway.client.stopSessions(ids);
+  }
+
+  /**
+   * Send a JSON request and parse the whole response, so the connection is returned to the keep-alive cache.
+   */
+  private static JsonNode exchange(String method, String url, byte[] body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setRequestMethod(method);
+    if (body != null) {
+      connection.setRequestProperty("Content-Type", "application/json");
+      connection.setDoOutput(true);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+    }
+    int status = connection.getResponseCode();
+    if (status != 200) {
+      connection.getErrorStream().close();
+      throw new IOException("Unexpected status " + status);
+    }
+    try (InputStream in = connection.getInputStream()) {
+      return OBJECT_MAPPER.readTree(in);
+    }
+  }
+}
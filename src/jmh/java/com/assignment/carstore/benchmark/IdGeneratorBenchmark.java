@@ -0,0 +1,70 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.components.clock.CachedSessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.id.TimeOrderedSessionIdGenerator;
+import com.assignment.carstore.domain.ChargeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the session id generators, run with several threads to show the contention
+ * on the shared {@code SecureRandom} of the random ids.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdGeneratorBenchmark {
+
+  @Param({"random", "time-ordered"})
+  public String generator;
+
+  private CachedSessionClock clock;
+
+  private SessionIdGenerator idGenerator;
+
+  private final LocalDateTime startedAt = LocalDateTime.now();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    clock = new CachedSessionClock(ZoneId.systemDefault(), Duration.ofMillis(1));
+    idGenerator = "random".equals(generator) ? SessionIdGenerator.RANDOM : new TimeOrderedSessionIdGenerator(clock);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    clock.close();
+  }
+
+  @Benchmark
+  public UUID nextId() {
+    return idGenerator.nextId();
+  }
+
+  @Benchmark
+  public ChargeSession newSession() {
+    return new ChargeSession(idGenerator.nextId(), "ABC-12345", startedAt);
+  }
+}
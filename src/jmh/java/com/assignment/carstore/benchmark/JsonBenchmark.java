@@ -0,0 +1,111 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.controller.ChargeSessionRequests;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of parsing the request payloads and serializing the response payloads
+ * the way the controller does. Run with {@code -prof gc} to compare the allocation per operation.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonBenchmark {
+
+  private static final int PAGE_SIZE = 100;
+
+  private final byte[] submitRequest = "{\"stationId\": \"ABC-12345\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+          .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+
+  private final ChargeSessionRequests requests = new ChargeSessionRequests(new SessionDataStorageImpl(), objectMapper,
+          null, SessionClock.SYSTEM, null, SessionIdGenerator.RANDOM);
+
+  private final ObjectWriter sessionWriter = objectMapper.writerFor(ChargeSession.class);
+
+  private final ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
+
+  private final SessionPage page;
+
+  private final CounterSummary summary = new CounterSummary(30, 10, 20);
+
+  public JsonBenchmark() {
+    List<ChargeSession> sessions = new ArrayList<>();
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      sessions.add(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    page = new SessionPage(sessions, null);
+  }
+
+  /**
+   * The submit request read into a json-simple object, as it was read before streaming.
+   */
+  @Benchmark
+  public String parseSubmitRequestJsonSimple() throws IOException, ParseException {
+    JSONObject jsonObject = (JSONObject) new JSONParser().parse(
+            new InputStreamReader(new ByteArrayInputStream(submitRequest), StandardCharsets.UTF_8));
+    return jsonObject.get("stationId").toString();
+  }
+
+  /**
+   * The submit request streamed token by token keeping only the station id, as the controller reads it.
+   */
+  @Benchmark
+  public String parseSubmitRequestStreaming() throws ChargingSessionException {
+    return requests.getStationIdFromStream(new ByteArrayInputStream(submitRequest));
+  }
+
+  @Benchmark
+  public byte[] serializeSession() throws JsonProcessingException {
+    return sessionWriter.writeValueAsBytes(session);
+  }
+
+  @Benchmark
+  public byte[] serializePage() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public byte[] serializeSummary() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(summary);
+  }
+}
@@ -0,0 +1,169 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the storage operations for every storage implementation and dataset size.
+ *
+ * Submit and stop change the dataset, so they are measured as batches of {@link #BATCH_SIZE}
+ * operations per thread on a dataset restored before every iteration. Stopping the oldest sessions
+ * of {@link #IN_PROGRESS} sessions in progress shows whether a stop depends on the sessions after it.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StorageBenchmark {
+
+  static final int BATCH_SIZE = 100_000;
+
+  static final int IN_PROGRESS = 1_000_000;
+
+  @Param({"locking", "concurrent", "packed"})
+  public String storage;
+
+  @Param({"10000", "1000000"})
+  public int sessions;
+
+  private SessionDataStorage dataStorage;
+
+  @Setup(Level.Iteration)
+  public void fill() throws ChargingSessionException {
+    dataStorage = Storages.create(storage, sessions);
+  }
+
+  /**
+   * Sessions submitted for one thread to stop during the iteration.
+   */
+  @State(Scope.Thread)
+  public static class InProgress {
+
+    private final UUID[] ids = new UUID[BATCH_SIZE];
+
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void submit(StorageBenchmark benchmark) {
+      LocalDateTime now = LocalDateTime.now();
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = benchmark.dataStorage.submitSession(new ChargeSession("ABC-" + i % Storages.STATIONS, now)).getId();
+      }
+      next = 0;
+    }
+  }
+
+  /**
+   * Storage of the thread holding only sessions in progress, submitted in the order of their start time
+   * and stopped oldest first.
+   */
+  @State(Scope.Thread)
+  public static class AllInProgress {
+
+    private final UUID[] ids = new UUID[IN_PROGRESS];
+
+    private SessionDataStorage dataStorage;
+
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void submit(StorageBenchmark benchmark) {
+      dataStorage = Storages.create(benchmark.storage);
+      LocalDateTime now = LocalDateTime.now().minusSeconds(IN_PROGRESS);
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = dataStorage.submitSession(new ChargeSession("ABC-" + i % Storages.STATIONS, now.plusSeconds(i))).getId();
+      }
+      next = 0;
+    }
+  }
+
+  /**
+   * Stations of the submitted sessions, so the station id is not built in the measured code.
+   */
+  @State(Scope.Thread)
+  public static class Stations {
+
+    private final String[] ids = new String[Storages.STATIONS];
+
+    private int next;
+
+    public Stations() {
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = "ABC-" + i;
+      }
+    }
+
+    String next() {
+      next = next + 1 == ids.length ? 0 : next + 1;
+      return ids[next];
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 5, batchSize = BATCH_SIZE)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ChargeSession submitSession(Stations stations) {
+    return dataStorage.submitSession(new ChargeSession(stations.next(), LocalDateTime.now()));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 5, batchSize = BATCH_SIZE)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ChargeSession stopSession(InProgress inProgress) throws ChargingSessionException {
+    return dataStorage.stopSession(inProgress.ids[inProgress.next++]);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 5, batchSize = BATCH_SIZE)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ChargeSession stopOldestInProgressSession(AllInProgress inProgress) throws ChargingSessionException {
+    return inProgress.dataStorage.stopSession(inProgress.ids[inProgress.next++]);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    return dataStorage.retrieveSummarySubmittedSessions();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int retrieveAllSessions() {
+    // iterated as the response body would be, the collection may be a lazy view
+    Collection<ChargeSession> all = dataStorage.retrieveAllSessions();
+    int count = 0;
+    for (ChargeSession session : all) {
+      count += session.getStationId().length();
+    }
+    return count;
+  }
+}
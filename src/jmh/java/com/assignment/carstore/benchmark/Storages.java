@@ -0,0 +1,59 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.impl.ConcurrentSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.PackedSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Storage implementations compared by the benchmarks, named as in {@code carstore.storage.type}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+final class Storages {
+
+  /**
+   * Number of stations the sessions of a dataset are spread over.
+   */
+  static final int STATIONS = 100;
+
+  private Storages() {
+  }
+
+  static SessionDataStorage create(String type) {
+    return create(type, SessionClock.SYSTEM);
+  }
+
+  static SessionDataStorage create(String type, SessionClock clock) {
+    switch (type) {
+      case "locking":
+        return new SessionDataStorageImpl(clock);
+      case "concurrent":
+        return new ConcurrentSessionDataStorageImpl(clock);
+      case "packed":
+        return new PackedSessionDataStorageImpl(clock);
+      default:
+        throw new IllegalArgumentException("Unknown storage type: " + type);
+    }
+  }
+
+  /**
+   * A storage of the given type holding the given number of sessions, every second of them finished.
+   */
+  static SessionDataStorage create(String type, int sessions) throws ChargingSessionException {
+    SessionDataStorage dataStorage = create(type);
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < sessions; i++) {
+      ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-" + i % STATIONS, now));
+      if (i % 2 == 0) {
+        dataStorage.stopSession(session.getId());
+      }
+    }
+    return dataStorage;
+  }
+}
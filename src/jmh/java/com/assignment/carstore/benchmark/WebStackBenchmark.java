@@ -0,0 +1,136 @@
+package com.assignment.carstore.benchmark;
+
+import com.assignment.carstore.CarChargingStoreApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the whole application over HTTP, comparing the servlet stack (Tomcat) on platform
+ * or virtual threads with the reactive one (Netty). Every benchmark thread is a client with
+ * a keep-alive connection, so the thread counts of the runner are the numbers of concurrent clients.
+ *
+ * With the {@code fsync} persistence every submitted session waits for the write-ahead log to be forced,
+ * which blocks a request thread, the case virtual threads are meant for. The virtual stack falls back
+ * to platform threads on a JDK without virtual threads.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dhttp.maxConnections=256"})
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class WebStackBenchmark {
+
+  private static final byte[] SUBMIT_REQUEST = "{\"stationId\": \"ABC-12345\"}".getBytes(StandardCharsets.UTF_8);
+
+  @Param({"servlet", "virtual", "reactive"})
+  public String stack;
+
+  @Param({"locking", "concurrent"})
+  public String storage;
+
+  @Param({"none", "fsync"})
+  public String persistence;
+
+  private Path dataDirectory;
+
+  private ConfigurableApplicationContext context;
+
+  private URL sessionsUrl;
+
+  private URL summaryUrl;
+
+  private URL pageUrl;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    dataDirectory = Files.createTempDirectory("carstore-benchmark");
+    context = new SpringApplicationBuilder(CarChargingStoreApplication.class)
+            .properties("spring.main.web-application-type=" + ("reactive".equals(stack) ? "reactive" : "servlet"),
+                    "carstore.virtual-threads.enabled=" + "virtual".equals(stack),
+                    "carstore.storage.type=" + storage,
+                    "carstore.persistence.enabled=" + "fsync".equals(persistence),
+                    "carstore.persistence.fsync=ALWAYS",
+                    "carstore.persistence.directory=" + dataDirectory,
+                    "server.port=0",
+                    "server.tomcat.max-connections=10000",
+                    "logging.level.root=WARN")
+            .run();
+    String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/chargingSessions";
+    sessionsUrl = new URL(base);
+    summaryUrl = new URL(base + "/summary");
+    pageUrl = new URL(base + "?limit=100");
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() throws IOException {
+    context.close();
+    FileSystemUtils.deleteRecursively(dataDirectory);
+  }
+
+  @Benchmark
+  public int submitSession() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) sessionsUrl.openConnection();
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", "application/json");
+    connection.setDoOutput(true);
+    try (OutputStream body = connection.getOutputStream()) {
+      body.write(SUBMIT_REQUEST);
+    }
+    return read(connection);
+  }
+
+  @Benchmark
+  public int summary() throws IOException {
+    return read((HttpURLConnection) summaryUrl.openConnection());
+  }
+
+  @Benchmark
+  public int sessionsPage() throws IOException {
+    return read((HttpURLConnection) pageUrl.openConnection());
+  }
+
+  /**
+   * Read the whole response, so the connection is returned to the keep-alive cache.
+   */
+  private static int read(HttpURLConnection connection) throws IOException {
+    int status = connection.getResponseCode();
+    byte[] buffer = new byte[8192];
+    int length = 0;
+    try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+      for (int read; (read = body.read(buffer)) > 0; ) {
+        length += read;
+      }
+    }
+    if (status != 200) {
+      throw new IOException("Unexpected status " + status);
+    }
+    return length;
+  }
+}
@@ -31,4 +31,21 @@ public interface DataStorage<U, T, O> {
    * totalCount, startedCount, stoppedCount.
    */
   O retrieveSummarySubmittedSessions();
+
+  /**
+   * Evict finished charging sessions which were stopped before the given instant, in milliseconds
+   * since the epoch, or are the oldest ones exceeding the given number of retained finished sessions.
+   * At most limit sessions are evicted by a single call.
+   */
+  Collection<T> evictFinishedSessions(long stoppedBeforeMillis, long maxRetained, int limit);
+
+  /**
+   * Number of charging sessions kept in the storage.
+   */
+  long countSessions();
+
+  /**
+   * Number of finished charging sessions kept in the storage.
+   */
+  long countFinishedSessions();
 }
@@ -0,0 +1,45 @@
+package com.assignment.carstore.components;
+
+import com.assignment.carstore.domain.ChargeSession;
+
+/**
+ * Listener of the changes applied to the charging sessions data storage.
+ *
+ * The change callbacks are invoked while the storage applies the change, so changes
+ * of the same session are always delivered in order. They must return quickly and
+ * must not call the storage.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public interface SessionChangeListener {
+
+  /**
+   * A new session has been submitted.
+   */
+  void sessionSubmitted(ChargeSession session);
+
+  /**
+   * A session has been stopped.
+   */
+  void sessionStopped(ChargeSession session);
+
+  /**
+   * A finished session has been evicted from the storage.
+   */
+  void sessionEvicted(ChargeSession session);
+
+  /**
+   * Invoked by the thread about to make changes before the storage applies any of them.
+   * A listener which cannot follow the changes any more rejects them by throwing an unchecked
+   * exception, nothing is applied then.
+   */
+  default void beforeChanges() {
+  }
+
+  /**
+   * Invoked by the thread which made the changes after the storage released its synchronization,
+   * before the operation returns to the caller. Blocking here does not delay other writers.
+   */
+  default void changesApplied() {
+  }
+}
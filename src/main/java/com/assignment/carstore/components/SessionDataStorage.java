@@ -1,7 +1,15 @@
 package com.assignment.carstore.components;
 
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
 import com.assignment.carstore.domain.ChargeSession;
 import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -10,4 +18,59 @@ import java.util.UUID;
  * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
  */
 public interface SessionDataStorage extends DataStorage<UUID, ChargeSession, CounterSummary> {
+
+  /**
+   * Submit new charging sessions, the whole batch is applied with a single synchronization.
+   */
+  List<ChargeSession> submitSessions(List<ChargeSession> sessions);
+
+  /**
+   * Stop charging sessions, the whole batch is applied with a single synchronization.
+   * Returns the result for each id in the order of the ids.
+   */
+  List<BatchItemResult> stopSessions(List<UUID> ids);
+
+  /**
+   * Retrieve at most limit charging sessions matching the query in the order of start time.
+   * The page starts right after the given cursor, or from the first session if it is null.
+   * Cursors stay valid while sessions are submitted or evicted, so a client following
+   * them never gets a session twice.
+   *
+   * A storage keeping snapshots pins the next cursor to the snapshot the page was read from, and reads
+   * the following pages from the same snapshot, so a client following the cursors gets a consistent
+   * snapshot of the sessions. Other storages read every page on its own.
+   *
+   * @throws IllegalArgumentException if the cursor is pinned to a snapshot which is no longer kept
+   */
+  SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit);
+
+  /**
+   * Retrieve a summary of submitted charging sessions for the given window including
+   * totalCount, startedCount, stoppedCount.
+   */
+  CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window);
+
+  /**
+   * Load charging sessions with their state as is, e.g. when the storage is recovered
+   * on startup. The storage is expected to be empty, listeners are not notified.
+   */
+  void restoreSessions(Collection<ChargeSession> sessions);
+
+  /**
+   * Register a listener of the changes applied to the storage.
+   */
+  void addSessionChangeListener(SessionChangeListener listener);
+
+  /**
+   * Set the probe receiving the measurements of the storage hot path.
+   */
+  void setStorageProbe(StorageProbe probe);
+
+  /**
+   * Whether a call may park the calling thread, e.g. waiting for a lock held by another writer,
+   * so the callers running on an event loop have to offload it. Listeners are not taken into account.
+   */
+  default boolean isBlocking() {
+    return true;
+  }
 }
@@ -0,0 +1,17 @@
+package com.assignment.carstore.components;
+
+/**
+ * Operations of the charging sessions data storage which are measured separately.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public enum StorageOperation {
+  SUBMIT,
+  SUBMIT_BATCH,
+  STOP,
+  STOP_BATCH,
+  RETRIEVE_ALL,
+  RETRIEVE_PAGE,
+  SUMMARY,
+  EVICT
+}
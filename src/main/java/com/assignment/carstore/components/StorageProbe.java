@@ -0,0 +1,42 @@
+package com.assignment.carstore.components;
+
+/**
+ * Receiver of the measurements taken on the hot path of the charging sessions data storage.
+ *
+ * The callbacks are invoked on every operation, some of them under the storage lock, so they
+ * must return quickly, must not allocate and must not call the storage.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public interface StorageProbe {
+
+  /**
+   * Probe ignoring every measurement.
+   */
+  StorageProbe NONE = new StorageProbe() {
+  };
+
+  /**
+   * A storage operation has completed.
+   */
+  default void operationCompleted(StorageOperation operation, long nanos) {
+  }
+
+  /**
+   * A caller has waited for the storage lock.
+   */
+  default void lockWaited(long nanos) {
+  }
+
+  /**
+   * The exclusive storage lock has been released after it was held for the given time.
+   */
+  default void lockHeld(long nanos) {
+  }
+
+  /**
+   * The summary has been computed by reading the given number of entries.
+   */
+  default void summaryScanned(int entries) {
+  }
+}
@@ -0,0 +1,127 @@
+package com.assignment.carstore.components.clock;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Clock updated by a background thread once per tick, so reading the time on the hot path
+ * is a volatile read and the local date-time is shared by all changes of the same tick.
+ *
+ * The time is read from the monotonic {@link SessionClock#SYSTEM} clock by default, so it moves on
+ * when the system clock is adjusted. With another source the time still never goes backwards: the clock
+ * stays at the last time until the source catches up, so a change is never counted in a summary window
+ * which has already passed.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class CachedSessionClock implements SessionClock, Closeable {
+
+  private final ZoneId zone;
+
+  private final LongSupplier systemMillis;
+
+  private final long tickNanos;
+
+  private final Thread ticker;
+
+  private volatile Reading current;
+
+  private volatile boolean closed;
+
+  public CachedSessionClock(ZoneId zone, Duration tick) {
+    this(zone, tick, SessionClock.SYSTEM);
+  }
+
+  /**
+   * @param zone
+   * @param tick period of the updates
+   * @param source the clock read once per tick
+   */
+  public CachedSessionClock(ZoneId zone, Duration tick, SessionClock source) {
+    this(zone, tick, source::millis, true);
+  }
+
+  /**
+   * @param zone
+   * @param tick period of the updates
+   * @param systemMillis the time source
+   * @param start whether to start updating in the background, otherwise the time changes on {@link #tick()} only
+   */
+  CachedSessionClock(ZoneId zone, Duration tick, LongSupplier systemMillis, boolean start) {
+    this.zone = zone;
+    this.systemMillis = systemMillis;
+    this.tickNanos = tick.toNanos();
+    this.current = new Reading(systemMillis.getAsLong(), zone);
+    this.ticker = new Thread(this::run, "session-clock");
+    ticker.setDaemon(true);
+    if (start) {
+      ticker.start();
+    }
+  }
+
+  @Override
+  public long millis() {
+    return current.millis;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public LocalDateTime now() {
+    return current.localDateTime;
+  }
+
+  /**
+   * The shared local date-time if the instant is the one of the current tick.
+   */
+  @Override
+  public LocalDateTime toLocalDateTime(long millis) {
+    Reading reading = current;
+    return reading.millis == millis ? reading.localDateTime : SessionClock.super.toLocalDateTime(millis);
+  }
+
+  /**
+   * Read the system time, a new local date-time is only created when the millisecond changes.
+   */
+  void tick() {
+    long millis = systemMillis.getAsLong();
+    if (millis > current.millis) {
+      current = new Reading(millis, zone);
+    }
+  }
+
+  private void run() {
+    while (!closed) {
+      tick();
+      LockSupport.parkNanos(tickNanos);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  /**
+   * Time of a tick in both representations.
+   */
+  private static final class Reading {
+
+    private final long millis;
+
+    private final LocalDateTime localDateTime;
+
+    private Reading(long millis, ZoneId zone) {
+      this.millis = millis;
+      this.localDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+  }
+}
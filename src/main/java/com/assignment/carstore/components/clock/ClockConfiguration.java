@@ -0,0 +1,26 @@
+package com.assignment.carstore.components.clock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.ZoneId;
+
+/**
+ * Configuration of the clock of the storage, a test or a benchmark may provide its own clock bean.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(ClockProperties.class)
+public class ClockConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean(SessionClock.class)
+  public SessionClock sessionClock(ClockProperties properties) {
+    ZoneId zone = ZoneId.systemDefault();
+    SessionClock source = properties.isMonotonic() ? SessionClock.SYSTEM : new SystemSessionClock(zone);
+    return properties.isCached() ? new CachedSessionClock(zone, properties.getTick(), source) : source;
+  }
+}
@@ -0,0 +1,55 @@
+package com.assignment.carstore.components.clock;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the clock of the storage, bound to the {@code carstore.clock} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.clock")
+public class ClockProperties {
+
+  /**
+   * Whether the time is read by a background thread once per tick instead of on every change.
+   * Off by default, the thread wakes up on every tick even when the storage is idle.
+   */
+  private boolean cached;
+
+  /**
+   * Period of the updates of the cached clock, the resolution of the session timestamps.
+   */
+  private Duration tick = Duration.ofMillis(1);
+
+  /**
+   * Whether the time is the system time at the start advanced by the monotonic time, so it never steps
+   * when the system clock is adjusted. On by default, otherwise the system time is read as is.
+   */
+  private boolean monotonic = true;
+
+  public boolean isCached() {
+    return cached;
+  }
+
+  public void setCached(boolean cached) {
+    this.cached = cached;
+  }
+
+  public boolean isMonotonic() {
+    return monotonic;
+  }
+
+  public void setMonotonic(boolean monotonic) {
+    this.monotonic = monotonic;
+  }
+
+  public Duration getTick() {
+    return tick;
+  }
+
+  public void setTick(Duration tick) {
+    this.tick = tick;
+  }
+}
@@ -0,0 +1,56 @@
+package com.assignment.carstore.components.clock;
+
+import java.time.ZoneId;
+import java.util.function.LongSupplier;
+
+/**
+ * Clock anchored to the system time once and advanced by {@link System#nanoTime()}, the default clock.
+ *
+ * The time never steps back or jumps when the system clock is adjusted, so the summary windows and the deadlines
+ * always move with the elapsed time. The price is that the time does not follow the corrections of the system clock
+ * made after the start, it may drift from it as much as the monotonic time does.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class MonotonicSessionClock implements SessionClock {
+
+  private final ZoneId zone;
+
+  private final LongSupplier nanoTime;
+
+  /**
+   * System time of the anchor in milliseconds since the epoch.
+   */
+  private final long originMillis;
+
+  /**
+   * Monotonic time of the anchor in nanoseconds.
+   */
+  private final long originNanos;
+
+  public MonotonicSessionClock(ZoneId zone) {
+    this(zone, System::currentTimeMillis, System::nanoTime);
+  }
+
+  /**
+   * @param zone
+   * @param systemMillis the system time source, read once
+   * @param nanoTime the monotonic time source
+   */
+  MonotonicSessionClock(ZoneId zone, LongSupplier systemMillis, LongSupplier nanoTime) {
+    this.zone = zone;
+    this.nanoTime = nanoTime;
+    this.originNanos = nanoTime.getAsLong();
+    this.originMillis = systemMillis.getAsLong();
+  }
+
+  @Override
+  public long millis() {
+    return originMillis + (nanoTime.getAsLong() - originNanos) / 1_000_000;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+}
@@ -0,0 +1,50 @@
+package com.assignment.carstore.components.clock;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Source of the time of the charging session changes.
+ *
+ * The storage reads the time in milliseconds since the epoch once per change and keeps it with the session,
+ * the local date-time of the session is derived from the same reading, so the summary windows and the
+ * deadlines never convert a local date-time back to an instant. Implementations may follow the monotonic time,
+ * read the system clock on every call, cache either of them, or be driven by tests and benchmarks.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public interface SessionClock {
+
+  /**
+   * Monotonic clock anchored to the system time, the default one.
+   */
+  SessionClock SYSTEM = new MonotonicSessionClock(ZoneId.systemDefault());
+
+  /**
+   * Current time in milliseconds since the epoch.
+   */
+  long millis();
+
+  /**
+   * Time zone of the local date-times of the sessions.
+   */
+  ZoneId getZone();
+
+  /**
+   * Current local date-time, the timestamp of a change.
+   */
+  default LocalDateTime now() {
+    return toLocalDateTime(millis());
+  }
+
+  /**
+   * Local date-time of an instant read from this clock.
+   *
+   * @param millis milliseconds since the epoch
+   * @return
+   */
+  default LocalDateTime toLocalDateTime(long millis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), getZone());
+  }
+}
@@ -0,0 +1,35 @@
+package com.assignment.carstore.components.clock;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Clock reading the system time on every call. The time follows the adjustments
+ * of the system clock, including the backward ones, so it is used only when
+ * {@code carstore.clock.monotonic} is off, see {@link MonotonicSessionClock}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SystemSessionClock implements SessionClock {
+
+  private final ZoneId zone;
+
+  public SystemSessionClock(ZoneId zone) {
+    this.zone = zone;
+  }
+
+  @Override
+  public long millis() {
+    return System.currentTimeMillis();
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public LocalDateTime now() {
+    return LocalDateTime.now(zone);
+  }
+}
@@ -0,0 +1,50 @@
+package com.assignment.carstore.components.cluster;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the clustered mode, the storage bean is wrapped to partition the sessions
+ * between the nodes and keeps storing the sessions of this node.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
+@ConditionalOnProperty(name = "carstore.cluster.enabled", havingValue = "true")
+public class ClusterConfiguration {
+
+  /**
+   * The cluster creates the storage bean when the storage of this node is requested first,
+   * so the beans serving the other nodes do not depend on the storage bean only to be created after it.
+   */
+  @Bean(destroyMethod = "close")
+  public SessionCluster sessionCluster(ClusterProperties properties, SessionIdGenerator sessionIdGenerator,
+                                       ObjectProvider<SessionDataStorage> sessionDataStorage) {
+    SessionCluster cluster = new SessionCluster(properties, sessionIdGenerator);
+    cluster.setLocalStorageFactory(sessionDataStorage::getObject);
+    return cluster;
+  }
+
+  @Bean
+  public static BeanPostProcessor clusteredSessionDataStoragePostProcessor(ObjectProvider<SessionCluster> sessionCluster) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof SessionDataStorage) || bean instanceof ClusteredSessionDataStorage) {
+          return bean;
+        }
+        SessionCluster cluster = sessionCluster.getObject();
+        SessionDataStorage storage = (SessionDataStorage) bean;
+        cluster.setLocalStorage(storage);
+        return new ClusteredSessionDataStorage(storage, cluster);
+      }
+    };
+  }
+}
@@ -0,0 +1,173 @@
+package com.assignment.carstore.components.cluster;
+
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Client of the node-local requests of another node, see {@link #PATH}.
+ *
+ * A validation error of the other node is thrown as {@link ChargingSessionException},
+ * a node which cannot be reached fails the request with {@link UncheckedIOException}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ClusterNodeClient {
+
+  /**
+   * Path of the requests answered by a node from its own sessions only.
+   */
+  static final String PATH = "/cluster/chargingSessions";
+
+  private final String baseUrl;
+
+  private final ObjectMapper objectMapper;
+
+  private final int connectTimeout;
+
+  private final int readTimeout;
+
+  ClusterNodeClient(String baseUrl, ObjectMapper objectMapper, Duration connectTimeout, Duration readTimeout) {
+    this.baseUrl = baseUrl;
+    this.objectMapper = objectMapper;
+    this.connectTimeout = (int) connectTimeout.toMillis();
+    this.readTimeout = (int) readTimeout.toMillis();
+  }
+
+  ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    return toSession(exchange("PUT", PATH + "/" + id, null));
+  }
+
+  List<BatchItemResult> stopSessions(List<UUID> ids) {
+    ArrayNode body = objectMapper.createArrayNode();
+    for (UUID id : ids) {
+      body.add(id.toString());
+    }
+    JsonNode items = exchangeUnchecked("PUT", PATH + "/batch/stop", body);
+    List<BatchItemResult> results = new ArrayList<>(items.size());
+    for (JsonNode item : items) {
+      int status = item.path("status").asInt();
+      results.add(status == HttpStatus.OK.value()
+              ? BatchItemResult.succeeded(toSession(item.path("session")))
+              : BatchItemResult.failed(new ChargingSessionException(item.path("message").asText(), status)));
+    }
+    return results;
+  }
+
+  List<ChargeSession> retrieveAllSessions() {
+    return toSessions(exchangeUnchecked("GET", PATH, null));
+  }
+
+  SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit) {
+    StringBuilder path = new StringBuilder(PATH).append("?limit=").append(limit);
+    appendParameter(path, "cursor", after == null ? null : after.encode());
+    appendParameter(path, "stationId", query.getStationId());
+    appendParameter(path, "status", query.getStatus());
+    appendParameter(path, "startedFrom", query.getStartedFrom());
+    appendParameter(path, "startedTo", query.getStartedTo());
+    JsonNode page = exchangeUnchecked("GET", path.toString(), null);
+    JsonNode next = page.path("next");
+    return new SessionPage(toSessions(page.path("sessions")), next.isTextual() ? SessionCursor.decode(next.asText()) : null);
+  }
+
+  CounterSummary retrieveSummary(SummaryWindow window) {
+    String path = PATH + "/summary" + (window == null ? "" : "?window=" + window);
+    JsonNode summary = exchangeUnchecked("GET", path, null);
+    return new CounterSummary(summary.path("totalCount").asLong(), summary.path("startedCount").asLong(),
+            summary.path("stoppedCount").asLong());
+  }
+
+  private JsonNode exchangeUnchecked(String method, String path, JsonNode body) {
+    try {
+      return exchange(method, path, body);
+    } catch (ChargingSessionException e) {
+      throw new IllegalStateException("Node " + baseUrl + " rejected " + method + " " + path + ": " + e.getReason(), e);
+    }
+  }
+
+  /**
+   * Send the request and read the response body, a 400 Bad Request is thrown as the error it describes.
+   */
+  private JsonNode exchange(String method, String path, JsonNode body) throws ChargingSessionException {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+      connection.setConnectTimeout(connectTimeout);
+      connection.setReadTimeout(readTimeout);
+      connection.setRequestMethod(method);
+      connection.setRequestProperty("Accept", MediaType.APPLICATION_JSON_VALUE);
+      if (body != null) {
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+        try (OutputStream out = connection.getOutputStream()) {
+          objectMapper.writeValue(out, body);
+        }
+      }
+      int status = connection.getResponseCode();
+      JsonNode response;
+      try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+        response = in == null ? MissingNode.getInstance() : objectMapper.readTree(in);
+      }
+      if (status == HttpStatus.BAD_REQUEST.value()) {
+        throw new ChargingSessionException(response.path("message").asText(), status);
+      }
+      if (status != HttpStatus.OK.value()) {
+        throw new IOException("Unexpected status " + status);
+      }
+      return response;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Node " + baseUrl + " failed " + method + " " + path, e);
+    }
+  }
+
+  private static void appendParameter(StringBuilder path, String name, Object value) {
+    if (value != null) {
+      try {
+        path.append('&').append(name).append('=').append(URLEncoder.encode(value.toString(), "UTF-8"));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static List<ChargeSession> toSessions(JsonNode array) {
+    List<ChargeSession> sessions = new ArrayList<>(array.size());
+    for (JsonNode session : array) {
+      sessions.add(toSession(session));
+    }
+    return sessions;
+  }
+
+  private static ChargeSession toSession(JsonNode session) {
+    JsonNode stoppedAt = session.path("stoppedAt");
+    return new ChargeSession(UUID.fromString(session.path("id").asText()),
+            session.path("stationId").asText(),
+            LocalDateTime.parse(session.path("startedAt").asText()),
+            stoppedAt.isTextual() ? LocalDateTime.parse(stoppedAt.asText()) : null,
+            StatusEnum.valueOf(session.path("status").asText()));
+  }
+}
@@ -0,0 +1,94 @@
+package com.assignment.carstore.components.cluster;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the clustered mode, bound to the {@code carstore.cluster} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.cluster")
+public class ClusterProperties {
+
+  /**
+   * Enables the clustered mode.
+   */
+  private boolean enabled;
+
+  /**
+   * Base URL of this node as listed in the nodes, e.g. http://localhost:8081.
+   */
+  private String self;
+
+  /**
+   * Base URLs of all nodes of the cluster, the same list on every node.
+   */
+  private List<String> nodes = new ArrayList<>();
+
+  /**
+   * Number of points of every node on the hash ring.
+   */
+  private int virtualNodes = 160;
+
+  /**
+   * Timeout of connecting to another node.
+   */
+  private Duration connectTimeout = Duration.ofSeconds(1);
+
+  /**
+   * Timeout of reading the response of another node.
+   */
+  private Duration readTimeout = Duration.ofSeconds(5);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getSelf() {
+    return self;
+  }
+
+  public void setSelf(String self) {
+    this.self = self;
+  }
+
+  public List<String> getNodes() {
+    return nodes;
+  }
+
+  public void setNodes(List<String> nodes) {
+    this.nodes = nodes;
+  }
+
+  public int getVirtualNodes() {
+    return virtualNodes;
+  }
+
+  public void setVirtualNodes(int virtualNodes) {
+    this.virtualNodes = virtualNodes;
+  }
+
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public Duration getReadTimeout() {
+    return readTimeout;
+  }
+
+  public void setReadTimeout(Duration readTimeout) {
+    this.readTimeout = readTimeout;
+  }
+}
@@ -0,0 +1,201 @@
+package com.assignment.carstore.components.cluster;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.StorageProbe;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Charging sessions data storage of a cluster node, the sessions of other nodes are requested
+ * from them.
+ *
+ * New sessions are stored by this node under an id it owns. A session is stopped by its owner.
+ * Lists, pages and the summary are merged from all nodes, pages are merged in the order
+ * of start time, so their cursors stay valid across the cluster. Retention, counts, recovery
+ * and listeners apply to the sessions of this node only.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ClusteredSessionDataStorage implements SessionDataStorage {
+
+  private static final Comparator<ChargeSession> START_ORDER = Comparator.comparing(SessionCursor::of);
+
+  private final SessionDataStorage localStorage;
+
+  private final SessionCluster cluster;
+
+  public ClusteredSessionDataStorage(SessionDataStorage localStorage, SessionCluster cluster) {
+    this.localStorage = localStorage;
+    this.cluster = cluster;
+  }
+
+  @Override
+  public ChargeSession submitSession(ChargeSession session) {
+    return localStorage.submitSession(localize(session));
+  }
+
+  @Override
+  public List<ChargeSession> submitSessions(List<ChargeSession> sessions) {
+    List<ChargeSession> local = new ArrayList<>(sessions.size());
+    for (ChargeSession session : sessions) {
+      local.add(localize(session));
+    }
+    return localStorage.submitSessions(local);
+  }
+
+  @Override
+  public ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    ClusterNodeClient owner = cluster.clientFor(id);
+    return owner == null ? localStorage.stopSession(id) : owner.stopSession(id);
+  }
+
+  @Override
+  public List<BatchItemResult> stopSessions(List<UUID> ids) {
+    // positions of the ids of every owner, this node is the null key
+    Map<ClusterNodeClient, List<Integer>> positions = new LinkedHashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      positions.computeIfAbsent(cluster.clientFor(ids.get(i)), owner -> new ArrayList<>()).add(i);
+    }
+    Map<ClusterNodeClient, CompletableFuture<List<BatchItemResult>>> remote = new LinkedHashMap<>();
+    for (Map.Entry<ClusterNodeClient, List<Integer>> owner : positions.entrySet()) {
+      if (owner.getKey() != null) {
+        List<UUID> ownerIds = select(ids, owner.getValue());
+        remote.put(owner.getKey(), cluster.async(() -> owner.getKey().stopSessions(ownerIds)));
+      }
+    }
+    BatchItemResult[] results = new BatchItemResult[ids.size()];
+    List<Integer> localPositions = positions.get(null);
+    if (localPositions != null) {
+      place(results, localPositions, localStorage.stopSessions(select(ids, localPositions)));
+    }
+    for (Map.Entry<ClusterNodeClient, CompletableFuture<List<BatchItemResult>>> owner : remote.entrySet()) {
+      place(results, positions.get(owner.getKey()), SessionCluster.join(owner.getValue()));
+    }
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public Collection<ChargeSession> retrieveAllSessions() {
+    List<ChargeSession> sessions = new ArrayList<>();
+    for (Collection<ChargeSession> nodeSessions : cluster.fanOut(
+            () -> localStorage.retrieveAllSessions(), ClusterNodeClient::retrieveAllSessions)) {
+      sessions.addAll(nodeSessions);
+    }
+    return sessions;
+  }
+
+  /**
+   * Every node returns its first sessions after the cursor, the page is made of the first
+   * of all of them, so the sessions not taken are returned with a later page.
+   */
+  @Override
+  public SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit) {
+    List<SessionPage> pages = cluster.fanOut(() -> localStorage.retrieveSessions(query, after, limit),
+            client -> client.retrieveSessions(query, after, limit));
+    List<ChargeSession> sessions = new ArrayList<>();
+    boolean more = false;
+    for (SessionPage page : pages) {
+      sessions.addAll(page.getSessions());
+      more |= page.getNextCursor() != null;
+    }
+    sessions.sort(START_ORDER);
+    if (sessions.size() > limit) {
+      sessions = new ArrayList<>(sessions.subList(0, limit));
+      more = true;
+    }
+    SessionCursor next = more && !sessions.isEmpty() ? SessionCursor.of(sessions.get(sessions.size() - 1)) : null;
+    return new SessionPage(sessions, next);
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    return sum(cluster.fanOut(localStorage::retrieveSummarySubmittedSessions, client -> client.retrieveSummary(null)));
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window) {
+    return sum(cluster.fanOut(() -> localStorage.retrieveSummarySubmittedSessions(window),
+            client -> client.retrieveSummary(window)));
+  }
+
+  @Override
+  public Collection<ChargeSession> evictFinishedSessions(long stoppedBeforeMillis, long maxRetained, int limit) {
+    return localStorage.evictFinishedSessions(stoppedBeforeMillis, maxRetained, limit);
+  }
+
+  @Override
+  public long countSessions() {
+    return localStorage.countSessions();
+  }
+
+  @Override
+  public long countFinishedSessions() {
+    return localStorage.countFinishedSessions();
+  }
+
+  @Override
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    localStorage.restoreSessions(sessions);
+  }
+
+  @Override
+  public void addSessionChangeListener(SessionChangeListener listener) {
+    localStorage.addSessionChangeListener(listener);
+  }
+
+  @Override
+  public void setStorageProbe(StorageProbe probe) {
+    localStorage.setStorageProbe(probe);
+  }
+
+  /**
+   * The session with an id owned by this node.
+   */
+  private ChargeSession localize(ChargeSession session) {
+    if (cluster.isLocal(session.getId())) {
+      return session;
+    }
+    return new ChargeSession(cluster.newLocalId(), session.getStationId(), session.getStartedAt(),
+            session.getStartedAtMillis(), session.getStoppedAt(), session.getStoppedAtMillis(), session.getStatus());
+  }
+
+  private static List<UUID> select(List<UUID> ids, List<Integer> positions) {
+    List<UUID> selected = new ArrayList<>(positions.size());
+    for (int position : positions) {
+      selected.add(ids.get(position));
+    }
+    return selected;
+  }
+
+  private static void place(BatchItemResult[] results, List<Integer> positions, List<BatchItemResult> ownerResults) {
+    for (int k = 0; k < positions.size(); k++) {
+      results[positions.get(k)] = ownerResults.get(k);
+    }
+  }
+
+  private static CounterSummary sum(List<CounterSummary> summaries) {
+    long startedCount = 0, stoppedCount = 0;
+    for (CounterSummary summary : summaries) {
+      startedCount += summary.getStartedCount();
+      stoppedCount += summary.getStoppedCount();
+    }
+    return new CounterSummary(startedCount + stoppedCount, startedCount, stoppedCount);
+  }
+}
@@ -0,0 +1,109 @@
+package com.assignment.carstore.components.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Consistent hash ring assigning charging session ids to the nodes of the cluster.
+ *
+ * Every node is placed on the ring at a number of virtual points, an id belongs to the node
+ * of the first point following its hash. Adding or removing a node moves only the ids
+ * of the ring arcs it gains or loses.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ConsistentHashRing {
+
+  private final List<String> nodes;
+
+  /**
+   * Hashes of the virtual points in ascending order.
+   */
+  private final long[] points;
+
+  /**
+   * Index of the node owning each point.
+   */
+  private final int[] owners;
+
+  /**
+   * @param nodes the nodes, e.g. their base URLs
+   * @param virtualNodes number of points of every node
+   */
+  public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+    if (nodes.isEmpty() || virtualNodes < 1) {
+      throw new IllegalArgumentException("The ring needs at least one node and one virtual node");
+    }
+    this.nodes = Collections.unmodifiableList(nodes);
+    int size = nodes.size() * virtualNodes;
+    long[] hashes = new long[size];
+    for (int node = 0; node < nodes.size(); node++) {
+      for (int point = 0; point < virtualNodes; point++) {
+        hashes[node * virtualNodes + point] = hash(nodes.get(node) + "#" + point);
+      }
+    }
+    // sort the points by hash together with their owners
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+    this.points = new long[size];
+    this.owners = new int[size];
+    for (int i = 0; i < size; i++) {
+      points[i] = hashes[order[i]];
+      owners[i] = order[i] / virtualNodes;
+    }
+  }
+
+  public List<String> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Node owning the session id.
+   */
+  public String owner(UUID id) {
+    return nodes.get(ownerIndex(id));
+  }
+
+  /**
+   * Index of the node owning the session id in the list of nodes.
+   */
+  public int ownerIndex(UUID id) {
+    int position = Arrays.binarySearch(points, hash(id));
+    if (position < 0) {
+      position = -position - 1;
+    }
+    return owners[position == points.length ? 0 : position];
+  }
+
+  static long hash(UUID id) {
+    return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+  }
+
+  static long hash(String value) {
+    // FNV-1a, then mixed to spread the similar names of the virtual points
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  /**
+   * Finalizer of MurmurHash3.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
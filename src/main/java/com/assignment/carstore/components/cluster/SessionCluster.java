@@ -0,0 +1,181 @@
+package com.assignment.carstore.components.cluster;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Nodes of the cluster and the partitioning of the charging sessions between them.
+ *
+ * A session belongs to the node the hash ring assigns its id to. A node creates the ids of
+ * the sessions submitted to it among the ids it owns, so a session is stored where it is
+ * submitted and any node finds it by its id.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SessionCluster implements Closeable {
+
+  private final ConsistentHashRing ring;
+
+  private final int selfIndex;
+
+  /**
+   * Clients of the other nodes by their index, null for this node.
+   */
+  private final ClusterNodeClient[] clients;
+
+  private final ExecutorService executor;
+
+  private final SessionIdGenerator idGenerator;
+
+  private volatile SessionDataStorage localStorage;
+
+  /**
+   * Creates the storage bean, which sets the storage of this node, null if it is set directly.
+   */
+  private volatile Supplier<SessionDataStorage> localStorageFactory;
+
+  public SessionCluster(ClusterProperties properties) {
+    this(properties, SessionIdGenerator.RANDOM);
+  }
+
+  public SessionCluster(ClusterProperties properties, SessionIdGenerator idGenerator) {
+    this.idGenerator = idGenerator;
+    List<String> nodes = new ArrayList<>();
+    for (String node : properties.getNodes()) {
+      nodes.add(trimSlash(node));
+    }
+    this.ring = new ConsistentHashRing(nodes, properties.getVirtualNodes());
+    this.selfIndex = properties.getSelf() == null ? -1 : nodes.indexOf(trimSlash(properties.getSelf()));
+    if (selfIndex < 0) {
+      throw new IllegalArgumentException("Node " + properties.getSelf() + " is not one of the cluster nodes " + nodes);
+    }
+    ObjectMapper objectMapper = new ObjectMapper();
+    this.clients = new ClusterNodeClient[nodes.size()];
+    for (int i = 0; i < nodes.size(); i++) {
+      if (i != selfIndex) {
+        clients[i] = new ClusterNodeClient(nodes.get(i), objectMapper, properties.getConnectTimeout(),
+                properties.getReadTimeout());
+      }
+    }
+    this.executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "cluster-client");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public ConsistentHashRing getRing() {
+    return ring;
+  }
+
+  /**
+   * Whether the session belongs to this node.
+   */
+  public boolean isLocal(UUID id) {
+    return ring.ownerIndex(id) == selfIndex;
+  }
+
+  /**
+   * New session id belonging to this node, on average as many ids are generated
+   * as there are nodes.
+   */
+  public UUID newLocalId() {
+    UUID id = idGenerator.nextId();
+    while (!isLocal(id)) {
+      id = idGenerator.nextId();
+    }
+    return id;
+  }
+
+  /**
+   * Storage of the sessions of this node, the storage bean is created first if it has not been yet.
+   */
+  public SessionDataStorage getLocalStorage() {
+    if (localStorage == null && localStorageFactory != null) {
+      localStorageFactory.get();
+    }
+    if (localStorage == null) {
+      throw new IllegalStateException("The local storage has not been created yet");
+    }
+    return localStorage;
+  }
+
+  void setLocalStorage(SessionDataStorage localStorage) {
+    this.localStorage = localStorage;
+  }
+
+  void setLocalStorageFactory(Supplier<SessionDataStorage> localStorageFactory) {
+    this.localStorageFactory = localStorageFactory;
+  }
+
+  /**
+   * Client of the node owning the session, null if it belongs to this node.
+   */
+  ClusterNodeClient clientFor(UUID id) {
+    return clients[ring.ownerIndex(id)];
+  }
+
+  /**
+   * Run the request on every node, the other nodes are requested in parallel.
+   *
+   * @param local the request of this node
+   * @param remote the request of another node
+   * @return the results, the one of this node first
+   */
+  <T> List<T> fanOut(Supplier<T> local, Function<ClusterNodeClient, T> remote) {
+    List<CompletableFuture<T>> futures = new ArrayList<>(clients.length - 1);
+    for (ClusterNodeClient client : clients) {
+      if (client != null) {
+        futures.add(CompletableFuture.supplyAsync(() -> remote.apply(client), executor));
+      }
+    }
+    List<T> results = new ArrayList<>(clients.length);
+    results.add(local.get());
+    for (CompletableFuture<T> future : futures) {
+      results.add(join(future));
+    }
+    return results;
+  }
+
+  /**
+   * Run the request of another node in parallel.
+   */
+  <T> CompletableFuture<T> async(Supplier<T> request) {
+    return CompletableFuture.supplyAsync(request, executor);
+  }
+
+  /**
+   * Wait for the result, a failure of the request is rethrown as is.
+   */
+  static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private static String trimSlash(String url) {
+    return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+  }
+}
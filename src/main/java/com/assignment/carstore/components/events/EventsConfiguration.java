@@ -0,0 +1,25 @@
+package com.assignment.carstore.components.events;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the session event stream.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(EventsProperties.class)
+@ConditionalOnProperty(name = "carstore.events.enabled", havingValue = "true")
+public class EventsConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public SessionEventBus sessionEventBus(SessionDataStorage sessionDataStorage, EventsProperties properties) {
+    SessionEventBus bus = new SessionEventBus(properties.getHistory(), properties.getMaxSubscribers());
+    sessionDataStorage.addSessionChangeListener(bus);
+    return bus;
+  }
+}
@@ -0,0 +1,66 @@
+package com.assignment.carstore.components.events;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the session event stream, bound to the {@code carstore.events} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.events")
+public class EventsProperties {
+
+  /**
+   * Enables the session event stream.
+   */
+  private boolean enabled;
+
+  /**
+   * Number of the latest events retained for slow and resuming subscribers.
+   */
+  private int history = 16384;
+
+  /**
+   * Maximum number of subscribers, further ones are rejected.
+   */
+  private int maxSubscribers = 256;
+
+  /**
+   * The stream is closed after this time, clients reconnect with the last event id.
+   */
+  private Duration timeout = Duration.ofMinutes(30);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getHistory() {
+    return history;
+  }
+
+  public void setHistory(int history) {
+    this.history = history;
+  }
+
+  public int getMaxSubscribers() {
+    return maxSubscribers;
+  }
+
+  public void setMaxSubscribers(int maxSubscribers) {
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+}
@@ -0,0 +1,72 @@
+package com.assignment.carstore.components.events;
+
+import com.assignment.carstore.domain.ChargeSession;
+
+/**
+ * Change of a charging session as published to the event subscribers. The session is the immutable
+ * version made by the change.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public final class SessionEvent {
+
+  /**
+   * Type of the change, its name is the name of the server-sent event.
+   */
+  public enum Type {
+    SUBMITTED("submitted"),
+    STOPPED("stopped");
+
+    private final String eventName;
+
+    Type(String eventName) {
+      this.eventName = eventName;
+    }
+
+    public String getEventName() {
+      return eventName;
+    }
+  }
+
+  /**
+   * Separates the epoch and the sequence number in the event id.
+   */
+  static final String ID_SEPARATOR = "-";
+
+  private final String epoch;
+
+  private final long sequence;
+
+  private final Type type;
+
+  private final ChargeSession session;
+
+  SessionEvent(String epoch, long sequence, Type type, ChargeSession session) {
+    this.epoch = epoch;
+    this.sequence = sequence;
+    this.type = type;
+    this.session = session;
+  }
+
+  /**
+   * Id of the event, the epoch of its bus and the sequence number, e.g. {@code 3f2a9c-42}.
+   */
+  public String getId() {
+    return epoch + ID_SEPARATOR + sequence;
+  }
+
+  /**
+   * Sequence number of the event, increasing by one with every published event.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public ChargeSession getSession() {
+    return session;
+  }
+}
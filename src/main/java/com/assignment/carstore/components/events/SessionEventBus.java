@@ -0,0 +1,203 @@
+package com.assignment.carstore.components.events;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.domain.ChargeSession;
+
+import java.io.Closeable;
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Publisher of the submitted and stopped charging sessions to the event subscribers.
+ *
+ * Events are appended to a ring shared by all subscribers, each of them reads it at its own
+ * position, so the ring is the bound of every subscriber buffer. The storage only appends
+ * to the ring and wakes the subscribers after the change is applied, it never waits for them.
+ * A subscriber falling behind by more than the ring size misses events and must resynchronize.
+ *
+ * Concurrent changes reserve their sequence numbers with an atomic counter and publish the events
+ * into the ring without a lock. A subscriber reads the events strictly in sequence, it waits for an event
+ * still being published even if later ones are already there. Every bus has its own epoch, the first part
+ * of the event ids, so an id of another bus, e.g. one before a restart, is never resumed.
+ *
+ * Deliveries which block while the subscriber reads run on the threads of the bus, one per
+ * subscriber at most.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SessionEventBus implements SessionChangeListener, Closeable {
+
+  private final AtomicReferenceArray<SessionEvent> ring;
+
+  private final int mask;
+
+  private final int maxSubscribers;
+
+  /**
+   * Sequence number of the last reserved event, zero before the first one.
+   */
+  private final AtomicLong reserved = new AtomicLong();
+
+  private final String epoch = Long.toHexString(new SecureRandom().nextLong() & Long.MAX_VALUE);
+
+  private final Set<SessionEventSubscription> subscriptions = new CopyOnWriteArraySet<>();
+
+  private final ExecutorService deliveryExecutor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "session-events");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * @param capacity number of retained events, rounded up to a power of two
+   * @param maxSubscribers maximum number of open subscriptions
+   */
+  public SessionEventBus(int capacity, int maxSubscribers) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    this.ring = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  @Override
+  public void sessionSubmitted(ChargeSession session) {
+    append(SessionEvent.Type.SUBMITTED, session);
+  }
+
+  @Override
+  public void sessionStopped(ChargeSession session) {
+    append(SessionEvent.Type.STOPPED, session);
+  }
+
+  @Override
+  public void sessionEvicted(ChargeSession session) {
+  }
+
+  @Override
+  public void changesApplied() {
+    for (SessionEventSubscription subscription : subscriptions) {
+      subscription.signal();
+    }
+  }
+
+  /**
+   * Open a subscription delivered by the threads of the bus.
+   *
+   * @see #subscribe(String, Executor, Runnable)
+   */
+  public SessionEventSubscription subscribe(String lastEventId, Runnable delivery) {
+    return subscribe(lastEventId, deliveryExecutor, delivery);
+  }
+
+  /**
+   * Open a subscription to the events published from now on, or resume one after the given event.
+   * A subscription resuming after an event of another epoch has missed events from the start.
+   *
+   * @param lastEventId id of the last event received, null for a new subscription
+   * @param executor executor running the delivery
+   * @param delivery delivers the available events, run by one thread at a time
+   * @return the subscription, null if there are too many of them. Events are delivered once
+   * the subscription is signalled.
+   */
+  public SessionEventSubscription subscribe(String lastEventId, Executor executor, Runnable delivery) {
+    if (subscriptions.size() >= maxSubscribers) {
+      return null;
+    }
+    long next;
+    if (lastEventId == null) {
+      next = reserved.get() + 1;
+    } else if (lastEventId.startsWith(epoch + SessionEvent.ID_SEPARATOR)) {
+      next = Long.parseLong(lastEventId.substring(epoch.length() + 1)) + 1;
+    } else {
+      // no event has the sequence number zero
+      next = 0;
+    }
+    SessionEventSubscription subscription = new SessionEventSubscription(this, next, executor, delivery);
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  /**
+   * Sequence number of the last event, it may still be being published.
+   */
+  public long getPublished() {
+    return reserved.get();
+  }
+
+  /**
+   * Epoch of the ids of the events of this bus.
+   */
+  public String getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Event with the given sequence number, null if it has not been published yet.
+   *
+   * @throws MissedEventsException if the event has been overwritten or is not known
+   */
+  SessionEvent get(long sequence) throws MissedEventsException {
+    long last = reserved.get();
+    if (sequence <= 0 || sequence > last + 1) {
+      // resuming after an event this bus has not published
+      throw new MissedEventsException();
+    }
+    if (sequence == last + 1) {
+      return null;
+    }
+    SessionEvent event = ring.get((int) (sequence & mask));
+    if (event == null || event.getSequence() < sequence) {
+      // reserved, its change is still publishing it
+      return null;
+    }
+    if (event.getSequence() > sequence) {
+      throw new MissedEventsException();
+    }
+    return event;
+  }
+
+  @Override
+  public void close() {
+    deliveryExecutor.shutdownNow();
+  }
+
+  void unsubscribe(SessionEventSubscription subscription) {
+    subscriptions.remove(subscription);
+  }
+
+  /**
+   * Reserve the next sequence number and publish the event into its slot, unless a later event
+   * has already taken the slot, then the subscribers waiting for this one have missed it.
+   */
+  private void append(SessionEvent.Type type, ChargeSession session) {
+    SessionEvent event = new SessionEvent(epoch, reserved.incrementAndGet(), type, session);
+    int index = (int) (event.getSequence() & mask);
+    SessionEvent previous = ring.get(index);
+    while (previous == null || previous.getSequence() < event.getSequence()) {
+      if (ring.compareAndSet(index, previous, event)) {
+        return;
+      }
+      previous = ring.get(index);
+    }
+  }
+
+  /**
+   * Thrown when the events a subscriber asks for are no longer retained.
+   */
+  static final class MissedEventsException extends Exception {
+
+    MissedEventsException() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.assignment.carstore.components.events;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Position of a subscriber in the published events.
+ *
+ * When events are available the delivery is submitted to the executor of the subscriber,
+ * it reads them with {@link #poll()} as fast as the subscriber consumes them.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SessionEventSubscription implements Closeable {
+
+  private final SessionEventBus bus;
+
+  private final Executor executor;
+
+  private final Runnable delivery;
+
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  /**
+   * Set by every signal, so a signal arriving while the delivery is finishing is not lost.
+   */
+  private volatile boolean signalled;
+
+  /**
+   * Sequence number of the next event, only accessed by the delivery.
+   */
+  private long next;
+
+  private volatile boolean missedEvents;
+
+  private volatile boolean closed;
+
+  SessionEventSubscription(SessionEventBus bus, long next, Executor executor, Runnable delivery) {
+    this.bus = bus;
+    this.next = next;
+    this.executor = executor;
+    this.delivery = delivery;
+  }
+
+  /**
+   * The next event, null if there is none yet or the subscriber has missed events.
+   */
+  public SessionEvent poll() {
+    if (missedEvents || closed) {
+      return null;
+    }
+    try {
+      SessionEvent event = bus.get(next);
+      if (event != null) {
+        next++;
+      }
+      return event;
+    } catch (SessionEventBus.MissedEventsException e) {
+      missedEvents = true;
+      return null;
+    }
+  }
+
+  /**
+   * Whether the subscriber has fallen behind the retained events, it has to resynchronize
+   * its state and subscribe again.
+   */
+  public boolean hasMissedEvents() {
+    return missedEvents;
+  }
+
+  /**
+   * Schedule the delivery unless it is already running, e.g. when events are published
+   * or the subscriber asks for more.
+   */
+  public void signal() {
+    signalled = true;
+    if (!closed && scheduled.compareAndSet(false, true)) {
+      executor.execute(this::deliver);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    bus.unsubscribe(this);
+  }
+
+  private void deliver() {
+    try {
+      signalled = false;
+      delivery.run();
+    } finally {
+      scheduled.set(false);
+    }
+    if (signalled) {
+      signal();
+    }
+  }
+}
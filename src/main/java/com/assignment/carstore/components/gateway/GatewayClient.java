@@ -0,0 +1,285 @@
+package com.assignment.carstore.components.gateway;
+
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Blocking client of the binary gateway endpoint, one connection used by one thread at a time.
+ *
+ * The batch methods pipeline the requests: up to {@link #PIPELINE_DEPTH} frames are written at once
+ * before their responses are read, so a batch takes a round trip per that many sessions.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class GatewayClient implements Closeable {
+
+  /**
+   * Maximum number of requests sent before their responses are read, the responses of a pipeline
+   * must fit into the socket buffers while the requests are written.
+   */
+  static final int PIPELINE_DEPTH = 256;
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final SocketChannel channel;
+
+  private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+
+  private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+  private int nextTag;
+
+  public GatewayClient(InetSocketAddress address) throws IOException {
+    this.channel = SocketChannel.open(address);
+    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    // the read buffer is kept in read mode, empty at first
+    in.limit(0);
+  }
+
+  public ChargeSession submitSession(String stationId) throws ChargingSessionException, IOException {
+    int tag = submit(GatewayFrames.getBytes(stationId));
+    send();
+    return GatewayFrames.getSession(receive(tag));
+  }
+
+  public ChargeSession stopSession(UUID id) throws ChargingSessionException, IOException {
+    int tag = stop(id);
+    send();
+    return GatewayFrames.getSession(receive(tag));
+  }
+
+  /**
+   * Submit new charging sessions for the stations with pipelined requests, the result contains
+   * an item for each of them.
+   *
+   * @param stationIds
+   * @return
+   * @throws IOException
+   */
+  public List<BatchItemResult> submitSessions(List<String> stationIds) throws IOException {
+    List<BatchItemResult> results = new ArrayList<>(stationIds.size());
+    for (int from = 0; from < stationIds.size(); from += PIPELINE_DEPTH) {
+      int to = Math.min(from + PIPELINE_DEPTH, stationIds.size());
+      int first = nextTag;
+      for (int i = from; i < to; i++) {
+        submit(GatewayFrames.getBytes(stationIds.get(i)));
+      }
+      send();
+      receiveAll(first, to - from, results);
+    }
+    return results;
+  }
+
+  /**
+   * Stop the charging sessions with pipelined requests, the result contains an item for each of them.
+   *
+   * @param ids
+   * @return
+   * @throws IOException
+   */
+  public List<BatchItemResult> stopSessions(List<UUID> ids) throws IOException {
+    List<BatchItemResult> results = new ArrayList<>(ids.size());
+    for (int from = 0; from < ids.size(); from += PIPELINE_DEPTH) {
+      int to = Math.min(from + PIPELINE_DEPTH, ids.size());
+      int first = nextTag;
+      for (int i = from; i < to; i++) {
+        stop(ids.get(i));
+      }
+      send();
+      receiveAll(first, to - from, results);
+    }
+    return results;
+  }
+
+  /**
+   * Summary for the window, the default last minute if it is null.
+   *
+   * @param window
+   * @return
+   * @throws ChargingSessionException
+   * @throws IOException
+   */
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window)
+          throws ChargingSessionException, IOException {
+    byte[] value = GatewayFrames.getBytes(window == null ? "" : window.toString());
+    out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 2 + value.length);
+    int tag = nextTag++;
+    int start = GatewayFrames.begin(out, tag, GatewayFrames.SUMMARY);
+    GatewayFrames.putString(out, value);
+    GatewayFrames.end(out, start);
+    send();
+    ByteBuffer body = receive(tag);
+    return new CounterSummary(body.getLong(), body.getLong(), body.getLong());
+  }
+
+  /**
+   * A page of charging sessions matching the query ordered by start time.
+   *
+   * @param query
+   * @param after cursor of the previous page, null for the first one
+   * @param limit maximum number of sessions in the page
+   * @return
+   * @throws ChargingSessionException
+   * @throws IOException
+   */
+  public SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit)
+          throws ChargingSessionException, IOException {
+    byte[] stationId = query.getStationId() == null ? null : GatewayFrames.getBytes(query.getStationId());
+    out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 1
+            + (stationId == null ? 0 : 2 + stationId.length) + 1 + 2 * 12 + GatewayFrames.CURSOR_SIZE + 2);
+    int tag = nextTag++;
+    int start = GatewayFrames.begin(out, tag, GatewayFrames.QUERY);
+    int fields = (stationId != null ? GatewayFrames.QUERY_STATION : 0)
+            | (query.getStatus() != null ? GatewayFrames.QUERY_STATUS : 0)
+            | (query.getStartedFrom() != null ? GatewayFrames.QUERY_FROM : 0)
+            | (query.getStartedTo() != null ? GatewayFrames.QUERY_TO : 0)
+            | (after != null ? GatewayFrames.QUERY_CURSOR : 0);
+    out.put((byte) fields);
+    if (stationId != null) {
+      GatewayFrames.putString(out, stationId);
+    }
+    if (query.getStatus() != null) {
+      GatewayFrames.putStatus(out, query.getStatus());
+    }
+    if (query.getStartedFrom() != null) {
+      GatewayFrames.putTime(out, query.getStartedFrom());
+    }
+    if (query.getStartedTo() != null) {
+      GatewayFrames.putTime(out, query.getStartedTo());
+    }
+    if (after != null) {
+      GatewayFrames.putCursor(out, after);
+    }
+    out.putShort((short) limit);
+    GatewayFrames.end(out, start);
+    send();
+    ByteBuffer body = receive(tag);
+    int count = body.getShort();
+    List<ChargeSession> sessions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      sessions.add(GatewayFrames.getSession(body));
+    }
+    SessionCursor next = body.get() != 0 ? GatewayFrames.getCursor(body) : null;
+    return new SessionPage(Collections.unmodifiableList(sessions), next);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private int submit(byte[] stationId) {
+    out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 2 + stationId.length);
+    int tag = nextTag++;
+    int start = GatewayFrames.begin(out, tag, GatewayFrames.SUBMIT);
+    GatewayFrames.putString(out, stationId);
+    GatewayFrames.end(out, start);
+    return tag;
+  }
+
+  private int stop(UUID id) {
+    out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 16);
+    int tag = nextTag++;
+    int start = GatewayFrames.begin(out, tag, GatewayFrames.STOP);
+    GatewayFrames.putId(out, id);
+    GatewayFrames.end(out, start);
+    return tag;
+  }
+
+  /**
+   * Write all the buffered requests.
+   */
+  private void send() throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    out.clear();
+  }
+
+  /**
+   * Read the responses of the pipelined requests, the sessions or the errors of the failed requests.
+   */
+  private void receiveAll(int firstTag, int count, List<BatchItemResult> results) throws IOException {
+    for (int i = 0; i < count; i++) {
+      try {
+        results.add(BatchItemResult.succeeded(GatewayFrames.getSession(receive(firstTag + i))));
+      } catch (ChargingSessionException e) {
+        results.add(BatchItemResult.failed(e));
+      }
+    }
+  }
+
+  /**
+   * Read the response of the request with the tag.
+   *
+   * @param tag
+   * @return the body of a successful response
+   * @throws ChargingSessionException the error of a failed request
+   * @throws IOException
+   */
+  private ByteBuffer receive(int tag) throws ChargingSessionException, IOException {
+    ByteBuffer frame = readFrame();
+    int responseTag = frame.getInt();
+    if (responseTag != tag) {
+      throw new IOException("Response " + responseTag + " does not match request " + tag);
+    }
+    if (frame.get() == GatewayFrames.ERROR) {
+      int status = frame.getShort();
+      throw new ChargingSessionException(GatewayFrames.getString(frame), status);
+    }
+    return frame;
+  }
+
+  private ByteBuffer readFrame() throws IOException {
+    fill(GatewayFrames.LENGTH_SIZE);
+    int length = in.getInt(in.position());
+    if (length < GatewayFrames.HEADER_SIZE) {
+      throw new IOException("Frame of " + length + " bytes");
+    }
+    fill(GatewayFrames.LENGTH_SIZE + length);
+    ByteBuffer frame = in.duplicate();
+    frame.position(in.position() + GatewayFrames.LENGTH_SIZE).limit(in.position() + GatewayFrames.LENGTH_SIZE + length);
+    in.position(frame.limit());
+    return frame;
+  }
+
+  /**
+   * Read until the buffer, in read mode, has the bytes.
+   */
+  private void fill(int bytes) throws IOException {
+    if (in.remaining() >= bytes) {
+      return;
+    }
+    if (in.capacity() < bytes) {
+      ByteBuffer larger = ByteBuffer.allocate(Math.max(in.capacity() * 2, bytes));
+      in = larger.put(in);
+    } else {
+      in.compact();
+    }
+    while (in.position() < bytes) {
+      if (channel.read(in) < 0) {
+        throw new EOFException("Connection closed by the server");
+      }
+    }
+    in.flip();
+  }
+}
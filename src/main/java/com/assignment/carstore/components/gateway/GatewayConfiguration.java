@@ -0,0 +1,43 @@
+package com.assignment.carstore.components.gateway;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.persistence.WriteAheadLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Configuration of the binary endpoint for the station gateways.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+@ConditionalOnProperty(name = "carstore.gateway.enabled", havingValue = "true")
+public class GatewayConfiguration {
+
+  /**
+   * The endpoint serves the same storage as the controller, it starts once the sessions
+   * have been recovered from the write-ahead log.
+   */
+  @Bean(destroyMethod = "close")
+  public GatewayServer gatewayServer(SessionDataStorage sessionDataStorage, GatewayProperties properties,
+                                     ObjectProvider<WriteAheadLog> writeAheadLog, SessionClock sessionClock,
+                                     SessionIdGenerator sessionIdGenerator, MeterRegistry meterRegistry)
+          throws IOException {
+    writeAheadLog.getIfAvailable();
+    GatewayServer server = new GatewayServer(sessionDataStorage, sessionClock, sessionIdGenerator,
+            new InetSocketAddress(properties.getAddress(), properties.getPort()), properties.getThreads(),
+            properties.getMaxFrameSize(), meterRegistry);
+    server.start();
+    return server;
+  }
+}
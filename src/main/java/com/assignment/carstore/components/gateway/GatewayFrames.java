@@ -0,0 +1,205 @@
+package com.assignment.carstore.components.gateway;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.StatusEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Binary format of the frames of the gateway endpoint.
+ *
+ * Every frame is {@code [int length][int tag][byte type][body]}, the length counts the bytes after it.
+ * A request has the operation as its type, the response repeats the tag of the request and has
+ * {@link #OK} or {@link #ERROR} as its type. Responses are sent in the order of the requests.
+ *
+ * <ul>
+ *   <li>{@link #SUBMIT}: {@code [string stationId]}, answered with a session</li>
+ *   <li>{@link #STOP}: {@code [id]}, answered with a session</li>
+ *   <li>{@link #SUMMARY}: {@code [string window]}, empty for the last minute, answered with
+ *   {@code [long total][long started][long stopped]}</li>
+ *   <li>{@link #QUERY}: {@code [byte fields][string stationId][byte status][time from][time to][cursor][short limit]},
+ *   a field is present if its bit of {@code fields} is set, answered with
+ *   {@code [short count][session]...[byte hasNext][cursor]}</li>
+ *   <li>{@link #ERROR}: {@code [short status][string reason]}</li>
+ * </ul>
+ *
+ * A string is {@code [short length][UTF-8 bytes]}, an id is {@code [long msb][long lsb]}, a time is
+ * {@code [long epochSecond][int nano]} of the local date-time as UTC, a cursor is {@code [time][id][long snapshot]} and a session is
+ * {@code [id][string stationId][time startedAt][byte status]} followed by {@code [time stoppedAt]} if it is finished.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+final class GatewayFrames {
+
+  static final byte SUBMIT = 1;
+
+  static final byte STOP = 2;
+
+  static final byte SUMMARY = 3;
+
+  static final byte QUERY = 4;
+
+  static final byte OK = 0;
+
+  static final byte ERROR = -1;
+
+  static final int QUERY_STATION = 1;
+
+  static final int QUERY_STATUS = 1 << 1;
+
+  static final int QUERY_FROM = 1 << 2;
+
+  static final int QUERY_TO = 1 << 3;
+
+  static final int QUERY_CURSOR = 1 << 4;
+
+  /**
+   * Size of the length of a frame.
+   */
+  static final int LENGTH_SIZE = 4;
+
+  /**
+   * Size of the tag and the type, the smallest frame.
+   */
+  static final int HEADER_SIZE = 4 + 1;
+
+  static final int CURSOR_SIZE = 12 + 16 + 8;
+
+  private static final byte IN_PROGRESS = 0;
+
+  private static final byte FINISHED = 1;
+
+  private static final int ID_SIZE = 16;
+
+  private static final int TIME_SIZE = 12;
+
+  private GatewayFrames() {
+  }
+
+  /**
+   * Start a frame, its length is written by {@link #end}.
+   *
+   * @param buffer
+   * @param tag
+   * @param type
+   * @return position of the frame
+   */
+  static int begin(ByteBuffer buffer, int tag, byte type) {
+    int start = buffer.position();
+    buffer.putInt(0).putInt(tag).put(type);
+    return start;
+  }
+
+  static void end(ByteBuffer buffer, int start) {
+    buffer.putInt(start, buffer.position() - start - LENGTH_SIZE);
+  }
+
+  /**
+   * The buffer if it has the space for the bytes, otherwise a larger copy of it.
+   *
+   * @param buffer in write mode
+   * @param bytes
+   * @return
+   */
+  static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+    if (buffer.remaining() >= bytes) {
+      return buffer;
+    }
+    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+    buffer.flip();
+    return larger.put(buffer);
+  }
+
+  static int sessionSize(byte[] stationId) {
+    return ID_SIZE + 2 + stationId.length + 2 * TIME_SIZE + 1;
+  }
+
+  static void putSession(ByteBuffer buffer, ChargeSession session, byte[] stationId) {
+    putId(buffer, session.getId());
+    buffer.putShort((short) stationId.length).put(stationId);
+    putTime(buffer, session.getStartedAt());
+    if (session.getStatus() == StatusEnum.FINISHED) {
+      buffer.put(FINISHED);
+      putTime(buffer, session.getStoppedAt());
+    } else {
+      buffer.put(IN_PROGRESS);
+    }
+  }
+
+  static ChargeSession getSession(ByteBuffer buffer) {
+    UUID id = getId(buffer);
+    String stationId = getString(buffer);
+    LocalDateTime startedAt = getTime(buffer);
+    if (getStatus(buffer) == StatusEnum.FINISHED) {
+      return new ChargeSession(id, stationId, startedAt, getTime(buffer), StatusEnum.FINISHED);
+    }
+    return new ChargeSession(id, stationId, startedAt);
+  }
+
+  static byte[] getBytes(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long");
+    }
+    return bytes;
+  }
+
+  static void putString(ByteBuffer buffer, byte[] value) {
+    buffer.putShort((short) value.length).put(value);
+  }
+
+  static String getString(ByteBuffer buffer) {
+    int length = buffer.getShort();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("String of " + length + " bytes is cut");
+    }
+    String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  static void putId(ByteBuffer buffer, UUID id) {
+    buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+  }
+
+  static UUID getId(ByteBuffer buffer) {
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  static void putTime(ByteBuffer buffer, LocalDateTime time) {
+    buffer.putLong(time.toEpochSecond(ZoneOffset.UTC)).putInt(time.getNano());
+  }
+
+  static LocalDateTime getTime(ByteBuffer buffer) {
+    return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+  }
+
+  static void putCursor(ByteBuffer buffer, SessionCursor cursor) {
+    putTime(buffer, cursor.getStartedAt());
+    putId(buffer, cursor.getId());
+    buffer.putLong(cursor.getSnapshot());
+  }
+
+  static SessionCursor getCursor(ByteBuffer buffer) {
+    return new SessionCursor(getTime(buffer), getId(buffer), buffer.getLong());
+  }
+
+  static void putStatus(ByteBuffer buffer, StatusEnum status) {
+    buffer.put(status == StatusEnum.FINISHED ? FINISHED : IN_PROGRESS);
+  }
+
+  static StatusEnum getStatus(ByteBuffer buffer) {
+    byte status = buffer.get();
+    if (status == IN_PROGRESS) {
+      return StatusEnum.IN_PROGRESS;
+    } else if (status == FINISHED) {
+      return StatusEnum.FINISHED;
+    }
+    throw new IllegalArgumentException("Unknown status: " + status);
+  }
+}
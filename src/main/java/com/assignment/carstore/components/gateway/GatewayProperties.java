@@ -0,0 +1,77 @@
+package com.assignment.carstore.components.gateway;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the binary gateway endpoint, bound to the {@code carstore.gateway} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.gateway")
+public class GatewayProperties {
+
+  /**
+   * Whether the binary endpoint is started.
+   */
+  private boolean enabled = false;
+
+  /**
+   * Address the endpoint listens on, the loopback by default as the gateways run next to the store.
+   */
+  private String address = "127.0.0.1";
+
+  /**
+   * Port the endpoint listens on, 0 for any free port.
+   */
+  private int port = 9090;
+
+  /**
+   * Number of the event loop threads serving the connections.
+   */
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Maximum size of a request frame in bytes, a larger frame closes the connection.
+   */
+  private int maxFrameSize = 64 * 1024;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getAddress() {
+    return address;
+  }
+
+  public void setAddress(String address) {
+    this.address = address;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public void setPort(int port) {
+    this.port = port;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getMaxFrameSize() {
+    return maxFrameSize;
+  }
+
+  public void setMaxFrameSize(int maxFrameSize) {
+    this.maxFrameSize = maxFrameSize;
+  }
+}
@@ -0,0 +1,543 @@
+package com.assignment.carstore.components.gateway;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binary endpoint of the charging sessions for the station gateways, frames of {@link GatewayFrames}
+ * over plain TCP.
+ *
+ * An acceptor thread hands the connections over to the event loops, every loop serves its connections
+ * with a selector. A client may send any number of requests without waiting for the responses. All the
+ * complete frames of a read are handled at once, consecutive submits and consecutive stops go to the
+ * storage as one batch, so the lock of the storage, and with the {@code ALWAYS} fsync policy the fsync,
+ * is shared by the pipelined requests. While the responses of a connection cannot be sent, its requests
+ * are not read.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class GatewayServer implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GatewayServer.class);
+
+  /**
+   * Maximum number of the sessions of a batch, same as for the batch requests over HTTP.
+   */
+  static final int MAX_BATCH_SIZE = 1000;
+
+  /**
+   * Maximum number of the sessions of a query page.
+   */
+  static final int MAX_PAGE_SIZE = 1000;
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private static final String[] OPERATIONS = {"submit", "stop", "summary", "query"};
+
+  private final SessionDataStorage sessionDataStorage;
+
+  private final SessionClock clock;
+
+  private final SessionIdGenerator idGenerator;
+
+  private final int maxFrameSize;
+
+  private final ServerSocketChannel serverChannel;
+
+  private final Thread acceptor;
+
+  private final EventLoop[] loops;
+
+  private final AtomicInteger connections = new AtomicInteger();
+
+  private final Counter[] requests = new Counter[OPERATIONS.length];
+
+  private volatile boolean closed;
+
+  /**
+   * @param address address to listen on, the port may be 0 for any free one
+   * @param threads number of the event loops
+   * @param maxFrameSize maximum size of a request frame
+   */
+  public GatewayServer(SessionDataStorage sessionDataStorage, SessionClock clock, SessionIdGenerator idGenerator,
+                       InetSocketAddress address, int threads, int maxFrameSize, MeterRegistry meterRegistry)
+          throws IOException {
+    this.sessionDataStorage = sessionDataStorage;
+    this.clock = clock;
+    this.idGenerator = idGenerator;
+    this.maxFrameSize = maxFrameSize;
+    for (int i = 0; i < OPERATIONS.length; i++) {
+      requests[i] = Counter.builder("carstore.gateway.requests").tag("operation", OPERATIONS[i])
+              .description("Number of requests served by the binary gateway endpoint")
+              .register(meterRegistry);
+    }
+    Gauge.builder("carstore.gateway.connections", connections, AtomicInteger::get)
+            .description("Number of open connections of the binary gateway endpoint")
+            .register(meterRegistry);
+    this.serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(address);
+    this.loops = new EventLoop[Math.max(1, threads)];
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = new EventLoop("gateway-loop-" + i);
+    }
+    this.acceptor = new Thread(this::accept, "gateway-acceptor");
+    acceptor.setDaemon(true);
+  }
+
+  public void start() {
+    for (EventLoop loop : loops) {
+      loop.thread.start();
+    }
+    acceptor.start();
+    LOG.info("Gateway endpoint listens on {}", serverChannel.socket().getLocalSocketAddress());
+  }
+
+  /**
+   * Port the endpoint listens on.
+   */
+  public int getPort() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  /**
+   * Number of open connections.
+   */
+  public int getConnectionCount() {
+    return connections.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    serverChannel.close();
+    for (EventLoop loop : loops) {
+      loop.selector.wakeup();
+    }
+    try {
+      acceptor.join();
+      for (EventLoop loop : loops) {
+        loop.thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void accept() {
+    int next = 0;
+    while (!closed) {
+      try {
+        SocketChannel channel = serverChannel.accept();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        EventLoop loop = loops[next++ % loops.length];
+        loop.accepted.add(channel);
+        loop.selector.wakeup();
+      } catch (ClosedChannelException e) {
+        return;
+      } catch (IOException e) {
+        LOG.warn("Failed to accept a gateway connection", e);
+      }
+    }
+  }
+
+  /**
+   * Thread serving the connections registered with its selector.
+   */
+  private final class EventLoop {
+
+    private final Selector selector;
+
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+    private final Thread thread;
+
+    private EventLoop(String name) throws IOException {
+      this.selector = Selector.open();
+      this.thread = new Thread(this::run, name);
+      thread.setDaemon(true);
+    }
+
+    private void run() {
+      try {
+        while (!closed) {
+          selector.select();
+          register();
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection) key.attachment();
+            try {
+              if (key.isReadable()) {
+                connection.read();
+              }
+              if (key.isValid() && key.isWritable()) {
+                connection.write();
+              }
+            } catch (IOException e) {
+              LOG.debug("Gateway connection failed", e);
+              connection.close();
+            }
+          }
+        }
+      } catch (IOException e) {
+        LOG.error("Gateway event loop failed", e);
+      } finally {
+        for (SelectionKey key : selector.keys()) {
+          ((Connection) key.attachment()).close();
+        }
+        for (SocketChannel channel; (channel = accepted.poll()) != null; ) {
+          closeQuietly(channel);
+        }
+        closeQuietly(selector);
+      }
+    }
+
+    private void register() {
+      for (SocketChannel channel; (channel = accepted.poll()) != null; ) {
+        try {
+          Connection connection = new Connection(channel);
+          connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+          connections.incrementAndGet();
+        } catch (IOException e) {
+          closeQuietly(channel);
+        }
+      }
+    }
+  }
+
+  /**
+   * Buffers of a connection and the run of the pipelined requests of the same operation, used by its
+   * event loop only.
+   */
+  private final class Connection {
+
+    private final SocketChannel channel;
+
+    private SelectionKey key;
+
+    private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private byte runType;
+
+    private final List<Integer> runTags = new ArrayList<>();
+
+    private final List<ChargeSession> submits = new ArrayList<>();
+
+    private final List<UUID> stops = new ArrayList<>();
+
+    private LocalDateTime startedAt;
+
+    private long startedAtMillis;
+
+    private Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    private void read() throws IOException {
+      if (channel.read(in) < 0) {
+        close();
+        return;
+      }
+      in.flip();
+      while (in.remaining() >= GatewayFrames.LENGTH_SIZE) {
+        int length = in.getInt(in.position());
+        if (length < GatewayFrames.HEADER_SIZE || length > maxFrameSize) {
+          throw new IOException("Frame of " + length + " bytes");
+        }
+        if (in.remaining() < GatewayFrames.LENGTH_SIZE + length) {
+          break;
+        }
+        int end = in.position() + GatewayFrames.LENGTH_SIZE + length;
+        ByteBuffer frame = in.duplicate();
+        frame.position(in.position() + GatewayFrames.LENGTH_SIZE).limit(end);
+        in.position(end);
+        handle(frame);
+      }
+      flush();
+      in.compact();
+      if (!in.hasRemaining()) {
+        // the next frame is larger than the buffer
+        ByteBuffer larger = ByteBuffer.allocate(Math.min(in.capacity() * 2, maxFrameSize + GatewayFrames.LENGTH_SIZE));
+        in.flip();
+        in = larger.put(in);
+      }
+      write();
+    }
+
+    private void write() throws IOException {
+      out.flip();
+      channel.write(out);
+      boolean pending = out.hasRemaining();
+      out.compact();
+      key.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void handle(ByteBuffer frame) {
+      int tag = frame.getInt();
+      byte type = frame.get();
+      try {
+        if (type == GatewayFrames.SUBMIT) {
+          String stationId = GatewayFrames.getString(frame);
+          if (stationId.length() > ChargeSession.MAX_STATION_ID_LENGTH) {
+            flush();
+            error(tag, HttpStatus.BAD_REQUEST.value(), String.format(
+                    "Field 'stationId' must not be longer than %d characters", ChargeSession.MAX_STATION_ID_LENGTH));
+            return;
+          }
+          append(GatewayFrames.SUBMIT, tag);
+          submits.add(new ChargeSession(idGenerator.nextId(), stationId, startedAt, startedAtMillis));
+        } else if (type == GatewayFrames.STOP) {
+          UUID id = GatewayFrames.getId(frame);
+          append(GatewayFrames.STOP, tag);
+          stops.add(id);
+        } else if (type == GatewayFrames.SUMMARY) {
+          String window = GatewayFrames.getString(frame);
+          flush();
+          requests[type - 1].increment();
+          summary(tag, window);
+        } else if (type == GatewayFrames.QUERY) {
+          flush();
+          requests[type - 1].increment();
+          query(tag, frame);
+        } else {
+          flush();
+          error(tag, HttpStatus.BAD_REQUEST.value(), "Operation " + type + " is unknown.");
+        }
+      } catch (BufferUnderflowException | IllegalArgumentException | DateTimeException e) {
+        flush();
+        error(tag, HttpStatus.BAD_REQUEST.value(), "Frame is invalid.");
+      }
+    }
+
+    /**
+     * Add a request to the run of its operation, the run of another operation is handled first.
+     */
+    private void append(byte type, int tag) {
+      if (runType != type || runTags.size() == MAX_BATCH_SIZE) {
+        flush();
+        runType = type;
+        startedAtMillis = clock.millis();
+        startedAt = clock.toLocalDateTime(startedAtMillis);
+      }
+      runTags.add(tag);
+      requests[type - 1].increment();
+    }
+
+    /**
+     * Handle the run of the submits or the stops as one batch. Every request of the run is answered once,
+     * a failure of the storage fails the whole run, a response which cannot be encoded fails its request only.
+     */
+    private void flush() {
+      if (runTags.isEmpty()) {
+        return;
+      }
+      try {
+        if (runType == GatewayFrames.SUBMIT) {
+          List<ChargeSession> submitted;
+          try {
+            submitted = sessionDataStorage.submitSessions(submits);
+          } catch (RuntimeException e) {
+            runFailed(e);
+            return;
+          }
+          for (int i = 0; i < submitted.size(); i++) {
+            session(runTags.get(i), submitted.get(i));
+          }
+        } else {
+          List<BatchItemResult> stopped;
+          try {
+            stopped = sessionDataStorage.stopSessions(stops);
+          } catch (RuntimeException e) {
+            runFailed(e);
+            return;
+          }
+          for (int i = 0; i < stopped.size(); i++) {
+            BatchItemResult result = stopped.get(i);
+            if (result.getSession() != null) {
+              session(runTags.get(i), result.getSession());
+            } else {
+              error(runTags.get(i), result.getStatus(), result.getMessage());
+            }
+          }
+        }
+      } finally {
+        runType = 0;
+        runTags.clear();
+        submits.clear();
+        stops.clear();
+      }
+    }
+
+    private void runFailed(RuntimeException e) {
+      LOG.error("Gateway requests failed", e);
+      for (Integer tag : runTags) {
+        error(tag, HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal server error.");
+      }
+    }
+
+    /**
+     * Answer with the session, its station id is encoded before anything is written.
+     */
+    private void session(int tag, ChargeSession session) {
+      byte[] stationId;
+      try {
+        stationId = GatewayFrames.getBytes(session.getStationId());
+      } catch (IllegalArgumentException e) {
+        unencodable(tag, e);
+        return;
+      }
+      out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE
+              + GatewayFrames.sessionSize(stationId));
+      int start = GatewayFrames.begin(out, tag, GatewayFrames.OK);
+      GatewayFrames.putSession(out, session, stationId);
+      GatewayFrames.end(out, start);
+    }
+
+    private void summary(int tag, String value) {
+      SummaryWindow window;
+      try {
+        window = getWindow(value);
+      } catch (IllegalArgumentException e) {
+        error(tag, HttpStatus.BAD_REQUEST.value(), "Parameter 'window' is invalid.");
+        return;
+      }
+      CounterSummary summary = window == null ? sessionDataStorage.retrieveSummarySubmittedSessions()
+              : sessionDataStorage.retrieveSummarySubmittedSessions(window);
+      out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 3 * 8);
+      int start = GatewayFrames.begin(out, tag, GatewayFrames.OK);
+      out.putLong(summary.getTotalCount()).putLong(summary.getStartedCount()).putLong(summary.getStoppedCount());
+      GatewayFrames.end(out, start);
+    }
+
+    private void query(int tag, ByteBuffer frame) {
+      int fields = frame.get();
+      String stationId = (fields & GatewayFrames.QUERY_STATION) != 0 ? GatewayFrames.getString(frame) : null;
+      StatusEnum status = (fields & GatewayFrames.QUERY_STATUS) != 0 ? GatewayFrames.getStatus(frame) : null;
+      LocalDateTime from = (fields & GatewayFrames.QUERY_FROM) != 0 ? GatewayFrames.getTime(frame) : null;
+      LocalDateTime to = (fields & GatewayFrames.QUERY_TO) != 0 ? GatewayFrames.getTime(frame) : null;
+      SessionCursor after = (fields & GatewayFrames.QUERY_CURSOR) != 0 ? GatewayFrames.getCursor(frame) : null;
+      int limit = frame.getShort();
+      if (limit < 1 || limit > MAX_PAGE_SIZE) {
+        error(tag, HttpStatus.BAD_REQUEST.value(), String.format("Parameter 'limit' must be between 1 and %d", MAX_PAGE_SIZE));
+        return;
+      }
+      SessionPage page;
+      try {
+        page = sessionDataStorage.retrieveSessions(new SessionQuery(stationId, status, from, to), after, limit);
+      } catch (IllegalArgumentException e) {
+        error(tag, HttpStatus.GONE.value(), "Parameter 'cursor' has expired, start from the first page.");
+        return;
+      }
+      // the whole page is encoded and sized before the frame is started
+      List<ChargeSession> sessions = page.getSessions();
+      byte[][] stationIds = new byte[sessions.size()][];
+      int size = GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 2 + 1 + GatewayFrames.CURSOR_SIZE;
+      try {
+        for (int i = 0; i < stationIds.length; i++) {
+          stationIds[i] = GatewayFrames.getBytes(sessions.get(i).getStationId());
+          size += GatewayFrames.sessionSize(stationIds[i]);
+        }
+      } catch (IllegalArgumentException e) {
+        unencodable(tag, e);
+        return;
+      }
+      out = GatewayFrames.ensure(out, size);
+      int start = GatewayFrames.begin(out, tag, GatewayFrames.OK);
+      out.putShort((short) sessions.size());
+      for (int i = 0; i < stationIds.length; i++) {
+        GatewayFrames.putSession(out, sessions.get(i), stationIds[i]);
+      }
+      if (page.getNextCursor() != null) {
+        out.put((byte) 1);
+        GatewayFrames.putCursor(out, page.getNextCursor());
+      } else {
+        out.put((byte) 0);
+      }
+      GatewayFrames.end(out, start);
+    }
+
+    private void unencodable(int tag, IllegalArgumentException e) {
+      LOG.error("Gateway response {} cannot be encoded", tag, e);
+      error(tag, HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal server error.");
+    }
+
+    private void error(int tag, int status, String reason) {
+      byte[] bytes = GatewayFrames.getBytes(reason);
+      out = GatewayFrames.ensure(out, GatewayFrames.LENGTH_SIZE + GatewayFrames.HEADER_SIZE + 2 + 2 + bytes.length);
+      int start = GatewayFrames.begin(out, tag, GatewayFrames.ERROR);
+      out.putShort((short) status);
+      GatewayFrames.putString(out, bytes);
+      GatewayFrames.end(out, start);
+    }
+
+    private void close() {
+      if (key != null && key.isValid()) {
+        key.cancel();
+        connections.decrementAndGet();
+      }
+      closeQuietly(channel);
+    }
+  }
+
+  /**
+   * Parse the window of a summary request.
+   *
+   * @param window
+   * @return the window, null for the default last minute
+   */
+  private static SummaryWindow getWindow(String window) {
+    if (window.isEmpty()) {
+      return null;
+    }
+    SummaryWindow summaryWindow = SummaryWindow.parse(window);
+    return SummaryWindow.ONE_MINUTE.equals(summaryWindow) ? null : summaryWindow;
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close", e);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.assignment.carstore.components.id;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the session id generator, selected with the {@code carstore.id.generator} property.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(IdProperties.class)
+public class IdConfiguration {
+
+  @Bean
+  @ConditionalOnProperty(name = "carstore.id.generator", havingValue = "random", matchIfMissing = true)
+  public SessionIdGenerator randomSessionIdGenerator() {
+    return SessionIdGenerator.RANDOM;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "carstore.id.generator", havingValue = "time-ordered")
+  public SessionIdGenerator timeOrderedSessionIdGenerator(SessionClock sessionClock) {
+    return new TimeOrderedSessionIdGenerator(sessionClock);
+  }
+}
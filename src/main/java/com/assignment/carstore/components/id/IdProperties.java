@@ -0,0 +1,25 @@
+package com.assignment.carstore.components.id;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the session ids, bound to the {@code carstore.id} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.id")
+public class IdProperties {
+
+  /**
+   * Generator of the session ids: random or time-ordered.
+   */
+  private String generator = "random";
+
+  public String getGenerator() {
+    return generator;
+  }
+
+  public void setGenerator(String generator) {
+    this.generator = generator;
+  }
+}
@@ -0,0 +1,21 @@
+package com.assignment.carstore.components.id;
+
+import java.util.UUID;
+
+/**
+ * Source of the ids of new charging sessions.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public interface SessionIdGenerator {
+
+  /**
+   * Random version 4 ids of {@link UUID#randomUUID()}, every call reads the shared {@code SecureRandom}.
+   */
+  SessionIdGenerator RANDOM = UUID::randomUUID;
+
+  /**
+   * New unique session id.
+   */
+  UUID nextId();
+}
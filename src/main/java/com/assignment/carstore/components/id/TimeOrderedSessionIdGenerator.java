@@ -0,0 +1,77 @@
+package com.assignment.carstore.components.id;
+
+import com.assignment.carstore.components.clock.SessionClock;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generator of time-ordered version 7 ids: 48 bits of the milliseconds since the epoch,
+ * 12 bits of a counter and 62 random bits, so the ids are still valid UUIDs.
+ *
+ * Every thread keeps its own counter and reads {@link ThreadLocalRandom}, nothing is shared between
+ * the threads. The ids of a thread are strictly increasing, the ids of different threads are ordered
+ * by the millisecond and told apart by the random bits. While the millisecond fits into 47 bits,
+ * until the year 6429, {@link UUID#compareTo} orders the ids by time.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class TimeOrderedSessionIdGenerator implements SessionIdGenerator {
+
+  private static final int VERSION = 7;
+
+  private static final int COUNTER_BITS = 12;
+
+  private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+  private final SessionClock clock;
+
+  private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+  public TimeOrderedSessionIdGenerator(SessionClock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public UUID nextId() {
+    State current = state.get();
+    long millis = clock.millis();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (millis > current.millis) {
+      current.millis = millis;
+      // a random start within the lower half leaves room for the ids of the same millisecond
+      current.counter = random.nextInt(1 << (COUNTER_BITS - 1));
+    } else if (++current.counter > COUNTER_MASK) {
+      // the counter of the millisecond is exhausted or the clock went back, borrow the next millisecond
+      current.millis++;
+      current.counter = 0;
+    }
+    long msb = current.millis << 16 | VERSION << 12 | current.counter;
+    long lsb = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+    return new UUID(msb, lsb);
+  }
+
+  /**
+   * Check if the id was generated by this generator, by the version of the id.
+   */
+  public static boolean isTimeOrdered(UUID id) {
+    return id.version() == VERSION;
+  }
+
+  /**
+   * Milliseconds since the epoch the time-ordered id was generated at.
+   */
+  public static long millisOf(UUID id) {
+    return id.getMostSignificantBits() >>> 16;
+  }
+
+  /**
+   * Millisecond and counter of the last id of a thread.
+   */
+  private static final class State {
+
+    private long millis = Long.MIN_VALUE;
+
+    private long counter;
+  }
+}
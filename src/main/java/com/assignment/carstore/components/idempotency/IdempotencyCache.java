@@ -0,0 +1,168 @@
+package com.assignment.carstore.components.idempotency;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sessions created by the submit requests with an idempotency key, so a retried request gets
+ * the session of the original one instead of creating a duplicate.
+ *
+ * A retry is answered from a concurrent map without calling the storage. Every key lives for the
+ * same time, so the keys expire in the order they were added and a single queue in that order
+ * drops both the expired keys and the oldest ones above the maximum size. A retry arriving while
+ * the original request is still submitting waits for its session.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class IdempotencyCache {
+
+  /**
+   * Maximum length of a key.
+   */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private final long ttlMillis;
+
+  private final int maxSize;
+
+  private final SessionClock clock;
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  public IdempotencyCache(Duration ttl, int maxSize, MeterRegistry meterRegistry, SessionClock clock) {
+    this.ttlMillis = ttl.toMillis();
+    this.maxSize = maxSize;
+    this.clock = clock;
+    this.hits = Counter.builder("carstore.idempotency.requests").tag("result", "hit")
+            .description("Number of submit requests with an idempotency key, hits get the session of an earlier request")
+            .register(meterRegistry);
+    this.misses = Counter.builder("carstore.idempotency.requests").tag("result", "miss")
+            .description("Number of submit requests with an idempotency key, misses create a new session")
+            .register(meterRegistry);
+    Gauge.builder("carstore.idempotency.size", size, AtomicInteger::get)
+            .description("Number of remembered idempotency keys")
+            .register(meterRegistry);
+  }
+
+  /**
+   * The session created for the key earlier, or the session created by the submit now.
+   *
+   * @param key idempotency key of the request
+   * @param stationId station of the request, a retry must have the same one
+   * @param submit creates the session if the key is new
+   * @return
+   * @throws ChargingSessionException if the key was used for another station
+   */
+  public ChargeSession submit(String key, String stationId, Supplier<ChargeSession> submit)
+          throws ChargingSessionException {
+    long now = clock.millis();
+    Entry entry = entries.get(key);
+    if (entry == null || entry.isExpired(now)) {
+      if (entry != null && entries.remove(key, entry)) {
+        size.decrementAndGet();
+      }
+      Entry created = new Entry(key, stationId, now + ttlMillis);
+      entry = entries.putIfAbsent(key, created);
+      if (entry == null) {
+        misses.increment();
+        return create(created, submit, now);
+      }
+    }
+    if (!entry.stationId.equals(stationId)) {
+      throw new ChargingSessionException("Header 'Idempotency-Key' was used for another request.",
+              HttpStatus.UNPROCESSABLE_ENTITY.value());
+    }
+    hits.increment();
+    try {
+      return entry.session.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Number of remembered keys.
+   */
+  public int size() {
+    return size.get();
+  }
+
+  private ChargeSession create(Entry entry, Supplier<ChargeSession> submit, long now) {
+    size.incrementAndGet();
+    order.add(entry);
+    evict(now);
+    try {
+      ChargeSession session = submit.get();
+      entry.session.complete(session);
+      return session;
+    } catch (RuntimeException e) {
+      // a failed request may be retried with the same key
+      if (entries.remove(entry.key, entry)) {
+        size.decrementAndGet();
+      }
+      entry.session.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Drop the expired keys and the oldest ones above the maximum size.
+   */
+  private void evict(long now) {
+    Entry oldest;
+    while ((oldest = order.peek()) != null && (oldest.isExpired(now) || size.get() > maxSize)) {
+      oldest = order.poll();
+      // the key may have been dropped already, e.g. when its request failed
+      if (oldest != null && entries.remove(oldest.key, oldest)) {
+        size.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Session of a key, completed once the original request has submitted it.
+   */
+  private static final class Entry {
+
+    private final String key;
+
+    private final String stationId;
+
+    private final long expiresAt;
+
+    private final CompletableFuture<ChargeSession> session = new CompletableFuture<>();
+
+    private Entry(String key, String stationId, long expiresAt) {
+      this.key = key;
+      this.stationId = stationId;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.assignment.carstore.components.idempotency;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the idempotent submit.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+@ConditionalOnProperty(name = "carstore.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfiguration {
+
+  @Bean
+  public IdempotencyCache idempotencyCache(IdempotencyProperties properties, MeterRegistry meterRegistry,
+                                           SessionClock sessionClock) {
+    return new IdempotencyCache(properties.getTtl(), properties.getMaxSize(), meterRegistry, sessionClock);
+  }
+}
@@ -0,0 +1,53 @@
+package com.assignment.carstore.components.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the idempotent submit, bound to the {@code carstore.idempotency} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.idempotency")
+public class IdempotencyProperties {
+
+  /**
+   * Enables the Idempotency-Key header of the submit requests.
+   */
+  private boolean enabled = true;
+
+  /**
+   * A retry with the same key later than this creates a new session.
+   */
+  private Duration ttl = Duration.ofHours(24);
+
+  /**
+   * Maximum number of remembered keys, the oldest ones are forgotten first.
+   */
+  private int maxSize = 100_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+}
@@ -0,0 +1,347 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.StorageProbe;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.window.SlidingWindowCounter;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.assignment.carstore.components.impl.SessionDataStorageImpl.sessionValidation;
+
+/**
+ * Implementation of charging sessions data storage based on concurrent collections.
+ * Submitting a session does not take any lock, stopping a session only locks the stripe
+ * the session id belongs to, so requests for different sessions never wait for each other.
+ * A stop publishes a new immutable version of the session, readers never take a lock.
+ *
+ * Enabled with the property {@code carstore.storage.type=concurrent}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Component
+@ConditionalOnProperty(name = "carstore.storage.type", havingValue = "concurrent")
+public class ConcurrentSessionDataStorageImpl implements SessionDataStorage {
+
+  /**
+   * Default number of lock stripes, must be a power of two.
+   */
+  static final int DEFAULT_STRIPES = 64;
+
+  /**
+   * Charging sessions storage map.
+   */
+  private final ConcurrentMap<UUID, ChargeSession> chargeSessionMap = new ConcurrentHashMap<>();
+
+  /**
+   * Secondary indexes of the sessions by status and station.
+   */
+  private final SessionIndex sessionIndex = SessionIndex.concurrent();
+
+  /**
+   * Counters of the changes made during the last minute.
+   */
+  private final SlidingWindowCounter summaryWindow;
+
+  /**
+   * Finished sessions in the order they were stopped, the oldest is the first one.
+   */
+  private final Queue<ChargeSession> finishedSessions = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Number of finished sessions, the size of the queue is not a constant-time operation.
+   */
+  private final AtomicLong finishedCount = new AtomicLong();
+
+  /**
+   * Listeners notified about every change before it is visible to the readers.
+   */
+  private final SessionChangeListeners listeners = new SessionChangeListeners();
+
+  private volatile StorageProbe probe = StorageProbe.NONE;
+
+  /**
+   * Serializes evictions, it is never taken by submit or stop.
+   */
+  private final Lock evictionLock = new ReentrantLock();
+
+  /**
+   * Locks guarding the status transition of the sessions, selected by session id.
+   */
+  private final Lock[] stripes;
+
+  /**
+   * Clock of the session timestamps and of the summary windows.
+   */
+  private final SessionClock clock;
+
+  public ConcurrentSessionDataStorageImpl() {
+    this(SessionClock.SYSTEM);
+  }
+
+  @Autowired
+  public ConcurrentSessionDataStorageImpl(SessionClock clock) {
+    this(DEFAULT_STRIPES, clock);
+  }
+
+  ConcurrentSessionDataStorageImpl(int stripeCount) {
+    this(stripeCount, SessionClock.SYSTEM);
+  }
+
+  ConcurrentSessionDataStorageImpl(int stripeCount, SessionClock clock) {
+    this.clock = clock;
+    this.summaryWindow = new SlidingWindowCounter(clock);
+    if (Integer.bitCount(stripeCount) != 1) {
+      throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+    }
+    stripes = new Lock[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+  }
+
+  @Override
+  public ChargeSession submitSession(ChargeSession session) {
+    listeners.beforeChanges();
+    add(session);
+    listeners.changesApplied();
+    return session;
+  }
+
+  @Override
+  public List<ChargeSession> submitSessions(List<ChargeSession> sessions) {
+    listeners.beforeChanges();
+    for (ChargeSession session : sessions) {
+      add(session);
+    }
+    listeners.changesApplied();
+    return sessions;
+  }
+
+  @Override
+  public ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    listeners.beforeChanges();
+    Lock lock = stripes[stripeIndex(id)];
+    ChargeSession session;
+    long stoppedAtMillis = clock.millis();
+    lock.lock();
+    try {
+      session = stop(id, clock.toLocalDateTime(stoppedAtMillis), stoppedAtMillis);
+    } finally {
+      lock.unlock();
+    }
+    listeners.changesApplied();
+    return session;
+  }
+
+  @Override
+  public List<BatchItemResult> stopSessions(List<UUID> ids) {
+    listeners.beforeChanges();
+    // ids are grouped by stripe, so every stripe is locked once for the whole batch
+    int[] stripeOf = new int[ids.size()];
+    int[] stripeStart = new int[stripes.length + 1];
+    for (int i = 0; i < stripeOf.length; i++) {
+      stripeOf[i] = stripeIndex(ids.get(i));
+      stripeStart[stripeOf[i] + 1]++;
+    }
+    for (int stripe = 0; stripe < stripes.length; stripe++) {
+      stripeStart[stripe + 1] += stripeStart[stripe];
+    }
+    int[] order = new int[stripeOf.length];
+    int[] position = Arrays.copyOf(stripeStart, stripes.length);
+    for (int i = 0; i < stripeOf.length; i++) {
+      order[position[stripeOf[i]]++] = i;
+    }
+
+    BatchItemResult[] results = new BatchItemResult[ids.size()];
+    long stoppedAtMillis = clock.millis();
+    LocalDateTime stoppedAt = clock.toLocalDateTime(stoppedAtMillis);
+    for (int stripe = 0; stripe < stripes.length; stripe++) {
+      if (stripeStart[stripe] == stripeStart[stripe + 1]) {
+        continue;
+      }
+      stripes[stripe].lock();
+      try {
+        for (int k = stripeStart[stripe]; k < stripeStart[stripe + 1]; k++) {
+          int i = order[k];
+          try {
+            results[i] = BatchItemResult.succeeded(stop(ids.get(i), stoppedAt, stoppedAtMillis));
+          } catch (ChargingSessionException e) {
+            results[i] = BatchItemResult.failed(e);
+          }
+        }
+      } finally {
+        stripes[stripe].unlock();
+      }
+    }
+    listeners.changesApplied();
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public Collection<ChargeSession> retrieveAllSessions() {
+    return Collections.unmodifiableCollection(chargeSessionMap.values());
+  }
+
+  @Override
+  public SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit) {
+    return sessionIndex.page(query, after, limit);
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    return retrieveSummarySubmittedSessions(SummaryWindow.ONE_MINUTE);
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window) {
+    probe.summaryScanned(summaryWindow.bucketsScanned(window));
+    return summaryWindow.summary(window);
+  }
+
+  @Override
+  public Collection<ChargeSession> evictFinishedSessions(long stoppedBeforeMillis, long maxRetained, int limit) {
+    listeners.beforeChanges();
+    List<ChargeSession> evicted = new ArrayList<>();
+    evictionLock.lock();
+    try {
+      while (evicted.size() < limit) {
+        ChargeSession session = finishedSessions.peek();
+        if (session == null
+                || finishedCount.get() <= maxRetained && session.getStoppedAtMillis() >= stoppedBeforeMillis) {
+          break;
+        }
+        listeners.sessionEvicted(session);
+        finishedSessions.poll();
+        finishedCount.decrementAndGet();
+        chargeSessionMap.remove(session.getId(), session);
+        sessionIndex.remove(session);
+        evicted.add(session);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    listeners.changesApplied();
+    return evicted;
+  }
+
+  @Override
+  public long countSessions() {
+    return chargeSessionMap.size();
+  }
+
+  @Override
+  public long countFinishedSessions() {
+    return finishedCount.get();
+  }
+
+  @Override
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    List<ChargeSession> finished = new ArrayList<>();
+    for (ChargeSession session : sessions) {
+      sessionIndex.add(session);
+      chargeSessionMap.put(session.getId(), session);
+      summaryWindow.recordStarted(session.getStartedAtMillis());
+      if (session.getStatus() == StatusEnum.FINISHED) {
+        summaryWindow.recordStopped(session.getStoppedAtMillis());
+        finished.add(session);
+      }
+    }
+    finished.sort(Comparator.comparing(ChargeSession::getStoppedAt));
+    finishedSessions.addAll(finished);
+    finishedCount.addAndGet(finished.size());
+  }
+
+  @Override
+  public void addSessionChangeListener(SessionChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void setStorageProbe(StorageProbe probe) {
+    this.probe = probe;
+  }
+
+  /**
+   * Submits and reads never take a lock, a stop holds the lock of its stripe for the status transition only.
+   */
+  @Override
+  public boolean isBlocking() {
+    return false;
+  }
+
+  /**
+   * Publish a new session.
+   *
+   * @param session
+   */
+  private void add(ChargeSession session) {
+    // logged before it is indexed and published, so a concurrent stop always follows it
+    listeners.sessionSubmitted(session);
+    sessionIndex.add(session);
+    chargeSessionMap.put(session.getId(), session);
+    summaryWindow.recordStarted(session.getStartedAtMillis());
+  }
+
+  /**
+   * Publish the finished version of the session, must be called under the lock of its stripe.
+   * Listeners are notified first, then the version is indexed before it replaces the previous one,
+   * so a reader of the index gets one of the versions.
+   *
+   * @param id
+   * @param stoppedAt
+   * @param stoppedAtMillis instant of the stop in milliseconds since the epoch
+   * @return
+   * @throws ChargingSessionException
+   */
+  private ChargeSession stop(UUID id, LocalDateTime stoppedAt, long stoppedAtMillis) throws ChargingSessionException {
+    ChargeSession current = chargeSessionMap.get(id);
+    sessionValidation(id, current);
+    ChargeSession session = current.finish(stoppedAt, stoppedAtMillis);
+    listeners.sessionStopped(session);
+    sessionIndex.finish(session);
+    chargeSessionMap.put(id, session);
+    finishedSessions.add(session);
+    finishedCount.incrementAndGet();
+    summaryWindow.recordStopped(stoppedAtMillis);
+    return session;
+  }
+
+  /**
+   * Returns the index of the lock guarding the session with given id.
+   *
+   * @param id
+   * @return
+   */
+  private int stripeIndex(UUID id) {
+    int hash = id.hashCode();
+    return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+  }
+}
@@ -0,0 +1,467 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.StorageProbe;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.window.SlidingWindowCounter;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+
+import static com.assignment.carstore.components.impl.SessionDataStorageImpl.sessionValidation;
+
+/**
+ * Implementation of charging sessions data storage keeping the sessions packed into primitive arrays,
+ * see {@link PackedSessionTable}. No object is kept per session, so the heap holds many more sessions
+ * and its size does not affect the garbage collection pauses.
+ *
+ * Sessions are returned as new objects holding the state at the time of the call, they are not
+ * updated when the stored session changes.
+ *
+ * The slots are ordered by start time in {@link PackedSlotOrder}s, all of them and those of every station,
+ * so a query of a station reads the sessions of the station only. The orders are only appended to on
+ * submit and compacted with the evicted slots, a stop changes the status byte of its slot and no order.
+ * A query of a status skips the sessions of the other status of its order.
+ *
+ * Enabled with the property {@code carstore.storage.type=packed}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Component
+@ConditionalOnProperty(name = "carstore.storage.type", havingValue = "packed")
+public class PackedSessionDataStorageImpl implements SessionDataStorage {
+
+  /**
+   * Number of sessions unpacked under the read lock at once while iterating all sessions.
+   */
+  static final int ITERATOR_PAGE_SIZE = 1024;
+
+  private final PackedSessionTable table = new PackedSessionTable();
+
+  /**
+   * All slots ordered by start time and id, evicted slots stay in place until the orders are compacted.
+   */
+  private final PackedSlotOrder order = new PackedSlotOrder(table, 1024);
+
+  /**
+   * Orders of the slots of every station, by the index of the station in the table.
+   */
+  private final List<PackedSlotOrder> stationOrders = new ArrayList<>();
+
+  private int evictedInOrder;
+
+  /**
+   * Ring of the finished slots in the order they were stopped, the oldest is at the head.
+   */
+  private int[] finished = new int[1024];
+
+  /**
+   * Instants of the stops of the finished slots in milliseconds since the epoch, at the same positions
+   * of the ring, the table does not pack them.
+   */
+  private long[] finishedMillis = new long[1024];
+
+  private int finishedHead;
+
+  private int finishedCount;
+
+  /**
+   * Counters of the changes made during the last minute.
+   */
+  private final SlidingWindowCounter summaryWindow;
+
+  /**
+   * Listeners notified under the lock about every change.
+   */
+  private final SessionChangeListeners listeners = new SessionChangeListeners();
+
+  private final TimedReadWriteLock lock = new TimedReadWriteLock();
+
+  private volatile StorageProbe probe = StorageProbe.NONE;
+
+  /**
+   * Clock of the session timestamps and of the summary windows.
+   */
+  private final SessionClock clock;
+
+  public PackedSessionDataStorageImpl() {
+    this(SessionClock.SYSTEM);
+  }
+
+  @Autowired
+  public PackedSessionDataStorageImpl(SessionClock clock) {
+    this.clock = clock;
+    this.summaryWindow = new SlidingWindowCounter(clock);
+  }
+
+  @Override
+  public ChargeSession submitSession(ChargeSession session) {
+    listeners.beforeChanges();
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      add(session);
+      listeners.sessionSubmitted(session);
+    } finally {
+      writeLock.unlock();
+    }
+    listeners.changesApplied();
+    summaryWindow.recordStarted(session.getStartedAtMillis());
+    return session;
+  }
+
+  @Override
+  public List<ChargeSession> submitSessions(List<ChargeSession> sessions) {
+    listeners.beforeChanges();
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      for (ChargeSession session : sessions) {
+        add(session);
+        listeners.sessionSubmitted(session);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    listeners.changesApplied();
+    for (ChargeSession session : sessions) {
+      summaryWindow.recordStarted(session.getStartedAtMillis());
+    }
+    return sessions;
+  }
+
+  @Override
+  public ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    listeners.beforeChanges();
+    ChargeSession session;
+    long stoppedAtMillis = clock.millis();
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      session = stop(id, clock.toLocalDateTime(stoppedAtMillis), stoppedAtMillis);
+    } finally {
+      writeLock.unlock();
+    }
+    listeners.changesApplied();
+    summaryWindow.recordStopped(session.getStoppedAtMillis());
+    return session;
+  }
+
+  @Override
+  public List<BatchItemResult> stopSessions(List<UUID> ids) {
+    listeners.beforeChanges();
+    List<BatchItemResult> results = new ArrayList<>(ids.size());
+    long stoppedAtMillis = clock.millis();
+    LocalDateTime stoppedAt = clock.toLocalDateTime(stoppedAtMillis);
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      for (UUID id : ids) {
+        try {
+          results.add(BatchItemResult.succeeded(stop(id, stoppedAt, stoppedAtMillis)));
+        } catch (ChargingSessionException e) {
+          results.add(BatchItemResult.failed(e));
+        }
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    listeners.changesApplied();
+    for (BatchItemResult result : results) {
+      if (result.getSession() != null) {
+        summaryWindow.recordStopped(stoppedAtMillis);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * All sessions, the size is known without unpacking them and they are unpacked by the iterator.
+   * The iterator reads a page at a time, so a reader holds the read lock for a single page and
+   * never delays the writers by the whole table. Every session is a copy of a consistent state.
+   */
+  @Override
+  public Collection<ChargeSession> retrieveAllSessions() {
+    return new AbstractCollection<ChargeSession>() {
+      @Override
+      public Iterator<ChargeSession> iterator() {
+        return new PageIterator();
+      }
+
+      @Override
+      public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+          return table.size();
+        } finally {
+          readLock.unlock();
+        }
+      }
+    };
+  }
+
+  /**
+   * Iterator over the pages of all sessions, following the cursor of the previous page.
+   */
+  private final class PageIterator implements Iterator<ChargeSession> {
+
+    private SessionPage page = retrieveSessions(SessionQuery.ALL, null, ITERATOR_PAGE_SIZE);
+
+    private Iterator<ChargeSession> sessions = page.getSessions().iterator();
+
+    @Override
+    public boolean hasNext() {
+      while (!sessions.hasNext() && page.getNextCursor() != null) {
+        page = retrieveSessions(SessionQuery.ALL, page.getNextCursor(), ITERATOR_PAGE_SIZE);
+        sessions = page.getSessions().iterator();
+      }
+      return sessions.hasNext();
+    }
+
+    @Override
+    public ChargeSession next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return sessions.next();
+    }
+  }
+
+  /**
+   * Reads the sessions ordered by start time from the order of the station of the query.
+   */
+  @Override
+  public SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit) {
+    List<ChargeSession> sessions = new ArrayList<>(Math.min(limit, 1024));
+    SessionCursor next = null;
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      int station = query.getStationId() == null ? -1 : table.findStation(query.getStationId());
+      if (query.getStationId() != null && station < 0) {
+        return new SessionPage(sessions, null);
+      }
+      byte status = query.getStatus() == null ? -1
+              : query.getStatus() == StatusEnum.FINISHED ? PackedSessionTable.FINISHED : PackedSessionTable.IN_PROGRESS;
+      PackedSlotOrder slots = station < 0 ? order : stationOrders.get(station);
+      long startedTo = query.getStartedTo() == null ? Long.MAX_VALUE : PackedSessionTable.toNanos(query.getStartedTo());
+      int position = query.getStartedFrom() == null ? 0 : slots.position(SessionCursor.from(query.getStartedFrom()), true);
+      if (after != null) {
+        position = Math.max(position, slots.position(after, false));
+      }
+      for (; position < slots.size(); position++) {
+        int slot = slots.slot(position);
+        byte state = table.status(slot);
+        if (table.startedAt(slot) > startedTo) {
+          break;
+        } else if (state == PackedSessionTable.EVICTED || status >= 0 && state != status) {
+          continue;
+        }
+        if (sessions.size() == limit) {
+          next = SessionCursor.of(sessions.get(limit - 1));
+          break;
+        }
+        sessions.add(table.view(slot));
+      }
+    } finally {
+      readLock.unlock();
+    }
+    return new SessionPage(sessions, next);
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    return retrieveSummarySubmittedSessions(SummaryWindow.ONE_MINUTE);
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window) {
+    probe.summaryScanned(summaryWindow.bucketsScanned(window));
+    return summaryWindow.summary(window);
+  }
+
+  @Override
+  public Collection<ChargeSession> evictFinishedSessions(long stoppedBeforeMillis, long maxRetained, int limit) {
+    listeners.beforeChanges();
+    List<ChargeSession> evicted = new ArrayList<>();
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      while (evicted.size() < limit && finishedCount > 0) {
+        int slot = finished[finishedHead];
+        if (finishedCount <= maxRetained && finishedMillis[finishedHead] >= stoppedBeforeMillis) {
+          break;
+        }
+        finishedHead = (finishedHead + 1) % finished.length;
+        finishedCount--;
+        ChargeSession session = table.view(slot);
+        table.evict(slot);
+        evictedInOrder++;
+        listeners.sessionEvicted(session);
+        evicted.add(session);
+      }
+      if (evictedInOrder > order.size() >> 2) {
+        compactOrder();
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    listeners.changesApplied();
+    return evicted;
+  }
+
+  @Override
+  public long countSessions() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return table.size();
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public long countFinishedSessions() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return finishedCount;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      List<ChargeSession> finishedSessions = new ArrayList<>();
+      for (ChargeSession session : sessions) {
+        add(session);
+        if (session.getStatus() == StatusEnum.FINISHED) {
+          finishedSessions.add(session);
+        }
+      }
+      finishedSessions.sort(Comparator.comparingLong(ChargeSession::getStoppedAtMillis));
+      for (ChargeSession session : finishedSessions) {
+        addFinished(table.find(session.getId()), session.getStoppedAtMillis());
+      }
+    } finally {
+      writeLock.unlock();
+    }
+    for (ChargeSession session : sessions) {
+      summaryWindow.recordStarted(session.getStartedAtMillis());
+      if (session.getStoppedAt() != null) {
+        summaryWindow.recordStopped(session.getStoppedAtMillis());
+      }
+    }
+  }
+
+  @Override
+  public void addSessionChangeListener(SessionChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void setStorageProbe(StorageProbe probe) {
+    this.probe = probe;
+    lock.setProbe(probe);
+  }
+
+  /**
+   * Pack the session into a slot and add it to the orders, must be called under the write lock.
+   *
+   * @param session
+   * @return slot of the session
+   */
+  private int add(ChargeSession session) {
+    int slot = table.add(session);
+    int station = table.station(slot);
+    while (stationOrders.size() <= station) {
+      stationOrders.add(new PackedSlotOrder(table, 4));
+    }
+    order.add(slot);
+    stationOrders.get(station).add(slot);
+    return slot;
+  }
+
+  /**
+   * Finish the session, must be called under the write lock.
+   *
+   * @param id
+   * @param stoppedAt
+   * @param stoppedAtMillis instant of the stop in milliseconds since the epoch
+   * @return
+   * @throws ChargingSessionException
+   */
+  private ChargeSession stop(UUID id, LocalDateTime stoppedAt, long stoppedAtMillis) throws ChargingSessionException {
+    int slot = table.find(id);
+    if (slot < 0 || table.status(slot) != PackedSessionTable.IN_PROGRESS) {
+      sessionValidation(id, slot < 0 ? null : table.view(slot));
+    }
+    // the finished version keeps the instant of the stop, which the table does not pack
+    ChargeSession session = table.view(slot).finish(stoppedAt, stoppedAtMillis);
+    table.finish(slot, PackedSessionTable.toNanos(stoppedAt));
+    addFinished(slot, stoppedAtMillis);
+    listeners.sessionStopped(session);
+    return session;
+  }
+
+  private void addFinished(int slot, long stoppedAtMillis) {
+    if (finishedCount == finished.length) {
+      int[] grown = new int[finished.length << 1];
+      long[] grownMillis = new long[grown.length];
+      for (int i = 0; i < finishedCount; i++) {
+        grown[i] = finished[(finishedHead + i) % finished.length];
+        grownMillis[i] = finishedMillis[(finishedHead + i) % finished.length];
+      }
+      finished = grown;
+      finishedMillis = grownMillis;
+      finishedHead = 0;
+    }
+    int tail = (finishedHead + finishedCount) % finished.length;
+    finished[tail] = slot;
+    finishedMillis[tail] = stoppedAtMillis;
+    finishedCount++;
+  }
+
+  /**
+   * Drop the evicted slots from the orders and make them available for new sessions.
+   */
+  private void compactOrder() {
+    for (int i = 0; i < order.size(); i++) {
+      if (table.status(order.slot(i)) == PackedSessionTable.EVICTED) {
+        table.release(order.slot(i));
+      }
+    }
+    order.compact();
+    for (PackedSlotOrder stationOrder : stationOrders) {
+      stationOrder.compact();
+    }
+    evictedInOrder = 0;
+  }
+}
@@ -0,0 +1,296 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StatusEnum;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Charging sessions packed into primitive columns, one slot per session.
+ *
+ * The id is kept as two longs, the station as an index of the interned station id, the times as
+ * epoch nanoseconds and the status as a byte, about 50 bytes per session including the id lookup table.
+ * Columns grow by fixed size chunks, so a growing table never copies the sessions it holds, and
+ * the garbage collector does not trace them. Not thread-safe, guarded by the storage lock.
+ *
+ * The instants of the changes read from the clock are not packed, a session read from the table takes
+ * them from its local date-times in the zone of the system.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class PackedSessionTable {
+
+  static final byte IN_PROGRESS = 0;
+
+  static final byte FINISHED = 1;
+
+  /**
+   * The session is evicted, the slot keeps its data until it is released.
+   */
+  static final byte EVICTED = 2;
+
+  private static final int CHUNK_SHIFT = 13;
+
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private long[][] idHigh = new long[0][];
+
+  private long[][] idLow = new long[0][];
+
+  private long[][] startedAt = new long[0][];
+
+  private long[][] stoppedAt = new long[0][];
+
+  private int[][] station = new int[0][];
+
+  private byte[][] status = new byte[0][];
+
+  /**
+   * Number of slots ever used, released slots are reused first.
+   */
+  private int used;
+
+  private int[] released = new int[16];
+
+  private int releasedCount;
+
+  /**
+   * Open addressing table of the slots by session id, a slot is stored incremented by one, zero is empty.
+   */
+  private int[] lookup = new int[16];
+
+  private int size;
+
+  private final Map<String, Integer> stationIndex = new HashMap<>();
+
+  private final List<String> stationIds = new ArrayList<>();
+
+  /**
+   * Number of sessions which are not evicted.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Slot of the session with given id.
+   *
+   * @param id
+   * @return the slot, or -1 if there is no such session
+   */
+  int find(UUID id) {
+    long high = id.getMostSignificantBits();
+    long low = id.getLeastSignificantBits();
+    int mask = lookup.length - 1;
+    for (int i = hash(high, low) & mask; lookup[i] != 0; i = (i + 1) & mask) {
+      int slot = lookup[i] - 1;
+      if (idHigh(slot) == high && idLow(slot) == low) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Index of the interned station id.
+   *
+   * @param stationId
+   * @return the index, or -1 if no session of the station has been added
+   */
+  int findStation(String stationId) {
+    Integer index = stationIndex.get(stationId);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Add a session with its current state.
+   *
+   * @param session
+   * @return slot of the session
+   */
+  int add(ChargeSession session) {
+    int slot = releasedCount > 0 ? released[--releasedCount] : allocate();
+    int chunk = slot >>> CHUNK_SHIFT;
+    int offset = slot & CHUNK_MASK;
+    idHigh[chunk][offset] = session.getId().getMostSignificantBits();
+    idLow[chunk][offset] = session.getId().getLeastSignificantBits();
+    startedAt[chunk][offset] = toNanos(session.getStartedAt());
+    stoppedAt[chunk][offset] = session.getStoppedAt() == null ? 0 : toNanos(session.getStoppedAt());
+    station[chunk][offset] = intern(session.getStationId());
+    status[chunk][offset] = session.getStatus() == StatusEnum.FINISHED ? FINISHED : IN_PROGRESS;
+    if (++size > lookup.length >> 1) {
+      resize(lookup.length << 1);
+    }
+    insert(lookup, slot);
+    return slot;
+  }
+
+  void finish(int slot, long stoppedNanos) {
+    stoppedAt[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK] = stoppedNanos;
+    status[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK] = FINISHED;
+  }
+
+  /**
+   * Remove the session from the id lookup, its data is kept until the slot is released.
+   *
+   * @param slot
+   */
+  void evict(int slot) {
+    int mask = lookup.length - 1;
+    int i = hash(idHigh(slot), idLow(slot)) & mask;
+    while (lookup[i] != slot + 1) {
+      i = (i + 1) & mask;
+    }
+    // shift the following entries of the probe sequence back, so no entry becomes unreachable
+    for (int j = (i + 1) & mask; lookup[j] != 0; j = (j + 1) & mask) {
+      int home = hash(idHigh(lookup[j] - 1), idLow(lookup[j] - 1)) & mask;
+      if (((j - home) & mask) >= ((j - i) & mask)) {
+        lookup[i] = lookup[j];
+        i = j;
+      }
+    }
+    lookup[i] = 0;
+    status[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK] = EVICTED;
+    size--;
+  }
+
+  /**
+   * Make the slot of an evicted session available for new sessions.
+   *
+   * @param slot
+   */
+  void release(int slot) {
+    if (releasedCount == released.length) {
+      released = Arrays.copyOf(released, released.length << 1);
+    }
+    released[releasedCount++] = slot;
+  }
+
+  long idHigh(int slot) {
+    return idHigh[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+  }
+
+  long idLow(int slot) {
+    return idLow[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+  }
+
+  long startedAt(int slot) {
+    return startedAt[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+  }
+
+  long stoppedAt(int slot) {
+    return stoppedAt[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+  }
+
+  int station(int slot) {
+    return station[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+  }
+
+  byte status(int slot) {
+    return status[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+  }
+
+  /**
+   * Order of the sessions by start time and then by id, the same as the order of the session cursors.
+   */
+  int compare(int slot, long otherStartedAt, long otherIdHigh, long otherIdLow) {
+    int order = Long.compare(startedAt(slot), otherStartedAt);
+    if (order == 0) {
+      order = Long.compare(idHigh(slot), otherIdHigh);
+    }
+    return order == 0 ? Long.compare(idLow(slot), otherIdLow) : order;
+  }
+
+  /**
+   * A new session object with the current state of the slot.
+   *
+   * @param slot
+   * @return
+   */
+  ChargeSession view(int slot) {
+    byte state = status(slot);
+    return new ChargeSession(new UUID(idHigh(slot), idLow(slot)), stationIds.get(station(slot)),
+            toTime(startedAt(slot)), state == IN_PROGRESS ? null : toTime(stoppedAt(slot)),
+            state == IN_PROGRESS ? StatusEnum.IN_PROGRESS : StatusEnum.FINISHED);
+  }
+
+  /**
+   * Epoch nanoseconds of the time, saturated to the range of long.
+   */
+  static long toNanos(LocalDateTime time) {
+    long seconds = time.toEpochSecond(ZoneOffset.UTC);
+    if (seconds >= Long.MAX_VALUE / 1_000_000_000L) {
+      return Long.MAX_VALUE;
+    } else if (seconds <= Long.MIN_VALUE / 1_000_000_000L) {
+      return Long.MIN_VALUE;
+    }
+    return seconds * 1_000_000_000L + time.getNano();
+  }
+
+  static LocalDateTime toTime(long nanos) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+            (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+  }
+
+  private int allocate() {
+    if (used == idHigh.length << CHUNK_SHIFT) {
+      int chunks = idHigh.length + 1;
+      idHigh = Arrays.copyOf(idHigh, chunks);
+      idLow = Arrays.copyOf(idLow, chunks);
+      startedAt = Arrays.copyOf(startedAt, chunks);
+      stoppedAt = Arrays.copyOf(stoppedAt, chunks);
+      station = Arrays.copyOf(station, chunks);
+      status = Arrays.copyOf(status, chunks);
+      idHigh[chunks - 1] = new long[CHUNK_SIZE];
+      idLow[chunks - 1] = new long[CHUNK_SIZE];
+      startedAt[chunks - 1] = new long[CHUNK_SIZE];
+      stoppedAt[chunks - 1] = new long[CHUNK_SIZE];
+      station[chunks - 1] = new int[CHUNK_SIZE];
+      status[chunks - 1] = new byte[CHUNK_SIZE];
+    }
+    return used++;
+  }
+
+  private int intern(String stationId) {
+    Integer index = stationIndex.get(stationId);
+    if (index == null) {
+      index = stationIds.size();
+      stationIds.add(stationId);
+      stationIndex.put(stationId, index);
+    }
+    return index;
+  }
+
+  private void resize(int capacity) {
+    int[] resized = new int[capacity];
+    for (int entry : lookup) {
+      if (entry != 0) {
+        insert(resized, entry - 1);
+      }
+    }
+    lookup = resized;
+  }
+
+  private void insert(int[] table, int slot) {
+    int mask = table.length - 1;
+    int i = hash(idHigh(slot), idLow(slot)) & mask;
+    while (table[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    table[i] = slot + 1;
+  }
+
+  private static int hash(long high, long low) {
+    long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
@@ -0,0 +1,88 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.domain.SessionCursor;
+
+import java.util.Arrays;
+
+/**
+ * Slots of a {@link PackedSessionTable} ordered by start time and id, the order of the session cursors.
+ *
+ * Sessions mostly arrive in the order of their start time, so a new slot is usually appended. Evicted slots
+ * stay in place until the order is compacted. Not thread-safe, guarded by the storage lock.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class PackedSlotOrder {
+
+  private final PackedSessionTable table;
+
+  private int[] slots;
+
+  private int size;
+
+  PackedSlotOrder(PackedSessionTable table, int capacity) {
+    this.table = table;
+    this.slots = new int[capacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  int slot(int position) {
+    return slots[position];
+  }
+
+  void add(int slot) {
+    if (size == slots.length) {
+      slots = Arrays.copyOf(slots, slots.length << 1);
+    }
+    int position = size;
+    if (size > 0 && table.compare(slots[size - 1], table.startedAt(slot), table.idHigh(slot), table.idLow(slot)) > 0) {
+      position = position(table.startedAt(slot), table.idHigh(slot), table.idLow(slot), false);
+      System.arraycopy(slots, position, slots, position + 1, size - position);
+    }
+    slots[position] = slot;
+    size++;
+  }
+
+  /**
+   * Position of the first slot following the cursor, or equal to it when inclusive.
+   *
+   * @param cursor
+   * @param inclusive
+   * @return
+   */
+  int position(SessionCursor cursor, boolean inclusive) {
+    return position(PackedSessionTable.toNanos(cursor.getStartedAt()), cursor.getId().getMostSignificantBits(),
+            cursor.getId().getLeastSignificantBits(), inclusive);
+  }
+
+  /**
+   * Drop the evicted slots.
+   */
+  void compact() {
+    int compacted = 0;
+    for (int i = 0; i < size; i++) {
+      if (table.status(slots[i]) != PackedSessionTable.EVICTED) {
+        slots[compacted++] = slots[i];
+      }
+    }
+    size = compacted;
+  }
+
+  private int position(long startedAt, long idHigh, long idLow, boolean inclusive) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int compared = table.compare(slots[middle], startedAt, idHigh, idLow);
+      if (compared < 0 || compared == 0 && !inclusive) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
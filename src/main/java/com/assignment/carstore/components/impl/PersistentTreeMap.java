@@ -0,0 +1,271 @@
+package com.assignment.carstore.components.impl;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted map based on an AVL tree.
+ *
+ * A change returns a new map sharing all the nodes but the ones on the path to the changed key,
+ * so a change costs O(log n) new nodes and the old map stays valid for the threads reading it.
+ * Keys and values must not be null.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+final class PersistentTreeMap<K, V> {
+
+  private final Comparator<? super K> comparator;
+
+  private final Node<K, V> root;
+
+  private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+    this.comparator = comparator;
+    this.root = root;
+  }
+
+  /**
+   * Empty map ordered by the comparator.
+   */
+  static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+    return new PersistentTreeMap<>(comparator, null);
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  boolean isEmpty() {
+    return root == null;
+  }
+
+  /**
+   * Value of the key or null if there is none.
+   *
+   * @param key
+   * @return
+   */
+  V get(K key) {
+    Node<K, V> node = root;
+    while (node != null) {
+      int compared = comparator.compare(key, node.key);
+      if (compared == 0) {
+        return node.value;
+      }
+      node = compared < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * Map with the value of the key set or replaced.
+   *
+   * @param key
+   * @param value
+   * @return
+   */
+  PersistentTreeMap<K, V> put(K key, V value) {
+    return new PersistentTreeMap<>(comparator, put(root, key, value));
+  }
+
+  /**
+   * Map without the key, this map if there is no such key.
+   *
+   * @param key
+   * @return
+   */
+  PersistentTreeMap<K, V> remove(K key) {
+    Node<K, V> removed = remove(root, key);
+    return removed == root ? this : new PersistentTreeMap<>(comparator, removed);
+  }
+
+  /**
+   * Entries in the order of the keys.
+   */
+  Iterator<Map.Entry<K, V>> entries() {
+    return entries(null, true, null, true);
+  }
+
+  /**
+   * Entries in the order of the keys within the bounds, a null bound is not checked.
+   *
+   * @param lower
+   * @param lowerInclusive
+   * @param upper
+   * @param upperInclusive
+   * @return
+   */
+  Iterator<Map.Entry<K, V>> entries(K lower, boolean lowerInclusive, K upper, boolean upperInclusive) {
+    return new EntryIterator(lower, lowerInclusive, upper, upperInclusive);
+  }
+
+  private Node<K, V> put(Node<K, V> node, K key, V value) {
+    if (node == null) {
+      return new Node<>(key, value, null, null);
+    }
+    int compared = comparator.compare(key, node.key);
+    if (compared < 0) {
+      return balance(node.key, node.value, put(node.left, key, value), node.right);
+    } else if (compared > 0) {
+      return balance(node.key, node.value, node.left, put(node.right, key, value));
+    }
+    return new Node<>(key, value, node.left, node.right);
+  }
+
+  private Node<K, V> remove(Node<K, V> node, K key) {
+    if (node == null) {
+      return null;
+    }
+    int compared = comparator.compare(key, node.key);
+    if (compared < 0) {
+      Node<K, V> left = remove(node.left, key);
+      return left == node.left ? node : balance(node.key, node.value, left, node.right);
+    } else if (compared > 0) {
+      Node<K, V> right = remove(node.right, key);
+      return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    } else if (node.left == null) {
+      return node.right;
+    } else if (node.right == null) {
+      return node.left;
+    }
+    Node<K, V> next = node.right;
+    while (next.left != null) {
+      next = next.left;
+    }
+    return balance(next.key, next.value, node.left, removeFirst(node.right));
+  }
+
+  private static <K, V> Node<K, V> removeFirst(Node<K, V> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.key, node.value, removeFirst(node.left), node.right);
+  }
+
+  /**
+   * Node of the key and the value over the subtrees, rotated if their heights differ by more than one.
+   */
+  private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+    int leftHeight = height(left);
+    int rightHeight = height(right);
+    if (leftHeight > rightHeight + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+      }
+      Node<K, V> middle = left.right;
+      return new Node<>(middle.key, middle.value, new Node<>(left.key, left.value, left.left, middle.left),
+              new Node<>(key, value, middle.right, right));
+    } else if (rightHeight > leftHeight + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+      }
+      Node<K, V> middle = right.left;
+      return new Node<>(middle.key, middle.value, new Node<>(key, value, left, middle.left),
+              new Node<>(right.key, right.value, middle.right, right.right));
+    }
+    return new Node<>(key, value, left, right);
+  }
+
+  private static int height(Node<?, ?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int size(Node<?, ?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static final class Node<K, V> implements Map.Entry<K, V> {
+
+    private final K key;
+
+    private final V value;
+
+    private final Node<K, V> left;
+
+    private final Node<K, V> right;
+
+    private final int height;
+
+    /**
+     * Number of the nodes of the subtree, so the size of a map is known without a lookup on every change.
+     */
+    private final int size;
+
+    private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+      this.size = size(left) + size(right) + 1;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * In-order walk keeping the path to the next node, the nodes below the lower bound are skipped on the way down.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+    private final Deque<Node<K, V>> path = new ArrayDeque<>();
+
+    private final K upper;
+
+    private final boolean upperInclusive;
+
+    private EntryIterator(K lower, boolean lowerInclusive, K upper, boolean upperInclusive) {
+      this.upper = upper;
+      this.upperInclusive = upperInclusive;
+      Node<K, V> node = root;
+      while (node != null) {
+        int compared = lower == null ? 1 : comparator.compare(node.key, lower);
+        if (compared < 0 || compared == 0 && !lowerInclusive) {
+          node = node.right;
+        } else {
+          path.push(node);
+          node = node.left;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (path.isEmpty()) {
+        return false;
+      } else if (upper == null) {
+        return true;
+      }
+      int compared = comparator.compare(path.peek().key, upper);
+      return compared < 0 || compared == 0 && upperInclusive;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Node<K, V> next = path.pop();
+      for (Node<K, V> node = next.right; node != null; node = node.left) {
+        path.push(node);
+      }
+      return next;
+    }
+  }
+}
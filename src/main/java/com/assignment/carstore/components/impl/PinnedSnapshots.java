@@ -0,0 +1,99 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.clock.SessionClock;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshots kept for the clients following the cursors of their pages, by version.
+ *
+ * A snapshot is pinned when a page read from it has a next page, and it is kept while its pages are read.
+ * It expires once its last page was read more than {@link #TTL_MILLIS} ago, or when it is the least recently read
+ * of more than {@link #MAX_PINNED} snapshots. A pinned snapshot keeps the nodes the later changes replaced,
+ * so the bounds limit the memory the readers may hold. Readers pin and expire the snapshots without the storage lock.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class PinnedSnapshots {
+
+  /**
+   * A snapshot is kept for a minute since its last page was read.
+   */
+  static final long TTL_MILLIS = 60_000;
+
+  static final int MAX_PINNED = 64;
+
+  private final Map<Long, Pin> pins = new ConcurrentHashMap<>();
+
+  private final SessionClock clock;
+
+  PinnedSnapshots(SessionClock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Keep the snapshot for the next page read from it.
+   *
+   * @param snapshot
+   */
+  void pin(SessionSnapshot snapshot) {
+    Pin pin = pins.get(snapshot.getVersion());
+    if (pin != null) {
+      pin.lastReadMillis = clock.millis();
+      return;
+    }
+    pins.put(snapshot.getVersion(), new Pin(snapshot, clock.millis()));
+    if (pins.size() > MAX_PINNED) {
+      expire();
+    }
+    while (pins.size() > MAX_PINNED) {
+      pins.values().stream().min((first, second) -> Long.compare(first.lastReadMillis, second.lastReadMillis))
+              .ifPresent(oldest -> pins.remove(oldest.snapshot.getVersion(), oldest));
+    }
+  }
+
+  /**
+   * The snapshot of the version, or null if it has expired.
+   *
+   * @param version
+   * @return
+   */
+  SessionSnapshot get(long version) {
+    Pin pin = pins.get(version);
+    if (pin == null || pin.lastReadMillis + TTL_MILLIS < clock.millis()) {
+      return null;
+    }
+    pin.lastReadMillis = clock.millis();
+    return pin.snapshot;
+  }
+
+  /**
+   * Drop the snapshots whose pages have not been read for the time to live.
+   */
+  void expire() {
+    long expiredBefore = clock.millis() - TTL_MILLIS;
+    for (Iterator<Pin> iterator = pins.values().iterator(); iterator.hasNext(); ) {
+      if (iterator.next().lastReadMillis < expiredBefore) {
+        iterator.remove();
+      }
+    }
+  }
+
+  int size() {
+    return pins.size();
+  }
+
+  private static final class Pin {
+
+    private final SessionSnapshot snapshot;
+
+    private volatile long lastReadMillis;
+
+    private Pin(SessionSnapshot snapshot, long lastReadMillis) {
+      this.snapshot = snapshot;
+      this.lastReadMillis = lastReadMillis;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.domain.ChargeSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Listeners registered in a storage, notified in the order of registration.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SessionChangeListeners implements SessionChangeListener {
+
+  private final List<SessionChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  void add(SessionChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void sessionSubmitted(ChargeSession session) {
+    for (SessionChangeListener listener : listeners) {
+      listener.sessionSubmitted(session);
+    }
+  }
+
+  @Override
+  public void sessionStopped(ChargeSession session) {
+    for (SessionChangeListener listener : listeners) {
+      listener.sessionStopped(session);
+    }
+  }
+
+  @Override
+  public void sessionEvicted(ChargeSession session) {
+    for (SessionChangeListener listener : listeners) {
+      listener.sessionEvicted(session);
+    }
+  }
+
+  @Override
+  public void beforeChanges() {
+    for (SessionChangeListener listener : listeners) {
+      listener.beforeChanges();
+    }
+  }
+
+  @Override
+  public void changesApplied() {
+    for (SessionChangeListener listener : listeners) {
+      listener.changesApplied();
+    }
+  }
+}
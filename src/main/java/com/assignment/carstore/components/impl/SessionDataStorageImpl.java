@@ -1,95 +1,324 @@
 package com.assignment.carstore.components.impl;
 
+import com.assignment.carstore.components.SessionChangeListener;
 import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.StorageProbe;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.window.SlidingWindowCounter;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
 import com.assignment.carstore.domain.ChargeSession;
 import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
 import com.assignment.carstore.domain.StatusEnum;
 import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Implementation of charging sessions data storage based on LinkedHashMap.
+ * Implementation of charging sessions data storage based on HashMap.
+ *
+ * Changes are applied under a single lock to the next {@link SessionSnapshot}, which is published
+ * with a single volatile write once the change, or the whole batch, is applied. Readers take the last
+ * published snapshot without the lock, so they never wait for the writers and never see a change in part.
+ * The pages following a cursor are read from the snapshot of the first page, see {@link PinnedSnapshots}.
+ *
+ * This is the default storage, it is used unless the property {@code carstore.storage.type}
+ * selects another one.
  *
  * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
  */
 @Component
+@ConditionalOnProperty(name = "carstore.storage.type", havingValue = "locking", matchIfMissing = true)
 public class SessionDataStorageImpl implements SessionDataStorage {
 
   /**
-   * Charging sessions storage map.
+   * Current session versions by session id, guarded by the lock.
+   */
+  private Map<UUID, ChargeSession> chargeSessionMap = new HashMap<>();
+
+  /**
+   * Snapshot the changes are applied to, guarded by the lock.
+   */
+  private SessionSnapshot pending = SessionSnapshot.EMPTY;
+
+  /**
+   * The last published snapshot, read without the lock.
+   */
+  private volatile SessionSnapshot snapshot = SessionSnapshot.EMPTY;
+
+  /**
+   * Snapshots read by the clients following the cursors.
+   */
+  private final PinnedSnapshots pinnedSnapshots;
+
+  /**
+   * Finished sessions in the order they were stopped, the oldest is the first one.
    */
-  private Map<UUID, ChargeSession> chargeSessionMap = new LinkedHashMap<>();
+  private Deque<ChargeSession> finishedSessions = new ArrayDeque<>();
 
   /**
-   * List of session IDs
+   * Counters of the changes made during the last minute.
    */
-  private LinkedList<UUID> sessionIdList = new LinkedList<>();
+  private final SlidingWindowCounter summaryWindow;
+
+  /**
+   * Listeners notified under the lock about every change.
+   */
+  private final SessionChangeListeners listeners = new SessionChangeListeners();
 
   /**
    * Locks the map for updating.
    */
-  private Lock lock = new ReentrantLock();
+  private final TimedLock lock = new TimedLock(new ReentrantLock(), true);
+
+  private volatile StorageProbe probe = StorageProbe.NONE;
+
+  /**
+   * Clock of the session timestamps and of the summary windows.
+   */
+  private final SessionClock clock;
+
+  public SessionDataStorageImpl() {
+    this(SessionClock.SYSTEM);
+  }
+
+  @Autowired
+  public SessionDataStorageImpl(SessionClock clock) {
+    this.clock = clock;
+    this.summaryWindow = new SlidingWindowCounter(clock);
+    this.pinnedSnapshots = new PinnedSnapshots(clock);
+  }
 
   @Override
   public ChargeSession submitSession(ChargeSession session) {
+    listeners.beforeChanges();
     lock.lock();
     try {
-      chargeSessionMap.put(session.getId(), session);
-      sessionIdList.add(session.getId());
+      put(session);
     } finally {
-      lock.unlock();
+      publish();
     }
+    listeners.changesApplied();
+    summaryWindow.recordStarted(session.getStartedAtMillis());
     return session;
   }
 
+  @Override
+  public List<ChargeSession> submitSessions(List<ChargeSession> sessions) {
+    listeners.beforeChanges();
+    lock.lock();
+    try {
+      for (ChargeSession session : sessions) {
+        put(session);
+      }
+    } finally {
+      publish();
+    }
+    listeners.changesApplied();
+    for (ChargeSession session : sessions) {
+      summaryWindow.recordStarted(session.getStartedAtMillis());
+    }
+    return sessions;
+  }
+
   @Override
   public ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    listeners.beforeChanges();
+    long stoppedAtMillis = clock.millis();
     lock.lock();
     ChargeSession session;
     try {
-      session = chargeSessionMap.get(id);
-      sessionValidation(id, session);
-      session.setStoppedAt(LocalDateTime.now());
-      session.setStatus(StatusEnum.FINISHED);
-      sessionIdList.remove(session.getId());
-      sessionIdList.add(session.getId());
+      session = stop(id, clock.toLocalDateTime(stoppedAtMillis), stoppedAtMillis);
     } finally {
-      lock.unlock();
+      publish();
     }
+    listeners.changesApplied();
+    summaryWindow.recordStopped(session.getStoppedAtMillis());
     return session;
   }
 
+  @Override
+  public List<BatchItemResult> stopSessions(List<UUID> ids) {
+    listeners.beforeChanges();
+    List<BatchItemResult> results = new ArrayList<>(ids.size());
+    long stoppedAtMillis = clock.millis();
+    LocalDateTime stoppedAt = clock.toLocalDateTime(stoppedAtMillis);
+    lock.lock();
+    try {
+      for (UUID id : ids) {
+        try {
+          results.add(BatchItemResult.succeeded(stop(id, stoppedAt, stoppedAtMillis)));
+        } catch (ChargingSessionException e) {
+          results.add(BatchItemResult.failed(e));
+        }
+      }
+    } finally {
+      publish();
+    }
+    listeners.changesApplied();
+    for (BatchItemResult result : results) {
+      if (result.getSession() != null) {
+        summaryWindow.recordStopped(stoppedAtMillis);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * All the sessions of the last published snapshot in the order of start time. The collection is a view
+   * of the immutable snapshot, so it is neither copied nor changed by the writers.
+   */
   @Override
   public Collection<ChargeSession> retrieveAllSessions() {
-    return chargeSessionMap.values();
+    return snapshot.sessions();
+  }
+
+  /**
+   * A page of the last published snapshot, or of the snapshot the cursor is pinned to.
+   *
+   * @throws IllegalArgumentException if the snapshot of the cursor has expired
+   */
+  @Override
+  public SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit) {
+    SessionSnapshot current = after == null || after.getSnapshot() == 0 ? snapshot : pinnedSnapshots.get(after.getSnapshot());
+    if (current == null) {
+      throw new IllegalArgumentException("Snapshot of the cursor has expired: " + after.encode());
+    }
+    SessionPage page = current.page(query, after, limit);
+    if (page.getNextCursor() != null) {
+      pinnedSnapshots.pin(current);
+    }
+    return page;
   }
 
   @Override
   public CounterSummary retrieveSummarySubmittedSessions() {
-    LocalDateTime now = LocalDateTime.now();
-    long startedCount = 0, stoppedCount = 0;
-
-    Iterator<UUID> iterator = sessionIdList.descendingIterator();
-    while (iterator.hasNext()) {
-      ChargeSession session = chargeSessionMap.get(iterator.next());
-      if (session.getStatus() == StatusEnum.IN_PROGRESS && isChangedLessThanMinuteAgo(now, session.getStartedAt())) {
-        startedCount++;
-      } else if (session.getStatus() == StatusEnum.FINISHED && isChangedLessThanMinuteAgo(now, session.getStoppedAt())) {
-        stoppedCount++;
-        if (isChangedLessThanMinuteAgo(now, session.getStartedAt())) {
-          startedCount++;
+    return retrieveSummarySubmittedSessions(SummaryWindow.ONE_MINUTE);
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window) {
+    probe.summaryScanned(summaryWindow.bucketsScanned(window));
+    return summaryWindow.summary(window);
+  }
+
+  @Override
+  public Collection<ChargeSession> evictFinishedSessions(long stoppedBeforeMillis, long maxRetained, int limit) {
+    listeners.beforeChanges();
+    List<ChargeSession> evicted = new ArrayList<>();
+    lock.lock();
+    try {
+      while (evicted.size() < limit && !finishedSessions.isEmpty()) {
+        ChargeSession session = finishedSessions.peek();
+        if (finishedSessions.size() <= maxRetained && session.getStoppedAtMillis() >= stoppedBeforeMillis) {
+          break;
+        }
+        finishedSessions.poll();
+        chargeSessionMap.remove(session.getId());
+        pending = pending.remove(session);
+        listeners.sessionEvicted(session);
+        evicted.add(session);
+      }
+    } finally {
+      publish();
+    }
+    listeners.changesApplied();
+    pinnedSnapshots.expire();
+    return evicted;
+  }
+
+  @Override
+  public long countSessions() {
+    return snapshot.size();
+  }
+
+  @Override
+  public long countFinishedSessions() {
+    return snapshot.countFinished();
+  }
+
+  @Override
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    List<ChargeSession> finished = new ArrayList<>();
+    lock.lock();
+    try {
+      for (ChargeSession session : sessions) {
+        chargeSessionMap.put(session.getId(), session);
+        pending = pending.add(session);
+        if (session.getStatus() == StatusEnum.FINISHED) {
+          finished.add(session);
         }
-      } else {
-        break;
+      }
+      finished.sort(Comparator.comparing(ChargeSession::getStoppedAt));
+      finishedSessions.addAll(finished);
+    } finally {
+      publish();
+    }
+    for (ChargeSession session : sessions) {
+      summaryWindow.recordStarted(session.getStartedAtMillis());
+      if (session.getStoppedAt() != null) {
+        summaryWindow.recordStopped(session.getStoppedAtMillis());
       }
     }
-    return new CounterSummary(startedCount + stoppedCount, startedCount, stoppedCount);
+  }
+
+  @Override
+  public void addSessionChangeListener(SessionChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void setStorageProbe(StorageProbe probe) {
+    this.probe = probe;
+    lock.setProbe(probe);
+  }
+
+  /**
+   * Add the session to the map and the indexes, must be called under the lock.
+   *
+   * @param session
+   */
+  private void put(ChargeSession session) {
+    chargeSessionMap.put(session.getId(), session);
+    pending = pending.add(session);
+    listeners.sessionSubmitted(session);
+  }
+
+  /**
+   * Apply the finished version of the session, must be called under the lock.
+   *
+   * @param id
+   * @param stoppedAt
+   * @param stoppedAtMillis instant of the stop in milliseconds since the epoch
+   * @return
+   * @throws ChargingSessionException
+   */
+  private ChargeSession stop(UUID id, LocalDateTime stoppedAt, long stoppedAtMillis) throws ChargingSessionException {
+    ChargeSession current = chargeSessionMap.get(id);
+    sessionValidation(id, current);
+    ChargeSession session = current.finish(stoppedAt, stoppedAtMillis);
+    chargeSessionMap.put(id, session);
+    pending = pending.finish(session);
+    finishedSessions.add(session);
+    listeners.sessionStopped(session);
+    return session;
+  }
+
+  /**
+   * Publish the changes applied so far to the readers and release the lock.
+   */
+  private void publish() {
+    snapshot = pending;
+    lock.unlock();
   }
 
   /**
@@ -106,15 +335,4 @@ public class SessionDataStorageImpl implements SessionDataStorage {
       throw new ChargingSessionException(String.format("Charging session with id: %s has already been finished", id), HttpStatus.BAD_REQUEST.value());
     }
   }
-
-  /**
-   * Returns true if loggedTime value is not earlier than one minute ago.
-   *
-   * @param now
-   * @param loggedTime
-   * @return
-   */
-  protected static boolean isChangedLessThanMinuteAgo(LocalDateTime now, LocalDateTime loggedTime) {
-    return loggedTime.isAfter(now.minusMinutes(1L));
-  }
 }
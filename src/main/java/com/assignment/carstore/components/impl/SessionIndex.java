@@ -0,0 +1,284 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Secondary indexes of charging sessions by status and by station and status.
+ *
+ * Every index is ordered by start time, so a query reads a range of a single index,
+ * or merges two of them when sessions of any status are requested, and the cost
+ * is proportional to the number of returned sessions.
+ *
+ * The plain index must be guarded by the storage lock, the concurrent one may be
+ * read while it is updated.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SessionIndex {
+
+  private final Supplier<NavigableMap<SessionCursor, ChargeSession>> mapFactory;
+
+  private final Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>> byStatus;
+
+  private final Map<String, Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>>> byStation;
+
+  private SessionIndex(Supplier<NavigableMap<SessionCursor, ChargeSession>> mapFactory,
+                       Map<String, Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>>> byStation) {
+    this.mapFactory = mapFactory;
+    this.byStatus = newStatusMaps();
+    this.byStation = byStation;
+  }
+
+  /**
+   * Index to be used under the storage lock.
+   */
+  static SessionIndex plain() {
+    return new SessionIndex(TreeMap::new, new HashMap<>());
+  }
+
+  /**
+   * Index safe for concurrent updates and reads.
+   */
+  static SessionIndex concurrent() {
+    return new SessionIndex(ConcurrentSkipListMap::new, new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Add a new session with its current status. The session is added to the maps of its station
+   * while the station entry is held, so a concurrent removal never drops the maps it is added to.
+   *
+   * @param session
+   */
+  void add(ChargeSession session) {
+    SessionCursor key = SessionCursor.of(session);
+    byStatus.get(session.getStatus()).put(key, session);
+    byStation.compute(session.getStationId(), (stationId, station) -> {
+      if (station == null) {
+        station = newStatusMaps();
+      }
+      station.get(session.getStatus()).put(key, session);
+      return station;
+    });
+  }
+
+  /**
+   * Move a stopped session to the finished sessions.
+   * The session is added before it is removed, so readers never miss it.
+   *
+   * @param session
+   */
+  void finish(ChargeSession session) {
+    SessionCursor key = SessionCursor.of(session);
+    Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>> station = byStation.get(session.getStationId());
+    byStatus.get(StatusEnum.FINISHED).put(key, session);
+    station.get(StatusEnum.FINISHED).put(key, session);
+    byStatus.get(StatusEnum.IN_PROGRESS).remove(key);
+    station.get(StatusEnum.IN_PROGRESS).remove(key);
+  }
+
+  /**
+   * Remove an evicted session, the maps of the station are dropped with its last session.
+   *
+   * @param session
+   */
+  void remove(ChargeSession session) {
+    SessionCursor key = SessionCursor.of(session);
+    for (StatusEnum status : StatusEnum.values()) {
+      byStatus.get(status).remove(key);
+    }
+    byStation.computeIfPresent(session.getStationId(), (stationId, station) -> {
+      boolean empty = true;
+      for (NavigableMap<SessionCursor, ChargeSession> map : station.values()) {
+        map.remove(key);
+        empty &= map.isEmpty();
+      }
+      return empty ? null : station;
+    });
+  }
+
+  /**
+   * Number of the stations with indexed sessions.
+   */
+  int countStations() {
+    return byStation.size();
+  }
+
+  /**
+   * Collect a page of sessions matching the query, starting after the given cursor.
+   *
+   * @param query
+   * @param after
+   * @param limit
+   * @return
+   */
+  SessionPage page(SessionQuery query, SessionCursor after, int limit) {
+    Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>> maps =
+            query.getStationId() == null ? byStatus : byStation.get(query.getStationId());
+    if (maps == null) {
+      return new SessionPage(Collections.emptyList(), null);
+    }
+    List<Iterator<Map.Entry<SessionCursor, ChargeSession>>> sources = new ArrayList<>(2);
+    for (StatusEnum status : StatusEnum.values()) {
+      if (query.getStatus() == null || query.getStatus() == status) {
+        sources.add(range(maps.get(status), query, after).entrySet().iterator());
+      }
+    }
+    return page(query, merge(sources), limit);
+  }
+
+  /**
+   * Collect a page of at most limit sessions matching the query from the entries ordered by cursor.
+   *
+   * @param query
+   * @param iterator
+   * @param limit
+   * @return
+   */
+  static SessionPage page(SessionQuery query, Iterator<Map.Entry<SessionCursor, ChargeSession>> iterator, int limit) {
+    List<ChargeSession> sessions = new ArrayList<>();
+    SessionCursor next = null;
+    while (iterator.hasNext()) {
+      ChargeSession session = iterator.next().getValue();
+      if (!query.matches(session)) {
+        // the session is being moved to another status
+        continue;
+      }
+      if (sessions.size() == limit) {
+        next = SessionCursor.of(sessions.get(limit - 1));
+        break;
+      }
+      sessions.add(session);
+    }
+    return new SessionPage(sessions, next);
+  }
+
+  /**
+   * Merge the entries of one or two indexes ordered by cursor.
+   *
+   * @param sources
+   * @return
+   */
+  static Iterator<Map.Entry<SessionCursor, ChargeSession>> merge(
+          List<Iterator<Map.Entry<SessionCursor, ChargeSession>>> sources) {
+    return sources.size() == 1 ? sources.get(0) : new MergingIterator(sources.get(0), sources.get(1));
+  }
+
+  /**
+   * The first cursor of the sessions matching the query and following the given cursor.
+   * The bound is exclusive if it is the given cursor.
+   *
+   * @param query
+   * @param after
+   * @return
+   */
+  static SessionCursor lowerBound(SessionQuery query, SessionCursor after) {
+    SessionCursor from = query.getStartedFrom() == null ? null : SessionCursor.from(query.getStartedFrom());
+    return after != null && (from == null || after.compareTo(from) >= 0) ? after : from;
+  }
+
+  /**
+   * The last cursor of the sessions matching the query, inclusive.
+   *
+   * @param query
+   * @return
+   */
+  static SessionCursor upperBound(SessionQuery query) {
+    return query.getStartedTo() == null ? null : SessionCursor.upTo(query.getStartedTo());
+  }
+
+  /**
+   * Narrow the index down to the start time range of the query and the cursor.
+   *
+   * @param map
+   * @param query
+   * @param after
+   * @return
+   */
+  private static NavigableMap<SessionCursor, ChargeSession> range(NavigableMap<SessionCursor, ChargeSession> map,
+                                                                  SessionQuery query, SessionCursor after) {
+    SessionCursor lower = lowerBound(query, after);
+    boolean lowerInclusive = lower != after;
+    SessionCursor upper = upperBound(query);
+    if (lower != null && upper != null) {
+      return lower.compareTo(upper) > 0
+              ? Collections.emptyNavigableMap() : map.subMap(lower, lowerInclusive, upper, true);
+    } else if (lower != null) {
+      return map.tailMap(lower, lowerInclusive);
+    } else if (upper != null) {
+      return map.headMap(upper, true);
+    }
+    return map;
+  }
+
+  private Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>> newStatusMaps() {
+    Map<StatusEnum, NavigableMap<SessionCursor, ChargeSession>> maps = new EnumMap<>(StatusEnum.class);
+    for (StatusEnum status : StatusEnum.values()) {
+      maps.put(status, mapFactory.get());
+    }
+    return maps;
+  }
+
+  /**
+   * Merges two iterators ordered by cursor, an entry present in both is returned once.
+   */
+  private static final class MergingIterator implements Iterator<Map.Entry<SessionCursor, ChargeSession>> {
+
+    private final Iterator<Map.Entry<SessionCursor, ChargeSession>> first;
+
+    private final Iterator<Map.Entry<SessionCursor, ChargeSession>> second;
+
+    private Map.Entry<SessionCursor, ChargeSession> firstHead;
+
+    private Map.Entry<SessionCursor, ChargeSession> secondHead;
+
+    private MergingIterator(Iterator<Map.Entry<SessionCursor, ChargeSession>> first,
+                            Iterator<Map.Entry<SessionCursor, ChargeSession>> second) {
+      this.first = first;
+      this.second = second;
+      this.firstHead = first.hasNext() ? first.next() : null;
+      this.secondHead = second.hasNext() ? second.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return firstHead != null || secondHead != null;
+    }
+
+    @Override
+    public Map.Entry<SessionCursor, ChargeSession> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<SessionCursor, ChargeSession> result;
+      int order = firstHead == null ? 1 : secondHead == null ? -1 : firstHead.getKey().compareTo(secondHead.getKey());
+      if (order <= 0) {
+        result = firstHead;
+        firstHead = first.hasNext() ? first.next() : null;
+      } else {
+        result = secondHead;
+      }
+      if (order >= 0) {
+        secondHead = second.hasNext() ? second.next() : null;
+      }
+      return result;
+    }
+  }
+}
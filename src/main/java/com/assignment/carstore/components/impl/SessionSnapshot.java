@@ -0,0 +1,204 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable state of the charging sessions at a point in time, the versioned root of {@link SessionDataStorageImpl}.
+ *
+ * Sessions are indexed by status and by station and status, every index is a {@link PersistentTreeMap}
+ * ordered by start time.
+ *
+ * A change makes a new snapshot sharing all the unchanged nodes with this one, so the writer builds
+ * the next snapshot under the storage lock and publishes it with a single volatile write, while the readers
+ * keep reading the snapshot they have taken without any lock. Every change makes a newer version, the next
+ * cursor of a page has the version of its snapshot, see {@link PinnedSnapshots}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+final class SessionSnapshot {
+
+  static final SessionSnapshot EMPTY = new SessionSnapshot(0, StatusTrees.EMPTY, PersistentTreeMap.empty(Comparator.naturalOrder()));
+
+  private final long version;
+
+  private final StatusTrees all;
+
+  private final PersistentTreeMap<String, StatusTrees> byStation;
+
+  private SessionSnapshot(long version, StatusTrees all, PersistentTreeMap<String, StatusTrees> byStation) {
+    this.version = version;
+    this.all = all;
+    this.byStation = byStation;
+  }
+
+  /**
+   * Snapshot with a new session added with its current status.
+   *
+   * @param session
+   * @return
+   */
+  SessionSnapshot add(ChargeSession session) {
+    SessionCursor key = SessionCursor.of(session);
+    StatusTrees station = byStation.get(session.getStationId());
+    station = (station == null ? StatusTrees.EMPTY : station).put(session.getStatus(), key, session);
+    return new SessionSnapshot(version + 1, all.put(session.getStatus(), key, session), byStation.put(session.getStationId(), station));
+  }
+
+  /**
+   * Snapshot with a stopped session moved to the finished sessions.
+   *
+   * @param session
+   * @return
+   */
+  SessionSnapshot finish(ChargeSession session) {
+    SessionCursor key = SessionCursor.of(session);
+    return new SessionSnapshot(version + 1, all.finish(key, session),
+            byStation.put(session.getStationId(), byStation.get(session.getStationId()).finish(key, session)));
+  }
+
+  /**
+   * Snapshot without an evicted session, the station is dropped with its last session.
+   *
+   * @param session
+   * @return
+   */
+  SessionSnapshot remove(ChargeSession session) {
+    SessionCursor key = SessionCursor.of(session);
+    StatusTrees station = byStation.get(session.getStationId()).remove(session.getStatus(), key);
+    return new SessionSnapshot(version + 1, all.remove(session.getStatus(), key), station.size() == 0
+            ? byStation.remove(session.getStationId()) : byStation.put(session.getStationId(), station));
+  }
+
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Number of the sessions.
+   */
+  int size() {
+    return all.size();
+  }
+
+  /**
+   * Number of the finished sessions.
+   */
+  int countFinished() {
+    return all.get(StatusEnum.FINISHED).size();
+  }
+
+  /**
+   * All the sessions in the order of start time, read from the snapshot while they are iterated.
+   */
+  Collection<ChargeSession> sessions() {
+    return new AbstractCollection<ChargeSession>() {
+      @Override
+      public Iterator<ChargeSession> iterator() {
+        Iterator<Map.Entry<SessionCursor, ChargeSession>> entries = SessionIndex.merge(Arrays.asList(
+                all.get(StatusEnum.IN_PROGRESS).entries(), all.get(StatusEnum.FINISHED).entries()));
+        return new Iterator<ChargeSession>() {
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          @Override
+          public ChargeSession next() {
+            return entries.next().getValue();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return all.size();
+      }
+    };
+  }
+
+  /**
+   * Collect a page of sessions matching the query, starting after the given cursor.
+   * The next cursor is pinned to this snapshot.
+   *
+   * @param query
+   * @param after
+   * @param limit
+   * @return
+   */
+  SessionPage page(SessionQuery query, SessionCursor after, int limit) {
+    StatusTrees trees = query.getStationId() == null ? all : byStation.get(query.getStationId());
+    if (trees == null) {
+      return new SessionPage(Collections.emptyList(), null);
+    }
+    SessionCursor lower = SessionIndex.lowerBound(query, after);
+    SessionCursor upper = SessionIndex.upperBound(query);
+    List<Iterator<Map.Entry<SessionCursor, ChargeSession>>> sources = new ArrayList<>(2);
+    for (StatusEnum status : StatusEnum.values()) {
+      if (query.getStatus() == null || query.getStatus() == status) {
+        sources.add(trees.get(status).entries(lower, lower != after, upper, true));
+      }
+    }
+    SessionPage page = SessionIndex.page(query, SessionIndex.merge(sources), limit);
+    return page.getNextCursor() == null ? page : new SessionPage(page.getSessions(), page.getNextCursor().pinned(version));
+  }
+
+  /**
+   * Trees of the sessions in progress and of the finished ones.
+   */
+  private static final class StatusTrees {
+
+    private static final StatusTrees EMPTY = new StatusTrees(PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()));
+
+    private final PersistentTreeMap<SessionCursor, ChargeSession> inProgress;
+
+    private final PersistentTreeMap<SessionCursor, ChargeSession> finished;
+
+    private StatusTrees(PersistentTreeMap<SessionCursor, ChargeSession> inProgress,
+                        PersistentTreeMap<SessionCursor, ChargeSession> finished) {
+      this.inProgress = inProgress;
+      this.finished = finished;
+    }
+
+    PersistentTreeMap<SessionCursor, ChargeSession> get(StatusEnum status) {
+      return status == StatusEnum.FINISHED ? finished : inProgress;
+    }
+
+    StatusTrees put(StatusEnum status, SessionCursor key, ChargeSession session) {
+      return status == StatusEnum.FINISHED
+              ? new StatusTrees(inProgress, finished.put(key, session))
+              : new StatusTrees(inProgress.put(key, session), finished);
+    }
+
+    StatusTrees remove(StatusEnum status, SessionCursor key) {
+      return status == StatusEnum.FINISHED
+              ? new StatusTrees(inProgress, finished.remove(key))
+              : new StatusTrees(inProgress.remove(key), finished);
+    }
+
+    /**
+     * Move a stopped session from the sessions in progress to the finished ones.
+     */
+    StatusTrees finish(SessionCursor key, ChargeSession session) {
+      return new StatusTrees(inProgress.remove(key), finished.put(key, session));
+    }
+
+    int size() {
+      return inProgress.size() + finished.size();
+    }
+  }
+}
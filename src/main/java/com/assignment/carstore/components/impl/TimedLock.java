@@ -0,0 +1,100 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.StorageProbe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Lock reporting the time callers wait for it and, when it is exclusive, the time it is held.
+ * Nothing is measured while the probe is {@link StorageProbe#NONE}. The hold time of a lock
+ * acquired reentrantly is not measured correctly, the storages never do it.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class TimedLock implements Lock {
+
+  private final Lock lock;
+
+  private final boolean exclusive;
+
+  private volatile StorageProbe probe = StorageProbe.NONE;
+
+  /**
+   * Time the exclusive lock was acquired, zero if it was not measured.
+   * Only the holder of the lock accesses it.
+   */
+  private long acquiredAt;
+
+  TimedLock(Lock lock, boolean exclusive) {
+    this.lock = lock;
+    this.exclusive = exclusive;
+  }
+
+  void setProbe(StorageProbe probe) {
+    this.probe = probe;
+  }
+
+  @Override
+  public void lock() {
+    StorageProbe current = probe;
+    if (current == StorageProbe.NONE) {
+      lock.lock();
+      acquired(0);
+      return;
+    }
+    long start = System.nanoTime();
+    lock.lock();
+    long now = System.nanoTime();
+    current.lockWaited(now - start);
+    acquired(now);
+  }
+
+  @Override
+  public void lockInterruptibly() throws InterruptedException {
+    lock.lockInterruptibly();
+    acquired(0);
+  }
+
+  @Override
+  public boolean tryLock() {
+    if (lock.tryLock()) {
+      acquired(0);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+    if (lock.tryLock(time, unit)) {
+      acquired(0);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void unlock() {
+    if (exclusive && acquiredAt != 0) {
+      long heldFor = System.nanoTime() - acquiredAt;
+      acquiredAt = 0;
+      lock.unlock();
+      probe.lockHeld(heldFor);
+      return;
+    }
+    lock.unlock();
+  }
+
+  @Override
+  public Condition newCondition() {
+    return lock.newCondition();
+  }
+
+  private void acquired(long now) {
+    if (exclusive) {
+      acquiredAt = now;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.StorageProbe;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-write lock reporting the waits for both locks and the hold time of the write lock.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class TimedReadWriteLock implements ReadWriteLock {
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final TimedLock readLock = new TimedLock(lock.readLock(), false);
+
+  private final TimedLock writeLock = new TimedLock(lock.writeLock(), true);
+
+  void setProbe(StorageProbe probe) {
+    readLock.setProbe(probe);
+    writeLock.setProbe(probe);
+  }
+
+  @Override
+  public Lock readLock() {
+    return readLock;
+  }
+
+  @Override
+  public Lock writeLock() {
+    return writeLock;
+  }
+}
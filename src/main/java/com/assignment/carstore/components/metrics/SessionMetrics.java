@@ -0,0 +1,32 @@
+package com.assignment.carstore.components.metrics;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges of the number of charging sessions kept in the storage.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Component
+public class SessionMetrics implements MeterBinder {
+
+  private final SessionDataStorage sessionDataStorage;
+
+  public SessionMetrics(SessionDataStorage sessionDataStorage) {
+    this.sessionDataStorage = sessionDataStorage;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("carstore.sessions.live", sessionDataStorage, SessionDataStorage::countSessions)
+            .description("Number of charging sessions kept in the storage")
+            .register(registry);
+    Gauge.builder("carstore.sessions.finished", sessionDataStorage, SessionDataStorage::countFinishedSessions)
+            .description("Number of finished charging sessions kept in the storage")
+            .register(registry);
+  }
+}
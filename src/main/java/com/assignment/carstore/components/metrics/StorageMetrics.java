@@ -0,0 +1,108 @@
+package com.assignment.carstore.components.metrics;
+
+import com.assignment.carstore.components.StorageOperation;
+import com.assignment.carstore.components.StorageProbe;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage probe recording the measurements into Micrometer meters registered up front,
+ * so recording a measurement only updates the striped counters and histogram recorders
+ * of an existing meter and does not allocate.
+ *
+ * The storage is created before the meter registry, measurements taken before the meters
+ * are bound are dropped.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class StorageMetrics implements StorageProbe, MeterBinder {
+
+  private final boolean histogram;
+
+  private volatile Meters meters;
+
+  /**
+   * @param histogram publish the histogram buckets of the timers
+   */
+  public StorageMetrics(boolean histogram) {
+    this.histogram = histogram;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meters = new Meters(registry, histogram);
+  }
+
+  @Override
+  public void operationCompleted(StorageOperation operation, long nanos) {
+    Meters current = meters;
+    if (current != null) {
+      current.operations[operation.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void lockWaited(long nanos) {
+    Meters current = meters;
+    if (current != null) {
+      current.lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void lockHeld(long nanos) {
+    Meters current = meters;
+    if (current != null) {
+      current.lockHold.record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void summaryScanned(int entries) {
+    Meters current = meters;
+    if (current != null) {
+      current.summaryScanned.record(entries);
+    }
+  }
+
+  /**
+   * Meters registered in a single registry.
+   */
+  private static final class Meters {
+
+    private final Timer[] operations = new Timer[StorageOperation.values().length];
+
+    private final Timer lockWait;
+
+    private final Timer lockHold;
+
+    private final DistributionSummary summaryScanned;
+
+    private Meters(MeterRegistry registry, boolean histogram) {
+      for (StorageOperation operation : StorageOperation.values()) {
+        operations[operation.ordinal()] = Timer.builder("carstore.storage.operation")
+                .description("Latency of the charging sessions storage operations")
+                .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram(histogram)
+                .register(registry);
+      }
+      lockWait = Timer.builder("carstore.storage.lock.wait")
+              .description("Time callers wait for the storage lock")
+              .publishPercentileHistogram(histogram)
+              .register(registry);
+      lockHold = Timer.builder("carstore.storage.lock.hold")
+              .description("Time the exclusive storage lock is held")
+              .publishPercentileHistogram(histogram)
+              .register(registry);
+      summaryScanned = DistributionSummary.builder("carstore.storage.summary.scanned")
+              .description("Number of entries read to compute the summary")
+              .baseUnit("entries")
+              .register(registry);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.assignment.carstore.components.metrics;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the storage hot path metrics, the storage bean is wrapped to measure
+ * its operations and reports its lock and summary measurements to the same meters.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(StorageMetricsProperties.class)
+@ConditionalOnProperty(name = "carstore.storage-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class StorageMetricsConfiguration {
+
+  @Bean
+  public StorageMetrics storageMetrics(StorageMetricsProperties properties) {
+    return new StorageMetrics(properties.isHistogram());
+  }
+
+  @Bean
+  public static BeanPostProcessor timedSessionDataStoragePostProcessor(ObjectProvider<StorageMetrics> storageMetrics) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof SessionDataStorage) || bean instanceof TimedSessionDataStorage) {
+          return bean;
+        }
+        StorageMetrics metrics = storageMetrics.getObject();
+        SessionDataStorage storage = (SessionDataStorage) bean;
+        storage.setStorageProbe(metrics);
+        return new TimedSessionDataStorage(storage, metrics);
+      }
+    };
+  }
+}
@@ -0,0 +1,38 @@
+package com.assignment.carstore.components.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the storage hot path metrics, bound to the {@code carstore.storage-metrics} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.storage-metrics")
+public class StorageMetricsProperties {
+
+  /**
+   * Enables the storage hot path metrics.
+   */
+  private boolean enabled = true;
+
+  /**
+   * Publishes the latency histogram buckets, so percentiles can be aggregated by the monitoring system.
+   */
+  private boolean histogram = true;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isHistogram() {
+    return histogram;
+  }
+
+  public void setHistogram(boolean histogram) {
+    this.histogram = histogram;
+  }
+}
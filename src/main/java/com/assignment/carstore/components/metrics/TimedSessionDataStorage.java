@@ -0,0 +1,156 @@
+package com.assignment.carstore.components.metrics;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.StorageOperation;
+import com.assignment.carstore.components.StorageProbe;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Charging sessions data storage measuring the latency of every operation of the wrapped storage,
+ * failed operations included.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class TimedSessionDataStorage implements SessionDataStorage {
+
+  private final SessionDataStorage storage;
+
+  private final StorageProbe probe;
+
+  public TimedSessionDataStorage(SessionDataStorage storage, StorageProbe probe) {
+    this.storage = storage;
+    this.probe = probe;
+  }
+
+  @Override
+  public ChargeSession submitSession(ChargeSession session) {
+    long start = System.nanoTime();
+    try {
+      return storage.submitSession(session);
+    } finally {
+      probe.operationCompleted(StorageOperation.SUBMIT, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public List<ChargeSession> submitSessions(List<ChargeSession> sessions) {
+    long start = System.nanoTime();
+    try {
+      return storage.submitSessions(sessions);
+    } finally {
+      probe.operationCompleted(StorageOperation.SUBMIT_BATCH, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    long start = System.nanoTime();
+    try {
+      return storage.stopSession(id);
+    } finally {
+      probe.operationCompleted(StorageOperation.STOP, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public List<BatchItemResult> stopSessions(List<UUID> ids) {
+    long start = System.nanoTime();
+    try {
+      return storage.stopSessions(ids);
+    } finally {
+      probe.operationCompleted(StorageOperation.STOP_BATCH, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public Collection<ChargeSession> retrieveAllSessions() {
+    long start = System.nanoTime();
+    try {
+      return storage.retrieveAllSessions();
+    } finally {
+      probe.operationCompleted(StorageOperation.RETRIEVE_ALL, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public SessionPage retrieveSessions(SessionQuery query, SessionCursor after, int limit) {
+    long start = System.nanoTime();
+    try {
+      return storage.retrieveSessions(query, after, limit);
+    } finally {
+      probe.operationCompleted(StorageOperation.RETRIEVE_PAGE, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    long start = System.nanoTime();
+    try {
+      return storage.retrieveSummarySubmittedSessions();
+    } finally {
+      probe.operationCompleted(StorageOperation.SUMMARY, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window) {
+    long start = System.nanoTime();
+    try {
+      return storage.retrieveSummarySubmittedSessions(window);
+    } finally {
+      probe.operationCompleted(StorageOperation.SUMMARY, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public Collection<ChargeSession> evictFinishedSessions(long stoppedBeforeMillis, long maxRetained, int limit) {
+    long start = System.nanoTime();
+    try {
+      return storage.evictFinishedSessions(stoppedBeforeMillis, maxRetained, limit);
+    } finally {
+      probe.operationCompleted(StorageOperation.EVICT, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public long countSessions() {
+    return storage.countSessions();
+  }
+
+  @Override
+  public long countFinishedSessions() {
+    return storage.countFinishedSessions();
+  }
+
+  @Override
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    storage.restoreSessions(sessions);
+  }
+
+  @Override
+  public void addSessionChangeListener(SessionChangeListener listener) {
+    storage.addSessionChangeListener(listener);
+  }
+
+  @Override
+  public void setStorageProbe(StorageProbe probe) {
+    storage.setStorageProbe(probe);
+  }
+
+  @Override
+  public boolean isBlocking() {
+    return storage.isBlocking();
+  }
+}
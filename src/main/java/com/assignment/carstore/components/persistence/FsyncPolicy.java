@@ -0,0 +1,25 @@
+package com.assignment.carstore.components.persistence;
+
+/**
+ * When the write-ahead log forces the written records to the disk.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public enum FsyncPolicy {
+
+  /**
+   * A change returns to the caller only after its record is forced to the disk.
+   * Records written together are forced once, so concurrent requests share the cost.
+   */
+  ALWAYS,
+
+  /**
+   * Records are forced periodically, a crash may lose the changes of the last interval.
+   */
+  INTERVAL,
+
+  /**
+   * Records are never forced explicitly, the operating system decides when they reach the disk.
+   */
+  NEVER
+}
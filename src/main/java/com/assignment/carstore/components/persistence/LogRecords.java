@@ -0,0 +1,155 @@
+package com.assignment.carstore.components.persistence;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StatusEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Binary format of the records of the write-ahead log and the snapshots.
+ *
+ * Every record is framed as {@code [int length][int crc32][body]}, the body starts with the record type
+ * and the session id. A record which is cut or does not match its checksum ends the file, it is
+ * what a crash in the middle of a write leaves behind.
+ *
+ * A change ends with its instant in milliseconds since the epoch, the records written before the instants were
+ * kept end without it and take it from the local date-time of the change in the zone of the system.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+final class LogRecords {
+
+  static final byte SUBMITTED = 1;
+
+  static final byte STOPPED = 2;
+
+  static final byte EVICTED = 3;
+
+  private static final int HEADER_SIZE = 8;
+
+  private static final int ID_SIZE = 1 + 16;
+
+  private static final int TIME_SIZE = 12;
+
+  private static final int MILLIS_SIZE = 8;
+
+  private LogRecords() {
+  }
+
+  /**
+   * Append a record of the change to the buffer, a full buffer is replaced by a larger one.
+   *
+   * @param buffer
+   * @param type
+   * @param session
+   * @return buffer holding the record
+   */
+  static ByteBuffer write(ByteBuffer buffer, byte type, ChargeSession session) {
+    byte[] stationId = type == SUBMITTED ? session.getStationId().getBytes(StandardCharsets.UTF_8) : null;
+    int bodySize = ID_SIZE;
+    if (type == SUBMITTED) {
+      bodySize += TIME_SIZE + 2 + stationId.length + MILLIS_SIZE;
+    } else if (type == STOPPED) {
+      bodySize += TIME_SIZE + MILLIS_SIZE;
+    }
+    if (buffer.remaining() < HEADER_SIZE + bodySize) {
+      ByteBuffer larger = ByteBuffer.allocateDirect(
+              Math.max(buffer.capacity() * 2, buffer.position() + HEADER_SIZE + bodySize));
+      buffer.flip();
+      larger.put(buffer);
+      buffer = larger;
+    }
+    int start = buffer.position();
+    buffer.putInt(bodySize).putInt(0);
+    buffer.put(type);
+    buffer.putLong(session.getId().getMostSignificantBits()).putLong(session.getId().getLeastSignificantBits());
+    if (type == SUBMITTED) {
+      putTime(buffer, session.getStartedAt());
+      // the length is unsigned, the station ids are limited to far less at the ingest
+      buffer.putShort((short) stationId.length).put(stationId);
+      buffer.putLong(session.getStartedAtMillis());
+    } else if (type == STOPPED) {
+      putTime(buffer, session.getStoppedAt());
+      buffer.putLong(session.getStoppedAtMillis());
+    }
+    ByteBuffer body = buffer.duplicate();
+    body.position(start + HEADER_SIZE).limit(buffer.position());
+    buffer.putInt(start + 4, (int) checksum(body));
+    return buffer;
+  }
+
+  /**
+   * Read the body of the next record.
+   *
+   * @param in
+   * @return the body, or null at the end of the records
+   */
+  static ByteBuffer read(ByteBuffer in) {
+    if (in.remaining() < HEADER_SIZE) {
+      return null;
+    }
+    int bodySize = in.getInt(in.position());
+    if (bodySize < ID_SIZE || bodySize > in.remaining() - HEADER_SIZE) {
+      return null;
+    }
+    int crc = in.getInt(in.position() + 4);
+    ByteBuffer body = in.duplicate();
+    body.position(in.position() + HEADER_SIZE).limit(in.position() + HEADER_SIZE + bodySize);
+    if ((int) checksum(body.duplicate()) != crc) {
+      return null;
+    }
+    in.position(body.limit());
+    return body;
+  }
+
+  /**
+   * Apply the recorded change to the sessions. Changes already reflected in the sessions are ignored,
+   * so the records following a snapshot may overlap with it.
+   *
+   * @param body
+   * @param sessions
+   */
+  static void apply(ByteBuffer body, Map<UUID, ChargeSession> sessions) {
+    byte type = body.get();
+    UUID id = new UUID(body.getLong(), body.getLong());
+    if (type == SUBMITTED) {
+      LocalDateTime startedAt = getTime(body);
+      byte[] stationId = new byte[body.getShort() & 0xFFFF];
+      body.get(stationId);
+      String station = new String(stationId, StandardCharsets.UTF_8);
+      sessions.putIfAbsent(id, body.remaining() >= MILLIS_SIZE
+              ? new ChargeSession(id, station, startedAt, body.getLong()) : new ChargeSession(id, station, startedAt));
+    } else if (type == STOPPED) {
+      LocalDateTime stoppedAt = getTime(body);
+      ChargeSession session = sessions.get(id);
+      if (session != null && session.getStatus() == StatusEnum.IN_PROGRESS) {
+        sessions.put(id, body.remaining() >= MILLIS_SIZE
+                ? session.finish(stoppedAt, body.getLong()) : session.finish(stoppedAt));
+      }
+    } else if (type == EVICTED) {
+      sessions.remove(id);
+    } else {
+      throw new IllegalStateException("Unknown record type: " + type);
+    }
+  }
+
+  private static long checksum(ByteBuffer body) {
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    return crc.getValue();
+  }
+
+  private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+    buffer.putLong(time.toEpochSecond(ZoneOffset.UTC)).putInt(time.getNano());
+  }
+
+  private static LocalDateTime getTime(ByteBuffer buffer) {
+    return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+  }
+}
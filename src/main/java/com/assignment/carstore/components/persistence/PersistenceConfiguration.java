@@ -0,0 +1,33 @@
+package com.assignment.carstore.components.persistence;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Configuration of the write-ahead log of charging sessions.
+ * The sessions are recovered while the context starts, before any request is served.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(PersistenceProperties.class)
+@ConditionalOnProperty(name = "carstore.persistence.enabled", havingValue = "true")
+public class PersistenceConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public WriteAheadLog writeAheadLog(SessionDataStorage sessionDataStorage, PersistenceProperties properties)
+          throws IOException {
+    WriteAheadLog log = new WriteAheadLog(Paths.get(properties.getDirectory()), properties.getFsync(),
+            properties.getFsyncInterval(), properties.getQueueCapacity());
+    log.recover(sessionDataStorage);
+    return log;
+  }
+}
@@ -0,0 +1,79 @@
+package com.assignment.carstore.components.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Durability settings of the charging sessions, bound to the {@code carstore.persistence} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.persistence")
+public class PersistenceProperties {
+
+  /**
+   * Enables the write-ahead log and the recovery of the sessions on startup.
+   */
+  private boolean enabled;
+
+  /**
+   * Directory of the log segments and the snapshots.
+   */
+  private String directory = "data";
+
+  /**
+   * When the written records are forced to the disk.
+   */
+  private FsyncPolicy fsync = FsyncPolicy.INTERVAL;
+
+  /**
+   * Interval of forcing the records to the disk with the {@link FsyncPolicy#INTERVAL} policy.
+   */
+  private Duration fsyncInterval = Duration.ofMillis(100);
+
+  /**
+   * Maximum number of records waiting for the writer, changes wait for a free slot when it is full.
+   */
+  private int queueCapacity = 65536;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public FsyncPolicy getFsync() {
+    return fsync;
+  }
+
+  public void setFsync(FsyncPolicy fsync) {
+    this.fsync = fsync;
+  }
+
+  public Duration getFsyncInterval() {
+    return fsyncInterval;
+  }
+
+  public void setFsyncInterval(Duration fsyncInterval) {
+    this.fsyncInterval = fsyncInterval;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+}
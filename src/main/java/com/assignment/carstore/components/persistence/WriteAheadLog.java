@@ -0,0 +1,463 @@
+package com.assignment.carstore.components.persistence;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Write-ahead log of the changes of charging sessions.
+ *
+ * The storage hands the changes over to a bounded queue, a single writer thread drains the queue
+ * and writes all pending records at once, so with the {@link FsyncPolicy#ALWAYS} policy concurrent
+ * requests wait for one shared fsync (group commit). The request threads never write to the disk.
+ *
+ * The log is split into segments {@code wal-<n>.log}. A snapshot {@code snapshot-<n>.bin} holds
+ * all sessions at the time the segment {@code n} was started, so older segments and snapshots are
+ * deleted once it is written. On startup the latest snapshot and the following segments are mapped
+ * into memory and replayed into the storage.
+ *
+ * Once the log has failed to write or is closed it rejects new changes before the storage applies them.
+ * A change already applied when the log fails is kept in memory and acknowledged, only its record is lost.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class WriteAheadLog implements SessionChangeListener, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class);
+
+  private static final Pattern SEGMENT = Pattern.compile("wal-(\\d+)\\.log");
+
+  private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final int SNAPSHOT_PAGE_SIZE = 1000;
+
+  /**
+   * Period of checking whether the log is closed while a change waits for space in the full queue.
+   */
+  private static final long APPEND_RETRY_MILLIS = 100;
+
+  private final Path directory;
+
+  private final FsyncPolicy fsyncPolicy;
+
+  private final long fsyncIntervalNanos;
+
+  private final BlockingQueue<Entry> queue;
+
+  /**
+   * The last record of the current thread the thread has to wait for.
+   */
+  private final ThreadLocal<Entry> pending = new ThreadLocal<>();
+
+  private final Thread writer;
+
+  private SessionDataStorage storage;
+
+  /**
+   * Current segment, used by the writer thread only.
+   */
+  private FileChannel segment;
+
+  private long segmentNumber;
+
+  private volatile IOException failure;
+
+  private volatile boolean closed;
+
+  public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval, int queueCapacity) {
+    this.directory = directory;
+    this.fsyncPolicy = fsyncPolicy;
+    this.fsyncIntervalNanos = fsyncInterval.toNanos();
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.writer = new Thread(this::writeRecords, "wal-writer");
+    this.writer.setDaemon(true);
+  }
+
+  /**
+   * Replay the latest snapshot and the log into the empty storage, then start logging its changes.
+   *
+   * @param storage
+   * @throws IOException
+   */
+  public void recover(SessionDataStorage storage) throws IOException {
+    Files.createDirectories(directory);
+    TreeMap<Long, Path> segments = list(SEGMENT);
+    TreeMap<Long, Path> snapshots = list(SNAPSHOT);
+
+    Map<UUID, ChargeSession> sessions = new LinkedHashMap<>();
+    long replayFrom = 0;
+    if (!snapshots.isEmpty()) {
+      replayFrom = snapshots.lastKey();
+      replay(snapshots.lastEntry().getValue(), sessions);
+    }
+    for (Path path : segments.tailMap(replayFrom).values()) {
+      replay(path, sessions);
+    }
+    storage.restoreSessions(sessions.values());
+    LOG.info("Recovered {} charging sessions from {}", sessions.size(), directory);
+
+    // a torn tail of the last segment is left as is, new records always go to a new segment
+    segmentNumber = Math.max(replayFrom, segments.isEmpty() ? 0 : segments.lastKey() + 1);
+    segment = openSegment(segmentNumber);
+    this.storage = storage;
+    writer.start();
+    storage.addSessionChangeListener(this);
+  }
+
+  @Override
+  public void sessionSubmitted(ChargeSession session) {
+    append(new Entry(LogRecords.SUBMITTED, session));
+  }
+
+  @Override
+  public void sessionStopped(ChargeSession session) {
+    append(new Entry(LogRecords.STOPPED, session));
+  }
+
+  @Override
+  public void sessionEvicted(ChargeSession session) {
+    append(new Entry(LogRecords.EVICTED, session));
+  }
+
+  /**
+   * Reject the changes which could not be logged.
+   */
+  @Override
+  public void beforeChanges() {
+    if (failure != null) {
+      throw new UncheckedIOException("Write-ahead log failed", failure);
+    }
+    if (closed) {
+      throw new IllegalStateException("Write-ahead log is closed");
+    }
+  }
+
+  /**
+   * Wait until the records of the current thread are forced to the disk,
+   * only with the {@link FsyncPolicy#ALWAYS} policy. The changes are already visible in the storage,
+   * so a failure to write them is not reported to the caller, the following changes are rejected.
+   */
+  @Override
+  public void changesApplied() {
+    Entry entry = pending.get();
+    if (entry == null) {
+      return;
+    }
+    pending.remove();
+    entry.waiter = Thread.currentThread();
+    while (!entry.done) {
+      LockSupport.park(this);
+    }
+  }
+
+  /**
+   * Write a snapshot of the storage and delete the log it replaces.
+   * The storage is read page by page, so requests are not blocked for the whole snapshot.
+   *
+   * @throws IOException
+   */
+  public void snapshot() throws IOException {
+    long number = rotate();
+    Path temporary = directory.resolve("snapshot-" + number + ".tmp");
+    long count = 0;
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      SessionCursor after = null;
+      do {
+        SessionPage page = storage.retrieveSessions(SessionQuery.ALL, after, SNAPSHOT_PAGE_SIZE);
+        for (ChargeSession session : page.getSessions()) {
+          buffer = LogRecords.write(buffer, LogRecords.SUBMITTED, session);
+          if (session.getStoppedAt() != null) {
+            buffer = LogRecords.write(buffer, LogRecords.STOPPED, session);
+          }
+        }
+        count += page.getSessions().size();
+        flush(channel, buffer);
+        after = page.getNextCursor();
+      } while (after != null);
+      channel.force(true);
+    }
+    Files.move(temporary, directory.resolve("snapshot-" + number + ".bin"), StandardCopyOption.ATOMIC_MOVE);
+    for (Path path : list(SEGMENT).headMap(number).values()) {
+      Files.delete(path);
+    }
+    for (Path path : list(SNAPSHOT).headMap(number).values()) {
+      Files.delete(path);
+    }
+    LOG.info("Snapshot {} of {} charging sessions is written", number, count);
+  }
+
+  @Scheduled(fixedDelayString = "${carstore.persistence.snapshot-interval:PT10M}",
+          initialDelayString = "${carstore.persistence.snapshot-interval:PT10M}")
+  public void scheduledSnapshot() {
+    try {
+      snapshot();
+    } catch (IOException e) {
+      LOG.error("Failed to write a snapshot of charging sessions", e);
+    }
+  }
+
+  /**
+   * Write the pending records and stop the writer.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!writer.isAlive()) {
+      return;
+    }
+    closed = true;
+    put(new Entry(Entry.CLOSE, null));
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Hand the entry over to the writer. An entry appended while the log is being closed is dropped
+   * instead of waiting for a writer which may already be gone.
+   */
+  private void append(Entry entry) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (queue.offer(entry, APPEND_RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+          break;
+        }
+      } catch (InterruptedException e) {
+        // the change is already applied, the record must not be lost
+        interrupted = true;
+        continue;
+      }
+      if (closed) {
+        LOG.warn("Write-ahead log is closed, a record of type {} is dropped", entry.type);
+        entry.complete(new IOException("Write-ahead log is closed"));
+        break;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (fsyncPolicy == FsyncPolicy.ALWAYS && entry.session != null && !entry.done) {
+      pending.set(entry);
+    }
+  }
+
+  private void put(Entry entry) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(entry);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Start a new segment, the following changes are written to it.
+   *
+   * @return number of the new segment
+   */
+  private long rotate() throws IOException {
+    Entry entry = new Entry(Entry.ROTATE, null);
+    append(entry);
+    try {
+      return entry.rotated.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while the log is rotated", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to rotate the log", e.getCause());
+    }
+  }
+
+  /**
+   * Body of the writer thread, writes everything accumulated while the previous batch was written.
+   */
+  private void writeRecords() {
+    List<Entry> batch = new ArrayList<>();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    long forcedAt = System.nanoTime();
+    boolean unforced = false;
+    boolean closed = false;
+    while (!closed) {
+      try {
+        Entry first = fsyncPolicy == FsyncPolicy.INTERVAL && unforced
+                ? queue.poll(fsyncIntervalNanos, TimeUnit.NANOSECONDS) : queue.take();
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch);
+        }
+      } catch (InterruptedException e) {
+        closed = true;
+      }
+      try {
+        for (Entry entry : batch) {
+          if (entry.session != null) {
+            buffer = LogRecords.write(buffer, entry.type, entry.session);
+          } else {
+            flush(segment, buffer);
+            if (entry.type == Entry.ROTATE) {
+              rotateSegment(entry);
+            } else {
+              closed = true;
+            }
+          }
+        }
+        unforced |= buffer.position() > 0;
+        flush(segment, buffer);
+        if (unforced && (fsyncPolicy == FsyncPolicy.ALWAYS || closed
+                || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - forcedAt >= fsyncIntervalNanos)) {
+          segment.force(false);
+          forcedAt = System.nanoTime();
+          unforced = false;
+        }
+      } catch (IOException e) {
+        if (failure == null) {
+          LOG.error("Failed to write the write-ahead log to {}", directory, e);
+        }
+        failure = e;
+        buffer.clear();
+      }
+      for (Entry entry : batch) {
+        entry.complete(failure);
+      }
+      batch.clear();
+    }
+    try {
+      segment.close();
+    } catch (IOException e) {
+      LOG.error("Failed to close the write-ahead log", e);
+    }
+  }
+
+  private void rotateSegment(Entry entry) throws IOException {
+    try {
+      segment.force(false);
+      segment.close();
+      segment = openSegment(++segmentNumber);
+      entry.rotated.complete(segmentNumber);
+    } catch (IOException e) {
+      entry.rotated.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private FileChannel openSegment(long number) throws IOException {
+    return FileChannel.open(directory.resolve("wal-" + number + ".log"), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static void replay(Path path, Map<UUID, ChargeSession> sessions) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      ByteBuffer body;
+      while ((body = LogRecords.read(in)) != null) {
+        LogRecords.apply(body, sessions);
+      }
+      if (in.hasRemaining()) {
+        LOG.warn("Skipped {} bytes of a torn record at the end of {}", in.remaining(), path);
+      }
+    }
+  }
+
+  private TreeMap<Long, Path> list(Pattern pattern) throws IOException {
+    TreeMap<Long, Path> files = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path path : stream) {
+        Matcher matcher = pattern.matcher(path.getFileName().toString());
+        if (matcher.matches()) {
+          files.put(Long.parseLong(matcher.group(1)), path);
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * A change waiting for the writer, or a command for the writer when there is no session.
+   */
+  private static final class Entry {
+
+    static final byte ROTATE = -1;
+
+    static final byte CLOSE = -2;
+
+    final byte type;
+
+    final ChargeSession session;
+
+    final CompletableFuture<Long> rotated;
+
+    volatile boolean done;
+
+    volatile Thread waiter;
+
+    Entry(byte type, ChargeSession session) {
+      this.type = type;
+      this.session = session;
+      this.rotated = type == ROTATE ? new CompletableFuture<>() : null;
+    }
+
+    void complete(IOException failure) {
+      if (rotated != null && failure != null) {
+        rotated.completeExceptionally(failure);
+      }
+      done = true;
+      Thread thread = waiter;
+      if (thread != null) {
+        LockSupport.unpark(thread);
+      }
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.assignment.carstore.components.reaper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel of deadlines keyed by an id.
+ *
+ * Scheduling and cancelling a deadline is O(1) and may be done by any thread, the changes are
+ * queued and applied by the single thread advancing the wheel. Advancing visits one bucket
+ * per elapsed tick, a deadline more than a whole turn of the wheel away waits for the rounds
+ * to pass in its bucket.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class HashedTimerWheel<K> {
+
+  private final long tickMillis;
+
+  private final Timeout<K>[] buckets;
+
+  private final int mask;
+
+  private final Map<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+
+  private final Queue<Timeout<K>> scheduled = new ConcurrentLinkedQueue<>();
+
+  private final Queue<Timeout<K>> cancelled = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Last tick whose bucket has been visited, owned by the advancing thread.
+   */
+  private long lastTick;
+
+  @SuppressWarnings("unchecked")
+  HashedTimerWheel(Duration tick, int size, long startMillis) {
+    if (tick.toMillis() < 1) {
+      throw new IllegalArgumentException("Tick must be at least 1 ms: " + tick);
+    }
+    if (size < 1 || size > 1 << 30) {
+      throw new IllegalArgumentException("Wheel size is out of range: " + size);
+    }
+    int length = 1;
+    while (length < size) {
+      length <<= 1;
+    }
+    this.tickMillis = tick.toMillis();
+    this.buckets = new Timeout[length];
+    this.mask = buckets.length - 1;
+    this.lastTick = Math.floorDiv(startMillis, tickMillis);
+  }
+
+  /**
+   * Schedule the deadline of the key, replacing its previous deadline.
+   *
+   * @param key
+   * @param deadlineMillis time in milliseconds since the epoch
+   */
+  void schedule(K key, long deadlineMillis) {
+    Timeout<K> timeout = new Timeout<>(key, Math.floorDiv(deadlineMillis, tickMillis));
+    Timeout<K> previous = timeouts.put(key, timeout);
+    if (previous != null) {
+      cancel(previous);
+    }
+    scheduled.add(timeout);
+  }
+
+  /**
+   * Cancel the deadline of the key, nothing happens if there is none.
+   *
+   * @param key
+   */
+  void cancel(K key) {
+    Timeout<K> timeout = timeouts.remove(key);
+    if (timeout != null) {
+      cancel(timeout);
+    }
+  }
+
+  /**
+   * Number of the pending deadlines.
+   */
+  int size() {
+    return timeouts.size();
+  }
+
+  /**
+   * Visit the buckets of the ticks elapsed until now and pass the keys of the expired deadlines
+   * to the consumer. Must be called by a single thread at a time.
+   *
+   * @param nowMillis time in milliseconds since the epoch
+   * @param expired consumer of the expired keys
+   */
+  void advance(long nowMillis, Consumer<K> expired) {
+    applyCancelled();
+    applyScheduled();
+    long nowTick = Math.floorDiv(nowMillis, tickMillis);
+    while (lastTick < nowTick) {
+      lastTick++;
+      expire(lastTick, expired);
+    }
+  }
+
+  private void cancel(Timeout<K> timeout) {
+    timeout.cancelled = true;
+    cancelled.add(timeout);
+  }
+
+  private void applyCancelled() {
+    Timeout<K> timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.bucket >= 0) {
+        unlink(timeout);
+      }
+    }
+  }
+
+  private void applyScheduled() {
+    Timeout<K> timeout;
+    while ((timeout = scheduled.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      // a deadline already passed expires on the next tick
+      long tick = Math.max(timeout.tick, lastTick + 1);
+      timeout.rounds = (tick - lastTick - 1) / buckets.length;
+      link(timeout, (int) (tick & mask));
+    }
+  }
+
+  private void expire(long tick, Consumer<K> expired) {
+    Timeout<K> timeout = buckets[(int) (tick & mask)];
+    while (timeout != null) {
+      Timeout<K> next = timeout.next;
+      if (timeout.rounds > 0) {
+        timeout.rounds--;
+      } else {
+        unlink(timeout);
+        // the key may have been cancelled or rescheduled after the queues were drained
+        if (timeouts.remove(timeout.key, timeout)) {
+          expired.accept(timeout.key);
+        }
+      }
+      timeout = next;
+    }
+  }
+
+  private void link(Timeout<K> timeout, int bucket) {
+    timeout.bucket = bucket;
+    timeout.next = buckets[bucket];
+    if (timeout.next != null) {
+      timeout.next.prev = timeout;
+    }
+    buckets[bucket] = timeout;
+  }
+
+  private void unlink(Timeout<K> timeout) {
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      buckets[timeout.bucket] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = null;
+    timeout.next = null;
+    timeout.bucket = -1;
+  }
+
+  /**
+   * Deadline of a key, the links are owned by the advancing thread.
+   */
+  private static final class Timeout<K> {
+
+    private final K key;
+
+    private final long tick;
+
+    private volatile boolean cancelled;
+
+    private long rounds;
+
+    private int bucket = -1;
+
+    private Timeout<K> prev;
+
+    private Timeout<K> next;
+
+    private Timeout(K key, long tick) {
+      this.key = key;
+      this.tick = tick;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.assignment.carstore.components.reaper;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.cluster.SessionCluster;
+import com.assignment.carstore.components.persistence.WriteAheadLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration of the reaper of stale charging sessions.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReaperProperties.class)
+@ConditionalOnProperty(name = "carstore.reaper.enabled", havingValue = "true")
+public class ReaperConfiguration {
+
+  /**
+   * The sessions recovered from the write-ahead log are scheduled before the changes are listened to,
+   * only the sessions of this node are reaped in the clustered mode.
+   */
+  @Bean
+  public StaleSessionReaper staleSessionReaper(SessionDataStorage sessionDataStorage, ReaperProperties properties,
+                                               ObjectProvider<WriteAheadLog> writeAheadLog,
+                                               ObjectProvider<SessionCluster> sessionCluster,
+                                               MeterRegistry meterRegistry, SessionClock sessionClock) {
+    writeAheadLog.getIfAvailable();
+    SessionCluster cluster = sessionCluster.getIfAvailable();
+    SessionDataStorage localStorage = cluster == null ? sessionDataStorage : cluster.getLocalStorage();
+    StaleSessionReaper reaper = new StaleSessionReaper(sessionDataStorage, properties, meterRegistry, sessionClock);
+    reaper.restoreSessions(localStorage.retrieveAllSessions());
+    sessionDataStorage.addSessionChangeListener(reaper);
+    return reaper;
+  }
+}
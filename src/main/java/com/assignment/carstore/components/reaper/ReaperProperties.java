@@ -0,0 +1,92 @@
+package com.assignment.carstore.components.reaper;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Policy for charging sessions which are never stopped, bound to the {@code carstore.reaper} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.reaper")
+public class ReaperProperties {
+
+  /**
+   * Enables the stale session reaper.
+   */
+  private boolean enabled;
+
+  /**
+   * Sessions in progress longer than this are stale.
+   */
+  private Duration maxDuration = Duration.ofHours(12);
+
+  /**
+   * Whether stale sessions are stopped or flagged.
+   */
+  private StalePolicy policy = StalePolicy.STOP;
+
+  /**
+   * Resolution of the timer wheel, stale sessions are found at most one tick late.
+   */
+  private Duration tick = Duration.ofSeconds(1);
+
+  /**
+   * Number of buckets of the timer wheel, rounded up to a power of two.
+   */
+  private int wheelSize = 4096;
+
+  /**
+   * Maximum number of stale sessions stopped while the storage is locked once.
+   */
+  private int batchSize = 1000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getMaxDuration() {
+    return maxDuration;
+  }
+
+  public void setMaxDuration(Duration maxDuration) {
+    this.maxDuration = maxDuration;
+  }
+
+  public StalePolicy getPolicy() {
+    return policy;
+  }
+
+  public void setPolicy(StalePolicy policy) {
+    this.policy = policy;
+  }
+
+  public Duration getTick() {
+    return tick;
+  }
+
+  public void setTick(Duration tick) {
+    this.tick = tick;
+  }
+
+  public int getWheelSize() {
+    return wheelSize;
+  }
+
+  public void setWheelSize(int wheelSize) {
+    this.wheelSize = wheelSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+}
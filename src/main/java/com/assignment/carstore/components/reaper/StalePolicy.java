@@ -0,0 +1,19 @@
+package com.assignment.carstore.components.reaper;
+
+/**
+ * What happens to a charging session which has been in progress longer than the maximum duration.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public enum StalePolicy {
+
+  /**
+   * The session is stopped as if the station had stopped it.
+   */
+  STOP,
+
+  /**
+   * The session stays in progress and is reported as stale.
+   */
+  FLAG
+}
@@ -0,0 +1,144 @@
+package com.assignment.carstore.components.reaper;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StatusEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background task which finds the charging sessions in progress longer than the maximum duration,
+ * e.g. of stations which lost connectivity and never stopped them.
+ *
+ * The deadline of every submitted session is put into a timer wheel and cancelled when the session
+ * is stopped, so a run only visits the sessions which became stale since the previous one. Stale
+ * sessions are stopped in batches through the storage like the stops of the stations, or flagged,
+ * on the scheduler thread rather than on the request threads.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class StaleSessionReaper implements SessionChangeListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StaleSessionReaper.class);
+
+  private final SessionDataStorage sessionDataStorage;
+
+  private final ReaperProperties properties;
+
+  private final SessionClock clock;
+
+  private final HashedTimerWheel<UUID> wheel;
+
+  private final Set<UUID> flagged = ConcurrentHashMap.newKeySet();
+
+  private final Counter staleCounter;
+
+  public StaleSessionReaper(SessionDataStorage sessionDataStorage, ReaperProperties properties,
+                            MeterRegistry meterRegistry, SessionClock clock) {
+    this.sessionDataStorage = sessionDataStorage;
+    this.properties = properties;
+    this.clock = clock;
+    this.wheel = new HashedTimerWheel<>(properties.getTick(), properties.getWheelSize(), clock.millis());
+    this.staleCounter = Counter.builder("carstore.sessions.stale")
+            .description("Number of charging sessions in progress longer than the maximum duration, stopped or flagged")
+            .tag("policy", properties.getPolicy().name().toLowerCase())
+            .register(meterRegistry);
+    Gauge.builder("carstore.sessions.stale.flagged", flagged, Set::size)
+            .description("Number of stale charging sessions flagged and still in progress")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Schedule the deadlines of the sessions loaded into the storage before the changes are listened to.
+   *
+   * @param sessions
+   */
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    for (ChargeSession session : sessions) {
+      if (session.getStatus() == StatusEnum.IN_PROGRESS) {
+        sessionSubmitted(session);
+      }
+    }
+  }
+
+  @Override
+  public void sessionSubmitted(ChargeSession session) {
+    wheel.schedule(session.getId(), deadline(session.getStartedAtMillis()));
+  }
+
+  @Override
+  public void sessionStopped(ChargeSession session) {
+    wheel.cancel(session.getId());
+    flagged.remove(session.getId());
+  }
+
+  @Override
+  public void sessionEvicted(ChargeSession session) {
+  }
+
+  /**
+   * Stop or flag the sessions which became stale since the previous run.
+   *
+   * @return number of sessions stopped, or flagged with the {@link StalePolicy#FLAG} policy
+   */
+  @Scheduled(fixedDelayString = "${carstore.reaper.tick:PT1S}")
+  public int reap() {
+    List<UUID> stale = new ArrayList<>();
+    wheel.advance(clock.millis(), stale::add);
+    if (stale.isEmpty()) {
+      return 0;
+    }
+    if (properties.getPolicy() == StalePolicy.FLAG) {
+      flagged.addAll(stale);
+      staleCounter.increment(stale.size());
+      LOG.warn("Flagged {} charging sessions in progress longer than {}", stale.size(), properties.getMaxDuration());
+      return stale.size();
+    }
+    int stopped = 0;
+    for (int from = 0; from < stale.size(); from += properties.getBatchSize()) {
+      List<UUID> batch = stale.subList(from, Math.min(from + properties.getBatchSize(), stale.size()));
+      for (BatchItemResult result : sessionDataStorage.stopSessions(batch)) {
+        // a session stopped or evicted in the meantime is not stale anymore
+        if (result.getSession() != null) {
+          stopped++;
+        }
+      }
+    }
+    staleCounter.increment(stopped);
+    LOG.info("Stopped {} charging sessions in progress longer than {}", stopped, properties.getMaxDuration());
+    return stopped;
+  }
+
+  /**
+   * Ids of the stale sessions flagged and still in progress.
+   */
+  public Set<UUID> getFlaggedSessions() {
+    return Collections.unmodifiableSet(flagged);
+  }
+
+  /**
+   * Number of the sessions in progress whose deadlines are scheduled.
+   */
+  public int getScheduledCount() {
+    return wheel.size();
+  }
+
+  private long deadline(long startedAtMillis) {
+    return startedAtMillis + properties.getMaxDuration().toMillis();
+  }
+}
@@ -0,0 +1,53 @@
+package com.assignment.carstore.components.retention;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Archive which appends evicted charging sessions to a file, one JSON document per line.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class FileSessionArchive implements SessionArchive {
+
+  private final Path file;
+
+  private final ObjectWriter writer;
+
+  /**
+   * Serializes the appends, a lock rather than a monitor so a virtual thread writing the file
+   * does not pin its carrier thread.
+   */
+  private final Lock lock = new ReentrantLock();
+
+  public FileSessionArchive(Path file, ObjectMapper objectMapper) {
+    this.file = file;
+    this.writer = objectMapper.writerFor(ChargeSession.class);
+  }
+
+  @Override
+  public void archive(Collection<ChargeSession> sessions) throws IOException {
+    lock.lock();
+    try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE))) {
+      for (ChargeSession session : sessions) {
+        out.write(writer.writeValueAsString(session));
+        out.write('\n');
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
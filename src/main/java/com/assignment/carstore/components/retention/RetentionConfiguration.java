@@ -0,0 +1,40 @@
+package com.assignment.carstore.components.retention;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Paths;
+
+/**
+ * Configuration of the retention policy for finished charging sessions.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RetentionProperties.class)
+@ConditionalOnProperty(name = "carstore.retention.enabled", havingValue = "true")
+public class RetentionConfiguration {
+
+  @Bean
+  @ConditionalOnProperty(name = "carstore.retention.archive-file")
+  public SessionArchive fileSessionArchive(RetentionProperties properties, ObjectMapper objectMapper) {
+    return new FileSessionArchive(Paths.get(properties.getArchiveFile()), objectMapper);
+  }
+
+  @Bean
+  public SessionEvictor sessionEvictor(SessionDataStorage sessionDataStorage, RetentionProperties properties,
+                                       ObjectProvider<SessionArchive> archive, MeterRegistry meterRegistry,
+                                       SessionClock sessionClock) {
+    return new SessionEvictor(sessionDataStorage, properties, archive.getIfAvailable(), meterRegistry,
+            sessionClock);
+  }
+}
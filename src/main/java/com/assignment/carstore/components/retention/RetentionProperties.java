@@ -0,0 +1,79 @@
+package com.assignment.carstore.components.retention;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Retention policy for finished charging sessions, bound to the {@code carstore.retention} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.retention")
+public class RetentionProperties {
+
+  /**
+   * Enables the background evictor.
+   */
+  private boolean enabled;
+
+  /**
+   * Finished sessions stopped earlier than this are evicted, no age limit if not set.
+   */
+  private Duration maxAge;
+
+  /**
+   * Maximum number of retained finished sessions, no count limit if not set.
+   */
+  private Long maxCount;
+
+  /**
+   * Maximum number of sessions evicted while the storage is locked once.
+   */
+  private int batchSize = 1000;
+
+  /**
+   * File the evicted sessions are appended to, evicted sessions are dropped if not set.
+   */
+  private String archiveFile;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getMaxAge() {
+    return maxAge;
+  }
+
+  public void setMaxAge(Duration maxAge) {
+    this.maxAge = maxAge;
+  }
+
+  public Long getMaxCount() {
+    return maxCount;
+  }
+
+  public void setMaxCount(Long maxCount) {
+    this.maxCount = maxCount;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public String getArchiveFile() {
+    return archiveFile;
+  }
+
+  public void setArchiveFile(String archiveFile) {
+    this.archiveFile = archiveFile;
+  }
+}
@@ -0,0 +1,19 @@
+package com.assignment.carstore.components.retention;
+
+import com.assignment.carstore.domain.ChargeSession;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Cold storage for charging sessions evicted from the data storage.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public interface SessionArchive {
+
+  /**
+   * Archive evicted charging sessions.
+   */
+  void archive(Collection<ChargeSession> sessions) throws IOException;
+}
@@ -0,0 +1,88 @@
+package com.assignment.carstore.components.retention;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.ChargeSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Background task which evicts finished charging sessions according to the retention policy.
+ * The storage is locked for one batch at a time, so submitting and stopping sessions
+ * is never delayed by more than a single batch.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SessionEvictor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SessionEvictor.class);
+
+  private final SessionDataStorage sessionDataStorage;
+
+  private final RetentionProperties properties;
+
+  private final SessionArchive archive;
+
+  private final Counter evictedCounter;
+
+  private final SessionClock clock;
+
+  public SessionEvictor(SessionDataStorage sessionDataStorage, RetentionProperties properties,
+                        SessionArchive archive, MeterRegistry meterRegistry) {
+    this(sessionDataStorage, properties, archive, meterRegistry, SessionClock.SYSTEM);
+  }
+
+  public SessionEvictor(SessionDataStorage sessionDataStorage, RetentionProperties properties,
+                        SessionArchive archive, MeterRegistry meterRegistry, SessionClock clock) {
+    this.sessionDataStorage = sessionDataStorage;
+    this.clock = clock;
+    this.properties = properties;
+    this.archive = archive;
+    this.evictedCounter = Counter.builder("carstore.sessions.evicted")
+            .description("Number of finished charging sessions evicted from the storage")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Evict all finished sessions exceeding the retention policy.
+   *
+   * @return number of evicted sessions
+   */
+  @Scheduled(fixedDelayString = "${carstore.retention.interval:PT10S}")
+  public long evict() {
+    long stoppedBeforeMillis = properties.getMaxAge() == null
+            ? Long.MIN_VALUE : clock.millis() - properties.getMaxAge().toMillis();
+    long maxRetained = properties.getMaxCount() == null ? Long.MAX_VALUE : properties.getMaxCount();
+    long total = 0;
+    Collection<ChargeSession> evicted;
+    do {
+      evicted = sessionDataStorage.evictFinishedSessions(stoppedBeforeMillis, maxRetained, properties.getBatchSize());
+      archive(evicted);
+      evictedCounter.increment(evicted.size());
+      total += evicted.size();
+    } while (evicted.size() == properties.getBatchSize());
+    return total;
+  }
+
+  /**
+   * Pass evicted sessions to the archive, a failing archive does not stop the eviction.
+   *
+   * @param evicted
+   */
+  private void archive(Collection<ChargeSession> evicted) {
+    if (archive == null || evicted.isEmpty()) {
+      return;
+    }
+    try {
+      archive.archive(evicted);
+    } catch (IOException e) {
+      LOG.error("Failed to archive {} evicted charging sessions", evicted.size(), e);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.assignment.carstore.components.stations;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.window.SlidingWindowCounter;
+import com.assignment.carstore.components.window.SummaryWindow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates of the charging sessions of a single station.
+ *
+ * Started sessions are counted by a {@link SlidingWindowCounter} sized for the last minute and
+ * the last hour, so the last minute is exact to the second and the last hour to the minute.
+ * The counters are lock-free, changes of a station are counted without a monitor under the storage lock.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class StationCounters {
+
+  /**
+   * Window of the last hour counted by hours, so the counter keeps no ring of seconds for an hour.
+   */
+  static final SummaryWindow LAST_HOUR = SummaryWindow.ofHours(1);
+
+  private final AtomicLong active = new AtomicLong();
+
+  private final AtomicLong finished = new AtomicLong();
+
+  private final AtomicLong durationMillis = new AtomicLong();
+
+  private final SlidingWindowCounter started;
+
+  StationCounters(SessionClock clock) {
+    this.started = new SlidingWindowCounter(clock, SummaryWindow.ONE_MINUTE, LAST_HOUR);
+  }
+
+  /**
+   * Count a session started at the given instant, still in progress if it is active.
+   */
+  void recordStarted(long startedAtMillis, boolean active) {
+    if (active) {
+      this.active.incrementAndGet();
+    }
+    started.recordStarted(startedAtMillis);
+  }
+
+  /**
+   * Count a finished session lasted for the given time, no longer in progress if it was active.
+   */
+  void recordFinished(long millis, boolean wasActive) {
+    if (wasActive) {
+      active.decrementAndGet();
+    }
+    durationMillis.addAndGet(millis);
+    finished.incrementAndGet();
+  }
+
+  long getActive() {
+    return active.get();
+  }
+
+  long getFinished() {
+    return finished.get();
+  }
+
+  long getDurationMillis() {
+    return durationMillis.get();
+  }
+
+  long countLastMinute(long nowMillis) {
+    return started.summary(SummaryWindow.ONE_MINUTE, nowMillis).getStartedCount();
+  }
+
+  long countLastHour(long nowMillis) {
+    return started.summary(LAST_HOUR, nowMillis).getStartedCount();
+  }
+
+  /**
+   * The station has no session in progress and none started during the last hour.
+   */
+  boolean isIdle(long nowMillis) {
+    return active.get() == 0 && countLastHour(nowMillis) == 0;
+  }
+}
@@ -0,0 +1,168 @@
+package com.assignment.carstore.components.stations;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StationStats;
+import com.assignment.carstore.domain.StatusEnum;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Per-station statistics of charging sessions, maintained incrementally from the changes
+ * of the storage.
+ *
+ * Statistics of a station are read from its counters, so the cost does not depend on the number
+ * of stored sessions. The busiest stations are selected from the counters of all stations.
+ * Evicted sessions stay counted, the statistics cover every session seen since the start.
+ *
+ * When more than the maximum number of stations are counted, the idle stations, without a session
+ * in progress and without one started during the last hour, are evicted, and a station seen again is
+ * counted from then on. A station is changed and evicted atomically by the map, so no change is lost.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class StationStatistics implements SessionChangeListener {
+
+  /**
+   * The most sessions started during the last hour first, then the most active ones.
+   */
+  private static final Comparator<StationStats> BUSIEST = Comparator
+          .comparingLong(StationStats::getLastHourCount)
+          .thenComparingLong(StationStats::getActiveCount)
+          .thenComparing(StationStats::getStationId, Comparator.reverseOrder());
+
+  private final Map<String, StationCounters> stations = new ConcurrentHashMap<>();
+
+  private final int maxStations;
+
+  private final SessionClock clock;
+
+  /**
+   * Number of stations above which the idle ones are evicted, doubles the stations left after
+   * an eviction, so a map full of busy stations is not scanned on every new one.
+   */
+  private volatile int evictAbove;
+
+  /**
+   * @param maxStations number of stations above which the idle ones are evicted
+   * @param clock clock of the evictions
+   */
+  public StationStatistics(int maxStations, SessionClock clock) {
+    this.maxStations = maxStations;
+    this.clock = clock;
+    this.evictAbove = maxStations;
+  }
+
+  /**
+   * Count the sessions already stored, e.g. recovered from the write-ahead log.
+   *
+   * @param sessions
+   */
+  public void restoreSessions(Collection<ChargeSession> sessions) {
+    for (ChargeSession session : sessions) {
+      boolean active = session.getStatus() == StatusEnum.IN_PROGRESS;
+      change(session.getStationId(), counters -> {
+        counters.recordStarted(session.getStartedAtMillis(), active);
+        if (!active) {
+          counters.recordFinished(durationMillis(session), false);
+        }
+      });
+    }
+  }
+
+  @Override
+  public void sessionSubmitted(ChargeSession session) {
+    change(session.getStationId(), counters -> counters.recordStarted(session.getStartedAtMillis(), true));
+  }
+
+  @Override
+  public void sessionStopped(ChargeSession session) {
+    change(session.getStationId(), counters -> counters.recordFinished(durationMillis(session), true));
+  }
+
+  @Override
+  public void sessionEvicted(ChargeSession session) {
+  }
+
+  /**
+   * Statistics of the station, a station without sessions has zero counts.
+   *
+   * @param stationId
+   * @param nowMillis milliseconds since the epoch
+   * @return
+   */
+  public StationStats getStationStats(String stationId, long nowMillis) {
+    StationCounters counters = stations.get(stationId);
+    return counters == null ? new StationStats(stationId, 0, 0, 0, 0, null)
+            : toStats(stationId, counters, nowMillis);
+  }
+
+  /**
+   * Statistics of the stations with the most sessions started during the last hour, busiest first.
+   *
+   * @param limit maximum number of stations
+   * @param nowMillis milliseconds since the epoch
+   * @return
+   */
+  public List<StationStats> getBusiestStations(int limit, long nowMillis) {
+    PriorityQueue<StationStats> busiest = new PriorityQueue<>(limit + 1, BUSIEST);
+    for (Map.Entry<String, StationCounters> station : stations.entrySet()) {
+      busiest.add(toStats(station.getKey(), station.getValue(), nowMillis));
+      if (busiest.size() > limit) {
+        busiest.poll();
+      }
+    }
+    List<StationStats> result = new ArrayList<>(busiest);
+    result.sort(Collections.reverseOrder(BUSIEST));
+    return result;
+  }
+
+  /**
+   * Number of the counted stations.
+   */
+  public int getStationCount() {
+    return stations.size();
+  }
+
+  /**
+   * Apply the change to the counters of the station atomically with an eviction of the station.
+   */
+  private void change(String stationId, Consumer<StationCounters> change) {
+    stations.compute(stationId, (id, counters) -> {
+      StationCounters changed = counters == null ? new StationCounters(clock) : counters;
+      change.accept(changed);
+      return changed;
+    });
+    if (stations.size() > evictAbove) {
+      evictIdleStations();
+    }
+  }
+
+  private void evictIdleStations() {
+    long nowMillis = clock.millis();
+    for (String stationId : stations.keySet()) {
+      stations.computeIfPresent(stationId, (id, counters) -> counters.isIdle(nowMillis) ? null : counters);
+    }
+    evictAbove = Math.max(maxStations, stations.size() * 2);
+  }
+
+  private static StationStats toStats(String stationId, StationCounters counters, long nowMillis) {
+    long finished = counters.getFinished();
+    Double averageDuration = finished == 0 ? null : counters.getDurationMillis() / 1000.0 / finished;
+    return new StationStats(stationId, counters.getActive(), counters.countLastMinute(nowMillis),
+            counters.countLastHour(nowMillis), finished, averageDuration);
+  }
+
+  private static long durationMillis(ChargeSession session) {
+    return session.getStoppedAtMillis() - session.getStartedAtMillis();
+  }
+}
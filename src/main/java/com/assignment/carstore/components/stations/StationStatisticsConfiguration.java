@@ -0,0 +1,42 @@
+package com.assignment.carstore.components.stations;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.cluster.SessionCluster;
+import com.assignment.carstore.components.persistence.WriteAheadLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the per-station statistics.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(StationStatisticsProperties.class)
+@ConditionalOnProperty(name = "carstore.station-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class StationStatisticsConfiguration {
+
+  /**
+   * The sessions recovered from the write-ahead log are counted before the changes are listened to,
+   * the context has not started serving requests yet. Only the sessions of this node are counted
+   * in the clustered mode.
+   */
+  @Bean
+  public StationStatistics stationStatistics(SessionDataStorage sessionDataStorage,
+                                             ObjectProvider<WriteAheadLog> writeAheadLog,
+                                             ObjectProvider<SessionCluster> sessionCluster,
+                                             StationStatisticsProperties properties,
+                                             SessionClock sessionClock) {
+    writeAheadLog.getIfAvailable();
+    SessionCluster cluster = sessionCluster.getIfAvailable();
+    SessionDataStorage localStorage = cluster == null ? sessionDataStorage : cluster.getLocalStorage();
+    StationStatistics statistics = new StationStatistics(properties.getMaxStations(), sessionClock);
+    statistics.restoreSessions(localStorage.retrieveAllSessions());
+    sessionDataStorage.addSessionChangeListener(statistics);
+    return statistics;
+  }
+}
@@ -0,0 +1,51 @@
+package com.assignment.carstore.components.stations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the per-station statistics, bound to the {@code carstore.station-stats} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.station-stats")
+public class StationStatisticsProperties {
+
+  /**
+   * Enables the per-station statistics.
+   */
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of the busiest stations returned by a request.
+   */
+  private int maxBusiest = 100;
+
+  /**
+   * Number of counted stations above which the idle ones are evicted.
+   */
+  private int maxStations = 100_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxBusiest() {
+    return maxBusiest;
+  }
+
+  public void setMaxBusiest(int maxBusiest) {
+    this.maxBusiest = maxBusiest;
+  }
+
+  public int getMaxStations() {
+    return maxStations;
+  }
+
+  public void setMaxStations(int maxStations) {
+    this.maxStations = maxStations;
+  }
+}
@@ -0,0 +1,136 @@
+package com.assignment.carstore.components.summary;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.CounterSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Summary of charging sessions kept as the serialized response body.
+ *
+ * The summary is recomputed by the first request of a tick, concurrent requests meanwhile get the
+ * previous body, so readers never wait and the storage is asked at most once per tick.
+ * Every summary window is cached on its own.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SummaryCache {
+
+  private final SessionDataStorage sessionDataStorage;
+
+  private final ObjectWriter writer;
+
+  private final long tickNanos;
+
+  private final Slot lastMinute = new Slot(null);
+
+  /**
+   * Summaries of the other windows, there are as many as the supported windows at most.
+   */
+  private final Map<SummaryWindow, Slot> windows = new ConcurrentHashMap<>();
+
+  public SummaryCache(SessionDataStorage sessionDataStorage, ObjectMapper objectMapper, Duration tick) {
+    this.sessionDataStorage = sessionDataStorage;
+    this.writer = objectMapper.writerFor(CounterSummary.class);
+    this.tickNanos = tick.toNanos();
+  }
+
+  /**
+   * The summary of the last minute computed during the current tick, or during the previous one
+   * while another thread recomputes it.
+   */
+  public Entry get() {
+    return lastMinute.get();
+  }
+
+  /**
+   * The summary of the window, the last minute if it is null.
+   */
+  public Entry get(SummaryWindow window) {
+    return window == null ? lastMinute.get() : windows.computeIfAbsent(window, Slot::new).get();
+  }
+
+  private Entry compute(SummaryWindow window, long now) {
+    CounterSummary summary = window == null ? sessionDataStorage.retrieveSummarySubmittedSessions()
+            : sessionDataStorage.retrieveSummarySubmittedSessions(window);
+    try {
+      return new Entry(writer.writeValueAsBytes(summary), String.format("\"%d-%d-%d\"",
+              summary.getTotalCount(), summary.getStartedCount(), summary.getStoppedCount()), now);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Cached summary of a single window.
+   */
+  private final class Slot {
+
+    private final SummaryWindow window;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Entry current;
+
+    private Slot(SummaryWindow window) {
+      this.window = window;
+    }
+
+    Entry get() {
+      Entry entry = current;
+      long now = System.nanoTime();
+      if (entry != null && now - entry.computedAt < tickNanos) {
+        return entry;
+      }
+      if (refreshing.compareAndSet(false, true)) {
+        try {
+          entry = compute(window, now);
+          current = entry;
+        } finally {
+          refreshing.set(false);
+        }
+      } else if (entry == null) {
+        // nothing to serve yet, the first requests compute it on their own
+        entry = compute(window, now);
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Serialized summary with its entity tag, the tag only changes with the counters.
+   */
+  public static final class Entry {
+
+    private final byte[] body;
+
+    private final String etag;
+
+    private final long computedAt;
+
+    private Entry(byte[] body, String etag, long computedAt) {
+      this.body = body;
+      this.etag = etag;
+      this.computedAt = computedAt;
+    }
+
+    /**
+     * Serialized summary, shared by all requests and must not be modified.
+     */
+    public byte[] getBody() {
+      return body;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.assignment.carstore.components.summary;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the cached summary response.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@EnableConfigurationProperties(SummaryCacheProperties.class)
+@ConditionalOnProperty(name = "carstore.summary-cache.enabled", havingValue = "true")
+public class SummaryCacheConfiguration {
+
+  @Bean
+  public SummaryCache summaryCache(SessionDataStorage sessionDataStorage, SummaryCacheProperties properties,
+                                   ObjectMapper objectMapper) {
+    return new SummaryCache(sessionDataStorage, objectMapper, properties.getTick());
+  }
+}
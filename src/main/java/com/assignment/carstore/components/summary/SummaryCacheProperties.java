@@ -0,0 +1,40 @@
+package com.assignment.carstore.components.summary;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the cached summary response, bound to the {@code carstore.summary-cache} properties.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@ConfigurationProperties(prefix = "carstore.summary-cache")
+public class SummaryCacheProperties {
+
+  /**
+   * Enables the cached summary response.
+   */
+  private boolean enabled;
+
+  /**
+   * The summary is recomputed at most once per tick, so it may be that much out of date.
+   */
+  private Duration tick = Duration.ofMillis(100);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getTick() {
+    return tick;
+  }
+
+  public void setTick(Duration tick) {
+    this.tick = tick;
+  }
+}
@@ -0,0 +1,55 @@
+package com.assignment.carstore.components.web;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual threads of the running JDK. The application is built for Java 8,
+ * so the JDK 21 API is looked up reflectively.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public final class VirtualThreads {
+
+  private static final Method NEW_EXECUTOR = findNewExecutor();
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Whether the running JDK supports virtual threads.
+   */
+  public static boolean isSupported() {
+    return NEW_EXECUTOR != null;
+  }
+
+  /**
+   * Executor starting a new virtual thread for every task.
+   *
+   * @return
+   * @throws UnsupportedOperationException if the running JDK has no virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor() {
+    if (NEW_EXECUTOR == null) {
+      throw new UnsupportedOperationException("Virtual threads require JDK 21 or later, running "
+              + System.getProperty("java.version"));
+    }
+    try {
+      return (ExecutorService) NEW_EXECUTOR.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual thread executor cannot be created", e);
+    }
+  }
+
+  private static Method findNewExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      // a preview API throws until it is enabled
+      ((ExecutorService) method.invoke(null)).shutdown();
+      return method;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+}
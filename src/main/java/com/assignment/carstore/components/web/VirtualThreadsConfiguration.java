@@ -0,0 +1,48 @@
+package com.assignment.carstore.components.web;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration running the Tomcat request handling on virtual threads, enabled with the
+ * {@code virtual-threads} profile or the {@code carstore.virtual-threads.enabled} property.
+ *
+ * A request blocked on a lock or on the write-ahead log then parks a virtual thread instead of
+ * holding one of the pooled platform threads. The storage guards its state with
+ * {@link java.util.concurrent.locks.Lock} implementations rather than monitors, so a virtual thread
+ * waiting for it does not pin its carrier thread.
+ *
+ * On a JDK without virtual threads the platform thread pool is kept.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@ConditionalOnClass(ProtocolHandler.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "carstore.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+    return VirtualThreadsConfiguration::useVirtualThreads;
+  }
+
+  static void useVirtualThreads(ProtocolHandler protocolHandler) {
+    if (!VirtualThreads.isSupported()) {
+      LOGGER.warn("Virtual threads are not supported by JDK {}, requests are handled by the platform thread pool",
+              System.getProperty("java.version"));
+      return;
+    }
+    protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor());
+    LOGGER.info("Requests are handled on virtual threads");
+  }
+}
@@ -0,0 +1,275 @@
+package com.assignment.carstore.components.window;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.CounterSummary;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of started and stopped charging sessions for the last minute, or for a longer
+ * {@link SummaryWindow}.
+ *
+ * Changes are counted in rings of per-second, per-minute and per-hour buckets, a change is
+ * added to the bucket of every ring, so recording a change and reading a summary cost the same
+ * regardless of the number of stored sessions and the memory used is bounded whatever the traffic.
+ * A bucket is replaced, not cleared, when its second goes out of the window, so
+ * a late increment of a stale bucket is simply lost together with that bucket.
+ *
+ * Changes are counted at the instants read from the clock, in milliseconds since the epoch, so a window
+ * is not affected by the offset changes of the zone of the local date-times.
+ *
+ * A window is summed up from the whole buckets of its unit up to the current one. The oldest unit, which
+ * the window covers only partly, is rolled up from the next finer ring, seconds for windows of minutes and
+ * minutes for windows of hours, so the finer rings keep their buckets for as long as that needs.
+ * A change made during the window is always counted, while one made in the same second as its start,
+ * or the same minute for windows of hours, may be too.
+ *
+ * The rings are sized for the windows the counter is created for, by default every window
+ * {@link SummaryWindow#parse} accepts, so a counter of a few short windows takes little memory.
+ *
+ * Windows end at the current time of the clock, which should not go backwards, otherwise
+ * the changes counted after the clock is set back are lost with the replaced buckets.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SlidingWindowCounter {
+
+  /**
+   * Length of the default summary window in seconds.
+   */
+  public static final int WINDOW_SECONDS = 60;
+
+  private final Ring seconds;
+
+  private final Ring minutes;
+
+  private final Ring hours;
+
+  private final SessionClock clock;
+
+  public SlidingWindowCounter() {
+    this(SessionClock.SYSTEM);
+  }
+
+  public SlidingWindowCounter(SessionClock clock) {
+    this(clock, SummaryWindow.ONE_MINUTE, SummaryWindow.ONE_HOUR, SummaryWindow.ONE_DAY);
+  }
+
+  /**
+   * Counter of the last minute and of the given windows, and of the shorter windows of their units.
+   *
+   * @param clock
+   * @param windows
+   */
+  public SlidingWindowCounter(SessionClock clock, SummaryWindow... windows) {
+    this.clock = clock;
+    int secondsSpan = secondsSpan(SummaryWindow.ONE_MINUTE);
+    int minutesSpan = 1;
+    int hoursSpan = 1;
+    for (SummaryWindow window : windows) {
+      secondsSpan = Math.max(secondsSpan, secondsSpan(window));
+      minutesSpan = Math.max(minutesSpan, minutesSpan(window));
+      hoursSpan = Math.max(hoursSpan, hoursSpan(window));
+    }
+    this.seconds = new Ring(1, secondsSpan);
+    this.minutes = new Ring(60, minutesSpan);
+    this.hours = new Ring(3600, hoursSpan);
+  }
+
+  /**
+   * Count a session started at the given instant.
+   *
+   * @param startedAtMillis milliseconds since the epoch
+   */
+  public void recordStarted(long startedAtMillis) {
+    long second = Math.floorDiv(startedAtMillis, 1000);
+    seconds.recordStarted(second);
+    minutes.recordStarted(second);
+    hours.recordStarted(second);
+  }
+
+  /**
+   * Count a session stopped at the given instant.
+   *
+   * @param stoppedAtMillis milliseconds since the epoch
+   */
+  public void recordStopped(long stoppedAtMillis) {
+    long second = Math.floorDiv(stoppedAtMillis, 1000);
+    seconds.recordStopped(second);
+    minutes.recordStopped(second);
+    hours.recordStopped(second);
+  }
+
+  /**
+   * Sum up the changes made during the last minute.
+   *
+   * @param nowMillis milliseconds since the epoch
+   * @return
+   */
+  public CounterSummary summary(long nowMillis) {
+    return summary(SummaryWindow.ONE_MINUTE, nowMillis);
+  }
+
+  /**
+   * Sum up the changes made during the window ending now.
+   *
+   * @param window
+   * @return
+   */
+  public CounterSummary summary(SummaryWindow window) {
+    return summary(window, clock.millis());
+  }
+
+  /**
+   * Sum up the changes made during the window.
+   *
+   * @param window
+   * @param nowMillis milliseconds since the epoch
+   * @return
+   * @throws IllegalArgumentException if the rings of the counter are too short for the window
+   */
+  public CounterSummary summary(SummaryWindow window, long nowMillis) {
+    if (secondsSpan(window) > seconds.size() || minutesSpan(window) > minutes.size()
+            || hoursSpan(window) > hours.size()) {
+      throw new IllegalArgumentException("Unsupported window: " + window);
+    }
+    long toSecond = Math.floorDiv(nowMillis, 1000);
+    long fromSecond = toSecond - (long) window.getUnits() * window.getUnitSeconds();
+    long[] counts = new long[2];
+    if (window.getUnitSeconds() == 1) {
+      seconds.sum(fromSecond, toSecond, counts);
+    } else {
+      Ring ring = window.getUnitSeconds() == 60 ? minutes : hours;
+      long wholeFromSecond = (Math.floorDiv(fromSecond, ring.unitSeconds) + 1) * ring.unitSeconds;
+      ring.sum(wholeFromSecond, toSecond, counts);
+      // the oldest unit of the window from the finer ring
+      (ring == minutes ? seconds : minutes).sum(fromSecond, wholeFromSecond - 1, counts);
+    }
+    return new CounterSummary(counts[0] + counts[1], counts[0], counts[1]);
+  }
+
+  /**
+   * Maximum number of buckets read by a summary of the window.
+   *
+   * @param window
+   * @return
+   */
+  public int bucketsScanned(SummaryWindow window) {
+    return window.getUnitSeconds() == 1 ? window.getUnits() + 1 : window.getUnits() + 60;
+  }
+
+  /**
+   * Number of seconds back from the current one a summary of the window reads from the ring of seconds,
+   * the current one included.
+   */
+  private static int secondsSpan(SummaryWindow window) {
+    return window.getUnitSeconds() == 1 ? window.getUnits() + 1
+            : window.getUnitSeconds() == 60 ? window.getUnits() * 60 + 1 : 0;
+  }
+
+  private static int minutesSpan(SummaryWindow window) {
+    return window.getUnitSeconds() == 60 ? window.getUnits() + 1
+            : window.getUnitSeconds() == 3600 ? window.getUnits() * 60 + 1 : 0;
+  }
+
+  private static int hoursSpan(SummaryWindow window) {
+    return window.getUnitSeconds() == 3600 ? window.getUnits() + 1 : 0;
+  }
+
+  /**
+   * Ring of buckets of the same length.
+   */
+  private static final class Ring {
+
+    private final int unitSeconds;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * The buckets are created on the first change of their unit, a ring of seconds kept for an hour
+     * does not allocate them for the seconds without changes.
+     *
+     * @param unitSeconds
+     * @param span number of units kept, rounded up to a power of two
+     */
+    private Ring(int unitSeconds, int span) {
+      this.unitSeconds = unitSeconds;
+      this.buckets = new AtomicReferenceArray<>(Math.max(1, Integer.highestOneBit(span - 1) << 1));
+    }
+
+    int size() {
+      return buckets.length();
+    }
+
+    void recordStarted(long second) {
+      Bucket bucket = bucketFor(Math.floorDiv(second, unitSeconds));
+      if (bucket != null) {
+        bucket.started.increment();
+      }
+    }
+
+    void recordStopped(long second) {
+      Bucket bucket = bucketFor(Math.floorDiv(second, unitSeconds));
+      if (bucket != null) {
+        bucket.stopped.increment();
+      }
+    }
+
+    /**
+     * Add up the buckets from the one of the first second to the one of the last second.
+     *
+     * @param fromSecond
+     * @param toSecond
+     * @param counts the started and the stopped counts to add to
+     */
+    void sum(long fromSecond, long toSecond, long[] counts) {
+      for (long unit = Math.floorDiv(fromSecond, unitSeconds); unit <= Math.floorDiv(toSecond, unitSeconds); unit++) {
+        Bucket bucket = buckets.get((int) (unit & (buckets.length() - 1)));
+        if (bucket != null && bucket.unit == unit) {
+          counts[0] += bucket.started.sum();
+          counts[1] += bucket.stopped.sum();
+        }
+      }
+    }
+
+    /**
+     * Returns the bucket for the given unit, replacing an outdated one.
+     * Returns null if the slot is already used by a later unit.
+     *
+     * @param unit
+     * @return
+     */
+    private Bucket bucketFor(long unit) {
+      int index = (int) (unit & (buckets.length() - 1));
+      Bucket bucket = buckets.get(index);
+      while (bucket == null || bucket.unit != unit) {
+        if (bucket != null && bucket.unit > unit) {
+          return null;
+        }
+        Bucket fresh = new Bucket(unit);
+        if (buckets.compareAndSet(index, bucket, fresh)) {
+          return fresh;
+        }
+        bucket = buckets.get(index);
+      }
+      return bucket;
+    }
+  }
+
+  /**
+   * Counters of a single second, minute or hour.
+   */
+  private static final class Bucket {
+
+    private final long unit;
+
+    private final LongAdder started = new LongAdder();
+
+    private final LongAdder stopped = new LongAdder();
+
+    private Bucket(long unit) {
+      this.unit = unit;
+    }
+  }
+}
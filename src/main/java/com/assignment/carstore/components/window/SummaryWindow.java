@@ -0,0 +1,113 @@
+package com.assignment.carstore.components.window;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Length of a summary window, a number of seconds, minutes or hours written as e.g. {@code 30s},
+ * {@code 5m} or {@code 24h}.
+ *
+ * A window is counted in whole buckets of its unit up to the current one, and its oldest unit, which is
+ * partly outside of the window, in buckets of seconds, or of minutes for a window of hours. So a change is
+ * counted if it was made during the window or in the second, or minute, the window starts in.
+ * Up to 60 seconds, 60 minutes or 24 hours are supported.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public final class SummaryWindow {
+
+  public static final SummaryWindow ONE_MINUTE = new SummaryWindow(60, 1);
+
+  public static final SummaryWindow FIVE_MINUTES = new SummaryWindow(5, 60);
+
+  public static final SummaryWindow ONE_HOUR = new SummaryWindow(60, 60);
+
+  public static final SummaryWindow ONE_DAY = new SummaryWindow(24, 3600);
+
+  private static final Pattern FORMAT = Pattern.compile("(\\d{1,2})([smh])");
+
+  private final int units;
+
+  private final int unitSeconds;
+
+  private SummaryWindow(int units, int unitSeconds) {
+    this.units = units;
+    this.unitSeconds = unitSeconds;
+  }
+
+  /**
+   * Parse the window, the unit is the coarsest one the length is written in, so {@code 1m}
+   * is counted by seconds and {@code 60m} by minutes.
+   *
+   * @param value
+   * @return
+   * @throws IllegalArgumentException if the window is malformed or not supported
+   */
+  public static SummaryWindow parse(String value) {
+    Matcher matcher = FORMAT.matcher(value);
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Malformed window: " + value);
+    }
+    int length = Integer.parseInt(matcher.group(1));
+    switch (matcher.group(2)) {
+      case "s":
+        return of(length, 1, 60, value);
+      case "m":
+        return length == 1 ? ONE_MINUTE : of(length, 60, 60, value);
+      default:
+        return length == 1 ? ONE_HOUR : of(length, 3600, 24, value);
+    }
+  }
+
+  /**
+   * Window of whole hours counted by hours, unlike {@link #ONE_HOUR} a window of an hour is then
+   * exact to the minute rather than to the second, and needs no ring of seconds kept for an hour.
+   *
+   * @param hours
+   * @return
+   * @throws IllegalArgumentException if the window is not supported
+   */
+  public static SummaryWindow ofHours(int hours) {
+    return of(hours, 3600, 24, hours + "h");
+  }
+
+  private static SummaryWindow of(int units, int unitSeconds, int maxUnits, String value) {
+    if (units < 1 || units > maxUnits) {
+      throw new IllegalArgumentException("Unsupported window: " + value);
+    }
+    return new SummaryWindow(units, unitSeconds);
+  }
+
+  /**
+   * Length of the window in its unit.
+   */
+  public int getUnits() {
+    return units;
+  }
+
+  /**
+   * Length of a bucket in seconds.
+   */
+  public int getUnitSeconds() {
+    return unitSeconds;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SummaryWindow that = (SummaryWindow) o;
+    return units == that.units && unitSeconds == that.unitSeconds;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(units, unitSeconds);
+  }
+
+  @Override
+  public String toString() {
+    return unitSeconds == 1 ? units + "s" : unitSeconds == 60 ? units + "m" : units + "h";
+  }
+}
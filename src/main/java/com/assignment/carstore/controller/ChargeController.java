@@ -1,63 +1,97 @@
 package com.assignment.carstore.controller;
 
 import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.idempotency.IdempotencyCache;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
 import com.assignment.carstore.domain.ChargeSession;
-import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
 import com.assignment.carstore.exceptions.ChargingSessionException;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 import java.util.UUID;
 
+import static com.assignment.carstore.controller.ChargeSessionRequests.APPLICATION_NDJSON_VALUE;
+import static com.assignment.carstore.controller.ChargeSessionRequests.IDEMPOTENCY_KEY;
+
 /**
  * The service which represents a store for car charging session entities.
+ * Used by the servlet web stack, the reactive stack serves the same requests with
+ * {@link com.assignment.carstore.controller.reactive.ReactiveChargeHandler}.
  *
  * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
  */
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping(value = "/chargingSessions", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ChargeController {
 
-  private SessionDataStorage sessionDataStorage;
+  private ChargeSessionRequests requests;
+
+  private ObjectMapper objectMapper;
+
+  private ObjectWriter sessionWriter;
 
-  public ChargeController(SessionDataStorage sessionDataStorage) {
-    this.sessionDataStorage = sessionDataStorage;
+  /**
+   * The optional beans are missing when only the web layer is created, the system clock and
+   * random ids are used then.
+   */
+  public ChargeController(SessionDataStorage sessionDataStorage, ObjectMapper objectMapper,
+                          @Nullable SummaryCache summaryCache, @Nullable SessionClock sessionClock,
+                          @Nullable IdempotencyCache idempotencyCache, @Nullable SessionIdGenerator sessionIdGenerator) {
+    this.requests = new ChargeSessionRequests(sessionDataStorage, objectMapper, summaryCache,
+            sessionClock == null ? SessionClock.SYSTEM : sessionClock, idempotencyCache,
+            sessionIdGenerator == null ? SessionIdGenerator.RANDOM : sessionIdGenerator);
+    this.objectMapper = objectMapper;
+    this.sessionWriter = objectMapper.writerFor(ChargeSession.class);
   }
 
   /**
-   * Submit a new charging session for the station.
+   * Submit a new charging session for the station. A retry with the same Idempotency-Key header
+   * gets the session of the original request.
    *
    * @param stream
+   * @param idempotencyKey
    * @return
    */
   @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<?> submitSession(InputStream stream) {
-    JSONObject jsonObject;
+  public ResponseEntity<?> submitSession(InputStream stream,
+                                         @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+    ChargeSession session;
     try {
-      jsonObject = getJsonObjectFromStream(stream);
-      stationIdCheck(jsonObject);
+      session = requests.submitSession(stream, idempotencyKey);
     } catch (ChargingSessionException e) {
-      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
     }
-    ChargeSession session = new ChargeSession(jsonObject.get("stationId").toString(), LocalDateTime.now());
-    return new ResponseEntity<>(sessionDataStorage.submitSession(session), HttpStatus.OK);
+    return new ResponseEntity<>(session, HttpStatus.OK);
   }
 
   /**
@@ -71,65 +105,178 @@ public class ChargeController {
   public ResponseEntity<?> stopSession(@PathVariable("id") UUID id) {
     ChargeSession chargeSession;
     try {
-      chargeSession = sessionDataStorage.stopSession(id);
+      chargeSession = requests.stopSession(id);
     } catch (ChargingSessionException e) {
-      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
     }
     return new ResponseEntity<>(chargeSession, HttpStatus.OK);
   }
 
   /**
-   * Retrieve all charging sessions.
+   * Submit new charging sessions for a batch of stations. The request body is an array
+   * of objects with the 'stationId' key, the response contains a result for each of them.
+   *
+   * @param stream
    * @return
    */
-  @RequestMapping(method = RequestMethod.GET)
+  @RequestMapping(method = RequestMethod.POST, value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<Collection<ChargeSession>> retrieveAllSessions() {
-    return new ResponseEntity<>(sessionDataStorage.retrieveAllSessions(), HttpStatus.OK);
+  public ResponseEntity<?> submitSessions(InputStream stream) {
+    List<BatchItemResult> results;
+    try {
+      results = requests.submitSessions(stream);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(results, HttpStatus.OK);
   }
 
   /**
-   * Retrieve a summary of submitted charging sessions including:
-   * - totalCount - total number of charging session updates for the last minute;
-   * - startedCount - total number of started charging sessions for the last minute;
-   * - stoppedCount - total number of stopped charging sessions for the last minute.
+   * Stop a batch of charging sessions. The request body is an array of session ids,
+   * the response contains a result for each of them.
    *
+   * @param stream
    * @return
    */
-  @RequestMapping(method = RequestMethod.GET, value = "/summary")
+  @RequestMapping(method = RequestMethod.PUT, value = "/batch/stop", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<?> stopSessions(InputStream stream) {
+    List<BatchItemResult> results;
+    try {
+      results = requests.stopSessions(stream);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(results, HttpStatus.OK);
+  }
+
+  /**
+   * Retrieve all charging sessions, or the sessions matching the filters if any of them is set.
+   *
+   * @param stationId id of the station
+   * @param status status of the sessions
+   * @param startedFrom sessions started at this time or later
+   * @param startedTo sessions started at this time or earlier
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET)
   @ResponseBody
-  public ResponseEntity<CounterSummary> retrieveSummarySubmittedSessions() {
-    return new ResponseEntity<>(sessionDataStorage.retrieveSummarySubmittedSessions(), HttpStatus.OK);
+  public ResponseEntity<Collection<ChargeSession>> retrieveAllSessions(
+          @RequestParam(value = "stationId", required = false) String stationId,
+          @RequestParam(value = "status", required = false) StatusEnum status,
+          @RequestParam(value = "startedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedFrom,
+          @RequestParam(value = "startedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedTo) {
+    SessionQuery query = new SessionQuery(stationId, status, startedFrom, startedTo);
+    return new ResponseEntity<>(requests.retrieveAllSessions(query), HttpStatus.OK);
   }
 
   /**
-   * Check if request body contains 'stationId' key.
+   * Retrieve a page of charging sessions matching the filters ordered by start time.
    *
-   * @param jsonObject
-   * @throws ChargingSessionException
+   * @param limit maximum number of sessions in the page
+   * @param cursor continuation token returned with the previous page
+   * @param stationId id of the station
+   * @param status status of the sessions
+   * @param startedFrom sessions started at this time or later
+   * @param startedTo sessions started at this time or earlier
+   * @return
    */
-  private static void stationIdCheck(JSONObject jsonObject) throws ChargingSessionException {
-    if (!Objects.requireNonNull(jsonObject).containsKey("stationId")) {
-      throw new ChargingSessionException("Field 'stationId' is not found in request body", HttpStatus.BAD_REQUEST.value());
+  @RequestMapping(method = RequestMethod.GET, params = "limit")
+  @ResponseBody
+  public ResponseEntity<?> retrieveSessionsPage(
+          @RequestParam("limit") int limit,
+          @RequestParam(value = "cursor", required = false) String cursor,
+          @RequestParam(value = "stationId", required = false) String stationId,
+          @RequestParam(value = "status", required = false) StatusEnum status,
+          @RequestParam(value = "startedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedFrom,
+          @RequestParam(value = "startedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedTo) {
+    SessionQuery query = new SessionQuery(stationId, status, startedFrom, startedTo);
+    SessionPage page;
+    try {
+      page = requests.retrieveSessionsPage(query, limit, cursor);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
     }
+    return new ResponseEntity<>(page, HttpStatus.OK);
   }
 
   /**
-   * Retrieve JSON object from an input stream.
+   * Stream the charging sessions matching the filters and started before the request
+   * as newline delimited JSON. Sessions are read from the storage page by page,
+   * so the memory used does not depend on the number of sessions.
    *
-   * @param stream
+   * The pages follow the cursor of the first one, so the stream is a consistent snapshot
+   * of the sessions, see {@link SessionDataStorage#retrieveSessions}.
+   *
+   * @param stationId id of the station
+   * @param status status of the sessions
+   * @param startedFrom sessions started at this time or later
+   * @param startedTo sessions started at this time or earlier
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET, value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAllSessions(
+          @RequestParam(value = "stationId", required = false) String stationId,
+          @RequestParam(value = "status", required = false) StatusEnum status,
+          @RequestParam(value = "startedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedFrom,
+          @RequestParam(value = "startedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedTo) {
+    SessionQuery query = new SessionQuery(stationId, status, startedFrom, startedTo)
+            .startedNotLaterThan(requests.getClock().now());
+    StreamingResponseBody body = stream -> {
+      JsonGenerator generator = objectMapper.getFactory().createGenerator(stream);
+      generator.setRootValueSeparator(null);
+      SessionCursor after = null;
+      do {
+        SessionPage page = requests.retrieveStreamPage(query, after);
+        for (ChargeSession session : page.getSessions()) {
+          sessionWriter.writeValue(generator, session);
+          generator.writeRaw('\n');
+        }
+        generator.flush();
+        after = page.getNextCursor();
+      } while (after != null);
+      generator.close();
+    };
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE));
+    return new ResponseEntity<>(body, headers, HttpStatus.OK);
+  }
+
+  /**
+   * Retrieve a summary of submitted charging sessions including:
+   * - totalCount - total number of charging session updates for the window;
+   * - startedCount - total number of started charging sessions for the window;
+   * - stoppedCount - total number of stopped charging sessions for the window.
+   *
+   * The window is the last minute unless another one is requested, e.g. 5m, 1h or 24h.
+   * With the summary cache enabled the cached body is returned with its ETag, and a request
+   * with a matching If-None-Match header gets 304 Not Modified.
+   *
+   * @param window
+   * @param ifNoneMatch
    * @return
-   * @throws ChargingSessionException
    */
-  private static JSONObject getJsonObjectFromStream(InputStream stream) throws ChargingSessionException {
-    JSONObject jsonObject;
+  @RequestMapping(method = RequestMethod.GET, value = "/summary")
+  @ResponseBody
+  public ResponseEntity<?> retrieveSummarySubmittedSessions(
+          @RequestParam(value = "window", required = false) String window,
+          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    SummaryWindow summaryWindow;
     try {
-      JSONParser jsonParser = new JSONParser();
-      jsonObject = (JSONObject) jsonParser.parse(
-              new InputStreamReader(stream, StandardCharsets.UTF_8));
-    } catch (IOException | ParseException e) {
-      throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value(), e);
+      summaryWindow = ChargeSessionRequests.getWindow(window);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    if (requests.getSummaryCache() == null) {
+      return new ResponseEntity<>(requests.retrieveSummarySubmittedSessions(summaryWindow), HttpStatus.OK);
+    }
+    SummaryCache.Entry summary = requests.getSummaryCache().get(summaryWindow);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(summary.getEtag());
+    if (ChargeSessionRequests.etagMatches(ifNoneMatch, summary.getEtag())) {
+      return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
     }
-    return jsonObject;
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    return new ResponseEntity<>(summary.getBody(), headers, HttpStatus.OK);
   }
 }
@@ -0,0 +1,123 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.events.EventsProperties;
+import com.assignment.carstore.components.events.SessionEvent;
+import com.assignment.carstore.components.events.SessionEventBus;
+import com.assignment.carstore.components.events.SessionEventSubscription;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Stream of the charging session changes as server-sent events, enabled with
+ * {@code carstore.events.enabled=true}.
+ *
+ * Every event carries the session after the change, its name is the type of the change and its id
+ * is the epoch of the event bus and the sequence number. A client reconnecting with the Last-Event-ID
+ * header gets the events it has missed, or a {@code reset} event when they are no longer retained
+ * or the id is of another epoch, e.g. before a restart, then it has to reload the sessions.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "carstore.events.enabled", havingValue = "true")
+@RequestMapping(value = "/chargingSessions")
+public class ChargeEventsController {
+
+  static final String RESET_EVENT = "reset";
+
+  static final String SUBSCRIBED_COMMENT = "subscribed";
+
+  private final SessionEventBus sessionEventBus;
+
+  private final EventsProperties properties;
+
+  public ChargeEventsController(SessionEventBus sessionEventBus, EventsProperties properties) {
+    this.sessionEventBus = sessionEventBus;
+    this.properties = properties;
+  }
+
+  /**
+   * Subscribe to the submitted and stopped sessions.
+   *
+   * @param lastEventId id of the last event received before reconnecting
+   * @return the stream, 400 Bad Request for an invalid Last-Event-ID, 503 Service Unavailable
+   * when there are too many subscribers
+   */
+  @RequestMapping(method = RequestMethod.GET, value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    String lastId;
+    try {
+      lastId = ChargeSessionRequests.getLastEventId(lastEventId);
+    } catch (ChargingSessionException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+    EmitterDelivery delivery = new EmitterDelivery(emitter);
+    SessionEventSubscription subscription = sessionEventBus.subscribe(lastId, delivery);
+    if (subscription == null) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    delivery.subscription = subscription;
+    emitter.onCompletion(subscription::close);
+    emitter.onTimeout(subscription::close);
+    emitter.onError(e -> subscription.close());
+    try {
+      // commits the response, so the client sees the stream open before the first change
+      emitter.send(SseEmitter.event().comment(SUBSCRIBED_COMMENT));
+    } catch (IOException e) {
+      subscription.close();
+      throw new UncheckedIOException(e);
+    }
+    subscription.signal();
+    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+  }
+
+  /**
+   * Sends the available events to the emitter, blocking while the client reads them.
+   */
+  private static final class EmitterDelivery implements Runnable {
+
+    private final SseEmitter emitter;
+
+    private volatile SessionEventSubscription subscription;
+
+    private EmitterDelivery(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    @Override
+    public void run() {
+      try {
+        SessionEvent event;
+        while ((event = subscription.poll()) != null) {
+          emitter.send(SseEmitter.event()
+                  .id(event.getId())
+                  .name(event.getType().getEventName())
+                  .data(event.getSession(), MediaType.APPLICATION_JSON));
+        }
+        if (subscription.hasMissedEvents()) {
+          emitter.send(SseEmitter.event().name(RESET_EVENT).data("{}", MediaType.APPLICATION_JSON));
+          subscription.close();
+          emitter.complete();
+        }
+      } catch (IOException | IllegalStateException e) {
+        // the client has gone or the emitter is already completed
+        subscription.close();
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,541 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.idempotency.IdempotencyCache;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Charging session requests independent of the web stack. The servlet controller and the reactive
+ * handler only adapt them to their request and response types, so both serve the same contract.
+ * Validation errors are reported with {@link ChargingSessionException}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ChargeSessionRequests {
+
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  /**
+   * Maximum number of sessions in a page.
+   */
+  static final int MAX_PAGE_SIZE = 1000;
+
+  /**
+   * Maximum number of items in a batch request.
+   */
+  static final int MAX_BATCH_SIZE = 1000;
+
+  /**
+   * Number of sessions read from the storage at once while streaming.
+   */
+  static final int STREAM_PAGE_SIZE = 500;
+
+  /**
+   * Event id, the epoch of the event bus and the sequence number, the ids before the epochs were
+   * added are only the sequence number.
+   */
+  private static final Pattern EVENT_ID = Pattern.compile("([0-9a-f]{1,16}-)?\\d{1,18}");
+
+  private final SessionDataStorage sessionDataStorage;
+
+  private final JsonFactory jsonFactory;
+
+  private final SummaryCache summaryCache;
+
+  private final SessionClock clock;
+
+  private final IdempotencyCache idempotencyCache;
+
+  private final SessionIdGenerator idGenerator;
+
+  /**
+   * @param sessionDataStorage
+   * @param objectMapper
+   * @param summaryCache cached summary of the last minute, read from the storage if it is null
+   * @param clock clock of the submitted sessions
+   * @param idempotencyCache sessions of the idempotency keys, the keys are ignored if it is null
+   * @param idGenerator ids of the submitted sessions
+   */
+  public ChargeSessionRequests(SessionDataStorage sessionDataStorage, ObjectMapper objectMapper,
+                               SummaryCache summaryCache, SessionClock clock, IdempotencyCache idempotencyCache,
+                               SessionIdGenerator idGenerator) {
+    this.sessionDataStorage = sessionDataStorage;
+    this.jsonFactory = objectMapper.getFactory();
+    this.summaryCache = summaryCache;
+    this.clock = clock;
+    this.idempotencyCache = idempotencyCache;
+    this.idGenerator = idGenerator;
+  }
+
+  /**
+   * Submit a new charging session for the station of the request body.
+   *
+   * @param stream
+   * @return
+   * @throws ChargingSessionException
+   */
+  public ChargeSession submitSession(InputStream stream) throws ChargingSessionException {
+    return submitSession(stream, null);
+  }
+
+  /**
+   * Submit a new charging session for the station of the request body, unless a session has already
+   * been submitted with the same idempotency key. A retry gets the session of the original request.
+   *
+   * @param stream
+   * @param idempotencyKey value of the Idempotency-Key header, may be null
+   * @return
+   * @throws ChargingSessionException
+   */
+  public ChargeSession submitSession(InputStream stream, String idempotencyKey) throws ChargingSessionException {
+    String stationId = getStationIdFromStream(stream);
+    stationIdLengthCheck(stationId);
+    if (idempotencyKey == null || idempotencyCache == null) {
+      return sessionDataStorage.submitSession(newSession(stationId));
+    }
+    idempotencyKeyCheck(idempotencyKey);
+    return idempotencyCache.submit(idempotencyKey, stationId,
+            () -> sessionDataStorage.submitSession(newSession(stationId)));
+  }
+
+  public ChargeSession stopSession(UUID id) throws ChargingSessionException {
+    return sessionDataStorage.stopSession(id);
+  }
+
+  /**
+   * Submit new charging sessions for a batch of stations. The request body is an array
+   * of objects with the 'stationId' key, the result contains an item for each of them.
+   *
+   * @param stream
+   * @return
+   * @throws ChargingSessionException
+   */
+  public List<BatchItemResult> submitSessions(InputStream stream) throws ChargingSessionException {
+    List<BatchItemResult> results = new ArrayList<>();
+    List<ChargeSession> sessions = new ArrayList<>();
+    List<Integer> positions = new ArrayList<>();
+    long startedAtMillis = clock.millis();
+    LocalDateTime startedAt = clock.toLocalDateTime(startedAtMillis);
+    readBatch(stream, parser -> {
+      int position = results.size();
+      results.add(null);
+      try {
+        String stationId = getBatchItemStationId(parser);
+        stationIdLengthCheck(stationId);
+        sessions.add(newSession(stationId, startedAt, startedAtMillis));
+        positions.add(position);
+      } catch (ChargingSessionException e) {
+        results.set(position, BatchItemResult.failed(e));
+      }
+    });
+    if (!sessions.isEmpty()) {
+      List<ChargeSession> submitted = sessionDataStorage.submitSessions(sessions);
+      for (int k = 0; k < submitted.size(); k++) {
+        results.set(positions.get(k), BatchItemResult.succeeded(submitted.get(k)));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Stop a batch of charging sessions. The request body is an array of session ids,
+   * the result contains an item for each of them.
+   *
+   * @param stream
+   * @return
+   * @throws ChargingSessionException
+   */
+  public List<BatchItemResult> stopSessions(InputStream stream) throws ChargingSessionException {
+    List<BatchItemResult> results = new ArrayList<>();
+    List<UUID> ids = new ArrayList<>();
+    List<Integer> positions = new ArrayList<>();
+    readBatch(stream, parser -> {
+      int position = results.size();
+      results.add(null);
+      try {
+        ids.add(getBatchItemId(getText(parser)));
+        positions.add(position);
+      } catch (ChargingSessionException e) {
+        results.set(position, BatchItemResult.failed(e));
+      }
+    });
+    if (!ids.isEmpty()) {
+      List<BatchItemResult> stopped = sessionDataStorage.stopSessions(ids);
+      for (int k = 0; k < stopped.size(); k++) {
+        results.set(positions.get(k), stopped.get(k));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * All charging sessions, or the sessions matching the query if it has any filter.
+   *
+   * @param query
+   * @return
+   */
+  public Collection<ChargeSession> retrieveAllSessions(SessionQuery query) {
+    if (query.isUnfiltered()) {
+      return sessionDataStorage.retrieveAllSessions();
+    }
+    List<ChargeSession> sessions = new ArrayList<>();
+    SessionCursor after = null;
+    do {
+      SessionPage page = sessionDataStorage.retrieveSessions(query, after, MAX_PAGE_SIZE);
+      sessions.addAll(page.getSessions());
+      after = page.getNextCursor();
+    } while (after != null);
+    return sessions;
+  }
+
+  /**
+   * A page of charging sessions matching the query ordered by start time.
+   *
+   * @param query
+   * @param limit maximum number of sessions in the page
+   * @param cursor continuation token returned with the previous page
+   * @return
+   * @throws ChargingSessionException with the status 410 if the snapshot of the cursor has expired
+   */
+  public SessionPage retrieveSessionsPage(SessionQuery query, int limit, String cursor)
+          throws ChargingSessionException {
+    pageSizeCheck(limit);
+    SessionCursor after = getCursor(cursor);
+    try {
+      return sessionDataStorage.retrieveSessions(query, after, limit);
+    } catch (IllegalArgumentException e) {
+      throw new ChargingSessionException("Parameter 'cursor' has expired, start from the first page.",
+              HttpStatus.GONE.value(), e);
+    }
+  }
+
+  /**
+   * The next page of a stream of the charging sessions matching the query, read from the snapshot
+   * of the first page, see {@link SessionDataStorage#retrieveSessions}.
+   *
+   * @param query
+   * @param after cursor of the previous page, null for the first one
+   * @return
+   */
+  public SessionPage retrieveStreamPage(SessionQuery query, SessionCursor after) {
+    return sessionDataStorage.retrieveSessions(query, after, STREAM_PAGE_SIZE);
+  }
+
+  public CounterSummary retrieveSummarySubmittedSessions() {
+    return sessionDataStorage.retrieveSummarySubmittedSessions();
+  }
+
+  /**
+   * Summary for the window, the default last minute if it is null.
+   *
+   * @param window
+   * @return
+   */
+  public CounterSummary retrieveSummarySubmittedSessions(SummaryWindow window) {
+    return window == null ? sessionDataStorage.retrieveSummarySubmittedSessions()
+            : sessionDataStorage.retrieveSummarySubmittedSessions(window);
+  }
+
+  /**
+   * Clock of the session timestamps.
+   */
+  public SessionClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Sessions of the idempotency keys, null if the keys are ignored.
+   */
+  public IdempotencyCache getIdempotencyCache() {
+    return idempotencyCache;
+  }
+
+  /**
+   * The cached summary response, null if the cache is disabled.
+   */
+  public SummaryCache getSummaryCache() {
+    return summaryCache;
+  }
+
+  /**
+   * Parse the window parameter of a summary request.
+   *
+   * @param window
+   * @return the window, null for the default last minute
+   * @throws ChargingSessionException
+   */
+  public static SummaryWindow getWindow(String window) throws ChargingSessionException {
+    if (window == null || window.isEmpty()) {
+      return null;
+    }
+    try {
+      SummaryWindow summaryWindow = SummaryWindow.parse(window);
+      return SummaryWindow.ONE_MINUTE.equals(summaryWindow) ? null : summaryWindow;
+    } catch (IllegalArgumentException e) {
+      throw new ChargingSessionException("Parameter 'window' is invalid.", HttpStatus.BAD_REQUEST.value(), e);
+    }
+  }
+
+  /**
+   * Check the Last-Event-ID header of a resuming event stream.
+   *
+   * @param lastEventId
+   * @return id of the last received event, null for a new stream
+   * @throws ChargingSessionException
+   */
+  public static String getLastEventId(String lastEventId) throws ChargingSessionException {
+    if (lastEventId == null || lastEventId.isEmpty()) {
+      return null;
+    }
+    String id = lastEventId.trim();
+    if (!EVENT_ID.matcher(id).matches()) {
+      throw new ChargingSessionException("Header 'Last-Event-ID' is invalid.", HttpStatus.BAD_REQUEST.value());
+    }
+    return id;
+  }
+
+  /**
+   * Check if the If-None-Match header lists the entity tag, weak tags match as well.
+   *
+   * @param ifNoneMatch
+   * @param etag
+   * @return
+   */
+  public static boolean etagMatches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.equals("*") || tag.equals(etag) || tag.startsWith("W/") && tag.substring(2).equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if the station id is not longer than {@link ChargeSession#MAX_STATION_ID_LENGTH}.
+   *
+   * @param stationId
+   * @throws ChargingSessionException
+   */
+  static void stationIdLengthCheck(String stationId) throws ChargingSessionException {
+    if (stationId.length() > ChargeSession.MAX_STATION_ID_LENGTH) {
+      throw new ChargingSessionException(String.format("Field 'stationId' must not be longer than %d characters",
+              ChargeSession.MAX_STATION_ID_LENGTH), HttpStatus.BAD_REQUEST.value());
+    }
+  }
+
+  private ChargeSession newSession(String stationId) {
+    long startedAtMillis = clock.millis();
+    return newSession(stationId, clock.toLocalDateTime(startedAtMillis), startedAtMillis);
+  }
+
+  private ChargeSession newSession(String stationId, LocalDateTime startedAt, long startedAtMillis) {
+    return new ChargeSession(idGenerator.nextId(), stationId, startedAt, startedAtMillis);
+  }
+
+  /**
+   * Check if the idempotency key is not blank and not too long.
+   *
+   * @param idempotencyKey
+   * @throws ChargingSessionException
+   */
+  private static void idempotencyKeyCheck(String idempotencyKey) throws ChargingSessionException {
+    if (idempotencyKey.trim().isEmpty() || idempotencyKey.length() > IdempotencyCache.MAX_KEY_LENGTH) {
+      throw new ChargingSessionException("Header 'Idempotency-Key' is invalid.", HttpStatus.BAD_REQUEST.value());
+    }
+  }
+
+  /**
+   * Check if the page size is within the allowed range.
+   *
+   * @param limit
+   * @throws ChargingSessionException
+   */
+  private static void pageSizeCheck(int limit) throws ChargingSessionException {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new ChargingSessionException(String.format("Parameter 'limit' must be between 1 and %d", MAX_PAGE_SIZE),
+              HttpStatus.BAD_REQUEST.value());
+    }
+  }
+
+  /**
+   * Restore the cursor from a continuation token.
+   *
+   * @param token
+   * @return cursor or null if the token is not set
+   * @throws ChargingSessionException
+   */
+  private static SessionCursor getCursor(String token) throws ChargingSessionException {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    try {
+      return SessionCursor.decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new ChargingSessionException("Parameter 'cursor' is invalid.", HttpStatus.BAD_REQUEST.value(), e);
+    }
+  }
+
+  /**
+   * Retrieve the station id of a submit request from an input stream. The body is read token
+   * by token, only the value of the 'stationId' field is kept.
+   *
+   * @param stream
+   * @return
+   * @throws ChargingSessionException
+   */
+  public String getStationIdFromStream(InputStream stream) throws ChargingSessionException {
+    String stationId;
+    try (JsonParser parser = jsonFactory.createParser(stream)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value());
+      }
+      stationId = readStationId(parser);
+      if (parser.nextToken() != null) {
+        throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value());
+      }
+    } catch (IOException e) {
+      throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value(), e);
+    }
+    if (stationId == null) {
+      throw new ChargingSessionException("Field 'stationId' is not found in request body", HttpStatus.BAD_REQUEST.value());
+    }
+    return stationId;
+  }
+
+  /**
+   * Read the items of a batch request from an input stream one by one, the body is never held
+   * as a whole. The reader gets the parser at the first token of every item and has to read
+   * the whole item.
+   *
+   * @param stream
+   * @param reader
+   * @throws ChargingSessionException if the body is not a JSON array or has too many items
+   */
+  private void readBatch(InputStream stream, BatchItemReader reader) throws ChargingSessionException {
+    try (JsonParser parser = jsonFactory.createParser(stream)) {
+      JsonToken first = parser.nextToken();
+      if (first == null) {
+        throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value());
+      } else if (first != JsonToken.START_ARRAY) {
+        throw new ChargingSessionException("Request body must be a JSON array.", HttpStatus.BAD_REQUEST.value());
+      }
+      int count = 0;
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (++count > MAX_BATCH_SIZE) {
+          throw new ChargingSessionException(String.format("Batch must not contain more than %d items", MAX_BATCH_SIZE),
+                  HttpStatus.BAD_REQUEST.value());
+        }
+        reader.read(parser);
+      }
+      if (parser.nextToken() != null) {
+        throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value());
+      }
+    } catch (IOException e) {
+      throw new ChargingSessionException("Request body is invalid or empty.", HttpStatus.BAD_REQUEST.value(), e);
+    }
+  }
+
+  /**
+   * Retrieve the station id from the batch item, the whole item is read even if it is invalid.
+   *
+   * @param parser at the first token of the item
+   * @return
+   * @throws ChargingSessionException
+   * @throws IOException
+   */
+  private static String getBatchItemStationId(JsonParser parser) throws ChargingSessionException, IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      throw new ChargingSessionException("Batch item is not a JSON object", HttpStatus.BAD_REQUEST.value());
+    }
+    String stationId = readStationId(parser);
+    if (stationId == null) {
+      throw new ChargingSessionException("Field 'stationId' is not found in request body", HttpStatus.BAD_REQUEST.value());
+    }
+    return stationId;
+  }
+
+  /**
+   * Read the fields of an object keeping only the value of the 'stationId' field.
+   *
+   * @param parser at the start of the object, left at its end
+   * @return the station id, null if it is not found
+   * @throws IOException
+   */
+  private static String readStationId(JsonParser parser) throws IOException {
+    String stationId = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      boolean isStationId = "stationId".equals(parser.getCurrentName());
+      JsonToken value = parser.nextToken();
+      if (!isStationId) {
+        parser.skipChildren();
+      } else if (value == JsonToken.VALUE_NULL) {
+        stationId = null;
+      } else {
+        stationId = getText(parser);
+      }
+    }
+    return stationId;
+  }
+
+  /**
+   * Text of the current value, the JSON of an object or an array.
+   */
+  private static String getText(JsonParser parser) throws IOException {
+    return parser.currentToken().isScalarValue() ? parser.getText() : parser.readValueAsTree().toString();
+  }
+
+  /**
+   * Retrieve the session id from the text of the batch item.
+   *
+   * @param item
+   * @return
+   * @throws ChargingSessionException
+   */
+  private static UUID getBatchItemId(String item) throws ChargingSessionException {
+    try {
+      return UUID.fromString(item);
+    } catch (IllegalArgumentException e) {
+      throw new ChargingSessionException(String.format("Session id: %s is invalid", item), HttpStatus.BAD_REQUEST.value(), e);
+    }
+  }
+
+  /**
+   * Reader of a single batch item.
+   */
+  @FunctionalInterface
+  private interface BatchItemReader {
+
+    void read(JsonParser parser) throws IOException;
+  }
+}
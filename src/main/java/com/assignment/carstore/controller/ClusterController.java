@@ -0,0 +1,146 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.cluster.SessionCluster;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Requests of the other cluster nodes, answered from the sessions of this node only.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "carstore.cluster.enabled", havingValue = "true")
+@RequestMapping(value = "/cluster/chargingSessions", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ClusterController {
+
+  private ChargeSessionRequests requests;
+
+  public ClusterController(SessionCluster sessionCluster, ObjectMapper objectMapper, SessionClock sessionClock,
+                           SessionIdGenerator sessionIdGenerator) {
+    this.requests = new ChargeSessionRequests(sessionCluster.getLocalStorage(), objectMapper, null, sessionClock,
+            null, sessionIdGenerator);
+  }
+
+  /**
+   * Stop a charging session of this node.
+   *
+   * @param id
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.PUT, value = "/{id}")
+  @ResponseBody
+  public ResponseEntity<?> stopSession(@PathVariable("id") UUID id) {
+    ChargeSession chargeSession;
+    try {
+      chargeSession = requests.stopSession(id);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(chargeSession, HttpStatus.OK);
+  }
+
+  /**
+   * Stop a batch of charging sessions of this node.
+   *
+   * @param stream
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.PUT, value = "/batch/stop", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<?> stopSessions(InputStream stream) {
+    List<BatchItemResult> results;
+    try {
+      results = requests.stopSessions(stream);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(results, HttpStatus.OK);
+  }
+
+  /**
+   * Retrieve all charging sessions of this node.
+   *
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  @ResponseBody
+  public ResponseEntity<Collection<ChargeSession>> retrieveAllSessions() {
+    return new ResponseEntity<>(requests.retrieveAllSessions(SessionQuery.ALL), HttpStatus.OK);
+  }
+
+  /**
+   * Retrieve a page of charging sessions of this node matching the filters ordered by start time.
+   *
+   * @param limit maximum number of sessions in the page
+   * @param cursor continuation token returned with the previous page
+   * @param stationId id of the station
+   * @param status status of the sessions
+   * @param startedFrom sessions started at this time or later
+   * @param startedTo sessions started at this time or earlier
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET, params = "limit")
+  @ResponseBody
+  public ResponseEntity<?> retrieveSessionsPage(
+          @RequestParam("limit") int limit,
+          @RequestParam(value = "cursor", required = false) String cursor,
+          @RequestParam(value = "stationId", required = false) String stationId,
+          @RequestParam(value = "status", required = false) StatusEnum status,
+          @RequestParam(value = "startedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedFrom,
+          @RequestParam(value = "startedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startedTo) {
+    SessionQuery query = new SessionQuery(stationId, status, startedFrom, startedTo);
+    SessionPage page;
+    try {
+      page = requests.retrieveSessionsPage(query, limit, cursor);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(page, HttpStatus.OK);
+  }
+
+  /**
+   * Retrieve the summary of the charging sessions of this node for the window, the last minute by default.
+   *
+   * @param window
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET, value = "/summary")
+  @ResponseBody
+  public ResponseEntity<?> retrieveSummarySubmittedSessions(@RequestParam(value = "window", required = false) String window) {
+    CounterSummary summary;
+    try {
+      summary = requests.retrieveSummarySubmittedSessions(ChargeSessionRequests.getWindow(window));
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(summary, HttpStatus.OK);
+  }
+}
@@ -0,0 +1,76 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.stations.StationStatistics;
+import com.assignment.carstore.components.stations.StationStatisticsProperties;
+import com.assignment.carstore.domain.StationStats;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * Per-station statistics of charging sessions, answered from the aggregates maintained
+ * on every change instead of scanning the sessions.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "carstore.station-stats.enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping(value = "/chargingSessions/stations", produces = MediaType.APPLICATION_JSON_VALUE)
+public class StationStatsController {
+
+  private StationStatsRequests requests;
+
+  public StationStatsController(StationStatistics stationStatistics, StationStatisticsProperties properties,
+                                SessionClock sessionClock) {
+    this.requests = new StationStatsRequests(stationStatistics, properties.getMaxBusiest(), sessionClock);
+  }
+
+  /**
+   * Retrieve statistics of the station including:
+   * - activeCount - number of sessions in progress;
+   * - lastMinuteCount - number of sessions started during the last minute;
+   * - lastHourCount - number of sessions started during the last hour;
+   * - finishedCount - number of finished sessions;
+   * - averageDurationSeconds - average duration of the finished sessions.
+   *
+   * @param stationId
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET, value = "/{stationId}/stats")
+  @ResponseBody
+  public ResponseEntity<StationStats> retrieveStationStats(@PathVariable("stationId") String stationId) {
+    return new ResponseEntity<>(requests.retrieveStationStats(stationId), HttpStatus.OK);
+  }
+
+  /**
+   * Retrieve statistics of the stations with the most sessions started during the last hour.
+   *
+   * @param limit maximum number of stations
+   * @return
+   */
+  @RequestMapping(method = RequestMethod.GET, value = "/busiest")
+  @ResponseBody
+  public ResponseEntity<?> retrieveBusiestStations(
+          @RequestParam(value = "limit", defaultValue = "" + StationStatsRequests.DEFAULT_BUSIEST) int limit) {
+    List<StationStats> stations;
+    try {
+      stations = requests.retrieveBusiestStations(limit);
+    } catch (ChargingSessionException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.valueOf(e.getStatus()));
+    }
+    return new ResponseEntity<>(stations, HttpStatus.OK);
+  }
+}
@@ -0,0 +1,47 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.stations.StationStatistics;
+import com.assignment.carstore.domain.StationStats;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+/**
+ * Per-station statistics requests independent of the web stack, served by {@link StationStatsController}
+ * and by {@link com.assignment.carstore.controller.reactive.ReactiveStationStatsHandler}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class StationStatsRequests {
+
+  /**
+   * Number of the busiest stations returned when the request does not set it.
+   */
+  public static final int DEFAULT_BUSIEST = 10;
+
+  private final StationStatistics stationStatistics;
+
+  private final int maxBusiest;
+
+  private final SessionClock clock;
+
+  public StationStatsRequests(StationStatistics stationStatistics, int maxBusiest, SessionClock clock) {
+    this.stationStatistics = stationStatistics;
+    this.maxBusiest = maxBusiest;
+    this.clock = clock;
+  }
+
+  public StationStats retrieveStationStats(String stationId) {
+    return stationStatistics.getStationStats(stationId, clock.millis());
+  }
+
+  public List<StationStats> retrieveBusiestStations(int limit) throws ChargingSessionException {
+    if (limit < 1 || limit > maxBusiest) {
+      throw new ChargingSessionException(String.format("Parameter 'limit' must be between 1 and %d", maxBusiest),
+              HttpStatus.BAD_REQUEST.value());
+    }
+    return stationStatistics.getBusiestStations(limit, clock.millis());
+  }
+}
@@ -0,0 +1,156 @@
+package com.assignment.carstore.controller.reactive;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.cluster.SessionCluster;
+import com.assignment.carstore.components.events.EventsProperties;
+import com.assignment.carstore.components.events.SessionEventBus;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.idempotency.IdempotencyCache;
+import com.assignment.carstore.components.stations.StationStatistics;
+import com.assignment.carstore.components.stations.StationStatisticsProperties;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.controller.ChargeSessionRequests;
+import com.assignment.carstore.controller.StationStatsRequests;
+import com.assignment.carstore.domain.ChargeSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.reactive.server.ReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Routes of the charging session API on the reactive web stack (Netty), enabled with
+ * {@code spring.main.web-application-type=reactive}.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChargeConfiguration {
+
+  /**
+   * Serve the reactive stack with Netty, Tomcat is on the classpath for the servlet stack
+   * and would be chosen otherwise.
+   */
+  @Bean
+  @ConditionalOnMissingBean(ReactiveWebServerFactory.class)
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  /**
+   * Storage calls run on the event loop only if nothing on their path can park the thread, see
+   * {@link #storageScheduler}. Submits with an idempotency key never do, a retry may wait for the original request.
+   */
+  @Bean
+  public ReactiveChargeHandler reactiveChargeHandler(SessionDataStorage sessionDataStorage, ObjectMapper objectMapper,
+                                                     ObjectProvider<SummaryCache> summaryCache, SessionClock sessionClock,
+                                                     ObjectProvider<IdempotencyCache> idempotencyCache,
+                                                     SessionIdGenerator sessionIdGenerator,
+                                                     @Value("${carstore.persistence.enabled:false}") boolean persistence,
+                                                     @Value("${carstore.cluster.enabled:false}") boolean cluster) {
+    ChargeSessionRequests requests = new ChargeSessionRequests(sessionDataStorage, objectMapper,
+            summaryCache.getIfAvailable(), sessionClock, idempotencyCache.getIfAvailable(), sessionIdGenerator);
+    return new ReactiveChargeHandler(requests, objectMapper.writerFor(ChargeSession.class),
+            storageScheduler(sessionDataStorage, persistence, cluster));
+  }
+
+  /**
+   * Scheduler of the storage calls, the event loop itself unless a call may block: every change waits
+   * for space in the queue of the write-ahead log whatever the fsync policy is, other cluster nodes are
+   * requested, or the storage takes a lock shared by all the writers.
+   *
+   * @param sessionDataStorage
+   * @param persistence
+   * @param cluster
+   * @return
+   */
+  static Scheduler storageScheduler(SessionDataStorage sessionDataStorage, boolean persistence, boolean cluster) {
+    boolean blocking = persistence || cluster || sessionDataStorage.isBlocking();
+    return blocking ? Schedulers.boundedElastic() : Schedulers.immediate();
+  }
+
+  @Bean
+  public RouterFunction<ServerResponse> chargeSessionRoutes(ReactiveChargeHandler handler) {
+    return routes(handler);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "carstore.events.enabled", havingValue = "true")
+  public RouterFunction<ServerResponse> chargeEventRoutes(SessionEventBus sessionEventBus, EventsProperties properties) {
+    return eventRoutes(new ReactiveEventHandler(sessionEventBus, properties.getTimeout()));
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "carstore.station-stats.enabled", havingValue = "true", matchIfMissing = true)
+  public RouterFunction<ServerResponse> stationStatsRoutes(StationStatistics stationStatistics,
+                                                           StationStatisticsProperties properties,
+                                                           SessionClock sessionClock) {
+    return stationStatsRoutes(new ReactiveStationStatsHandler(
+            new StationStatsRequests(stationStatistics, properties.getMaxBusiest(), sessionClock)));
+  }
+
+  static RouterFunction<ServerResponse> stationStatsRoutes(ReactiveStationStatsHandler handler) {
+    return route(GET("/chargingSessions/stations/{stationId}/stats"), handler::retrieveStationStats)
+            .andRoute(GET("/chargingSessions/stations/busiest"), handler::retrieveBusiestStations);
+  }
+
+  /**
+   * Requests of the other cluster nodes, answered from the sessions of this node only.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "carstore.cluster.enabled", havingValue = "true")
+  public RouterFunction<ServerResponse> clusterSessionRoutes(SessionCluster sessionCluster, ObjectMapper objectMapper,
+                                                             SessionClock sessionClock,
+                                                             SessionIdGenerator sessionIdGenerator) {
+    ChargeSessionRequests requests = new ChargeSessionRequests(sessionCluster.getLocalStorage(), objectMapper, null,
+            sessionClock, null, sessionIdGenerator);
+    return clusterRoutes(new ReactiveChargeHandler(requests, objectMapper.writerFor(ChargeSession.class),
+            Schedulers.boundedElastic()));
+  }
+
+  static RouterFunction<ServerResponse> clusterRoutes(ReactiveChargeHandler handler) {
+    return route(PUT("/cluster/chargingSessions/batch/stop").and(contentType(MediaType.APPLICATION_JSON)),
+            handler::stopSessions)
+            .andRoute(PUT("/cluster/chargingSessions/{id}"), handler::stopSession)
+            .andRoute(GET("/cluster/chargingSessions/summary"), handler::retrieveSummarySubmittedSessions)
+            .andRoute(GET("/cluster/chargingSessions").and(queryParam("limit", limit -> true)),
+                    handler::retrieveSessionsPage)
+            .andRoute(GET("/cluster/chargingSessions"), handler::retrieveAllSessions);
+  }
+
+  static RouterFunction<ServerResponse> eventRoutes(ReactiveEventHandler handler) {
+    return route(GET("/chargingSessions/events"), handler::streamEvents);
+  }
+
+  static RouterFunction<ServerResponse> routes(ReactiveChargeHandler handler) {
+    return route(POST("/chargingSessions").and(contentType(MediaType.APPLICATION_JSON)), handler::submitSession)
+            .andRoute(POST("/chargingSessions/batch").and(contentType(MediaType.APPLICATION_JSON)),
+                    handler::submitSessions)
+            .andRoute(PUT("/chargingSessions/batch/stop").and(contentType(MediaType.APPLICATION_JSON)),
+                    handler::stopSessions)
+            .andRoute(PUT("/chargingSessions/{id}"), handler::stopSession)
+            .andRoute(GET("/chargingSessions/summary"), handler::retrieveSummarySubmittedSessions)
+            .andRoute(GET("/chargingSessions/stream"), handler::streamAllSessions)
+            .andRoute(GET("/chargingSessions").and(queryParam("limit", limit -> true)), handler::retrieveSessionsPage)
+            .andRoute(GET("/chargingSessions"), handler::retrieveAllSessions);
+  }
+}
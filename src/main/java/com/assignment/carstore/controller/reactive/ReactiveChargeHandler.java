@@ -0,0 +1,241 @@
+package com.assignment.carstore.controller.reactive;
+
+import com.assignment.carstore.controller.ChargeSessionRequests;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Handler of the charging session requests on the reactive web stack, the counterpart of
+ * {@link com.assignment.carstore.controller.ChargeController} serving the same contract.
+ *
+ * Request bodies are collected without blocking before they are parsed, so a slow client does
+ * not hold a thread. Storage calls run on the given scheduler, which is the calling event loop
+ * unless the storage may block. Submits with an idempotency key always run on the bounded elastic
+ * scheduler, a retry waits there for the session of the original request.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ReactiveChargeHandler {
+
+  private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(ChargeSessionRequests.APPLICATION_NDJSON_VALUE);
+
+  private final ChargeSessionRequests requests;
+
+  private final ObjectWriter sessionWriter;
+
+  private final Scheduler storageScheduler;
+
+  public ReactiveChargeHandler(ChargeSessionRequests requests, ObjectWriter sessionWriter, Scheduler storageScheduler) {
+    this.requests = requests;
+    this.sessionWriter = sessionWriter;
+    this.storageScheduler = storageScheduler;
+  }
+
+  public Mono<ServerResponse> submitSession(ServerRequest request) {
+    String idempotencyKey = request.headers().firstHeader(ChargeSessionRequests.IDEMPOTENCY_KEY);
+    Scheduler scheduler = idempotencyKey != null && requests.getIdempotencyCache() != null
+            ? Schedulers.boundedElastic() : storageScheduler;
+    return withBody(request, body -> requests.submitSession(body, idempotencyKey), scheduler);
+  }
+
+  public Mono<ServerResponse> stopSession(ServerRequest request) {
+    return respond(() -> requests.stopSession(getId(request.pathVariable("id"))));
+  }
+
+  public Mono<ServerResponse> submitSessions(ServerRequest request) {
+    return withBody(request, requests::submitSessions, storageScheduler);
+  }
+
+  public Mono<ServerResponse> stopSessions(ServerRequest request) {
+    return withBody(request, requests::stopSessions, storageScheduler);
+  }
+
+  public Mono<ServerResponse> retrieveAllSessions(ServerRequest request) {
+    return respond(() -> requests.retrieveAllSessions(getQuery(request)));
+  }
+
+  public Mono<ServerResponse> retrieveSessionsPage(ServerRequest request) {
+    return respond(() -> requests.retrieveSessionsPage(getQuery(request), getLimit(request),
+            request.queryParam("cursor").orElse(null)));
+  }
+
+  /**
+   * Stream the sessions as newline delimited JSON, the next page is read from the storage
+   * only when the client has consumed the previous one. As with the servlet endpoint, the pages
+   * are read from the snapshot of the first one.
+   */
+  public Mono<ServerResponse> streamAllSessions(ServerRequest request) {
+    SessionQuery query;
+    try {
+      query = getQuery(request).startedNotLaterThan(requests.getClock().now());
+    } catch (ChargingSessionException e) {
+      return failed(e);
+    }
+    DataBufferFactory bufferFactory = request.exchange().getResponse().bufferFactory();
+    Flux<DataBuffer> body = Mono.fromCallable(() -> requests.retrieveStreamPage(query, null))
+            .expand(page -> page.getNextCursor() == null ? Mono.empty()
+                    : Mono.fromCallable(() -> requests.retrieveStreamPage(query, page.getNextCursor())))
+            .concatMapIterable(SessionPage::getSessions)
+            .map(session -> encode(bufferFactory, session));
+    return ServerResponse.ok().contentType(APPLICATION_NDJSON).body(BodyInserters.fromDataBuffers(body));
+  }
+
+  public Mono<ServerResponse> retrieveSummarySubmittedSessions(ServerRequest request) {
+    SummaryWindow window;
+    try {
+      window = ChargeSessionRequests.getWindow(request.queryParam("window").orElse(null));
+    } catch (ChargingSessionException e) {
+      return failed(e);
+    }
+    SummaryCache summaryCache = requests.getSummaryCache();
+    if (summaryCache == null) {
+      return respond(() -> requests.retrieveSummarySubmittedSessions(window));
+    }
+    SummaryCache.Entry summary = summaryCache.get(window);
+    String ifNoneMatch = request.headers().asHttpHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+    if (ChargeSessionRequests.etagMatches(ifNoneMatch, summary.getEtag())) {
+      return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(summary.getEtag()).build();
+    }
+    return ServerResponse.ok().eTag(summary.getEtag()).contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(summary.getBody());
+  }
+
+  /**
+   * Collect the whole request body without blocking, then pass it to the request run on the scheduler.
+   *
+   * @param request
+   * @param handler
+   * @param scheduler
+   * @return
+   */
+  private Mono<ServerResponse> withBody(ServerRequest request, BodyRequest handler, Scheduler scheduler) {
+    return DataBufferUtils.join(request.body(BodyExtractors.toDataBuffers()))
+            .map(buffer -> buffer.asInputStream(true))
+            .switchIfEmpty(Mono.fromSupplier(() -> new ByteArrayInputStream(new byte[0])))
+            .flatMap(stream -> respond(() -> {
+              try (InputStream body = stream) {
+                return handler.handle(body);
+              }
+            }, scheduler));
+  }
+
+  /**
+   * Run the request on the storage scheduler, errors are answered with their status.
+   *
+   * @param handler
+   * @return
+   */
+  private Mono<ServerResponse> respond(Callable<?> handler) {
+    return respond(handler, storageScheduler);
+  }
+
+  private Mono<ServerResponse> respond(Callable<?> handler, Scheduler scheduler) {
+    return Mono.fromCallable(handler)
+            .subscribeOn(scheduler)
+            .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result))
+            .onErrorResume(ChargingSessionException.class, this::failed);
+  }
+
+  private Mono<ServerResponse> failed(ChargingSessionException e) {
+    return ServerResponse.status(HttpStatus.valueOf(e.getStatus())).contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(e.getMessage());
+  }
+
+  private DataBuffer encode(DataBufferFactory bufferFactory, ChargeSession session) {
+    try {
+      byte[] json = sessionWriter.writeValueAsBytes(session);
+      return bufferFactory.allocateBuffer(json.length + 1).write(json).write((byte) '\n');
+    } catch (JsonProcessingException e) {
+      throw Exceptions.propagate(e);
+    }
+  }
+
+  private static SessionQuery getQuery(ServerRequest request) throws ChargingSessionException {
+    Optional<String> status = request.queryParam("status");
+    return new SessionQuery(request.queryParam("stationId").orElse(null),
+            status.isPresent() ? getStatus(status.get()) : null,
+            getTime(request, "startedFrom"), getTime(request, "startedTo"));
+  }
+
+  private static StatusEnum getStatus(String value) throws ChargingSessionException {
+    try {
+      return StatusEnum.valueOf(value);
+    } catch (IllegalArgumentException e) {
+      throw invalidParameter("status", e);
+    }
+  }
+
+  private static LocalDateTime getTime(ServerRequest request, String name) throws ChargingSessionException {
+    Optional<String> value = request.queryParam(name);
+    if (!value.isPresent()) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(value.get(), DateTimeFormatter.ISO_DATE_TIME);
+    } catch (DateTimeParseException e) {
+      throw invalidParameter(name, e);
+    }
+  }
+
+  private static int getLimit(ServerRequest request) throws ChargingSessionException {
+    try {
+      return Integer.parseInt(request.queryParam("limit").orElse(""));
+    } catch (NumberFormatException e) {
+      throw invalidParameter("limit", e);
+    }
+  }
+
+  private static UUID getId(String value) throws ChargingSessionException {
+    try {
+      return UUID.fromString(value);
+    } catch (IllegalArgumentException e) {
+      throw new ChargingSessionException(String.format("Session id: %s is invalid", value),
+              HttpStatus.BAD_REQUEST.value(), e);
+    }
+  }
+
+  private static ChargingSessionException invalidParameter(String name, Exception e) {
+    return new ChargingSessionException(String.format("Parameter '%s' is invalid.", name),
+            HttpStatus.BAD_REQUEST.value(), e);
+  }
+
+  /**
+   * Request reading the collected body.
+   */
+  @FunctionalInterface
+  private interface BodyRequest {
+
+    Object handle(InputStream body) throws Exception;
+  }
+}
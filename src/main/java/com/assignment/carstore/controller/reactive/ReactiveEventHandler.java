@@ -0,0 +1,102 @@
+package com.assignment.carstore.controller.reactive;
+
+import com.assignment.carstore.components.events.SessionEvent;
+import com.assignment.carstore.components.events.SessionEventBus;
+import com.assignment.carstore.components.events.SessionEventSubscription;
+import com.assignment.carstore.controller.ChargeSessionRequests;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Handler of the session event stream on the reactive web stack, the counterpart of
+ * {@link com.assignment.carstore.controller.ChargeEventsController}. Events are read from the bus
+ * only as far as the client has requested them.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ReactiveEventHandler {
+
+  private static final ParameterizedTypeReference<ServerSentEvent<Object>> EVENT_TYPE =
+          new ParameterizedTypeReference<ServerSentEvent<Object>>() {
+          };
+
+  private final SessionEventBus sessionEventBus;
+
+  private final Duration timeout;
+
+  public ReactiveEventHandler(SessionEventBus sessionEventBus, Duration timeout) {
+    this.sessionEventBus = sessionEventBus;
+    this.timeout = timeout;
+  }
+
+  public Mono<ServerResponse> streamEvents(ServerRequest request) {
+    String lastEventId;
+    try {
+      lastEventId = ChargeSessionRequests.getLastEventId(request.headers().asHttpHeaders().getFirst("Last-Event-ID"));
+    } catch (ChargingSessionException e) {
+      return ServerResponse.badRequest().build();
+    }
+    Flux<ServerSentEvent<Object>> events = Flux.<ServerSentEvent<Object>>create(sink -> {
+      SinkDelivery delivery = new SinkDelivery(sink);
+      SessionEventSubscription subscription = sessionEventBus.subscribe(lastEventId,
+              task -> Schedulers.parallel().schedule(task), delivery);
+      if (subscription == null) {
+        sink.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event subscribers"));
+        return;
+      }
+      delivery.subscription = subscription;
+      sink.onRequest(requested -> subscription.signal());
+      sink.onDispose(subscription::close);
+    }).startWith(ServerSentEvent.builder().comment("subscribed").build()).take(timeout);
+    return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events, EVENT_TYPE);
+  }
+
+  /**
+   * Emits the available events as long as the client has requested them.
+   */
+  private static final class SinkDelivery implements Runnable {
+
+    private final FluxSink<ServerSentEvent<Object>> sink;
+
+    private volatile SessionEventSubscription subscription;
+
+    private SinkDelivery(FluxSink<ServerSentEvent<Object>> sink) {
+      this.sink = sink;
+    }
+
+    @Override
+    public void run() {
+      SessionEventSubscription current = subscription;
+      if (current == null) {
+        return;
+      }
+      while (sink.requestedFromDownstream() > 0) {
+        SessionEvent event = current.poll();
+        if (event == null) {
+          break;
+        }
+        sink.next(ServerSentEvent.builder((Object) event.getSession())
+                .id(event.getId())
+                .event(event.getType().getEventName())
+                .build());
+      }
+      if (current.hasMissedEvents()) {
+        sink.next(ServerSentEvent.builder((Object) Collections.emptyMap()).event("reset").build());
+        sink.complete();
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.assignment.carstore.controller.reactive;
+
+import com.assignment.carstore.controller.StationStatsRequests;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Handler of the per-station statistics requests on the reactive web stack, the counterpart of
+ * {@link com.assignment.carstore.controller.StationStatsController}. The statistics are read
+ * from counters in memory, so the requests run on the event loop.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ReactiveStationStatsHandler {
+
+  private final StationStatsRequests requests;
+
+  public ReactiveStationStatsHandler(StationStatsRequests requests) {
+    this.requests = requests;
+  }
+
+  public Mono<ServerResponse> retrieveStationStats(ServerRequest request) {
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(requests.retrieveStationStats(request.pathVariable("stationId")));
+  }
+
+  public Mono<ServerResponse> retrieveBusiestStations(ServerRequest request) {
+    Optional<String> limit = request.queryParam("limit");
+    try {
+      int count;
+      try {
+        count = limit.isPresent() ? Integer.parseInt(limit.get()) : StationStatsRequests.DEFAULT_BUSIEST;
+      } catch (NumberFormatException e) {
+        throw new ChargingSessionException("Parameter 'limit' is invalid.", HttpStatus.BAD_REQUEST.value(), e);
+      }
+      return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+              .bodyValue(requests.retrieveBusiestStations(count));
+    } catch (ChargingSessionException e) {
+      return ServerResponse.status(HttpStatus.valueOf(e.getStatus())).contentType(MediaType.APPLICATION_JSON)
+              .bodyValue(e.getMessage());
+    }
+  }
+}
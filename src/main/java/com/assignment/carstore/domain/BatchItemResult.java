@@ -0,0 +1,52 @@
+package com.assignment.carstore.domain;
+
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Entity for the result of a single item of a batch request.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+  private int status;
+
+  private ChargeSession session;
+
+  private String message;
+
+  private BatchItemResult(int status, ChargeSession session, String message) {
+    this.status = status;
+    this.session = session;
+    this.message = message;
+  }
+
+  public static BatchItemResult succeeded(ChargeSession session) {
+    return new BatchItemResult(200, session, null);
+  }
+
+  public static BatchItemResult failed(ChargingSessionException e) {
+    return new BatchItemResult(e.getStatus(), null, e.getReason());
+  }
+
+  /**
+   * HTTP status the item would get as a single request.
+   */
+  @JsonGetter("status")
+  public int getStatus() {
+    return status;
+  }
+
+  @JsonGetter("session")
+  public ChargeSession getSession() {
+    return session;
+  }
+
+  @JsonGetter("message")
+  public String getMessage() {
+    return message;
+  }
+}
@@ -1,35 +1,87 @@
 package com.assignment.carstore.domain;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Entity for charging session.
  *
+ * A session is immutable, stopping it creates a new version which the storage publishes
+ * in place of the previous one. A reader holding a session never sees a half-applied stop.
+ *
+ * Next to the local date-times a session keeps the instants of its changes in milliseconds since the epoch,
+ * as read from the clock, so the summary windows and the deadlines do not depend on the offset of the zone,
+ * which is ambiguous when the clocks are set back. A session created without them, e.g. sent by a client
+ * or another node, takes them from its local date-times in the zone of the system.
+ *
  * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
  */
 public class ChargeSession {
 
-    private UUID id;
+    /**
+     * Maximum number of characters of a station id accepted from the clients, its UTF-8 bytes
+     * always fit into the short length of the binary formats.
+     */
+    public static final int MAX_STATION_ID_LENGTH = 255;
 
-    private String stationId;
+    private final UUID id;
 
-    private LocalDateTime startedAt;
+    private final String stationId;
+
+    private final LocalDateTime startedAt;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
-    private LocalDateTime stoppedAt;
+    private final LocalDateTime stoppedAt;
+
+    private final StatusEnum status;
 
-    private StatusEnum status;
+    private final long startedAtMillis;
+
+    private final long stoppedAtMillis;
 
     public ChargeSession(String stationId, LocalDateTime startedAt) {
-        this.id = UUID.randomUUID();
+        this(UUID.randomUUID(), stationId, startedAt);
+    }
+
+    /**
+     * Creates a new session in progress with the id of a session id generator.
+     */
+    public ChargeSession(UUID id, String stationId, LocalDateTime startedAt) {
+        this(id, stationId, startedAt, toMillis(startedAt));
+    }
+
+    /**
+     * Creates a new session in progress started at the time read from the clock.
+     */
+    public ChargeSession(UUID id, String stationId, LocalDateTime startedAt, long startedAtMillis) {
+        this(id, stationId, startedAt, startedAtMillis, null, 0, StatusEnum.IN_PROGRESS);
+    }
+
+    /**
+     * Restores a session with all of its state, e.g. from another node.
+     */
+    public ChargeSession(UUID id, String stationId, LocalDateTime startedAt, LocalDateTime stoppedAt, StatusEnum status) {
+        this(id, stationId, startedAt, toMillis(startedAt), stoppedAt, toMillis(stoppedAt), status);
+    }
+
+    /**
+     * Restores a session with all of its state and the instants of its changes, e.g. from the write-ahead log.
+     */
+    public ChargeSession(UUID id, String stationId, LocalDateTime startedAt, long startedAtMillis,
+                         LocalDateTime stoppedAt, long stoppedAtMillis, StatusEnum status) {
+        this.id = id;
         this.stationId = stationId;
         this.startedAt = startedAt;
-        this.status = StatusEnum.IN_PROGRESS;
+        this.stoppedAt = stoppedAt;
+        this.status = status;
+        this.startedAtMillis = startedAtMillis;
+        this.stoppedAtMillis = stoppedAtMillis;
     }
 
     @JsonGetter("id")
@@ -52,17 +104,40 @@ public class ChargeSession {
         return stoppedAt;
     }
 
-    public void setStoppedAt(LocalDateTime stoppedAt) {
-        this.stoppedAt = stoppedAt;
-    }
-
     @JsonGetter("status")
     public StatusEnum getStatus() {
         return status;
     }
 
-    public void setStatus(StatusEnum status) {
-        this.status = status;
+    /**
+     * Instant the session was started at, in milliseconds since the epoch.
+     */
+    @JsonIgnore
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    /**
+     * Instant the session was stopped at, in milliseconds since the epoch, 0 if it is in progress.
+     */
+    @JsonIgnore
+    public long getStoppedAtMillis() {
+        return stoppedAtMillis;
+    }
+
+    /**
+     * New version of the session finished at the given time.
+     */
+    public ChargeSession finish(LocalDateTime stoppedAt) {
+        return finish(stoppedAt, toMillis(stoppedAt));
+    }
+
+    /**
+     * New version of the session finished at the time read from the clock.
+     */
+    public ChargeSession finish(LocalDateTime stoppedAt, long stoppedAtMillis) {
+        return new ChargeSession(id, stationId, startedAt, startedAtMillis, stoppedAt, stoppedAtMillis,
+                StatusEnum.FINISHED);
     }
 
     @Override
@@ -81,4 +156,8 @@ public class ChargeSession {
     public int hashCode() {
         return Objects.hash(id, stationId, startedAt, stoppedAt, status);
     }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 }
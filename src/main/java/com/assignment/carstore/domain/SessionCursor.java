@@ -0,0 +1,131 @@
+package com.assignment.carstore.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Position of a charging session in the order of start time, used as the continuation token
+ * of paginated session lists. Sessions started at the same time are ordered by id.
+ *
+ * A cursor returned by a storage keeping snapshots also has the version of the snapshot its page
+ * was read from, so the following pages are read from the same snapshot. Cursors are ordered
+ * by position only.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public final class SessionCursor implements Comparable<SessionCursor> {
+
+  private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+  private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+  private final LocalDateTime startedAt;
+
+  private final UUID id;
+
+  /**
+   * Version of the pinned snapshot, zero if the cursor is not pinned to a snapshot.
+   */
+  private final long snapshot;
+
+  public SessionCursor(LocalDateTime startedAt, UUID id) {
+    this(startedAt, id, 0);
+  }
+
+  public SessionCursor(LocalDateTime startedAt, UUID id, long snapshot) {
+    this.startedAt = Objects.requireNonNull(startedAt);
+    this.id = Objects.requireNonNull(id);
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * Cursor pointing at the given session.
+   */
+  public static SessionCursor of(ChargeSession session) {
+    return new SessionCursor(session.getStartedAt(), session.getId());
+  }
+
+  /**
+   * Cursor preceding every session started not earlier than the given time.
+   */
+  public static SessionCursor from(LocalDateTime startedAt) {
+    return new SessionCursor(startedAt, MIN_ID);
+  }
+
+  /**
+   * Cursor following every session started not later than the given time.
+   */
+  public static SessionCursor upTo(LocalDateTime startedAt) {
+    return new SessionCursor(startedAt, MAX_ID);
+  }
+
+  /**
+   * Restore a cursor from the continuation token.
+   *
+   * @param token
+   * @return
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public static SessionCursor decode(String token) {
+    try {
+      String[] values = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("/");
+      if (values.length < 2 || values.length > 3) {
+        throw new IllegalArgumentException("Malformed cursor: " + token);
+      }
+      return new SessionCursor(LocalDateTime.parse(values[0]), UUID.fromString(values[1]),
+              values.length == 3 ? Long.parseLong(values[2]) : 0);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor: " + token, e);
+    }
+  }
+
+  /**
+   * Opaque continuation token of the cursor.
+   */
+  public String encode() {
+    String value = startedAt + "/" + id + (snapshot == 0 ? "" : "/" + snapshot);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public LocalDateTime getStartedAt() {
+    return startedAt;
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public long getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Cursor at the same position pinned to the given snapshot.
+   */
+  public SessionCursor pinned(long snapshot) {
+    return new SessionCursor(startedAt, id, snapshot);
+  }
+
+  @Override
+  public int compareTo(SessionCursor other) {
+    int compared = startedAt.compareTo(other.startedAt);
+    return compared != 0 ? compared : id.compareTo(other.id);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SessionCursor that = (SessionCursor) o;
+    return startedAt.equals(that.startedAt) && id.equals(that.id) && snapshot == that.snapshot;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(startedAt, id, snapshot);
+  }
+}
@@ -0,0 +1,43 @@
+package com.assignment.carstore.domain;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Entity for a page of charging sessions ordered by start time.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class SessionPage {
+
+  private List<ChargeSession> sessions;
+
+  private SessionCursor next;
+
+  public SessionPage(List<ChargeSession> sessions, SessionCursor next) {
+    this.sessions = sessions;
+    this.next = next;
+  }
+
+  @JsonGetter("sessions")
+  public List<ChargeSession> getSessions() {
+    return sessions;
+  }
+
+  /**
+   * Continuation token of the next page, null for the last page.
+   */
+  @JsonGetter("next")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public String getNextToken() {
+    return next == null ? null : next.encode();
+  }
+
+  @JsonIgnore
+  public SessionCursor getNextCursor() {
+    return next;
+  }
+}
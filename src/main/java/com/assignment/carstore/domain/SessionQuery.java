@@ -0,0 +1,89 @@
+package com.assignment.carstore.domain;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Filter of charging sessions by station, status and start time. Not set criteria match any session.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public final class SessionQuery {
+
+  /**
+   * Query matching all sessions.
+   */
+  public static final SessionQuery ALL = new SessionQuery(null, null, null, null);
+
+  private final String stationId;
+
+  private final StatusEnum status;
+
+  private final LocalDateTime startedFrom;
+
+  private final LocalDateTime startedTo;
+
+  /**
+   * @param stationId id of the station
+   * @param status status of the session
+   * @param startedFrom sessions started at this time or later
+   * @param startedTo sessions started at this time or earlier
+   */
+  public SessionQuery(String stationId, StatusEnum status, LocalDateTime startedFrom, LocalDateTime startedTo) {
+    this.stationId = stationId;
+    this.status = status;
+    this.startedFrom = startedFrom;
+    this.startedTo = startedTo;
+  }
+
+  /**
+   * Copy of the query restricted to sessions started at the given time or earlier.
+   */
+  public SessionQuery startedNotLaterThan(LocalDateTime time) {
+    LocalDateTime to = startedTo == null || startedTo.isAfter(time) ? time : startedTo;
+    return new SessionQuery(stationId, status, startedFrom, to);
+  }
+
+  public boolean matches(ChargeSession session) {
+    return (stationId == null || stationId.equals(session.getStationId()))
+            && (status == null || status == session.getStatus())
+            && (startedFrom == null || !session.getStartedAt().isBefore(startedFrom))
+            && (startedTo == null || !session.getStartedAt().isAfter(startedTo));
+  }
+
+  public boolean isUnfiltered() {
+    return stationId == null && status == null && startedFrom == null && startedTo == null;
+  }
+
+  public String getStationId() {
+    return stationId;
+  }
+
+  public StatusEnum getStatus() {
+    return status;
+  }
+
+  public LocalDateTime getStartedFrom() {
+    return startedFrom;
+  }
+
+  public LocalDateTime getStartedTo() {
+    return startedTo;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    SessionQuery that = (SessionQuery) o;
+    return Objects.equals(stationId, that.stationId) &&
+            status == that.status &&
+            Objects.equals(startedFrom, that.startedFrom) &&
+            Objects.equals(startedTo, that.startedTo);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(stationId, status, startedFrom, startedTo);
+  }
+}
@@ -0,0 +1,77 @@
+package com.assignment.carstore.domain;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Entity for statistics of the charging sessions of a station.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class StationStats {
+
+  private String stationId;
+
+  private long activeCount;
+
+  private long lastMinuteCount;
+
+  private long lastHourCount;
+
+  private long finishedCount;
+
+  private Double averageDurationSeconds;
+
+  public StationStats(String stationId, long activeCount, long lastMinuteCount, long lastHourCount,
+                      long finishedCount, Double averageDurationSeconds) {
+    this.stationId = stationId;
+    this.activeCount = activeCount;
+    this.lastMinuteCount = lastMinuteCount;
+    this.lastHourCount = lastHourCount;
+    this.finishedCount = finishedCount;
+    this.averageDurationSeconds = averageDurationSeconds;
+  }
+
+  @JsonGetter("stationId")
+  public String getStationId() {
+    return stationId;
+  }
+
+  /**
+   * Number of sessions in progress.
+   */
+  @JsonGetter("activeCount")
+  public long getActiveCount() {
+    return activeCount;
+  }
+
+  /**
+   * Number of sessions started during the last minute.
+   */
+  @JsonGetter("lastMinuteCount")
+  public long getLastMinuteCount() {
+    return lastMinuteCount;
+  }
+
+  /**
+   * Number of sessions started during the last hour.
+   */
+  @JsonGetter("lastHourCount")
+  public long getLastHourCount() {
+    return lastHourCount;
+  }
+
+  @JsonGetter("finishedCount")
+  public long getFinishedCount() {
+    return finishedCount;
+  }
+
+  /**
+   * Average duration of the finished sessions, not set if there are none.
+   */
+  @JsonGetter("averageDurationSeconds")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public Double getAverageDurationSeconds() {
+    return averageDurationSeconds;
+  }
+}
@@ -9,14 +9,20 @@ public class ChargingSessionException extends Exception {
 
   private String message;
 
+  private String reason;
+
+  private int status;
+
   private Throwable exception;
 
   public ChargingSessionException(String message, int status) {
     this.message = getJsonMessage(message, status);
+    this.reason = message;
+    this.status = status;
   }
 
   public ChargingSessionException(String message, int status, Throwable exception) {
-    this.message = getJsonMessage(message, status);
+    this(message, status);
     this.exception = exception;
   }
 
@@ -25,6 +31,17 @@ public class ChargingSessionException extends Exception {
     return message;
   }
 
+  /**
+   * Plain text of the message, without the status.
+   */
+  public String getReason() {
+    return reason;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
   public Throwable getException() {
     return exception;
   }
@@ -0,0 +1,106 @@
+package com.assignment.carstore.components.clock;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for CachedSessionClock class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class CachedSessionClockTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2020, 4, 20, 12, 0, 30);
+
+  private final AtomicLong systemMillis = new AtomicLong(NOW.toInstant(ZoneOffset.UTC).toEpochMilli());
+
+  private final CachedSessionClock clock = new CachedSessionClock(ZoneOffset.UTC, Duration.ofMillis(1),
+          systemMillis::get, false);
+
+  @Test
+  void timeIsReadOncePerTick() {
+    LocalDateTime now = clock.now();
+    assertEquals(NOW, now);
+    systemMillis.addAndGet(5);
+    assertSame(now, clock.now());
+
+    clock.tick();
+    assertEquals(NOW.plusNanos(5_000_000), clock.now());
+    assertEquals(systemMillis.get(), clock.millis());
+    assertSame(clock.now(), clock.toLocalDateTime(clock.millis()));
+    assertEquals(NOW, clock.toLocalDateTime(clock.millis() - 5));
+  }
+
+  @Test
+  void timeNeverGoesBackwards() {
+    systemMillis.addAndGet(-60_000);
+    clock.tick();
+    assertEquals(NOW, clock.now());
+
+    systemMillis.addAndGet(60_000 + 1_000);
+    clock.tick();
+    assertEquals(NOW.plusSeconds(1), clock.now());
+  }
+
+  @Test
+  void backgroundTicks() throws InterruptedException {
+    CachedSessionClock running = new CachedSessionClock(ZoneOffset.UTC, Duration.ofMillis(1));
+    try {
+      long start = running.millis();
+      Thread.sleep(50);
+      assertTrue(running.millis() > start);
+    } finally {
+      running.close();
+    }
+  }
+
+  @Test
+  void manualClockDrivesSummaryWindow() throws ChargingSessionException {
+    ManualSessionClock manual = new ManualSessionClock(NOW);
+    SessionDataStorage storage = new SessionDataStorageImpl(manual);
+    ChargeSession session = storage.submitSession(new ChargeSession("ABC-1", manual.now()));
+    manual.advance(Duration.ofSeconds(30));
+    assertEquals(NOW.plusSeconds(30), storage.stopSession(session.getId()).getStoppedAt());
+    assertEquals(2, storage.retrieveSummarySubmittedSessions().getTotalCount());
+
+    // the window starting in the second of the start still counts it
+    manual.advance(Duration.ofSeconds(30));
+    assertEquals(1, storage.retrieveSummarySubmittedSessions().getStartedCount());
+    manual.advance(Duration.ofSeconds(1));
+    assertEquals(1, storage.retrieveSummarySubmittedSessions().getStoppedCount());
+    assertEquals(0, storage.retrieveSummarySubmittedSessions().getStartedCount());
+  }
+
+  @Test
+  void summaryWindowFollowsInstantsWhenClocksAreSetBack() throws ChargingSessionException {
+    // the hour from 02:00 to 03:00 is repeated in Berlin on 2020-10-25
+    ManualSessionClock manual = new ManualSessionClock(LocalDateTime.of(2020, 10, 25, 2, 59, 50),
+            ZoneId.of("Europe/Berlin"));
+    SessionDataStorage storage = new SessionDataStorageImpl(manual);
+    manual.advance(Duration.ofSeconds(20));
+    assertEquals(LocalDateTime.of(2020, 10, 25, 2, 0, 10), manual.now());
+    ChargeSession session = storage.submitSession(
+            new ChargeSession(UUID.randomUUID(), "ABC-1", manual.now(), manual.millis()));
+    manual.advance(Duration.ofSeconds(5));
+    storage.stopSession(session.getId());
+
+    CounterSummary summary = storage.retrieveSummarySubmittedSessions();
+    assertEquals(1, summary.getStartedCount());
+    assertEquals(1, summary.getStoppedCount());
+  }
+}
@@ -0,0 +1,50 @@
+package com.assignment.carstore.components.clock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Clock changed by the caller only, lets tests drive the time deterministically.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+public class ManualSessionClock implements SessionClock {
+
+  private final ZoneId zone;
+
+  private volatile long millis;
+
+  public ManualSessionClock(LocalDateTime time) {
+    this(time, ZoneId.systemDefault());
+  }
+
+  public ManualSessionClock(LocalDateTime time, ZoneId zone) {
+    this.zone = zone;
+    set(time);
+  }
+
+  /**
+   * Set the time, the earlier offset is used for a local date-time which is ambiguous in the zone.
+   */
+  public synchronized void set(LocalDateTime time) {
+    this.millis = time.atZone(zone).toInstant().toEpochMilli();
+  }
+
+  /**
+   * Move the time forward.
+   */
+  public synchronized void advance(Duration duration) {
+    millis += duration.toMillis();
+  }
+
+  @Override
+  public long millis() {
+    return millis;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+}
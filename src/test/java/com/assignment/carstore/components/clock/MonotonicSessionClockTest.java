@@ -0,0 +1,43 @@
+package com.assignment.carstore.components.clock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for MonotonicSessionClock class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class MonotonicSessionClockTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2020, 4, 20, 12, 0, 30);
+
+  private final AtomicLong systemMillis = new AtomicLong(NOW.toInstant(ZoneOffset.UTC).toEpochMilli());
+
+  private final AtomicLong nanoTime = new AtomicLong(-5_000_000_000L);
+
+  private final MonotonicSessionClock clock = new MonotonicSessionClock(ZoneOffset.UTC, systemMillis::get, nanoTime::get);
+
+  @Test
+  void timeFollowsElapsedNanos() {
+    assertEquals(NOW, clock.now());
+    nanoTime.addAndGet(1_500_000);
+    assertEquals(systemMillis.get() + 1, clock.millis());
+    nanoTime.addAndGet(60_000_000_000L);
+    assertEquals(NOW.plusSeconds(60).plusNanos(1_000_000), clock.now());
+  }
+
+  @Test
+  void systemClockAdjustmentsAreNotFollowed() {
+    systemMillis.addAndGet(-60_000);
+    assertEquals(NOW, clock.now());
+    systemMillis.addAndGet(120_000);
+    nanoTime.addAndGet(1_000_000_000);
+    assertEquals(NOW.plusSeconds(1), clock.now());
+  }
+}
@@ -0,0 +1,153 @@
+package com.assignment.carstore.components.cluster;
+
+import com.assignment.carstore.CarChargingStoreApplication;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for ClusteredSessionDataStorage class, two nodes run in this JVM.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ClusteredSessionDataStorageTest {
+
+  private static ConfigurableApplicationContext first;
+
+  private static ConfigurableApplicationContext second;
+
+  @BeforeAll
+  static void startNodes() throws IOException {
+    int firstPort = freePort();
+    int secondPort = freePort();
+    String nodes = "http://localhost:" + firstPort + ",http://localhost:" + secondPort;
+    first = startNode(firstPort, nodes);
+    second = startNode(secondPort, nodes);
+  }
+
+  @AfterAll
+  static void stopNodes() {
+    if (first != null) {
+      first.close();
+    }
+    if (second != null) {
+      second.close();
+    }
+  }
+
+  @Test
+  void sessionsArePartitionedBetweenNodes() throws ChargingSessionException {
+    SessionDataStorage firstStorage = first.getBean(SessionDataStorage.class);
+    SessionDataStorage secondStorage = second.getBean(SessionDataStorage.class);
+    SessionCluster firstCluster = first.getBean(SessionCluster.class);
+    SessionCluster secondCluster = second.getBean(SessionCluster.class);
+    LocalDateTime startedAt = LocalDateTime.now();
+    long firstCount = firstStorage.countSessions();
+    long secondCount = secondStorage.countSessions();
+    int allCount = firstStorage.retrieveAllSessions().size();
+    CounterSummary before = secondStorage.retrieveSummarySubmittedSessions();
+
+    ChargeSession onFirst = firstStorage.submitSession(new ChargeSession("station-1", startedAt));
+    ChargeSession onSecond = secondStorage.submitSession(new ChargeSession("station-2", startedAt));
+    assertTrue(firstCluster.isLocal(onFirst.getId()));
+    assertTrue(secondCluster.isLocal(onSecond.getId()));
+    assertEquals(firstCount + 1, firstStorage.countSessions());
+    assertEquals(secondCount + 1, secondStorage.countSessions());
+
+    // a session is stopped by its node whichever node is requested
+    ChargeSession stopped = secondStorage.stopSession(onFirst.getId());
+    assertEquals(onFirst.getId(), stopped.getId());
+    assertEquals(StatusEnum.FINISHED, stopped.getStatus());
+    SessionQuery firstStation = new SessionQuery("station-1", StatusEnum.FINISHED, null, null);
+    assertEquals(1, firstCluster.getLocalStorage().retrieveSessions(firstStation, null, 10).getSessions().size());
+    try {
+      secondStorage.stopSession(onFirst.getId());
+      fail();
+    } catch (ChargingSessionException e) {
+      assertEquals(400, e.getStatus());
+    }
+
+    List<BatchItemResult> results = firstStorage.stopSessions(
+            Arrays.asList(onSecond.getId(), onFirst.getId(), UUID.randomUUID()));
+    assertEquals(3, results.size());
+    assertEquals(200, results.get(0).getStatus());
+    assertEquals(onSecond.getId(), results.get(0).getSession().getId());
+    assertEquals(400, results.get(1).getStatus());
+    assertEquals(400, results.get(2).getStatus());
+
+    assertEquals(allCount + 2, firstStorage.retrieveAllSessions().size());
+    assertEquals(allCount + 2, secondStorage.retrieveAllSessions().size());
+    CounterSummary summary = secondStorage.retrieveSummarySubmittedSessions();
+    assertEquals(before.getStartedCount() + 2, summary.getStartedCount());
+    assertEquals(before.getStoppedCount() + 2, summary.getStoppedCount());
+    assertEquals(before.getTotalCount() + 4, summary.getTotalCount());
+  }
+
+  @Test
+  void pagesAreMergedInStartOrder() {
+    SessionDataStorage firstStorage = first.getBean(SessionDataStorage.class);
+    SessionDataStorage secondStorage = second.getBean(SessionDataStorage.class);
+    LocalDateTime startedAt = LocalDateTime.of(2020, 1, 1, 0, 0);
+    for (int i = 0; i < 10; i++) {
+      (i % 3 == 0 ? firstStorage : secondStorage).submitSession(new ChargeSession("paged", startedAt.plusSeconds(i)));
+    }
+    SessionQuery query = new SessionQuery("paged", null, null, null);
+    List<ChargeSession> sessions = new ArrayList<>();
+    SessionCursor after = null;
+    do {
+      SessionPage page = firstStorage.retrieveSessions(query, after, 4);
+      assertFalse(page.getSessions().isEmpty());
+      sessions.addAll(page.getSessions());
+      after = page.getNextCursor();
+    } while (after != null);
+    assertEquals(10, sessions.size());
+    Set<UUID> ids = new HashSet<>();
+    for (int i = 0; i < sessions.size(); i++) {
+      assertEquals(startedAt.plusSeconds(i), sessions.get(i).getStartedAt());
+      ids.add(sessions.get(i).getId());
+    }
+    assertEquals(10, ids.size());
+    assertNull(secondStorage.retrieveSessions(query, SessionCursor.of(sessions.get(9)), 4).getNextCursor());
+  }
+
+  private static ConfigurableApplicationContext startNode(int port, String nodes) {
+    return new SpringApplicationBuilder(CarChargingStoreApplication.class).run(
+            "--server.port=" + port,
+            "--carstore.cluster.enabled=true",
+            "--carstore.cluster.self=http://localhost:" + port,
+            "--carstore.cluster.nodes=" + nodes);
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
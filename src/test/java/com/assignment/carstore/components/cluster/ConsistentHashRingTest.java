@@ -0,0 +1,51 @@
+package com.assignment.carstore.components.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ConsistentHashRing class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ConsistentHashRingTest {
+
+  private static final int KEYS = 30000;
+
+  @Test
+  void ownersAreBalancedAndStable() {
+    ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("http://a", "http://b", "http://c"), 160);
+    ConsistentHashRing same = new ConsistentHashRing(Arrays.asList("http://a", "http://b", "http://c"), 160);
+    int[] counts = new int[3];
+    for (int i = 0; i < KEYS; i++) {
+      UUID id = UUID.randomUUID();
+      counts[ring.ownerIndex(id)]++;
+      assertEquals(ring.owner(id), same.owner(id));
+    }
+    for (int count : counts) {
+      assertTrue("Unbalanced owners " + Arrays.toString(counts), Math.abs(count - KEYS / 3) < KEYS / 3 / 5);
+    }
+  }
+
+  @Test
+  void addedNodeTakesOverItsShareOnly() {
+    ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("http://a", "http://b", "http://c"), 160);
+    ConsistentHashRing grown = new ConsistentHashRing(
+            Arrays.asList("http://a", "http://b", "http://c", "http://d"), 160);
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      UUID id = UUID.randomUUID();
+      String owner = grown.owner(id);
+      if (!owner.equals(ring.owner(id))) {
+        assertEquals("http://d", owner);
+        moved++;
+      }
+    }
+    assertTrue("Moved " + moved, Math.abs(moved - KEYS / 4) < KEYS / 4 / 5);
+  }
+}
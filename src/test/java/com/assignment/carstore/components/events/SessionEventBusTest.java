@@ -0,0 +1,184 @@
+package com.assignment.carstore.components.events;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.impl.ConcurrentSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for SessionEventBus class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SessionEventBusTest {
+
+  private SessionDataStorage sessionDataStorage;
+
+  private SessionEventBus bus;
+
+  @BeforeEach
+  void setUp() {
+    sessionDataStorage = new SessionDataStorageImpl();
+    bus = new SessionEventBus(8, 2);
+    sessionDataStorage.addSessionChangeListener(bus);
+  }
+
+  @Test
+  void publishSubmittedAndStopped() throws ChargingSessionException {
+    List<SessionEvent> received = new ArrayList<>();
+    SessionEventSubscription subscription = subscribe(null, received);
+    ChargeSession session = sessionDataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+    sessionDataStorage.stopSession(session.getId());
+    sessionDataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, 0, 10);
+
+    assertEquals(2, received.size());
+    assertEquals(1, received.get(0).getSequence());
+    assertEquals(bus.getEpoch() + "-1", received.get(0).getId());
+    assertEquals(session, received.get(0).getSession());
+    assertEquals(SessionEvent.Type.SUBMITTED, received.get(0).getType());
+    assertEquals(StatusEnum.IN_PROGRESS, received.get(0).getSession().getStatus());
+    assertEquals(2, received.get(1).getSequence());
+    assertEquals(SessionEvent.Type.STOPPED, received.get(1).getType());
+    assertEquals(StatusEnum.FINISHED, received.get(1).getSession().getStatus());
+    assertEquals(session.getId(), received.get(1).getSession().getId());
+    assertFalse(subscription.hasMissedEvents());
+  }
+
+  @Test
+  void resumeAfterLastEvent() {
+    for (int i = 0; i < 5; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    List<SessionEvent> received = new ArrayList<>();
+    subscribe(bus.getEpoch() + "-3", received);
+    assertEquals(2, received.size());
+    assertEquals(4, received.get(0).getSequence());
+    assertEquals("ABC-4", received.get(1).getSession().getStationId());
+
+    List<SessionEvent> live = new ArrayList<>();
+    subscribe(null, live);
+    assertTrue(live.isEmpty());
+  }
+
+  @Test
+  void missedEvents() {
+    for (int i = 0; i < 10; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    // only the last 8 events are retained
+    List<SessionEvent> received = new ArrayList<>();
+    SessionEventSubscription subscription = subscribe(bus.getEpoch() + "-1", received);
+    assertTrue(received.isEmpty());
+    assertTrue(subscription.hasMissedEvents());
+
+    // resuming after an event which has never been published
+    SessionEventSubscription future = subscribe(bus.getEpoch() + "-20", new ArrayList<>());
+    assertTrue(future.hasMissedEvents());
+  }
+
+  @Test
+  void eventsOfAnotherEpochAreNotResumed() {
+    sessionDataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    // a bus started after a restart counts from one again
+    SessionEventBus restarted = new SessionEventBus(8, 2);
+    assertNotEquals(bus.getEpoch(), restarted.getEpoch());
+    bus = restarted;
+    sessionDataStorage.addSessionChangeListener(bus);
+    for (int i = 0; i < 3; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    List<SessionEvent> received = new ArrayList<>();
+    assertTrue(subscribe("0123abc-1", received).hasMissedEvents());
+    assertTrue(subscribe("1", new ArrayList<>()).hasMissedEvents());
+    assertTrue(received.isEmpty());
+  }
+
+  @Test
+  void concurrentChangesArePublishedInSequence() throws Exception {
+    bus = new SessionEventBus(8192, 2);
+    sessionDataStorage = new ConcurrentSessionDataStorageImpl();
+    sessionDataStorage.addSessionChangeListener(bus);
+    List<SessionEvent> received = new ArrayList<>();
+    SessionEventSubscription subscription = subscribe(null, received);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    subscription.signal();
+    assertEquals(4_000, received.size());
+    for (int i = 0; i < received.size(); i++) {
+      assertEquals(i + 1, received.get(i).getSequence());
+    }
+    assertFalse(subscription.hasMissedEvents());
+  }
+
+  @Test
+  void slowSubscriberDoesNotBlockWriters() {
+    SessionEventSubscription subscription = bus.subscribe(null, Runnable::run, () -> {
+    });
+    for (int i = 0; i < 100; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    assertEquals(100, bus.getPublished());
+    assertNull(subscription.poll());
+    assertTrue(subscription.hasMissedEvents());
+  }
+
+  @Test
+  void maxSubscribers() {
+    SessionEventSubscription first = subscribe(null, new ArrayList<>());
+    assertNotNull(subscribe(null, new ArrayList<>()));
+    assertNull(subscribe(null, new ArrayList<>()));
+    first.close();
+    assertEquals(1, bus.getSubscriberCount());
+    assertNotNull(subscribe(null, new ArrayList<>()));
+  }
+
+  /**
+   * Subscribe with a delivery running on the publishing thread.
+   */
+  private SessionEventSubscription subscribe(String lastEventId, List<SessionEvent> received) {
+    SessionEventSubscription[] holder = new SessionEventSubscription[1];
+    holder[0] = bus.subscribe(lastEventId, Runnable::run, () -> {
+      SessionEvent event;
+      while ((event = holder[0].poll()) != null) {
+        received.add(event);
+      }
+    });
+    if (holder[0] != null) {
+      holder[0].signal();
+    }
+    return holder[0];
+  }
+}
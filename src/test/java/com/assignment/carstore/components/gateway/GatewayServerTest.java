@@ -0,0 +1,223 @@
+package com.assignment.carstore.components.gateway;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for GatewayServer class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class GatewayServerTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2020, 4, 20, 12, 0, 30, 123_000_000);
+
+  private ManualSessionClock clock;
+
+  private SessionDataStorage dataStorage;
+
+  private MeterRegistry meterRegistry;
+
+  private GatewayServer server;
+
+  private GatewayClient client;
+
+  @BeforeEach
+  public void init() throws IOException {
+    clock = new ManualSessionClock(NOW);
+    dataStorage = new SessionDataStorageImpl(clock);
+    meterRegistry = new SimpleMeterRegistry();
+    server = new GatewayServer(dataStorage, clock, SessionIdGenerator.RANDOM,
+            new InetSocketAddress("127.0.0.1", 0), 2, 1024, meterRegistry);
+    server.start();
+    client = new GatewayClient(new InetSocketAddress("127.0.0.1", server.getPort()));
+  }
+
+  @AfterEach
+  public void destroy() throws IOException {
+    client.close();
+    server.close();
+  }
+
+  @Test
+  void submitAndStopSession() throws ChargingSessionException, IOException {
+    ChargeSession submitted = client.submitSession("ABC-12345");
+    assertEquals("ABC-12345", submitted.getStationId());
+    assertEquals(NOW, submitted.getStartedAt());
+    assertEquals(StatusEnum.IN_PROGRESS, submitted.getStatus());
+    assertEquals(submitted, dataStorage.retrieveAllSessions().iterator().next());
+
+    clock.advance(Duration.ofSeconds(5));
+    ChargeSession stopped = client.stopSession(submitted.getId());
+    assertEquals(StatusEnum.FINISHED, stopped.getStatus());
+    assertEquals(NOW.plusSeconds(5), stopped.getStoppedAt());
+    assertEquals(stopped, dataStorage.retrieveAllSessions().iterator().next());
+
+    try {
+      client.stopSession(submitted.getId());
+      fail();
+    } catch (ChargingSessionException e) {
+      assertEquals(400, e.getStatus());
+      assertEquals(String.format("Charging session with id: %s has already been finished", submitted.getId()),
+              e.getReason());
+    }
+    CounterSummary summary = client.retrieveSummarySubmittedSessions(null);
+    CounterSummary expected = dataStorage.retrieveSummarySubmittedSessions();
+    assertEquals(expected.getTotalCount(), summary.getTotalCount());
+    assertEquals(expected.getStartedCount(), summary.getStartedCount());
+    assertEquals(1, summary.getStoppedCount());
+    assertEquals(expected.getTotalCount(),
+            client.retrieveSummarySubmittedSessions(SummaryWindow.parse("5m")).getTotalCount());
+    assertEquals(2, meterRegistry.counter("carstore.gateway.requests", "operation", "stop").count(), 0);
+    assertEquals(1, server.getConnectionCount());
+  }
+
+  @Test
+  void pipelinedRequestsAreAnsweredInOrder() throws IOException {
+    List<String> stationIds = new ArrayList<>();
+    for (int i = 0; i < 2_500; i++) {
+      stationIds.add("ABC-" + i);
+    }
+    List<BatchItemResult> submitted = client.submitSessions(stationIds);
+    assertEquals(2_500, submitted.size());
+    assertEquals(2_500, dataStorage.countSessions());
+
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < submitted.size(); i++) {
+      assertEquals(200, submitted.get(i).getStatus());
+      assertEquals(stationIds.get(i), submitted.get(i).getSession().getStationId());
+      ids.add(submitted.get(i).getSession().getId());
+    }
+    ids.add(1, ids.get(0));
+    ids.add(UUID.randomUUID());
+    List<BatchItemResult> stopped = client.stopSessions(ids);
+    assertEquals(2_502, stopped.size());
+    assertEquals(StatusEnum.FINISHED, stopped.get(0).getSession().getStatus());
+    assertEquals(400, stopped.get(1).getStatus());
+    assertEquals(ids.get(2), stopped.get(2).getSession().getId());
+    assertEquals(400, stopped.get(2_501).getStatus());
+    assertEquals(2_500, dataStorage.countFinishedSessions());
+  }
+
+  @Test
+  void retrieveSessionsPages() throws ChargingSessionException, IOException {
+    for (int i = 0; i < 5; i++) {
+      client.submitSession(i % 2 == 0 ? "ABC-1" : "ABC-2");
+      clock.advance(Duration.ofSeconds(1));
+    }
+    SessionQuery query = new SessionQuery("ABC-1", StatusEnum.IN_PROGRESS, NOW, null);
+    SessionPage page = client.retrieveSessions(query, null, 2);
+    assertEquals(dataStorage.retrieveSessions(query, null, 2).getSessions(), page.getSessions());
+    assertEquals(dataStorage.retrieveSessions(query, null, 2).getNextCursor(), page.getNextCursor());
+
+    page = client.retrieveSessions(query, page.getNextCursor(), 2);
+    assertEquals(1, page.getSessions().size());
+    assertEquals(NOW.plusSeconds(4), page.getSessions().get(0).getStartedAt());
+    assertNull(page.getNextCursor());
+
+    try {
+      client.retrieveSessions(SessionQuery.ALL, null, 0);
+      fail();
+    } catch (ChargingSessionException e) {
+      assertEquals("Parameter 'limit' must be between 1 and 1000", e.getReason());
+    }
+  }
+
+  @Test
+  void overLongStationIdsAreRejected() throws ChargingSessionException, IOException {
+    char[] longStationId = new char[ChargeSession.MAX_STATION_ID_LENGTH + 1];
+    Arrays.fill(longStationId, 'A');
+    List<BatchItemResult> submitted = client.submitSessions(Arrays.asList("ABC-1", new String(longStationId), "ABC-2"));
+    assertEquals(200, submitted.get(0).getStatus());
+    assertEquals(400, submitted.get(1).getStatus());
+    assertEquals("Field 'stationId' must not be longer than 255 characters", submitted.get(1).getMessage());
+    assertEquals("ABC-2", submitted.get(2).getSession().getStationId());
+    assertEquals(2, dataStorage.countSessions());
+
+    // a session stored by another path whose station id does not fit into a frame fails its own response only
+    char[] unencodable = new char[Short.MAX_VALUE + 1];
+    Arrays.fill(unencodable, 'A');
+    ChargeSession stored = dataStorage.submitSession(new ChargeSession(new String(unencodable), NOW.minusSeconds(1)));
+    List<BatchItemResult> stopped = client.stopSessions(Arrays.asList(submitted.get(0).getSession().getId(),
+            stored.getId(), submitted.get(2).getSession().getId()));
+    assertEquals(StatusEnum.FINISHED, stopped.get(0).getSession().getStatus());
+    assertEquals(500, stopped.get(1).getStatus());
+    assertEquals(StatusEnum.FINISHED, stopped.get(2).getSession().getStatus());
+    assertEquals(3, dataStorage.countFinishedSessions());
+
+    try {
+      client.retrieveSessions(SessionQuery.ALL, null, 10);
+      fail();
+    } catch (ChargingSessionException e) {
+      assertEquals(500, e.getStatus());
+    }
+    SessionPage page = client.retrieveSessions(new SessionQuery("ABC-1", null, null, null), null, 10);
+    assertEquals(1, page.getSessions().size());
+  }
+
+  @Test
+  void invalidFramesAreRejected() throws IOException {
+    try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+      // an unknown operation and a cut station id are answered, the connection is kept
+      ByteBuffer requests = ByteBuffer.allocate(64);
+      requests.putInt(5).putInt(7).put((byte) 42);
+      requests.putInt(7).putInt(8).put(GatewayFrames.SUBMIT).putShort((short) 10);
+      requests.flip();
+      channel.write(requests);
+      assertEquals("Operation 42 is unknown.", readError(channel, 7));
+      assertEquals("Frame is invalid.", readError(channel, 8));
+
+      // a frame above the maximum size closes the connection
+      channel.write((ByteBuffer) ByteBuffer.allocate(4).putInt(4096).flip());
+      assertTrue(channel.read(ByteBuffer.allocate(1)) < 0);
+    }
+    assertEquals(0, dataStorage.countSessions());
+  }
+
+  private static String readError(SocketChannel channel, int tag) throws IOException {
+    ByteBuffer length = ByteBuffer.allocate(4);
+    while (length.hasRemaining()) {
+      channel.read(length);
+    }
+    ByteBuffer frame = ByteBuffer.allocate(length.getInt(0));
+    while (frame.hasRemaining()) {
+      channel.read(frame);
+    }
+    frame.flip();
+    assertEquals(tag, frame.getInt());
+    assertEquals(GatewayFrames.ERROR, frame.get());
+    assertEquals(400, frame.getShort());
+    return GatewayFrames.getString(frame);
+  }
+}
@@ -0,0 +1,76 @@
+package com.assignment.carstore.components.id;
+
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.clock.SessionClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for TimeOrderedSessionIdGenerator class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class TimeOrderedSessionIdGeneratorTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2020, 4, 20, 12, 0, 30);
+
+  private final ManualSessionClock clock = new ManualSessionClock(NOW, ZoneOffset.UTC);
+
+  private final TimeOrderedSessionIdGenerator generator = new TimeOrderedSessionIdGenerator(clock);
+
+  @Test
+  void idsAreValidVersion7Uuids() {
+    UUID id = generator.nextId();
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+    assertEquals(id, UUID.fromString(id.toString()));
+    assertTrue(TimeOrderedSessionIdGenerator.isTimeOrdered(id));
+    assertEquals(clock.millis(), TimeOrderedSessionIdGenerator.millisOf(id));
+    assertTrue(!TimeOrderedSessionIdGenerator.isTimeOrdered(SessionIdGenerator.RANDOM.nextId()));
+  }
+
+  @Test
+  void idsOfThreadIncreaseWithinAndAcrossMilliseconds() {
+    UUID previous = generator.nextId();
+    // more ids than the counter holds in a millisecond
+    for (int i = 0; i < 10_000; i++) {
+      if (i % 5_000 == 0) {
+        clock.advance(Duration.ofMillis(1));
+      }
+      UUID id = generator.nextId();
+      assertTrue(previous.compareTo(id) < 0);
+      previous = id;
+    }
+    clock.set(NOW);
+    assertTrue(previous.compareTo(generator.nextId()) < 0);
+  }
+
+  @Test
+  void idsOfThreadsAreUnique() throws InterruptedException {
+    SessionIdGenerator system = new TimeOrderedSessionIdGenerator(SessionClock.SYSTEM);
+    Set<UUID> ids = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int thread = 0; thread < 4; thread++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 50_000; i++) {
+          ids.add(system.nextId());
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(200_000, ids.size());
+  }
+}
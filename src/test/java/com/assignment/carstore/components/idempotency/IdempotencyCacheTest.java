@@ -0,0 +1,147 @@
+package com.assignment.carstore.components.idempotency;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.controller.ChargeSessionRequests;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for IdempotencyCache class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class IdempotencyCacheTest {
+
+  private ManualSessionClock clock;
+
+  private SessionDataStorage dataStorage;
+
+  private MeterRegistry meterRegistry;
+
+  private IdempotencyCache cache;
+
+  private ChargeSessionRequests requests;
+
+  @BeforeEach
+  public void init() {
+    clock = new ManualSessionClock(LocalDateTime.of(2020, 4, 1, 12, 0));
+    dataStorage = new SessionDataStorageImpl(clock);
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new IdempotencyCache(Duration.ofMinutes(10), 2, meterRegistry, clock);
+    requests = new ChargeSessionRequests(dataStorage, new ObjectMapper(), null, clock, cache,
+            SessionIdGenerator.RANDOM);
+  }
+
+  @Test
+  void retryGetsOriginalSession() throws ChargingSessionException {
+    ChargeSession original = requests.submitSession(body("ABC-1"), "key-1");
+    ChargeSession retried = requests.submitSession(body("ABC-1"), "key-1");
+    ChargeSession other = requests.submitSession(body("ABC-1"), "key-2");
+    ChargeSession withoutKey = requests.submitSession(body("ABC-1"), null);
+
+    assertSame(original, retried);
+    assertNotEquals(original.getId(), other.getId());
+    assertNotEquals(original.getId(), withoutKey.getId());
+    assertEquals(3, dataStorage.countSessions());
+    assertEquals(1, meterRegistry.counter("carstore.idempotency.requests", "result", "hit").count(), 0);
+    assertEquals(2, meterRegistry.counter("carstore.idempotency.requests", "result", "miss").count(), 0);
+    assertEquals(2, meterRegistry.get("carstore.idempotency.size").gauge().value(), 0);
+  }
+
+  @Test
+  void keysExpireAndAreBounded() throws ChargingSessionException {
+    ChargeSession first = requests.submitSession(body("ABC-1"), "key-1");
+    clock.advance(Duration.ofMinutes(10));
+    assertNotEquals(first.getId(), requests.submitSession(body("ABC-1"), "key-1").getId());
+    assertEquals(1, cache.size());
+
+    ChargeSession second = requests.submitSession(body("ABC-2"), "key-2");
+    requests.submitSession(body("ABC-3"), "key-3");
+    assertEquals(2, cache.size());
+    assertSame(second, requests.submitSession(body("ABC-2"), "key-2"));
+    assertEquals(4, dataStorage.countSessions());
+  }
+
+  @Test
+  void rejectInvalidOrReusedKeys() throws ChargingSessionException {
+    requests.submitSession(body("ABC-1"), "key-1");
+    String[] invalid = {"", " ", new String(new char[IdempotencyCache.MAX_KEY_LENGTH + 1]).replace('\0', 'k')};
+    for (String key : invalid) {
+      try {
+        requests.submitSession(body("ABC-1"), key);
+        fail();
+      } catch (ChargingSessionException e) {
+        assertEquals("Header 'Idempotency-Key' is invalid.", e.getReason());
+      }
+    }
+    try {
+      requests.submitSession(body("ABC-2"), "key-1");
+      fail();
+    } catch (ChargingSessionException e) {
+      assertEquals(422, e.getStatus());
+    }
+    assertEquals(1, dataStorage.countSessions());
+  }
+
+  @Test
+  void concurrentRetriesWaitForOriginal() throws Exception {
+    CountDownLatch submitting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger submitted = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<ChargeSession> original = executor.submit(() -> cache.submit("key-1", "ABC-1", () -> {
+        submitting.countDown();
+        await(release);
+        submitted.incrementAndGet();
+        return dataStorage.submitSession(new ChargeSession("ABC-1", clock.now()));
+      }));
+      submitting.await();
+      Future<ChargeSession> retried = executor.submit(() -> cache.submit("key-1", "ABC-1", () -> {
+        submitted.incrementAndGet();
+        return dataStorage.submitSession(new ChargeSession("ABC-1", clock.now()));
+      }));
+      release.countDown();
+
+      assertSame(original.get(), retried.get());
+      assertEquals(1, submitted.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static ByteArrayInputStream body(String stationId) {
+    return new ByteArrayInputStream(("{\"stationId\": \"" + stationId + "\"}").getBytes(StandardCharsets.UTF_8));
+  }
+}
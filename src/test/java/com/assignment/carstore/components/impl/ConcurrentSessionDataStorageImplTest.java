@@ -0,0 +1,267 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.SessionChangeListener;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for ConcurrentSessionDataStorageImpl class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ConcurrentSessionDataStorageImplTest {
+
+  private SessionDataStorage dataStorage;
+
+  @BeforeEach
+  public void init() {
+    dataStorage = new ConcurrentSessionDataStorageImpl();
+  }
+
+  @AfterEach
+  public void destroy() {
+    dataStorage = null;
+  }
+
+  @Test
+  void submitSession() {
+    ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
+    assertEquals(session, dataStorage.submitSession(session));
+    assertEquals(1, dataStorage.retrieveAllSessions().size());
+    assertTrue(dataStorage.retrieveAllSessions().contains(session));
+  }
+
+  @Test
+  void stopSession() throws ChargingSessionException {
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+
+    ChargeSession stopped = dataStorage.stopSession(session.getId());
+
+    assertEquals(StatusEnum.FINISHED, stopped.getStatus());
+    assertNotNull(stopped.getStoppedAt());
+    Assertions.assertThrows(ChargingSessionException.class, () -> dataStorage.stopSession(session.getId()));
+    Assertions.assertThrows(ChargingSessionException.class, () -> dataStorage.stopSession(UUID.randomUUID()));
+  }
+
+  @Test
+  void retrieveSummarySubmittedSessions() throws ChargingSessionException {
+    dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now().minusSeconds(62)));
+    ChargeSession session2 = new ChargeSession("ABC-2", LocalDateTime.now().minusMinutes(2));
+    dataStorage.submitSession(session2);
+    dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now().minusSeconds(40)));
+    dataStorage.submitSession(new ChargeSession("ABC-4", LocalDateTime.now().minusSeconds(30)));
+    dataStorage.submitSession(new ChargeSession("ABC-5", LocalDateTime.now().minusSeconds(20)));
+    ChargeSession session6 = new ChargeSession("ABC-6", LocalDateTime.now().minusSeconds(10));
+    dataStorage.submitSession(session6);
+    dataStorage.stopSession(session2.getId());
+    dataStorage.stopSession(session6.getId());
+
+    assertEquals(4, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
+    assertEquals(2, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
+    assertEquals(6, dataStorage.retrieveSummarySubmittedSessions().getTotalCount());
+  }
+
+  @Test
+  void retrieveSessions() {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(3)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", now.minusSeconds(1)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(2)));
+    dataStorage.submitSession(new ChargeSession("ABC-4", now.plusSeconds(1)));
+
+    SessionQuery untilNow = SessionQuery.ALL.startedNotLaterThan(now);
+    SessionPage page = dataStorage.retrieveSessions(untilNow, null, 2);
+    assertEquals(Arrays.asList(session0, session1), page.getSessions());
+    assertEquals(SessionCursor.of(session1), page.getNextCursor());
+
+    page = dataStorage.retrieveSessions(untilNow, page.getNextCursor(), 2);
+    assertEquals(Collections.singletonList(session2), page.getSessions());
+    assertNull(page.getNextCursor());
+
+    assertEquals(4, dataStorage.retrieveSessions(SessionQuery.ALL, null, 10).getSessions().size());
+  }
+
+  @Test
+  void retrieveFilteredSessions() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(4)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(3)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(2)));
+    ChargeSession session3 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(1)));
+    session2 = dataStorage.stopSession(session2.getId());
+
+    assertEquals(Arrays.asList(session0, session2, session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", null, null, null), null, 10).getSessions());
+    assertEquals(Arrays.asList(session0, session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", StatusEnum.IN_PROGRESS, null, null), null, 10).getSessions());
+    assertEquals(Collections.singletonList(session2),
+            dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions());
+    assertEquals(Arrays.asList(session1, session2),
+            dataStorage.retrieveSessions(new SessionQuery(null, null, now.minusSeconds(3), now.minusSeconds(2)), null, 10).getSessions());
+    assertEquals(Collections.singletonList(session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", null, null, null), SessionCursor.of(session2), 10).getSessions());
+    assertTrue(dataStorage.retrieveSessions(new SessionQuery("ABC-3", null, null, null), null, 10).getSessions().isEmpty());
+
+    dataStorage.evictFinishedSessions(Long.MIN_VALUE, 0, 10);
+    assertTrue(dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions().isEmpty());
+  }
+
+  @Test
+  void submitAndStopSessions() throws ChargingSessionException {
+    ChargeSession session0 = new ChargeSession("ABC-1", LocalDateTime.now());
+    ChargeSession session1 = new ChargeSession("ABC-2", LocalDateTime.now());
+    ChargeSession session2 = new ChargeSession("ABC-3", LocalDateTime.now());
+    assertEquals(Arrays.asList(session0, session1, session2),
+            dataStorage.submitSessions(Arrays.asList(session0, session1, session2)));
+    dataStorage.stopSession(session1.getId());
+
+    List<BatchItemResult> results = dataStorage.stopSessions(
+            Arrays.asList(session2.getId(), session1.getId(), UUID.randomUUID(), session0.getId()));
+
+    assertEquals(4, results.size());
+    assertEquals(session2.getId(), results.get(0).getSession().getId());
+    assertEquals(StatusEnum.FINISHED, results.get(0).getSession().getStatus());
+    assertEquals(400, results.get(1).getStatus());
+    assertEquals(400, results.get(2).getStatus());
+    assertEquals(session0.getId(), results.get(3).getSession().getId());
+    assertEquals(3, dataStorage.countFinishedSessions());
+    assertEquals(3, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
+    assertEquals(3, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
+  }
+
+  @Test
+  void evictFinishedSessionsByCount() throws ChargingSessionException {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now()));
+    session0 = dataStorage.stopSession(session0.getId());
+    dataStorage.stopSession(session1.getId());
+    assertEquals(2, dataStorage.countFinishedSessions());
+
+    Collection<ChargeSession> evicted = dataStorage.evictFinishedSessions(Long.MIN_VALUE, 1, 100);
+
+    assertEquals(1, evicted.size());
+    assertTrue(evicted.contains(session0));
+    assertEquals(1, dataStorage.countFinishedSessions());
+    assertEquals(2, dataStorage.retrieveAllSessions().size());
+    assertTrue(dataStorage.retrieveAllSessions().contains(session2));
+  }
+
+  @Test
+  void evictFinishedSessionsByAge() throws ChargingSessionException {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    dataStorage.stopSession(session0.getId());
+    dataStorage.stopSession(session1.getId());
+
+    assertEquals(0, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() - 60_000, Long.MAX_VALUE, 100).size());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, Long.MAX_VALUE, 1).size());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, Long.MAX_VALUE, 100).size());
+    assertEquals(0, dataStorage.countFinishedSessions());
+    assertEquals(0, dataStorage.retrieveAllSessions().size());
+  }
+
+  @Test
+  void listenersAreNotifiedBeforeChangesAreVisible() throws ChargingSessionException {
+    List<String> seen = new ArrayList<>();
+    dataStorage.addSessionChangeListener(new SessionChangeListener() {
+      @Override
+      public void sessionSubmitted(ChargeSession session) {
+        seen.add("submitted " + dataStorage.retrieveSessions(SessionQuery.ALL, null, 10).getSessions().size());
+      }
+
+      @Override
+      public void sessionStopped(ChargeSession session) {
+        seen.add("stopped " + dataStorage.retrieveSessions(
+                new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions().size());
+      }
+
+      @Override
+      public void sessionEvicted(ChargeSession session) {
+        seen.add("evicted " + dataStorage.retrieveAllSessions().size());
+      }
+    });
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    dataStorage.stopSession(session.getId());
+    dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, 0, 10);
+
+    assertEquals(Arrays.asList("submitted 0", "stopped 0", "evicted 1"), seen);
+  }
+
+  @Test
+  void concurrentStopSession() throws Exception {
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+    AtomicInteger stopped = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        tasks.add(() -> {
+          try {
+            dataStorage.stopSession(session.getId());
+            stopped.incrementAndGet();
+          } catch (ChargingSessionException e) {
+            // the session has already been stopped by another thread
+          }
+          return null;
+        });
+      }
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, stopped.get());
+    assertEquals(1, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
+  }
+
+  @Test
+  void concurrentSubmitSession() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        tasks.add(() -> {
+          for (int j = 0; j < 1000; j++) {
+            dataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+          }
+          return null;
+        });
+      }
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(8000, dataStorage.retrieveAllSessions().size());
+    assertEquals(8000, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
+  }
+}
@@ -0,0 +1,251 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.BatchItemResult;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for PackedSessionDataStorageImpl class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class PackedSessionDataStorageImplTest {
+
+  private SessionDataStorage dataStorage;
+
+  @BeforeEach
+  public void init() {
+    dataStorage = new PackedSessionDataStorageImpl();
+  }
+
+  @AfterEach
+  public void destroy() {
+    dataStorage = null;
+  }
+
+  @Test
+  void submitSession() {
+    ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
+    assertEquals(session, dataStorage.submitSession(session));
+    assertEquals(1, dataStorage.retrieveAllSessions().size());
+    assertTrue(dataStorage.retrieveAllSessions().contains(session));
+  }
+
+  @Test
+  void stopSession() throws ChargingSessionException {
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+
+    ChargeSession stopped = dataStorage.stopSession(session.getId());
+
+    assertEquals(session.getId(), stopped.getId());
+    assertEquals(session.getStartedAt(), stopped.getStartedAt());
+    assertEquals(StatusEnum.FINISHED, stopped.getStatus());
+    assertNotNull(stopped.getStoppedAt());
+    assertEquals(Collections.singletonList(stopped), new ArrayList<>(dataStorage.retrieveAllSessions()));
+    Assertions.assertThrows(ChargingSessionException.class, () -> dataStorage.stopSession(session.getId()));
+    Assertions.assertThrows(ChargingSessionException.class, () -> dataStorage.stopSession(UUID.randomUUID()));
+  }
+
+  @Test
+  void retrieveSummarySubmittedSessions() throws ChargingSessionException {
+    dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now().minusSeconds(62)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now().minusMinutes(2)));
+    dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now().minusSeconds(40)));
+    ChargeSession session4 = dataStorage.submitSession(new ChargeSession("ABC-4", LocalDateTime.now().minusSeconds(30)));
+    dataStorage.stopSession(session2.getId());
+    dataStorage.stopSession(session4.getId());
+
+    assertEquals(2, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
+    assertEquals(2, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
+    assertEquals(4, dataStorage.retrieveSummarySubmittedSessions().getTotalCount());
+  }
+
+  @Test
+  void retrieveSessions() {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(3)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", now.minusSeconds(1)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(2)));
+    dataStorage.submitSession(new ChargeSession("ABC-4", now.plusSeconds(1)));
+
+    SessionQuery untilNow = SessionQuery.ALL.startedNotLaterThan(now);
+    SessionPage page = dataStorage.retrieveSessions(untilNow, null, 2);
+    assertEquals(Arrays.asList(session0, session1), page.getSessions());
+    assertEquals(SessionCursor.of(session1), page.getNextCursor());
+
+    page = dataStorage.retrieveSessions(untilNow, page.getNextCursor(), 2);
+    assertEquals(Collections.singletonList(session2), page.getSessions());
+    assertNull(page.getNextCursor());
+
+    assertEquals(4, dataStorage.retrieveSessions(SessionQuery.ALL, null, 10).getSessions().size());
+  }
+
+  @Test
+  void retrieveFilteredSessions() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(4)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(3)));
+    dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(2)));
+    ChargeSession session3 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(1)));
+    ChargeSession session2 = dataStorage.stopSession(
+            dataStorage.retrieveSessions(SessionQuery.ALL, SessionCursor.of(session1), 1).getSessions().get(0).getId());
+
+    assertEquals(Arrays.asList(session0, session2, session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", null, null, null), null, 10).getSessions());
+    assertEquals(Arrays.asList(session0, session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", StatusEnum.IN_PROGRESS, null, null), null, 10).getSessions());
+    assertEquals(Collections.singletonList(session2),
+            dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions());
+    assertEquals(Arrays.asList(session1, session2),
+            dataStorage.retrieveSessions(new SessionQuery(null, null, now.minusSeconds(3), now.minusSeconds(2)), null, 10).getSessions());
+    assertEquals(Collections.singletonList(session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", null, null, null), SessionCursor.of(session2), 10).getSessions());
+    assertTrue(dataStorage.retrieveSessions(new SessionQuery("ABC-3", null, null, null), null, 10).getSessions().isEmpty());
+
+    dataStorage.evictFinishedSessions(Long.MIN_VALUE, 0, 10);
+    assertTrue(dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions().isEmpty());
+  }
+
+  @Test
+  void submitAndStopSessions() throws ChargingSessionException {
+    ChargeSession session0 = new ChargeSession("ABC-1", LocalDateTime.now());
+    ChargeSession session1 = new ChargeSession("ABC-2", LocalDateTime.now());
+    ChargeSession session2 = new ChargeSession("ABC-3", LocalDateTime.now());
+    assertEquals(Arrays.asList(session0, session1, session2),
+            dataStorage.submitSessions(Arrays.asList(session0, session1, session2)));
+    dataStorage.stopSession(session1.getId());
+
+    List<BatchItemResult> results = dataStorage.stopSessions(
+            Arrays.asList(session2.getId(), session1.getId(), UUID.randomUUID(), session0.getId()));
+
+    assertEquals(4, results.size());
+    assertEquals(session2.getId(), results.get(0).getSession().getId());
+    assertEquals(StatusEnum.FINISHED, results.get(0).getSession().getStatus());
+    assertEquals(400, results.get(1).getStatus());
+    assertEquals(400, results.get(2).getStatus());
+    assertEquals(session0.getId(), results.get(3).getSession().getId());
+    assertEquals(3, dataStorage.countFinishedSessions());
+    assertEquals(3, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
+    assertEquals(3, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
+  }
+
+  @Test
+  void evictFinishedSessionsByCount() throws ChargingSessionException {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now()));
+    ChargeSession stopped0 = dataStorage.stopSession(session0.getId());
+    dataStorage.stopSession(session1.getId());
+    assertEquals(2, dataStorage.countFinishedSessions());
+
+    Collection<ChargeSession> evicted = dataStorage.evictFinishedSessions(Long.MIN_VALUE, 1, 100);
+
+    assertEquals(Collections.singletonList(stopped0), evicted);
+    assertEquals(1, dataStorage.countFinishedSessions());
+    assertEquals(2, dataStorage.retrieveAllSessions().size());
+    assertTrue(dataStorage.retrieveAllSessions().contains(session2));
+  }
+
+  @Test
+  void evictFinishedSessionsByAge() throws ChargingSessionException {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    dataStorage.stopSession(session0.getId());
+    dataStorage.stopSession(session1.getId());
+
+    assertEquals(0, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() - 60_000, Long.MAX_VALUE, 100).size());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, Long.MAX_VALUE, 1).size());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, Long.MAX_VALUE, 100).size());
+    assertEquals(0, dataStorage.countFinishedSessions());
+    assertEquals(0, dataStorage.retrieveAllSessions().size());
+  }
+
+  @Test
+  void reuseEvictedSlots() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    List<ChargeSession> sessions = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      sessions.add(dataStorage.submitSession(new ChargeSession("ABC-" + i % 7, now.plusNanos(i * 1000L))));
+    }
+    for (int i = 0; i < sessions.size(); i += 2) {
+      dataStorage.stopSession(sessions.get(i).getId());
+    }
+    assertEquals(10000, dataStorage.evictFinishedSessions(Long.MAX_VALUE, 0, Integer.MAX_VALUE).size());
+    for (int i = 0; i < 5000; i++) {
+      dataStorage.submitSession(new ChargeSession("ABC-7", now.minusNanos(i * 1000L)));
+    }
+
+    assertEquals(15000, dataStorage.retrieveAllSessions().size());
+    for (int i = 1; i < sessions.size(); i += 2) {
+      assertEquals(sessions.get(i).getId(), dataStorage.stopSession(sessions.get(i).getId()).getId());
+    }
+    for (int i = 0; i < sessions.size(); i += 2) {
+      UUID id = sessions.get(i).getId();
+      Assertions.assertThrows(ChargingSessionException.class, () -> dataStorage.stopSession(id));
+    }
+    List<ChargeSession> all = new ArrayList<>(dataStorage.retrieveAllSessions());
+    for (int i = 1; i < all.size(); i++) {
+      assertTrue(SessionCursor.of(all.get(i - 1)).compareTo(SessionCursor.of(all.get(i))) < 0);
+    }
+  }
+
+  @Test
+  void stationAndStatusOrdersFollowChanges() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    List<ChargeSession> sessions = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      // every tenth session arrives out of the order of the start time
+      sessions.add(dataStorage.submitSession(new ChargeSession("ABC-" + i % 3,
+              now.plusNanos((i % 10 == 0 ? -i : i) * 1000L))));
+    }
+    for (int i = 0; i < sessions.size(); i += 3) {
+      dataStorage.stopSession(sessions.get(i).getId());
+    }
+    dataStorage.evictFinishedSessions(Long.MAX_VALUE, 100, Integer.MAX_VALUE);
+    for (int i = 0; i < 1000; i++) {
+      dataStorage.submitSession(new ChargeSession("ABC-" + i % 4, now.minusNanos(i * 1000L)));
+    }
+
+    List<ChargeSession> all = new ArrayList<>(dataStorage.retrieveAllSessions());
+    for (String stationId : Arrays.asList(null, "ABC-0", "ABC-3")) {
+      for (StatusEnum status : Arrays.asList(null, StatusEnum.IN_PROGRESS, StatusEnum.FINISHED)) {
+        List<ChargeSession> expected = new ArrayList<>();
+        for (ChargeSession session : all) {
+          if ((stationId == null || stationId.equals(session.getStationId()))
+                  && (status == null || status == session.getStatus())) {
+            expected.add(session);
+          }
+        }
+        SessionQuery query = new SessionQuery(stationId, status, null, null);
+        List<ChargeSession> retrieved = new ArrayList<>();
+        SessionPage page = dataStorage.retrieveSessions(query, null, 700);
+        retrieved.addAll(page.getSessions());
+        while (page.getNextCursor() != null) {
+          page = dataStorage.retrieveSessions(query, page.getNextCursor(), 700);
+          retrieved.addAll(page.getSessions());
+        }
+        assertEquals(expected, retrieved);
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.assignment.carstore.components.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for PersistentTreeMap class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class PersistentTreeMapTest {
+
+  @Test
+  void putAndRemove() {
+    PersistentTreeMap<Integer, String> empty = PersistentTreeMap.empty(Comparator.naturalOrder());
+    PersistentTreeMap<Integer, String> map = empty.put(2, "b").put(1, "a").put(3, "c");
+    PersistentTreeMap<Integer, String> replaced = map.put(2, "B");
+    PersistentTreeMap<Integer, String> removed = replaced.remove(1);
+
+    assertTrue(empty.isEmpty());
+    assertEquals(3, map.size());
+    assertEquals("b", map.get(2));
+    assertEquals(3, replaced.size());
+    assertEquals("B", replaced.get(2));
+    assertEquals(2, removed.size());
+    assertNull(removed.get(1));
+    assertSame(removed, removed.remove(4));
+    // the older maps are not changed
+    assertEquals("a", map.get(1));
+    assertEquals("b", map.get(2));
+  }
+
+  @Test
+  void entriesInRange() {
+    PersistentTreeMap<Integer, String> map = PersistentTreeMap.empty(Comparator.naturalOrder());
+    for (int i = 0; i < 10; i++) {
+      map = map.put(i, String.valueOf(i));
+    }
+    assertEquals(keys(3, 4, 5), keys(map.entries(3, true, 5, true)));
+    assertEquals(keys(4), keys(map.entries(3, false, 5, false)));
+    assertEquals(keys(8, 9), keys(map.entries(8, true, null, true)));
+    assertEquals(keys(0, 1), keys(map.entries(null, true, 2, false)));
+    assertEquals(keys(), keys(map.entries(6, true, 5, true)));
+  }
+
+  @Test
+  void sameAsTreeMap() {
+    Random random = new Random(1);
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty(Comparator.naturalOrder());
+    for (int i = 0; i < 20_000; i++) {
+      int key = random.nextInt(1_000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.remove(key);
+      } else {
+        expected.put(key, i);
+        map = map.put(key, i);
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    Iterator<Map.Entry<Integer, Integer>> entries = map.entries();
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      Map.Entry<Integer, Integer> actual = entries.next();
+      assertEquals(entry.getKey(), actual.getKey());
+      assertEquals(entry.getValue(), actual.getValue());
+    }
+    assertFalse(entries.hasNext());
+  }
+
+  private static List<Integer> keys(Integer... keys) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer key : keys) {
+      list.add(key);
+    }
+    return list;
+  }
+
+  private static List<Integer> keys(Iterator<Map.Entry<Integer, String>> entries) {
+    List<Integer> list = new ArrayList<>();
+    entries.forEachRemaining(entry -> list.add(entry.getKey()));
+    return list;
+  }
+}
@@ -1,8 +1,13 @@
 package com.assignment.carstore.components.impl;
 
-import com.assignment.carstore.components.DataStorage;
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.BatchItemResult;
 import com.assignment.carstore.domain.ChargeSession;
-import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
 import com.assignment.carstore.domain.StatusEnum;
 import com.assignment.carstore.exceptions.ChargingSessionException;
 import org.junit.jupiter.api.AfterEach;
@@ -10,8 +15,20 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -22,7 +39,7 @@ import static org.junit.Assert.*;
  */
 class SessionDataStorageImplTest {
 
-  private DataStorage<UUID, ChargeSession, CounterSummary> dataStorage;
+  private SessionDataStorage dataStorage;
 
   @BeforeEach
   public void init() {
@@ -44,7 +61,7 @@ class SessionDataStorageImplTest {
 
   @Test
   void stopSession() throws ChargingSessionException {
-    ChargeSession session0 = new ChargeSession("ABC-12345", LocalDateTime.now());
+    ChargeSession session0 = new ChargeSession("ABC-12345", LocalDateTime.now().minusSeconds(1));
     ChargeSession session1 = new ChargeSession("ABC-12345", LocalDateTime.now());
     UUID id0 = dataStorage.submitSession(session0).getId();
     dataStorage.submitSession(session1);
@@ -67,7 +84,7 @@ class SessionDataStorageImplTest {
 
   @Test
   void retrieveSummarySubmittedSessions() throws ChargingSessionException {
-    dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now().minusMinutes(1)));
+    dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now().minusSeconds(62)));
     ChargeSession session2 = new ChargeSession("ABC-2", LocalDateTime.now().minusMinutes(2));
     dataStorage.submitSession(session2);
     dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now().minusSeconds(40)));
@@ -75,17 +92,235 @@ class SessionDataStorageImplTest {
     dataStorage.submitSession(new ChargeSession("ABC-5", LocalDateTime.now().minusSeconds(20)));
     ChargeSession session6 = new ChargeSession("ABC-6", LocalDateTime.now().minusSeconds(10));
     dataStorage.submitSession(session6);
-    dataStorage.stopSession(session2.getId());
-    dataStorage.stopSession(session6.getId());
-
-    assertEquals(StatusEnum.FINISHED, session2.getStatus());
-    assertEquals(StatusEnum.FINISHED, session6.getStatus());
+    assertEquals(StatusEnum.FINISHED, dataStorage.stopSession(session2.getId()).getStatus());
+    assertEquals(StatusEnum.FINISHED, dataStorage.stopSession(session6.getId()).getStatus());
+    assertEquals(StatusEnum.IN_PROGRESS, session2.getStatus());
 
     assertEquals(4, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
     assertEquals(2, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
     assertEquals(6, dataStorage.retrieveSummarySubmittedSessions().getTotalCount());
   }
 
+  @Test
+  void retrieveSessions() {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(3)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", now.minusSeconds(1)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(2)));
+    dataStorage.submitSession(new ChargeSession("ABC-4", now.plusSeconds(1)));
+
+    SessionQuery untilNow = SessionQuery.ALL.startedNotLaterThan(now);
+    SessionPage page = dataStorage.retrieveSessions(untilNow, null, 2);
+    assertEquals(Arrays.asList(session0, session1), page.getSessions());
+    assertEquals(0, SessionCursor.of(session1).compareTo(page.getNextCursor()));
+
+    page = dataStorage.retrieveSessions(untilNow, page.getNextCursor(), 2);
+    assertEquals(Collections.singletonList(session2), page.getSessions());
+    assertNull(page.getNextCursor());
+
+    assertEquals(4, dataStorage.retrieveSessions(SessionQuery.ALL, null, 10).getSessions().size());
+  }
+
+  @Test
+  void pagesAreReadFromTheSnapshotOfTheFirstOne() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(8)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(6)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", now.minusSeconds(4)));
+    ChargeSession session3 = dataStorage.submitSession(new ChargeSession("ABC-4", now.minusSeconds(2)));
+    SessionPage page = dataStorage.retrieveSessions(SessionQuery.ALL, null, 2);
+    assertEquals(Arrays.asList(session0, session1), page.getSessions());
+
+    dataStorage.stopSession(session3.getId());
+    dataStorage.stopSession(session2.getId());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, 0, 1).size());
+    dataStorage.submitSession(new ChargeSession("ABC-5", now.minusSeconds(5)));
+
+    // the next page is read from the snapshot of the first one
+    SessionPage next = dataStorage.retrieveSessions(SessionQuery.ALL, page.getNextCursor(), 2);
+    assertEquals(Arrays.asList(session2, session3), next.getSessions());
+    assertEquals(StatusEnum.IN_PROGRESS, next.getSessions().get(0).getStatus());
+    assertNull(next.getNextCursor());
+
+    // a cursor which is not pinned reads the current sessions
+    next = dataStorage.retrieveSessions(SessionQuery.ALL, SessionCursor.of(session1), 10);
+    assertEquals(2, next.getSessions().size());
+    assertEquals("ABC-3", next.getSessions().get(1).getStationId());
+    assertEquals(StatusEnum.FINISHED, next.getSessions().get(1).getStatus());
+  }
+
+  @Test
+  void pinnedSnapshotExpires() {
+    ManualSessionClock clock = new ManualSessionClock(LocalDateTime.now());
+    dataStorage = new SessionDataStorageImpl(clock);
+    dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now().minusSeconds(2)));
+    dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now().minusSeconds(1)));
+    SessionPage page = dataStorage.retrieveSessions(SessionQuery.ALL, null, 1);
+
+    clock.advance(Duration.ofMillis(PinnedSnapshots.TTL_MILLIS + 1));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> dataStorage.retrieveSessions(SessionQuery.ALL, page.getNextCursor(), 1));
+  }
+
+  @Test
+  void retrieveFilteredSessions() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(4)));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", now.minusSeconds(3)));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(2)));
+    ChargeSession session3 = dataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(1)));
+    session2 = dataStorage.stopSession(session2.getId());
+
+    assertEquals(Arrays.asList(session0, session2, session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", null, null, null), null, 10).getSessions());
+    assertEquals(Arrays.asList(session0, session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", StatusEnum.IN_PROGRESS, null, null), null, 10).getSessions());
+    assertEquals(Collections.singletonList(session2),
+            dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions());
+    assertEquals(Arrays.asList(session1, session2),
+            dataStorage.retrieveSessions(new SessionQuery(null, null, now.minusSeconds(3), now.minusSeconds(2)), null, 10).getSessions());
+    assertEquals(Collections.singletonList(session3),
+            dataStorage.retrieveSessions(new SessionQuery("ABC-1", null, null, null), SessionCursor.of(session2), 10).getSessions());
+    assertTrue(dataStorage.retrieveSessions(new SessionQuery("ABC-3", null, null, null), null, 10).getSessions().isEmpty());
+
+    dataStorage.evictFinishedSessions(Long.MIN_VALUE, 0, 10);
+    assertTrue(dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 10).getSessions().isEmpty());
+  }
+
+  @Test
+  void submitAndStopSessions() throws ChargingSessionException {
+    ChargeSession session0 = new ChargeSession("ABC-1", LocalDateTime.now());
+    ChargeSession session1 = new ChargeSession("ABC-2", LocalDateTime.now());
+    ChargeSession session2 = new ChargeSession("ABC-3", LocalDateTime.now());
+    assertEquals(Arrays.asList(session0, session1, session2),
+            dataStorage.submitSessions(Arrays.asList(session0, session1, session2)));
+    dataStorage.stopSession(session1.getId());
+
+    List<BatchItemResult> results = dataStorage.stopSessions(
+            Arrays.asList(session2.getId(), session1.getId(), UUID.randomUUID(), session0.getId()));
+
+    assertEquals(4, results.size());
+    assertEquals(session2.getId(), results.get(0).getSession().getId());
+    assertEquals(StatusEnum.FINISHED, results.get(0).getSession().getStatus());
+    assertEquals(400, results.get(1).getStatus());
+    assertEquals(400, results.get(2).getStatus());
+    assertEquals(session0.getId(), results.get(3).getSession().getId());
+    assertEquals(3, dataStorage.countFinishedSessions());
+    assertEquals(3, dataStorage.retrieveSummarySubmittedSessions().getStartedCount());
+    assertEquals(3, dataStorage.retrieveSummarySubmittedSessions().getStoppedCount());
+  }
+
+  @Test
+  void evictFinishedSessionsByCount() throws ChargingSessionException {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now()));
+    session0 = dataStorage.stopSession(session0.getId());
+    dataStorage.stopSession(session1.getId());
+    assertEquals(2, dataStorage.countFinishedSessions());
+
+    Collection<ChargeSession> evicted = dataStorage.evictFinishedSessions(Long.MIN_VALUE, 1, 100);
+
+    assertEquals(1, evicted.size());
+    assertTrue(evicted.contains(session0));
+    assertEquals(1, dataStorage.countFinishedSessions());
+    assertEquals(2, dataStorage.retrieveAllSessions().size());
+    assertTrue(dataStorage.retrieveAllSessions().contains(session2));
+  }
+
+  @Test
+  void evictFinishedSessionsByAge() throws ChargingSessionException {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    dataStorage.stopSession(session0.getId());
+    dataStorage.stopSession(session1.getId());
+
+    assertEquals(0, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() - 60_000, Long.MAX_VALUE, 100).size());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, Long.MAX_VALUE, 1).size());
+    assertEquals(1, dataStorage.evictFinishedSessions(SessionClock.SYSTEM.millis() + 60_000, Long.MAX_VALUE, 100).size());
+    assertEquals(0, dataStorage.countFinishedSessions());
+    assertEquals(0, dataStorage.retrieveAllSessions().size());
+  }
+
+  @Test
+  void retrievedSessionsAreSnapshots() throws Exception {
+    ChargeSession session0 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    Collection<ChargeSession> before = dataStorage.retrieveAllSessions();
+    ChargeSession stopped = dataStorage.stopSession(session0.getId());
+
+    assertNotSame(session0, stopped);
+    assertEquals(StatusEnum.IN_PROGRESS, session0.getStatus());
+    assertNull(session0.getStoppedAt());
+    assertEquals(StatusEnum.IN_PROGRESS, before.iterator().next().getStatus());
+    assertEquals(StatusEnum.FINISHED, dataStorage.retrieveAllSessions().iterator().next().getStatus());
+
+    // readers copying the sessions while they are stopped see either version, never a half-applied stop
+    for (int i = 0; i < 2_000; i++) {
+      dataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> torn = executor.submit(() -> {
+        int count = 0;
+        while (dataStorage.countFinishedSessions() < 2_001) {
+          for (ChargeSession session : dataStorage.retrieveAllSessions()) {
+            if ((session.getStatus() == StatusEnum.FINISHED) != (session.getStoppedAt() != null)) {
+              count++;
+            }
+          }
+        }
+        return count;
+      });
+      for (ChargeSession session : dataStorage.retrieveAllSessions()) {
+        if (session.getStatus() == StatusEnum.IN_PROGRESS) {
+          dataStorage.stopSession(session.getId());
+        }
+      }
+      assertEquals(0, (int) torn.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void batchesAreNeverSeenInPart() throws Exception {
+    List<ChargeSession> sessions = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      sessions.add(new ChargeSession("ABC-" + i % 10, LocalDateTime.now().minusSeconds(i)));
+    }
+    dataStorage.submitSessions(sessions);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // every read sees either all or none of the sessions of a batch stopped, and every session once
+      Future<Integer> torn = executor.submit(() -> {
+        int count = 0;
+        while (dataStorage.countFinishedSessions() < 2_000) {
+          Set<UUID> ids = new HashSet<>();
+          int finished = 0;
+          for (ChargeSession session : dataStorage.retrieveAllSessions()) {
+            ids.add(session.getId());
+            finished += session.getStatus() == StatusEnum.FINISHED ? 1 : 0;
+          }
+          SessionPage page = dataStorage.retrieveSessions(new SessionQuery(null, StatusEnum.FINISHED, null, null), null, 2_000);
+          if (ids.size() != 2_000 || finished % 100 != 0 || page.getSessions().size() % 100 != 0) {
+            count++;
+          }
+        }
+        return count;
+      });
+      for (int i = 0; i < sessions.size(); i += 100) {
+        List<UUID> ids = new ArrayList<>();
+        for (ChargeSession session : sessions.subList(i, i + 100)) {
+          ids.add(session.getId());
+        }
+        dataStorage.stopSessions(ids);
+      }
+      assertEquals(0, (int) torn.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   void sessionValidationNullSession() {
     Assertions.assertThrows(ChargingSessionException.class, () -> {
@@ -97,17 +332,10 @@ class SessionDataStorageImplTest {
   void sessionValidationFinishedSession() throws ChargingSessionException {
     ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
     assertEquals(session, dataStorage.submitSession(session));
-    dataStorage.stopSession(session.getId());
+    ChargeSession stopped = dataStorage.stopSession(session.getId());
 
     Assertions.assertThrows(ChargingSessionException.class, () -> {
-      SessionDataStorageImpl.sessionValidation(session.getId(), session);
+      SessionDataStorageImpl.sessionValidation(stopped.getId(), stopped);
     });
   }
-
-  @Test
-  void isChangedLessThanMinuteAgo() {
-    assertFalse(SessionDataStorageImpl.isChangedLessThanMinuteAgo(LocalDateTime.now(), LocalDateTime.now().minusMinutes(1)));
-    assertFalse(SessionDataStorageImpl.isChangedLessThanMinuteAgo(LocalDateTime.now(), LocalDateTime.now().minusMinutes(2)));
-    assertTrue(SessionDataStorageImpl.isChangedLessThanMinuteAgo(LocalDateTime.now(), LocalDateTime.now().minusSeconds(20)));
-  }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.assignment.carstore.components.impl;
+
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for SessionIndex class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SessionIndexTest {
+
+  @Test
+  void stationIsDroppedWithItsLastSession() {
+    SessionIndex index = SessionIndex.concurrent();
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession session0 = new ChargeSession("ABC-1", now).finish(now);
+    ChargeSession session1 = new ChargeSession("ABC-1", now.plusSeconds(1));
+    ChargeSession session2 = new ChargeSession("ABC-2", now).finish(now);
+    index.add(session0);
+    index.add(session1);
+    index.add(session2);
+    assertEquals(2, index.countStations());
+
+    index.remove(session2);
+    assertEquals(1, index.countStations());
+    index.remove(session0);
+    assertEquals(1, index.countStations());
+    index.remove(session1);
+    assertEquals(0, index.countStations());
+    assertEquals(0, index.page(new SessionQuery("ABC-1", null, null, null), (SessionCursor) null, 10).getSessions().size());
+
+    index.add(session0);
+    assertEquals(1, index.page(new SessionQuery("ABC-1", null, null, null), (SessionCursor) null, 10).getSessions().size());
+  }
+}
@@ -0,0 +1,84 @@
+package com.assignment.carstore.components.metrics;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.impl.ConcurrentSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.PackedSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for StorageMetrics class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class StorageMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void lockingStorageMetrics() throws ChargingSessionException {
+    SessionDataStorage storage = timed(new SessionDataStorageImpl());
+    exercise(storage);
+    assertOperations();
+    // submit, stop and the failed stop take the lock, the count reads the published size
+    assertEquals(3, registry.get("carstore.storage.lock.hold").timer().count());
+    assertEquals(3, registry.get("carstore.storage.lock.wait").timer().count());
+  }
+
+  @Test
+  void packedStorageMetrics() throws ChargingSessionException {
+    SessionDataStorage storage = timed(new PackedSessionDataStorageImpl());
+    exercise(storage);
+    assertOperations();
+    assertEquals(3, registry.get("carstore.storage.lock.hold").timer().count());
+    assertTrue(registry.get("carstore.storage.lock.wait").timer().count() >= 3);
+  }
+
+  @Test
+  void concurrentStorageMetrics() throws ChargingSessionException {
+    SessionDataStorage storage = timed(new ConcurrentSessionDataStorageImpl());
+    exercise(storage);
+    assertOperations();
+    assertEquals(0, registry.get("carstore.storage.lock.hold").timer().count());
+  }
+
+  private SessionDataStorage timed(SessionDataStorage storage) {
+    StorageMetrics metrics = new StorageMetrics(true);
+    metrics.bindTo(registry);
+    storage.setStorageProbe(metrics);
+    return new TimedSessionDataStorage(storage, metrics);
+  }
+
+  private void exercise(SessionDataStorage storage) throws ChargingSessionException {
+    ChargeSession session = storage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+    storage.stopSession(session.getId());
+    try {
+      storage.stopSession(UUID.randomUUID());
+      fail();
+    } catch (ChargingSessionException e) {
+      // failed operations are measured too
+    }
+    storage.retrieveSummarySubmittedSessions();
+    assertEquals(1, storage.countSessions());
+  }
+
+  private void assertOperations() {
+    assertEquals(1, registry.get("carstore.storage.operation").tag("operation", "submit").timer().count());
+    assertEquals(2, registry.get("carstore.storage.operation").tag("operation", "stop").timer().count());
+    assertEquals(1, registry.get("carstore.storage.operation").tag("operation", "summary").timer().count());
+    assertEquals(0, registry.get("carstore.storage.operation").tag("operation", "evict").timer().count());
+    assertEquals(SummaryWindow.ONE_MINUTE.getUnits() + 1,
+            registry.get("carstore.storage.summary.scanned").summary().totalAmount(), 0);
+  }
+}
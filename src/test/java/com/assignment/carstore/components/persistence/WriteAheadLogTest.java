@@ -0,0 +1,203 @@
+package com.assignment.carstore.components.persistence;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.impl.ConcurrentSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for WriteAheadLog class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class WriteAheadLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void recoverSessions() throws Exception {
+    SessionDataStorage dataStorage = new SessionDataStorageImpl();
+    WriteAheadLog log = open(dataStorage, FsyncPolicy.ALWAYS);
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    ChargeSession session3 = dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now()));
+    dataStorage.stopSession(session2.getId());
+    session3 = dataStorage.stopSession(session3.getId());
+    dataStorage.evictFinishedSessions(Long.MIN_VALUE, 1, 10);
+    log.close();
+
+    SessionDataStorage recovered = new SessionDataStorageImpl();
+    open(recovered, FsyncPolicy.ALWAYS).close();
+
+    assertEquals(2, recovered.retrieveAllSessions().size());
+    assertEquals(1, recovered.countFinishedSessions());
+    assertSession(session1, recovered);
+    assertSession(session3, recovered);
+  }
+
+  @Test
+  void recoverFromSnapshot() throws Exception {
+    SessionDataStorage dataStorage = new SessionDataStorageImpl();
+    WriteAheadLog log = open(dataStorage, FsyncPolicy.INTERVAL);
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    ChargeSession session2 = dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    session1 = dataStorage.stopSession(session1.getId());
+    log.snapshot();
+    session2 = dataStorage.stopSession(session2.getId());
+    ChargeSession session3 = dataStorage.submitSession(new ChargeSession("ABC-3", LocalDateTime.now()));
+    log.close();
+
+    assertEquals(Stream.of("snapshot-1.bin", "wal-1.log").collect(Collectors.toList()), files());
+
+    SessionDataStorage recovered = new SessionDataStorageImpl();
+    open(recovered, FsyncPolicy.INTERVAL).close();
+
+    assertEquals(3, recovered.retrieveAllSessions().size());
+    assertSession(session1, recovered);
+    assertSession(session2, recovered);
+    assertSession(session3, recovered);
+  }
+
+  @Test
+  void recoverTornLog() throws Exception {
+    SessionDataStorage dataStorage = new SessionDataStorageImpl();
+    WriteAheadLog log = open(dataStorage, FsyncPolicy.NEVER);
+    ChargeSession session1 = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    session1 = dataStorage.stopSession(session1.getId());
+    log.close();
+    Files.write(directory.resolve("wal-0.log"), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+    SessionDataStorage recovered = new SessionDataStorageImpl();
+    log = open(recovered, FsyncPolicy.NEVER);
+    ChargeSession session2 = recovered.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    log.close();
+
+    SessionDataStorage recoveredAgain = new SessionDataStorageImpl();
+    open(recoveredAgain, FsyncPolicy.NEVER).close();
+
+    assertEquals(2, recoveredAgain.retrieveAllSessions().size());
+    assertSession(session1, recoveredAgain);
+    assertSession(session2, recoveredAgain);
+  }
+
+  @Test
+  void recoverConcurrentSessions() throws Exception {
+    SessionDataStorage dataStorage = new ConcurrentSessionDataStorageImpl();
+    WriteAheadLog log = open(dataStorage, FsyncPolicy.ALWAYS);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      String stationId = "ABC-" + i;
+      futures.add(executor.submit(() -> {
+        for (int j = 0; j < 200; j++) {
+          ChargeSession session = dataStorage.submitSession(new ChargeSession(stationId, LocalDateTime.now()));
+          if (j % 2 == 0) {
+            dataStorage.stopSession(session.getId());
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    log.close();
+
+    SessionDataStorage recovered = new ConcurrentSessionDataStorageImpl();
+    open(recovered, FsyncPolicy.ALWAYS).close();
+
+    assertEquals(1600, recovered.retrieveAllSessions().size());
+    assertEquals(800, recovered.countFinishedSessions());
+    for (ChargeSession session : dataStorage.retrieveAllSessions()) {
+      assertSession(session, recovered);
+    }
+  }
+
+  @Test
+  void recoverLongStationId() throws Exception {
+    SessionDataStorage dataStorage = new SessionDataStorageImpl();
+    WriteAheadLog log = open(dataStorage, FsyncPolicy.ALWAYS);
+    char[] stationId = new char[Short.MAX_VALUE + 1];
+    Arrays.fill(stationId, 'A');
+    ChargeSession session = dataStorage.submitSession(new ChargeSession(new String(stationId), LocalDateTime.now()));
+    log.close();
+
+    SessionDataStorage recovered = new SessionDataStorageImpl();
+    open(recovered, FsyncPolicy.ALWAYS).close();
+    assertSession(session, recovered);
+  }
+
+  @Test
+  void changesAreRejectedAfterClose() throws Exception {
+    SessionDataStorage dataStorage = new SessionDataStorageImpl();
+    WriteAheadLog log = open(dataStorage, FsyncPolicy.ALWAYS);
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    log.close();
+
+    try {
+      dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("Write-ahead log is closed", e.getMessage());
+    }
+    try {
+      dataStorage.stopSession(session.getId());
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals(StatusEnum.IN_PROGRESS, dataStorage.retrieveAllSessions().iterator().next().getStatus());
+    }
+    assertEquals(1, dataStorage.countSessions());
+  }
+
+  private WriteAheadLog open(SessionDataStorage dataStorage, FsyncPolicy fsyncPolicy) throws IOException {
+    WriteAheadLog log = new WriteAheadLog(directory, fsyncPolicy, Duration.ofMillis(10), 1024);
+    log.recover(dataStorage);
+    return log;
+  }
+
+  private List<String> files() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static void assertSession(ChargeSession expected, SessionDataStorage dataStorage)
+          throws ChargingSessionException {
+    ChargeSession actual = dataStorage.retrieveAllSessions().stream()
+            .filter(session -> session.getId().equals(expected.getId()))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("Session is not recovered: " + expected.getId()));
+    assertEquals(expected.getStationId(), actual.getStationId());
+    assertEquals(expected.getStartedAt(), actual.getStartedAt());
+    assertEquals(expected.getStoppedAt(), actual.getStoppedAt());
+    assertEquals(expected.getStartedAtMillis(), actual.getStartedAtMillis());
+    assertEquals(expected.getStoppedAtMillis(), actual.getStoppedAtMillis());
+    assertEquals(expected.getStatus(), actual.getStatus());
+    assertTrue(actual.getStatus() == StatusEnum.FINISHED || actual.getStoppedAt() == null);
+  }
+}
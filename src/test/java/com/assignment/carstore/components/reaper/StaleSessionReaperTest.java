@@ -0,0 +1,177 @@
+package com.assignment.carstore.components.reaper;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for StaleSessionReaper class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class StaleSessionReaperTest {
+
+  private ManualSessionClock clock;
+
+  private SessionDataStorage dataStorage;
+
+  private MeterRegistry meterRegistry;
+
+  private ReaperProperties properties;
+
+  @BeforeEach
+  public void init() {
+    clock = new ManualSessionClock(LocalDateTime.of(2020, 4, 1, 12, 0));
+    dataStorage = new SessionDataStorageImpl(clock);
+    meterRegistry = new SimpleMeterRegistry();
+    properties = new ReaperProperties();
+    properties.setMaxDuration(Duration.ofHours(1));
+    properties.setWheelSize(16);
+    properties.setBatchSize(2);
+  }
+
+  @Test
+  void stopStaleSessions() throws ChargingSessionException {
+    StaleSessionReaper reaper = newReaper();
+    List<ChargeSession> sessions = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      sessions.add(dataStorage.submitSession(new ChargeSession("ABC-" + i, clock.now())));
+    }
+    clock.advance(Duration.ofMinutes(30));
+    dataStorage.stopSession(sessions.get(0).getId());
+    ChargeSession fresh = dataStorage.submitSession(new ChargeSession("ABC-3", clock.now()));
+
+    clock.advance(Duration.ofMinutes(29));
+    assertEquals(0, reaper.reap());
+    clock.advance(Duration.ofMinutes(1));
+    assertEquals(2, reaper.reap());
+
+    assertEquals(StatusEnum.FINISHED, find(sessions.get(1).getId()).getStatus());
+    assertEquals(StatusEnum.FINISHED, find(sessions.get(2).getId()).getStatus());
+    assertEquals(clock.now(), find(sessions.get(2).getId()).getStoppedAt());
+    assertEquals(StatusEnum.IN_PROGRESS, find(fresh.getId()).getStatus());
+    assertEquals(1, reaper.getScheduledCount());
+    assertEquals(2, meterRegistry.counter("carstore.sessions.stale", "policy", "stop").count(), 0);
+
+    clock.advance(Duration.ofMinutes(30));
+    assertEquals(1, reaper.reap());
+    assertEquals(StatusEnum.FINISHED, find(fresh.getId()).getStatus());
+  }
+
+  @Test
+  void sessionsStoppedInTheMeantimeAreNotCounted() {
+    StaleSessionReaper reaper = newReaper();
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-1", clock.now()));
+    // scheduled but already gone from the storage when its deadline passes
+    reaper.sessionSubmitted(new ChargeSession("ABC-2", clock.now()));
+
+    clock.advance(Duration.ofHours(2));
+    assertEquals(1, reaper.reap());
+    assertEquals(StatusEnum.FINISHED, find(session.getId()).getStatus());
+    assertEquals(1, meterRegistry.counter("carstore.sessions.stale", "policy", "stop").count(), 0);
+  }
+
+  @Test
+  void deadlineFollowsInstantWhenClocksAreSetBack() {
+    // the hour from 02:00 to 03:00 is repeated in Berlin on 2020-10-25
+    clock = new ManualSessionClock(LocalDateTime.of(2020, 10, 25, 2, 59, 50), ZoneId.of("Europe/Berlin"));
+    dataStorage = new SessionDataStorageImpl(clock);
+    StaleSessionReaper reaper = newReaper();
+    clock.advance(Duration.ofSeconds(20));
+    ChargeSession session = dataStorage.submitSession(
+            new ChargeSession(UUID.randomUUID(), "ABC-1", clock.now(), clock.millis()));
+
+    clock.advance(Duration.ofMinutes(59));
+    assertEquals(0, reaper.reap());
+    assertEquals(StatusEnum.IN_PROGRESS, find(session.getId()).getStatus());
+    clock.advance(Duration.ofMinutes(1));
+    assertEquals(1, reaper.reap());
+  }
+
+  @Test
+  void flagStaleSessions() throws ChargingSessionException {
+    properties.setPolicy(StalePolicy.FLAG);
+    StaleSessionReaper reaper = newReaper();
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-1", clock.now()));
+
+    clock.advance(Duration.ofHours(2));
+    assertEquals(1, reaper.reap());
+    assertEquals(StatusEnum.IN_PROGRESS, find(session.getId()).getStatus());
+    assertEquals(Collections.singleton(session.getId()), reaper.getFlaggedSessions());
+    assertEquals(1, meterRegistry.get("carstore.sessions.stale.flagged").gauge().value(), 0);
+
+    dataStorage.stopSession(session.getId());
+    assertTrue(reaper.getFlaggedSessions().isEmpty());
+    assertEquals(0, reaper.reap());
+  }
+
+  @Test
+  void reapRestoredSessions() {
+    ChargeSession stale = new ChargeSession("ABC-1", clock.now().minusHours(2));
+    ChargeSession finished = new ChargeSession("ABC-2", clock.now().minusHours(2))
+            .finish(clock.now().minusHours(1));
+    List<ChargeSession> sessions = new ArrayList<>();
+    sessions.add(stale);
+    sessions.add(finished);
+    dataStorage.restoreSessions(sessions);
+
+    StaleSessionReaper reaper = newReaper();
+    reaper.restoreSessions(dataStorage.retrieveAllSessions());
+    assertEquals(1, reaper.getScheduledCount());
+
+    clock.advance(Duration.ofSeconds(1));
+    assertEquals(1, reaper.reap());
+    assertEquals(StatusEnum.FINISHED, find(stale.getId()).getStatus());
+  }
+
+  @Test
+  void expireDeadlinesBeyondOneTurnOfTheWheel() {
+    long start = clock.millis();
+    HashedTimerWheel<String> wheel = new HashedTimerWheel<>(Duration.ofSeconds(1), 4, start);
+    wheel.schedule("near", start + 2_000);
+    wheel.schedule("far", start + 10_000);
+    wheel.schedule("cancelled", start + 3_000);
+    wheel.schedule("rescheduled", start + 1_000);
+    wheel.cancel("cancelled");
+    wheel.schedule("rescheduled", start + 6_000);
+
+    List<String> expired = new ArrayList<>();
+    wheel.advance(start + 5_000, expired::add);
+    assertEquals(Collections.singletonList("near"), expired);
+    wheel.advance(start + 9_999, expired::add);
+    assertEquals(2, expired.size());
+    assertEquals("rescheduled", expired.get(1));
+    wheel.advance(start + 10_000, expired::add);
+    assertEquals("far", expired.get(2));
+    assertEquals(0, wheel.size());
+  }
+
+  private ChargeSession find(UUID id) {
+    return dataStorage.retrieveAllSessions().stream()
+            .filter(session -> session.getId().equals(id)).findFirst().orElse(null);
+  }
+
+  private StaleSessionReaper newReaper() {
+    StaleSessionReaper reaper = new StaleSessionReaper(dataStorage, properties, meterRegistry, clock);
+    dataStorage.addSessionChangeListener(reaper);
+    return reaper;
+  }
+}
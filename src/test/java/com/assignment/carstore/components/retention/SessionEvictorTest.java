@@ -0,0 +1,84 @@
+package com.assignment.carstore.components.retention;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for SessionEvictor class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SessionEvictorTest {
+
+  private SessionDataStorage dataStorage;
+
+  private MeterRegistry meterRegistry;
+
+  private List<ChargeSession> archived;
+
+  private RetentionProperties properties;
+
+  @BeforeEach
+  public void init() throws ChargingSessionException {
+    dataStorage = new SessionDataStorageImpl();
+    meterRegistry = new SimpleMeterRegistry();
+    archived = new ArrayList<>();
+    properties = new RetentionProperties();
+    properties.setBatchSize(2);
+    for (int i = 0; i < 5; i++) {
+      ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+      dataStorage.stopSession(session.getId());
+    }
+    dataStorage.submitSession(new ChargeSession("ABC-5", LocalDateTime.now()));
+  }
+
+  @Test
+  void evictByCount() {
+    properties.setMaxCount(1L);
+    SessionEvictor evictor = new SessionEvictor(dataStorage, properties, archived::addAll, meterRegistry);
+
+    assertEquals(4, evictor.evict());
+    assertEquals(4, archived.size());
+    assertEquals(2, dataStorage.retrieveAllSessions().size());
+    assertEquals(4, meterRegistry.counter("carstore.sessions.evicted").count(), 0);
+  }
+
+  @Test
+  void evictByAgeAcrossDaylightSavingTime() throws ChargingSessionException {
+    // the clocks of the zone jump from 02:00 to 03:00, an hour later the local time is two hours later
+    ManualSessionClock clock = new ManualSessionClock(LocalDateTime.of(2020, 3, 29, 1, 30), ZoneId.of("Europe/Berlin"));
+    dataStorage = new SessionDataStorageImpl(clock);
+    ChargeSession session = dataStorage.submitSession(new ChargeSession("ABC-1", clock.now()));
+    dataStorage.stopSession(session.getId());
+    clock.advance(Duration.ofHours(1));
+    properties.setMaxAge(Duration.ofMinutes(90));
+    SessionEvictor evictor = new SessionEvictor(dataStorage, properties, null, meterRegistry, clock);
+
+    assertEquals(0, evictor.evict());
+    clock.advance(Duration.ofMinutes(31));
+    assertEquals(1, evictor.evict());
+  }
+
+  @Test
+  void evictNothingWithoutLimits() {
+    SessionEvictor evictor = new SessionEvictor(dataStorage, properties, null, meterRegistry);
+
+    assertEquals(0, evictor.evict());
+    assertEquals(6, dataStorage.retrieveAllSessions().size());
+  }
+}
@@ -0,0 +1,135 @@
+package com.assignment.carstore.components.stations;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.ManualSessionClock;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.impl.ConcurrentSessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.assignment.carstore.domain.StationStats;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for StationStatistics class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class StationStatisticsTest {
+
+  private SessionDataStorage sessionDataStorage;
+
+  private StationStatistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    sessionDataStorage = new ConcurrentSessionDataStorageImpl();
+    statistics = new StationStatistics(100_000, SessionClock.SYSTEM);
+    sessionDataStorage.addSessionChangeListener(statistics);
+  }
+
+  @Test
+  void stationStatsAreUpdatedOnChanges() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.now();
+    ChargeSession first = sessionDataStorage.submitSession(new ChargeSession("ABC-1", now.minusSeconds(10)));
+    sessionDataStorage.submitSession(new ChargeSession("ABC-1", now.minusMinutes(10)));
+    sessionDataStorage.submitSession(new ChargeSession("ABC-1", now.minusHours(2)));
+    sessionDataStorage.submitSession(new ChargeSession("ABC-2", now));
+    ChargeSession stopped = sessionDataStorage.stopSession(first.getId());
+
+    StationStats stats = statistics.getStationStats("ABC-1", toMillis(now));
+    assertEquals("ABC-1", stats.getStationId());
+    assertEquals(2, stats.getActiveCount());
+    assertEquals(1, stats.getLastMinuteCount());
+    assertEquals(2, stats.getLastHourCount());
+    assertEquals(1, stats.getFinishedCount());
+    double duration = (stopped.getStoppedAtMillis() - first.getStartedAtMillis()) / 1000.0;
+    assertEquals(duration, stats.getAverageDurationSeconds(), 0.001);
+
+    // the window moves on without changes
+    StationStats later = statistics.getStationStats("ABC-1", toMillis(now.plusMinutes(55)));
+    assertEquals(0, later.getLastMinuteCount());
+    assertEquals(1, later.getLastHourCount());
+  }
+
+  @Test
+  void unknownStationHasZeroCounts() {
+    StationStats stats = statistics.getStationStats("none", System.currentTimeMillis());
+    assertEquals(0, stats.getActiveCount());
+    assertEquals(0, stats.getLastHourCount());
+    assertEquals(0, stats.getFinishedCount());
+    assertNull(stats.getAverageDurationSeconds());
+  }
+
+  @Test
+  void busiestStations() {
+    LocalDateTime now = LocalDateTime.now();
+    for (int station = 0; station < 20; station++) {
+      for (int i = 0; i <= station; i++) {
+        sessionDataStorage.submitSession(new ChargeSession("station-" + station, now.minusMinutes(i)));
+      }
+    }
+    List<StationStats> busiest = statistics.getBusiestStations(3, toMillis(now));
+    assertEquals(3, busiest.size());
+    assertEquals("station-19", busiest.get(0).getStationId());
+    assertEquals(20, busiest.get(0).getLastHourCount());
+    assertEquals("station-18", busiest.get(1).getStationId());
+    assertEquals("station-17", busiest.get(2).getStationId());
+    assertEquals(20, statistics.getBusiestStations(100, toMillis(now)).size());
+  }
+
+  @Test
+  void restoredSessionsAreCounted() {
+    LocalDateTime now = LocalDateTime.now();
+    statistics.restoreSessions(Arrays.asList(
+            new ChargeSession(UUID.randomUUID(), "ABC-1", now.minusSeconds(30), null, StatusEnum.IN_PROGRESS),
+            new ChargeSession(UUID.randomUUID(), "ABC-1", now.minusSeconds(50), now.minusSeconds(20), StatusEnum.FINISHED)));
+    StationStats stats = statistics.getStationStats("ABC-1", toMillis(now));
+    assertEquals(1, stats.getActiveCount());
+    assertEquals(2, stats.getLastMinuteCount());
+    assertEquals(1, stats.getFinishedCount());
+    assertEquals(30.0, stats.getAverageDurationSeconds(), 0.001);
+  }
+
+  @Test
+  void idleStationsAreEvicted() throws ChargingSessionException {
+    LocalDateTime now = LocalDateTime.of(2020, 4, 20, 12, 0, 30);
+    ManualSessionClock clock = new ManualSessionClock(now);
+    SessionDataStorage storage = new ConcurrentSessionDataStorageImpl(clock);
+    StationStatistics bounded = new StationStatistics(2, clock);
+    storage.addSessionChangeListener(bounded);
+    ChargeSession idle = storage.submitSession(new ChargeSession("ABC-1", now));
+    storage.submitSession(new ChargeSession("ABC-2", now));
+    storage.stopSession(idle.getId());
+
+    // the first station is not idle until an hour after its last start
+    clock.advance(Duration.ofMinutes(30));
+    storage.submitSession(new ChargeSession("ABC-3", now.plusMinutes(30)));
+    assertEquals(3, bounded.getStationCount());
+    assertEquals(1, bounded.getStationStats("ABC-1", clock.millis()).getFinishedCount());
+
+    // the stations are not scanned again until twice as many as left are counted
+    clock.advance(Duration.ofHours(2));
+    for (int i = 4; i <= 7; i++) {
+      storage.submitSession(new ChargeSession("ABC-" + i, now.plusMinutes(150)));
+    }
+    assertEquals(6, bounded.getStationCount());
+    assertEquals(0, bounded.getStationStats("ABC-1", clock.millis()).getFinishedCount());
+    assertEquals(1, bounded.getStationStats("ABC-2", clock.millis()).getActiveCount());
+  }
+
+  private static long toMillis(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
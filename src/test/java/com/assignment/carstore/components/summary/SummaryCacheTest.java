@@ -0,0 +1,60 @@
+package com.assignment.carstore.components.summary;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test for SummaryCache class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SummaryCacheTest {
+
+  private SessionDataStorage dataStorage;
+
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void init() {
+    dataStorage = new SessionDataStorageImpl();
+    objectMapper = new ObjectMapper();
+    dataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+  }
+
+  @Test
+  void cacheWithinTick() {
+    SummaryCache cache = new SummaryCache(dataStorage, objectMapper, Duration.ofHours(1));
+    SummaryCache.Entry entry = cache.get();
+    dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+
+    assertSame(entry, cache.get());
+    assertEquals("{\"totalCount\":1,\"startedCount\":1,\"stoppedCount\":0}",
+            new String(entry.getBody(), StandardCharsets.UTF_8));
+    assertEquals("\"1-1-0\"", entry.getEtag());
+  }
+
+  @Test
+  void recomputeAfterTick() {
+    SummaryCache cache = new SummaryCache(dataStorage, objectMapper, Duration.ZERO);
+    SummaryCache.Entry entry = cache.get();
+    assertEquals(entry.getEtag(), cache.get().getEtag());
+
+    dataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+
+    assertNotEquals(entry.getEtag(), cache.get().getEtag());
+    assertEquals("{\"totalCount\":2,\"startedCount\":2,\"stoppedCount\":0}",
+            new String(cache.get().getBody(), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,47 @@
+package com.assignment.carstore.components.web;
+
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for VirtualThreadsConfiguration class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class VirtualThreadsConfigurationTest {
+
+  @Test
+  void useVirtualThreads() throws Exception {
+    Http11NioProtocol protocol = new Http11NioProtocol();
+    VirtualThreadsConfiguration.useVirtualThreads(protocol);
+    if (!VirtualThreads.isSupported()) {
+      assertNull(protocol.getExecutor());
+      return;
+    }
+    ExecutorService executor = (ExecutorService) protocol.getExecutor();
+    assertNotNull(executor);
+    boolean[] virtual = new boolean[1];
+    executor.submit(() -> virtual[0] = (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+            .get(1, TimeUnit.SECONDS);
+    assertTrue(virtual[0]);
+    executor.shutdown();
+  }
+
+  @Test
+  void newThreadPerTaskExecutor() {
+    try {
+      VirtualThreads.newThreadPerTaskExecutor().shutdown();
+      assertTrue(VirtualThreads.isSupported());
+    } catch (UnsupportedOperationException e) {
+      assertFalse(VirtualThreads.isSupported());
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.assignment.carstore.components.window;
+
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.domain.CounterSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for SlidingWindowCounter class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class SlidingWindowCounterTest {
+
+  private static final long NOW = LocalDateTime.of(2020, 4, 20, 12, 0, 30, 500_000_000)
+          .toInstant(ZoneOffset.UTC).toEpochMilli();
+
+  private static final long SECOND = 1_000;
+
+  private static final long MINUTE = 60 * SECOND;
+
+  private static final long HOUR = 60 * MINUTE;
+
+  private SlidingWindowCounter counter;
+
+  @BeforeEach
+  public void init() {
+    counter = new SlidingWindowCounter();
+  }
+
+  @Test
+  void summary() {
+    counter.recordStarted(NOW - 10 * SECOND);
+    counter.recordStarted(NOW - 59 * SECOND);
+    // in the second the window starts in
+    counter.recordStarted(NOW - 59 * SECOND - 900);
+    counter.recordStarted(NOW - 2 * MINUTE);
+    counter.recordStopped(NOW);
+    counter.recordStopped(NOW - 61 * SECOND);
+
+    CounterSummary summary = counter.summary(NOW);
+    assertEquals(3, summary.getStartedCount());
+    assertEquals(1, summary.getStoppedCount());
+    assertEquals(4, summary.getTotalCount());
+  }
+
+  @Test
+  void summaryMovesWithTime() {
+    counter.recordStarted(NOW);
+    counter.recordStopped(NOW + 30 * SECOND);
+
+    assertEquals(2, counter.summary(NOW + 59 * SECOND).getTotalCount());
+    assertEquals(2, counter.summary(NOW + 60 * SECOND).getTotalCount());
+    assertEquals(1, counter.summary(NOW + 61 * SECOND).getTotalCount());
+    assertEquals(0, counter.summary(NOW + 91 * SECOND).getTotalCount());
+  }
+
+  @Test
+  void bucketIsReusedAfterRingTurn() {
+    counter.recordStarted(NOW);
+    counter.recordStarted(NOW + 64 * SECOND);
+    counter.recordStarted(NOW);
+
+    CounterSummary summary = counter.summary(NOW + 64 * SECOND);
+    assertEquals(1, summary.getStartedCount());
+  }
+
+  @Test
+  void longerWindowsAreCountedByCoarserBuckets() {
+    counter.recordStarted(NOW - 10 * SECOND);
+    counter.recordStarted(NOW - 3 * MINUTE);
+    counter.recordStopped(NOW - 30 * MINUTE);
+    counter.recordStarted(NOW - 5 * HOUR);
+    counter.recordStopped(NOW - 30 * HOUR);
+
+    assertEquals(1, counter.summary(SummaryWindow.ONE_MINUTE, NOW).getTotalCount());
+    assertEquals(2, counter.summary(SummaryWindow.FIVE_MINUTES, NOW).getTotalCount());
+    assertEquals(3, counter.summary(SummaryWindow.ONE_HOUR, NOW).getTotalCount());
+    CounterSummary day = counter.summary(SummaryWindow.ONE_DAY, NOW);
+    assertEquals(3, day.getStartedCount());
+    assertEquals(1, day.getStoppedCount());
+    assertEquals(0, counter.summary(SummaryWindow.ONE_HOUR, NOW + 2 * HOUR).getTotalCount());
+  }
+
+  @Test
+  void oldestUnitIsCountedByFinerBuckets() {
+    // the five minutes start at 11:55:30.5, the day at 12:00:30.5 of the day before
+    counter.recordStarted(NOW - 5 * MINUTE - 20 * SECOND);
+    counter.recordStarted(NOW - 5 * MINUTE + 15 * SECOND);
+    counter.recordStopped(NOW - 5 * MINUTE - 200);
+    counter.recordStarted(NOW - 24 * HOUR - MINUTE);
+    counter.recordStarted(NOW - 24 * HOUR + 29 * MINUTE);
+    counter.recordStopped(NOW - 24 * HOUR - 20 * SECOND);
+
+    CounterSummary minutes = counter.summary(SummaryWindow.FIVE_MINUTES, NOW);
+    assertEquals(1, minutes.getStartedCount());
+    assertEquals(1, minutes.getStoppedCount());
+    assertEquals(1, counter.summary(SummaryWindow.FIVE_MINUTES, NOW + 14 * SECOND).getTotalCount());
+    assertEquals(0, counter.summary(SummaryWindow.FIVE_MINUTES, NOW + 16 * SECOND).getTotalCount());
+    assertEquals(3, counter.summary(SummaryWindow.ONE_HOUR, NOW - 4 * MINUTE).getTotalCount());
+
+    CounterSummary day = counter.summary(SummaryWindow.ONE_DAY, NOW);
+    assertEquals(3, day.getStartedCount());
+    assertEquals(2, day.getStoppedCount());
+    assertEquals(4, counter.summary(SummaryWindow.ONE_DAY, NOW + MINUTE).getTotalCount());
+  }
+
+  @Test
+  void parseWindow() {
+    assertEquals(SummaryWindow.ONE_MINUTE, SummaryWindow.parse("1m"));
+    assertEquals(SummaryWindow.ONE_MINUTE, SummaryWindow.parse("60s"));
+    assertEquals(SummaryWindow.FIVE_MINUTES, SummaryWindow.parse("5m"));
+    assertEquals(SummaryWindow.ONE_HOUR, SummaryWindow.parse("1h"));
+    assertEquals(SummaryWindow.ONE_DAY, SummaryWindow.parse("24h"));
+    assertEquals("15m", SummaryWindow.parse("15m").toString());
+    for (String invalid : new String[]{"0m", "61s", "25h", "1d", "m", ""}) {
+      try {
+        SummaryWindow.parse(invalid);
+        fail(invalid);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  void counterOfShortWindows() {
+    SlidingWindowCounter hourly = new SlidingWindowCounter(SessionClock.SYSTEM, SummaryWindow.ofHours(1));
+    hourly.recordStarted(NOW - 10 * SECOND);
+    // in the minute the window starts in
+    hourly.recordStarted(NOW - HOUR - 20 * SECOND);
+    hourly.recordStarted(NOW - HOUR - MINUTE);
+
+    assertEquals(1, hourly.summary(NOW).getStartedCount());
+    assertEquals(2, hourly.summary(SummaryWindow.ofHours(1), NOW).getStartedCount());
+    try {
+      hourly.summary(SummaryWindow.FIVE_MINUTES, NOW);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("Unsupported window: 5m", e.getMessage());
+    }
+  }
+}
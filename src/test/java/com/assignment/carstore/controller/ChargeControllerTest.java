@@ -1,27 +1,60 @@
 package com.assignment.carstore.controller;
 
 import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.idempotency.IdempotencyCache;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.components.window.SummaryWindow;
+import com.assignment.carstore.domain.BatchItemResult;
 import com.assignment.carstore.domain.ChargeSession;
 import com.assignment.carstore.domain.CounterSummary;
+import com.assignment.carstore.domain.SessionCursor;
+import com.assignment.carstore.domain.SessionPage;
+import com.assignment.carstore.domain.SessionQuery;
+import com.assignment.carstore.domain.StatusEnum;
+import com.assignment.carstore.exceptions.ChargingSessionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.util.CollectionUtils.arrayToList;
 
@@ -64,6 +97,58 @@ class ChargeControllerTest {
             .andDo(print()).andExpect(status().is4xxClientError());
   }
 
+  @Test
+  void submitSessionReusedIdempotencyKey() throws Exception {
+    IdempotencyCache idempotencyCache = new IdempotencyCache(Duration.ofMinutes(1), 100, new SimpleMeterRegistry(),
+            SessionClock.SYSTEM);
+    ChargeController controller = new ChargeController(new SessionDataStorageImpl(), new ObjectMapper(), null,
+            SessionClock.SYSTEM, idempotencyCache, SessionIdGenerator.RANDOM);
+    MockMvc idempotentMockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+    idempotentMockMvc.perform(post("/chargingSessions").header(ChargeSessionRequests.IDEMPOTENCY_KEY, "key-1")
+            .content("{\"stationId\": \"ABC-1\"}").contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk());
+    idempotentMockMvc.perform(post("/chargingSessions").header(ChargeSessionRequests.IDEMPOTENCY_KEY, "key-1")
+            .content("{\"stationId\": \"ABC-2\"}").contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isUnprocessableEntity())
+            .andExpect(jsonPath("$.status").value(422));
+  }
+
+  @Test
+  void submitSessionInvalidBody() throws Exception {
+    String[] invalid = {"", "{\"stationId\": ", "[\"ABC-12345\"]", "{\"stationId\": \"ABC-12345\"} {}"};
+    for (String body : invalid) {
+      mockMvc.perform(post("/chargingSessions").content(body)
+              .contentType(MediaType.APPLICATION_JSON_VALUE))
+              .andExpect(status().isBadRequest())
+              .andExpect(content().string(containsString("Request body is invalid or empty.")));
+    }
+    String[] withoutStationId = {"{}", "{\"station\": \"ABC-12345\", \"nested\": {\"stationId\": \"A\"}}",
+            "{\"stationId\": null}"};
+    for (String body : withoutStationId) {
+      mockMvc.perform(post("/chargingSessions").content(body)
+              .contentType(MediaType.APPLICATION_JSON_VALUE))
+              .andExpect(status().isBadRequest())
+              .andExpect(content().string(containsString("Field 'stationId' is not found in request body")));
+    }
+    char[] longStationId = new char[ChargeSession.MAX_STATION_ID_LENGTH + 1];
+    Arrays.fill(longStationId, 'A');
+    mockMvc.perform(post("/chargingSessions").content("{\"stationId\": \"" + new String(longStationId) + "\"}")
+            .contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Field 'stationId' must not be longer than 255 characters")));
+    verify(sessionDataStorage, never()).submitSession(any(ChargeSession.class));
+  }
+
+  @Test
+  void submitSessionStationIdValue() throws Exception {
+    when(sessionDataStorage.submitSession(any(ChargeSession.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+    mockMvc.perform(post("/chargingSessions").content("{\"skipped\": [1, {\"a\": 2}], \"stationId\": 12345}")
+            .contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stationId").value("12345"));
+  }
+
   @Test
   void stopSession() throws Exception {
     ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
@@ -88,4 +173,140 @@ class ChargeControllerTest {
     when(sessionDataStorage.retrieveSummarySubmittedSessions()).thenReturn(new CounterSummary(5, 4, 1));
     mockMvc.perform(get("/chargingSessions/summary")).andDo(print()).andExpect(status().isOk());
   }
-}
\ No newline at end of file
+
+  @Test
+  void retrieveSummarySubmittedSessionsForWindow() throws Exception {
+    when(sessionDataStorage.retrieveSummarySubmittedSessions(SummaryWindow.ONE_HOUR)).thenReturn(new CounterSummary(7, 4, 3));
+    mockMvc.perform(get("/chargingSessions/summary").param("window", "1h"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stoppedCount").value(3));
+    mockMvc.perform(get("/chargingSessions/summary").param("window", "25h"))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Parameter 'window' is invalid.")));
+  }
+
+  @Test
+  void retrieveCachedSummarySubmittedSessions() throws Exception {
+    when(sessionDataStorage.retrieveSummarySubmittedSessions()).thenReturn(new CounterSummary(5, 4, 1));
+    ChargeController controller = new ChargeController(sessionDataStorage, new ObjectMapper(),
+            new SummaryCache(sessionDataStorage, new ObjectMapper(), Duration.ofHours(1)), SessionClock.SYSTEM, null,
+            SessionIdGenerator.RANDOM);
+    MockMvc cachedMockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+    cachedMockMvc.perform(get("/chargingSessions/summary"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"5-4-1\""))
+            .andExpect(jsonPath("$.startedCount").value(4));
+    cachedMockMvc.perform(get("/chargingSessions/summary").header(HttpHeaders.IF_NONE_MATCH, "\"5-4-1\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    cachedMockMvc.perform(get("/chargingSessions/summary").header(HttpHeaders.IF_NONE_MATCH, "\"5-4-0\""))
+            .andExpect(status().isOk());
+    verify(sessionDataStorage, times(1)).retrieveSummarySubmittedSessions();
+  }
+
+  @Test
+  void retrieveSessionsPage() throws Exception {
+    ChargeSession session0 = new ChargeSession("ABC-12345", LocalDateTime.now());
+    ChargeSession session1 = new ChargeSession("ABC-12345", LocalDateTime.now());
+    SessionCursor cursor = SessionCursor.of(session0).pinned(7);
+    when(sessionDataStorage.retrieveSessions(eq(SessionQuery.ALL), isNull(SessionCursor.class), eq(1)))
+            .thenReturn(new SessionPage(Collections.singletonList(session0), cursor));
+    when(sessionDataStorage.retrieveSessions(eq(SessionQuery.ALL), eq(cursor), eq(1)))
+            .thenReturn(new SessionPage(Collections.singletonList(session1), null));
+
+    mockMvc.perform(get("/chargingSessions").param("limit", "1"))
+            .andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$.sessions[0].id").value(session0.getId().toString()))
+            .andExpect(jsonPath("$.next").value(cursor.encode()));
+    mockMvc.perform(get("/chargingSessions").param("limit", "1").param("cursor", cursor.encode()))
+            .andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$.sessions[0].id").value(session1.getId().toString()))
+            .andExpect(jsonPath("$.next").doesNotExist());
+  }
+
+  @Test
+  void retrieveFilteredSessions() throws Exception {
+    ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
+    LocalDateTime startedFrom = LocalDateTime.of(2020, 4, 20, 12, 0);
+    SessionQuery query = new SessionQuery("ABC-12345", StatusEnum.IN_PROGRESS, startedFrom, null);
+    when(sessionDataStorage.retrieveSessions(eq(query), isNull(SessionCursor.class), eq(ChargeSessionRequests.MAX_PAGE_SIZE)))
+            .thenReturn(new SessionPage(Collections.singletonList(session), null));
+
+    mockMvc.perform(get("/chargingSessions").param("stationId", "ABC-12345").param("status", "IN_PROGRESS")
+            .param("startedFrom", "2020-04-20T12:00:00"))
+            .andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].id").value(session.getId().toString()));
+    mockMvc.perform(get("/chargingSessions").param("status", "UNKNOWN"))
+            .andDo(print()).andExpect(status().is4xxClientError());
+  }
+
+  @Test
+  void retrieveSessionsPageException() throws Exception {
+    mockMvc.perform(get("/chargingSessions").param("limit", "0"))
+            .andDo(print()).andExpect(status().is4xxClientError());
+    mockMvc.perform(get("/chargingSessions").param("limit", "10").param("cursor", "not a cursor"))
+            .andDo(print()).andExpect(status().is4xxClientError());
+  }
+
+  @Test
+  void streamAllSessions() throws Exception {
+    ChargeSession session0 = new ChargeSession("ABC-1", LocalDateTime.now());
+    ChargeSession session1 = new ChargeSession("ABC-2", LocalDateTime.now());
+    when(sessionDataStorage.retrieveSessions(any(SessionQuery.class), isNull(SessionCursor.class), eq(ChargeSessionRequests.STREAM_PAGE_SIZE)))
+            .thenReturn(new SessionPage(arrayToList(new ChargeSession[] {session0, session1}), null));
+
+    MvcResult result = mockMvc.perform(get("/chargingSessions/stream"))
+            .andExpect(request().asyncStarted()).andReturn();
+    mockMvc.perform(asyncDispatch(result))
+            .andDo(print()).andExpect(status().isOk())
+            .andExpect(content().contentType(ChargeSessionRequests.APPLICATION_NDJSON_VALUE))
+            .andExpect(content().string(containsString("\"stationId\":\"ABC-1\"")))
+            .andExpect(content().string(containsString("}\n{")));
+  }
+
+  @Test
+  void submitSessions() throws Exception {
+    when(sessionDataStorage.submitSessions(anyListOf(ChargeSession.class))).thenAnswer(invocation -> invocation.getArguments()[0]);
+    mockMvc.perform(post("/chargingSessions/batch")
+            .content("[{\"stationId\": \"ABC-1\"}, {\"station\": \"ABC-2\"}, \"ABC-3\", {\"stationId\": \"ABC-4\"},"
+                    + " [{\"stationId\": \"ABC-5\"}], {\"meta\": {\"stationId\": [1]}, \"stationId\": \"ABC-6\"}]")
+            .contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status").value(200))
+            .andExpect(jsonPath("$[0].session.stationId").value("ABC-1"))
+            .andExpect(jsonPath("$[1].status").value(400))
+            .andExpect(jsonPath("$[1].message").value("Field 'stationId' is not found in request body"))
+            .andExpect(jsonPath("$[2].status").value(400))
+            .andExpect(jsonPath("$[3].session.stationId").value("ABC-4"))
+            .andExpect(jsonPath("$[4].message").value("Batch item is not a JSON object"))
+            .andExpect(jsonPath("$[5].session.stationId").value("ABC-6"));
+  }
+
+  @Test
+  void submitSessionsException() throws Exception {
+    mockMvc.perform(post("/chargingSessions/batch").content("{\"stationId\": \"ABC-1\"}")
+            .contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print()).andExpect(status().is4xxClientError());
+    mockMvc.perform(post("/chargingSessions/batch").content("[{\"stationId\": \"ABC-1\"}, {")
+            .contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print()).andExpect(status().is4xxClientError());
+    verify(sessionDataStorage, never()).submitSessions(anyListOf(ChargeSession.class));
+  }
+
+  @Test
+  void stopSessions() throws Exception {
+    ChargeSession session = new ChargeSession("ABC-12345", LocalDateTime.now());
+    UUID unknown = UUID.randomUUID();
+    when(sessionDataStorage.stopSessions(arrayToList(new UUID[] {session.getId(), unknown})))
+            .thenReturn(arrayToList(new BatchItemResult[] {BatchItemResult.succeeded(session),
+                    BatchItemResult.failed(new ChargingSessionException("Charging session is not found", 400))}));
+    mockMvc.perform(put("/chargingSessions/batch/stop")
+            .content("[\"" + session.getId() + "\", \"not-an-id\", \"" + unknown + "\"]")
+            .contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].session.id").value(session.getId().toString()))
+            .andExpect(jsonPath("$[1].status").value(400))
+            .andExpect(jsonPath("$[2].message").value("Charging session is not found"));
+  }
+}
@@ -0,0 +1,81 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.events.EventsProperties;
+import com.assignment.carstore.components.events.SessionEventBus;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test for ChargeEventsController class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ChargeEventsControllerTest {
+
+  private SessionDataStorage sessionDataStorage;
+
+  private SessionEventBus bus;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    sessionDataStorage = new SessionDataStorageImpl();
+    bus = new SessionEventBus(16, 1);
+    sessionDataStorage.addSessionChangeListener(bus);
+    mockMvc = MockMvcBuilders.standaloneSetup(new ChargeEventsController(bus, new EventsProperties())).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    bus.close();
+  }
+
+  @Test
+  void streamEvents() throws Exception {
+    ChargeSession first = sessionDataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    MockHttpServletResponse response = mockMvc.perform(get("/chargingSessions/events").header("Last-Event-ID", bus.getEpoch() + "-0"))
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+    sessionDataStorage.stopSession(first.getId());
+
+    String content = awaitContent(response, "-2\nevent:stopped");
+    assertThat(content, containsString("id:" + bus.getEpoch() + "-1\nevent:submitted\ndata:{\"id\":\"" + first.getId()));
+    assertThat(content, containsString("id:" + bus.getEpoch() + "-2\nevent:stopped\n"));
+    assertThat(content, containsString("\"status\":\"FINISHED\""));
+
+    // a single subscriber is allowed
+    mockMvc.perform(get("/chargingSessions/events")).andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  void streamEventsInvalidLastEventId() throws Exception {
+    mockMvc.perform(get("/chargingSessions/events").header("Last-Event-ID", "abc"))
+            .andExpect(status().isBadRequest());
+  }
+
+  private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    String content = response.getContentAsString();
+    while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      content = response.getContentAsString();
+    }
+    return content;
+  }
+}
@@ -0,0 +1,68 @@
+package com.assignment.carstore.controller;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.components.stations.StationStatistics;
+import com.assignment.carstore.components.stations.StationStatisticsProperties;
+import com.assignment.carstore.domain.ChargeSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test for StationStatsController class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class StationStatsControllerTest {
+
+  private SessionDataStorage sessionDataStorage;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    sessionDataStorage = new SessionDataStorageImpl();
+    StationStatistics statistics = new StationStatistics(100_000, SessionClock.SYSTEM);
+    sessionDataStorage.addSessionChangeListener(statistics);
+    mockMvc = MockMvcBuilders.standaloneSetup(
+            new StationStatsController(statistics, new StationStatisticsProperties(), SessionClock.SYSTEM)).build();
+  }
+
+  @Test
+  void retrieveStationStats() throws Exception {
+    sessionDataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    mockMvc.perform(get("/chargingSessions/stations/ABC-1/stats"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stationId").value("ABC-1"))
+            .andExpect(jsonPath("$.activeCount").value(1))
+            .andExpect(jsonPath("$.lastMinuteCount").value(1))
+            .andExpect(jsonPath("$.lastHourCount").value(1))
+            .andExpect(jsonPath("$.finishedCount").value(0))
+            .andExpect(jsonPath("$.averageDurationSeconds").doesNotExist());
+  }
+
+  @Test
+  void retrieveBusiestStations() throws Exception {
+    sessionDataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    sessionDataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    sessionDataStorage.submitSession(new ChargeSession("ABC-2", LocalDateTime.now()));
+    mockMvc.perform(get("/chargingSessions/stations/busiest").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].stationId").value("ABC-2"));
+    mockMvc.perform(get("/chargingSessions/stations/busiest"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
+    mockMvc.perform(get("/chargingSessions/stations/busiest").param("limit", "0"))
+            .andExpect(status().isBadRequest());
+  }
+}
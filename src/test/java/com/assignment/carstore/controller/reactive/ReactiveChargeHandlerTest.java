@@ -0,0 +1,283 @@
+package com.assignment.carstore.controller.reactive;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.clock.SessionClock;
+import com.assignment.carstore.components.id.SessionIdGenerator;
+import com.assignment.carstore.components.idempotency.IdempotencyCache;
+import com.assignment.carstore.components.impl.ConcurrentSessionDataStorageImpl;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.components.persistence.FsyncPolicy;
+import com.assignment.carstore.components.persistence.WriteAheadLog;
+import com.assignment.carstore.components.summary.SummaryCache;
+import com.assignment.carstore.controller.ChargeSessionRequests;
+import com.assignment.carstore.domain.ChargeSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for ReactiveChargeHandler class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ReactiveChargeHandlerTest {
+
+  private SessionDataStorage sessionDataStorage;
+
+  private WebTestClient client;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() {
+    sessionDataStorage = new SessionDataStorageImpl();
+    client = client(null);
+  }
+
+  @Test
+  void submitSession() {
+    client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"stationId\": \"ABC-12345\"}")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.stationId").isEqualTo("ABC-12345")
+            .jsonPath("$.status").isEqualTo("IN_PROGRESS");
+    assertEquals(1, sessionDataStorage.retrieveAllSessions().size());
+  }
+
+  @Test
+  void idempotentSubmitIsNotRunOnTheCallingThread() {
+    List<String> threads = new CopyOnWriteArrayList<>();
+    sessionDataStorage = new SessionDataStorageImpl() {
+      @Override
+      public ChargeSession submitSession(ChargeSession session) {
+        threads.add(Thread.currentThread().getName());
+        return super.submitSession(session);
+      }
+    };
+    ObjectMapper objectMapper = new ObjectMapper();
+    IdempotencyCache idempotencyCache = new IdempotencyCache(Duration.ofMinutes(1), 100, new SimpleMeterRegistry(),
+            SessionClock.SYSTEM);
+    ReactiveChargeHandler handler = new ReactiveChargeHandler(
+            new ChargeSessionRequests(sessionDataStorage, objectMapper, null, SessionClock.SYSTEM, idempotencyCache,
+                    SessionIdGenerator.RANDOM),
+            objectMapper.writerFor(ChargeSession.class), Schedulers.immediate());
+    client = WebTestClient.bindToRouterFunction(ReactiveChargeConfiguration.routes(handler)).build();
+
+    for (int i = 0; i < 2; i++) {
+      client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+              .header(ChargeSessionRequests.IDEMPOTENCY_KEY, "key-1")
+              .bodyValue("{\"stationId\": \"ABC-12345\"}")
+              .exchange()
+              .expectStatus().isOk();
+    }
+    client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"stationId\": \"ABC-12345\"}")
+            .exchange()
+            .expectStatus().isOk();
+    assertEquals(2, threads.size());
+    assertTrue(threads.get(0).startsWith("boundedElastic"));
+    assertFalse(threads.get(1).startsWith("boundedElastic"));
+    client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+            .header(ChargeSessionRequests.IDEMPOTENCY_KEY, "key-1")
+            .bodyValue("{\"stationId\": \"ABC-67890\"}")
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  @Test
+  void storageCallsAreOffloadedIfTheyMayBlock() {
+    assertTrue(ReactiveChargeConfiguration.storageScheduler(new ConcurrentSessionDataStorageImpl(), false, false)
+            == Schedulers.immediate());
+    assertTrue(ReactiveChargeConfiguration.storageScheduler(new ConcurrentSessionDataStorageImpl(), true, false)
+            == Schedulers.boundedElastic());
+    assertTrue(ReactiveChargeConfiguration.storageScheduler(new SessionDataStorageImpl(), false, false)
+            == Schedulers.boundedElastic());
+  }
+
+  @Test
+  @Timeout(10)
+  void submitWaitingForASaturatedLogIsNotRunOnTheCallingThread() throws IOException {
+    List<String> threads = new CopyOnWriteArrayList<>();
+    sessionDataStorage = new ConcurrentSessionDataStorageImpl() {
+      @Override
+      public ChargeSession submitSession(ChargeSession session) {
+        threads.add(Thread.currentThread().getName());
+        return super.submitSession(session);
+      }
+    };
+    // the writer is not started yet, so the queue of a single record stays full after the first submit
+    WriteAheadLog writeAheadLog = new WriteAheadLog(directory, FsyncPolicy.INTERVAL, Duration.ofSeconds(1), 1);
+    sessionDataStorage.addSessionChangeListener(writeAheadLog);
+    ObjectMapper objectMapper = new ObjectMapper();
+    ReactiveChargeHandler handler = new ReactiveChargeHandler(
+            new ChargeSessionRequests(sessionDataStorage, objectMapper, null, SessionClock.SYSTEM, null,
+                    SessionIdGenerator.RANDOM),
+            objectMapper.writerFor(ChargeSession.class),
+            ReactiveChargeConfiguration.storageScheduler(sessionDataStorage, true, false));
+    client = WebTestClient.bindToRouterFunction(ReactiveChargeConfiguration.routes(handler))
+            .configureClient().responseTimeout(Duration.ofMillis(500)).build();
+    try {
+      client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+              .bodyValue("{\"stationId\": \"ABC-12345\"}")
+              .exchange()
+              .expectStatus().isOk();
+      Assertions.assertThrows(IllegalStateException.class, () ->
+              client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+                      .bodyValue("{\"stationId\": \"ABC-12345\"}")
+                      .exchange());
+      assertEquals(2, threads.size());
+      assertTrue(threads.get(1).startsWith("boundedElastic"));
+    } finally {
+      // the writer drains the queue, so the waiting submit completes
+      writeAheadLog.recover(new ConcurrentSessionDataStorageImpl());
+      writeAheadLog.close();
+    }
+  }
+
+  @Test
+  void submitSessionInvalidBody() {
+    client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"station\": \"ABC-12345\"}")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(String.class).value(containsString("stationId"));
+    client.post().uri("/chargingSessions").contentType(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void stopSession() {
+    ChargeSession session = sessionDataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+    client.put().uri("/chargingSessions/{id}", session.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.id").isEqualTo(session.getId().toString())
+            .jsonPath("$.status").isEqualTo("FINISHED");
+    client.put().uri("/chargingSessions/{id}", session.getId())
+            .exchange()
+            .expectStatus().isBadRequest();
+    client.put().uri("/chargingSessions/{id}", "not-an-id")
+            .exchange()
+            .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void submitAndStopSessions() {
+    client.post().uri("/chargingSessions/batch").contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("[{\"stationId\": \"ABC-1\"}, {\"station\": \"ABC-2\"}]")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$[0].status").isEqualTo(200)
+            .jsonPath("$[1].status").isEqualTo(400);
+    ChargeSession session = sessionDataStorage.retrieveAllSessions().iterator().next();
+    client.put().uri("/chargingSessions/batch/stop").contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("[\"" + session.getId() + "\"]")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$[0].session.status").isEqualTo("FINISHED");
+  }
+
+  @Test
+  void retrieveSessions() {
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < 3; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i % 2, now.minusMinutes(i)));
+    }
+    client.get().uri("/chargingSessions?stationId=ABC-0")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2);
+    client.get().uri("/chargingSessions?limit=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.sessions.length()").isEqualTo(2)
+            .jsonPath("$.next").exists();
+    client.get().uri("/chargingSessions?status=STOPPED")
+            .exchange()
+            .expectStatus().isBadRequest();
+    client.get().uri("/chargingSessions?limit=0")
+            .exchange()
+            .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void streamAllSessions() {
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < 600; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-12345", now.minusSeconds(i)));
+    }
+    String body = client.get().uri("/chargingSessions/stream")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(ChargeSessionRequests.APPLICATION_NDJSON_VALUE)
+            .expectBody(String.class).returnResult().getResponseBody();
+    assertNotNull(body);
+    assertEquals(600, body.split("\n").length);
+  }
+
+  @Test
+  void retrieveSummarySubmittedSessions() {
+    sessionDataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+    client.get().uri("/chargingSessions/summary")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.totalCount").isEqualTo(1);
+  }
+
+  @Test
+  void retrieveCachedSummarySubmittedSessions() {
+    client = client(new SummaryCache(sessionDataStorage, new ObjectMapper(), Duration.ofMinutes(1)));
+    sessionDataStorage.submitSession(new ChargeSession("ABC-12345", LocalDateTime.now()));
+    String etag = client.get().uri("/chargingSessions/summary")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.totalCount").isEqualTo(1)
+            .returnResult().getResponseHeaders().getETag();
+    assertNotNull(etag);
+    client.get().uri("/chargingSessions/summary").header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus().isNotModified();
+  }
+
+  private WebTestClient client(SummaryCache summaryCache) {
+    ObjectMapper objectMapper = new ObjectMapper();
+    ReactiveChargeHandler handler = new ReactiveChargeHandler(
+            new ChargeSessionRequests(sessionDataStorage, objectMapper, summaryCache, SessionClock.SYSTEM, null,
+                    SessionIdGenerator.RANDOM),
+            objectMapper.writerFor(ChargeSession.class), Schedulers.immediate());
+    return WebTestClient.bindToRouterFunction(ReactiveChargeConfiguration.routes(handler)).build();
+  }
+}
@@ -0,0 +1,117 @@
+package com.assignment.carstore.controller.reactive;
+
+import com.assignment.carstore.components.SessionDataStorage;
+import com.assignment.carstore.components.events.SessionEventBus;
+import com.assignment.carstore.components.impl.SessionDataStorageImpl;
+import com.assignment.carstore.domain.ChargeSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test for ReactiveEventHandler class.
+ *
+ * @author <a href="mailto:lexbaev@gmail.com">Aliaksei Lizunou</a>
+ */
+class ReactiveEventHandlerTest {
+
+  private SessionDataStorage sessionDataStorage;
+
+  private SessionEventBus bus;
+
+  private WebTestClient client;
+
+  @BeforeEach
+  void setUp() {
+    sessionDataStorage = new SessionDataStorageImpl();
+    bus = new SessionEventBus(16, 4);
+    sessionDataStorage.addSessionChangeListener(bus);
+    client = WebTestClient.bindToRouterFunction(
+            ReactiveChargeConfiguration.eventRoutes(new ReactiveEventHandler(bus, Duration.ofMinutes(1)))).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    bus.close();
+  }
+
+  @Test
+  void streamEvents() {
+    for (int i = 0; i < 3; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    List<ServerSentEvent<String>> events = client.get().uri("/chargingSessions/events")
+            .header("Last-Event-ID", bus.getEpoch() + "-1")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+            })
+            .getResponseBody()
+            .filter(event -> event.event() != null)
+            .take(2)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+    assertEquals(2, events.size());
+    assertEquals(bus.getEpoch() + "-2", events.get(0).id());
+    assertEquals("submitted", events.get(0).event());
+    assertThat(events.get(1).data(), containsString("ABC-2"));
+  }
+
+  @Test
+  void streamEventsReset() {
+    for (int i = 0; i < 20; i++) {
+      sessionDataStorage.submitSession(new ChargeSession("ABC-" + i, LocalDateTime.now()));
+    }
+    List<ServerSentEvent<String>> events = client.get().uri("/chargingSessions/events")
+            .header("Last-Event-ID", bus.getEpoch() + "-1")
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+            })
+            .getResponseBody()
+            .filter(event -> event.event() != null)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+    assertEquals(1, events.size());
+    assertEquals("reset", events.get(0).event());
+    assertEquals(0, bus.getSubscriberCount());
+  }
+
+  @Test
+  void streamEventsOfAnotherEpochReset() {
+    sessionDataStorage.submitSession(new ChargeSession("ABC-1", LocalDateTime.now()));
+    List<ServerSentEvent<String>> events = client.get().uri("/chargingSessions/events")
+            .header("Last-Event-ID", "1")
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+            })
+            .getResponseBody()
+            .filter(event -> event.event() != null)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+    assertEquals(1, events.size());
+    assertEquals("reset", events.get(0).event());
+  }
+
+  @Test
+  void streamEventsInvalidLastEventId() {
+    client.get().uri("/chargingSessions/events")
+            .header("Last-Event-ID", "abc")
+            .exchange()
+            .expectStatus().isBadRequest();
+  }
+}